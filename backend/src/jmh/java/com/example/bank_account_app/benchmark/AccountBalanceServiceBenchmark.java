@@ -0,0 +1,99 @@
+package com.example.bank_account_app.benchmark;
+
+import com.example.bank_account_app.config.AccountLockConf;
+import com.example.bank_account_app.config.BalanceResponseCacheConf;
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.example.bank_account_app.dto.CreditBalanceDTO;
+import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.LedgerMode;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.service.AccountBalanceService;
+import com.example.bank_account_app.service.AccountLockManager;
+import com.example.bank_account_app.service.BalanceResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credit, debit and balance mapping of {@link AccountBalanceService} in the jpa ledger mode against an in-memory
+ * repository, so the numbers show the cost of the service code itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBalanceServiceBenchmark {
+    private static final String CREATED_BY = "benchmark";
+
+    private AccountBalanceService accountBalanceService;
+    private Account account;
+    private CreditBalanceDTO credit;
+    private DebitBalanceDTO debit;
+    private List<AccountBalance> balances;
+
+    @Setup
+    public void setUp() {
+        LedgerConf ledgerConf = new LedgerConf();
+        ledgerConf.setMode(LedgerMode.JPA);
+        AccountLockConf lockConf = new AccountLockConf();
+        lockConf.setStripes(64);
+        BalanceResponseCacheConf cacheConf = new BalanceResponseCacheConf();
+        cacheConf.setMaxSize(1000);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccountLockManager accountLockManager = new AccountLockManager(lockConf, meterRegistry);
+        AccountBalanceRepository accountBalanceRepository = InMemoryAccountBalanceRepository.create();
+
+        // Both in-memory ledgers stay disabled, only their mode checks are on the measured path
+        accountBalanceService = new AccountBalanceService(accountBalanceRepository, accountLockManager,
+                new LedgerEngine(ledgerConf, null, accountBalanceRepository, null),
+                new EventLedger(ledgerConf, null, null, accountLockManager, null, meterRegistry),
+                new BalanceResponseCache(cacheConf, new ObjectMapper(), meterRegistry), meterRegistry);
+
+        account = Account.builder().id(1).accountNumber("EE123456789012345678").build();
+        credit = new CreditBalanceDTO(account.getAccountNumber(), Currency.EUR, new BigDecimal("10.25"));
+        debit = new DebitBalanceDTO(account.getAccountNumber(), Currency.EUR, new BigDecimal("10.25"));
+        // Large enough that debits never run out during a run
+        accountBalanceService.creditMoney(account,
+                new CreditBalanceDTO(account.getAccountNumber(), Currency.EUR, new BigDecimal("1000000000000")), CREATED_BY);
+        accountBalanceService.creditMoney(account,
+                new CreditBalanceDTO(account.getAccountNumber(), Currency.SEK, new BigDecimal("125.50")), CREATED_BY);
+        balances = accountBalanceService.getAccountBalances(account);
+    }
+
+    @Benchmark
+    public void creditMoney() {
+        accountBalanceService.creditMoney(account, credit, CREATED_BY);
+    }
+
+    @Benchmark
+    public void debitMoney() {
+        accountBalanceService.debitMoney(account, debit, CREATED_BY);
+    }
+
+    @Benchmark
+    public AccountBalanceDTO mapAccountBalancesToDTO() {
+        return accountBalanceService.mapAccountBalancesToDTO(balances, account);
+    }
+}
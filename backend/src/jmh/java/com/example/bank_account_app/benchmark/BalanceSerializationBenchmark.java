@@ -0,0 +1,70 @@
+package com.example.bank_account_app.benchmark;
+
+import com.example.bank_account_app.config.BalanceResponseCacheConf;
+import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.example.bank_account_app.dto.CurrencyBalance;
+import com.example.bank_account_app.service.BalanceResponseCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@link AccountBalanceDTO}: with the shared mapper, with the writer prepared by
+ * {@link BalanceResponseCache} and as a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceSerializationBenchmark {
+    private static final long VERSION = 1;
+
+    private ObjectMapper objectMapper;
+    private BalanceResponseCache balanceResponseCache;
+    private AccountBalanceDTO response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        BalanceResponseCacheConf config = new BalanceResponseCacheConf();
+        config.setMaxSize(1000);
+        balanceResponseCache = new BalanceResponseCache(config, objectMapper, new SimpleMeterRegistry());
+        response = new AccountBalanceDTO("EE123456789012345678", List.of(
+                new CurrencyBalance("EUR", "1520.75"),
+                new CurrencyBalance("USD", "200.00"),
+                new CurrencyBalance("SEK", "0"),
+                new CurrencyBalance("RUB", "0"),
+                new CurrencyBalance("KRW", "230895.38")));
+        balanceResponseCache.get(1, VERSION, () -> response);
+    }
+
+    @Benchmark
+    public byte[] objectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] preparedWriter() {
+        return balanceResponseCache.serialize(response);
+    }
+
+    @Benchmark
+    public byte[] cachedResponse() {
+        return balanceResponseCache.get(1, VERSION, () -> response);
+    }
+}
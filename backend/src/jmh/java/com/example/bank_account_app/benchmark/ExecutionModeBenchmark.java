@@ -0,0 +1,73 @@
+package com.example.bank_account_app.benchmark;
+
+import com.example.bank_account_app.config.ExecutionConf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to complete a burst of blocking requests in both execution modes. Every request waits 50 ms, like a slow
+ * query or rate provider call. Platform threads are capped at Tomcat's default of 200 request threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+    private static final int PLATFORM_REQUEST_THREADS = 200;
+    private static final int REQUESTS = 2_000;
+    private static final long BLOCKING_MILLIS = 50;
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutionConf config = new ExecutionConf();
+        config.setVirtualThreads("virtual".equals(mode));
+        executor = config.isVirtualThreads()
+                ? Executors.newThreadPerTaskExecutor(config.threadFactory("virtual-"))
+                : Executors.newFixedThreadPool(PLATFORM_REQUEST_THREADS, config.threadFactory("platform-"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public int blockingRequests() throws Exception {
+        List<Future<?>> results = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(executor.submit(() -> {
+                Thread.sleep(BLOCKING_MILLIS);
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        return results.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bank_account_app.benchmark;
+
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map backed {@link AccountBalanceRepository} for benchmarks, so that the service code is measured without the
+ * database. Only the queries used by the credit, debit and balance read paths are implemented. The balances of
+ * an account are not guarded, benchmarks using it run with a single thread.
+ */
+final class InMemoryAccountBalanceRepository {
+    private final Map<Long, Map<Currency, AccountBalance>> balances = new ConcurrentHashMap<>();
+
+    private InMemoryAccountBalanceRepository() {
+    }
+
+    static AccountBalanceRepository create() {
+        InMemoryAccountBalanceRepository repository = new InMemoryAccountBalanceRepository();
+        return (AccountBalanceRepository) Proxy.newProxyInstance(AccountBalanceRepository.class.getClassLoader(),
+                new Class<?>[]{AccountBalanceRepository.class},
+                (proxy, method, args) -> repository.invoke(proxy, method, args));
+    }
+
+    private Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "creditBalance" -> credit((long) args[0], (long) args[1], Currency.valueOf((String) args[2]),
+                    (long) args[3], (String) args[4]);
+            case "debitBalance" -> debit((long) args[0], Currency.valueOf((String) args[1]), (long) args[2],
+                    (String) args[3]);
+            case "findByAccountIdAndCurrency" -> balancesOf((long) args[0]).get((Currency) args[1]);
+            case "findAllByAccountId" -> new ArrayList<>(balancesOf((long) args[0]).values());
+            case "findBalancesVersion" -> balancesOf((long) args[0]).values().stream()
+                    .mapToLong(balance -> balance.getVersion() + 1)
+                    .sum();
+            case "toString" -> "InMemoryAccountBalanceRepository";
+            case "hashCode" -> System.identityHashCode(this);
+            case "equals" -> args[0] == proxy;
+            default -> throw new UnsupportedOperationException(method.getName() + " is not supported in benchmarks");
+        };
+    }
+
+    private int credit(long id, long accountId, Currency currency, long amount, String modifiedBy) {
+        Map<Currency, AccountBalance> accountBalances = balancesOf(accountId);
+        AccountBalance balance = accountBalances.get(currency);
+        if (balance == null) {
+            // a new balance starts at version 0, like the row inserted by the credit statement
+            accountBalances.put(currency, AccountBalance.builder()
+                    .id(id)
+                    .currency(currency)
+                    .balance(amount)
+                    .createdAt(LocalDateTime.now())
+                    .createdBy(modifiedBy)
+                    .build());
+            return 1;
+        }
+        modify(balance, Math.addExact(balance.getBalance(), amount), modifiedBy);
+        return 1;
+    }
+
+    private int debit(long accountId, Currency currency, long amount, String modifiedBy) {
+        AccountBalance balance = balancesOf(accountId).get(currency);
+        if (balance == null || balance.getBalance() < amount) {
+            return 0;
+        }
+        modify(balance, balance.getBalance() - amount, modifiedBy);
+        return 1;
+    }
+
+    private static void modify(AccountBalance balance, long newBalance, String modifiedBy) {
+        balance.setBalance(newBalance);
+        balance.setLastModifiedAt(LocalDateTime.now());
+        balance.setLastModifiedBy(modifiedBy);
+        balance.setVersion(balance.getVersion() + 1);
+    }
+
+    private Map<Currency, AccountBalance> balancesOf(long accountId) {
+        return balances.computeIfAbsent(accountId, key -> new EnumMap<>(Currency.class));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bank_account_app.benchmark;
+
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountNumberPermutation;
+import com.example.bank_account_app.util.AccountUtils;
+import com.example.bank_account_app.util.ExchangeRateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static helpers that are called on every request: fixed rate lookup and account number handling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    @Benchmark
+    public double getExchangeRate(RatePair pair) {
+        return ExchangeRateUtils.getExchangeRate(pair.from, pair.to);
+    }
+
+    @Benchmark
+    public boolean isValidAccountNumber(AccountNumber number) {
+        return AccountUtils.isValidAccountNumber(number.accountNumber);
+    }
+
+    // Work done per account number by AccountNumberGenerator, the database is only used once per block
+    @Benchmark
+    public String generateAccountNumber(Counter counter) {
+        return AccountNumberCodec.decode(counter.permutation.permute(counter.next++));
+    }
+
+    @State(Scope.Benchmark)
+    public static class RatePair {
+        @Param({"EUR", "KRW"})
+        Currency from;
+
+        @Param({"USD"})
+        Currency to;
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        AccountNumberPermutation permutation = new AccountNumberPermutation(42);
+        long next;
+    }
+
+    @State(Scope.Benchmark)
+    public static class AccountNumber {
+        @Param({"EE123456789012345678", "EE12345678901234567X"})
+        String accountNumber;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bank_account_app.loadtest;
+
+/**
+ * REST endpoints driven by the load test. The key is used in the mix option and in the names of the result files.
+ */
+enum Endpoint {
+    CREDIT("credit", "POST /api/account-balance/credit"),
+    DEBIT("debit", "POST /api/account-balance/debit"),
+    BALANCES("balances", "GET /api/account-balances/{n}"),
+    FIXED("fixed", "POST /api/currency-exchange/fixed"),
+    FLOATING("floating", "POST /api/currency-exchange/floating");
+
+    private final String key;
+    private final String description;
+
+    Endpoint(String key, String description) {
+        this.key = key;
+        this.description = description;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String description() {
+        return description;
+    }
+
+    static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint " + key + " in mix");
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.bank_account_app.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model load generator. Requests are started on a fixed schedule no matter how long earlier requests take, and
+ * every latency is measured from the scheduled start, so queueing in the client or the app is part of the result
+ * instead of hiding it (coordinated omission).
+ */
+class LoadGenerator {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long HIGHEST_LATENCY_MICROS = REQUEST_TIMEOUT.toNanos() / 1000 * 2;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<String> accountNumbers;
+    private final LoadTestOptions options;
+    private final Endpoint[] schedule;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    LoadGenerator(HttpClient client, String baseUrl, List<String> accountNumbers, LoadTestOptions options) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.accountNumbers = accountNumbers;
+        this.options = options;
+        this.schedule = buildSchedule(options.mix());
+        options.mix().forEach((endpoint, weight) -> {
+            if (weight > 0) {
+                stats.put(endpoint, new EndpointStats());
+            }
+        });
+    }
+
+    /**
+     * Runs the warmup and the measured part, then waits for outstanding requests and writes the results.
+     */
+    void run(PrintStream out) throws IOException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+
+        Files.createDirectories(options.output());
+        Map<Endpoint, HistogramLogWriter> logs = openLogs();
+        long nextReport = measureFrom;
+        boolean measuring = false;
+
+        Phaser outstanding = new Phaser(1);
+        for (long sequence = 0; ; sequence++) {
+            long intendedStart = start + sequence * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            if (!measuring && intendedStart >= measureFrom) {
+                // Everything recorded so far is warmup
+                stats.values().forEach(EndpointStats::reset);
+                measuring = true;
+                out.printf("Warmup done, measuring for %s at %d requests/s%n", options.duration(), options.rate());
+            }
+            if (measuring && intendedStart >= nextReport + TimeUnit.SECONDS.toNanos(1)) {
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+                writeIntervals(logs);
+            }
+            waitUntil(intendedStart);
+
+            Endpoint endpoint = schedule[(int) (sequence % schedule.length)];
+            String accountNumber = accountNumbers.get(ThreadLocalRandom.current().nextInt(accountNumbers.size()));
+            outstanding.register();
+            send(endpoint, accountNumber, intendedStart).whenComplete((result, ex) -> outstanding.arriveAndDeregister());
+        }
+        outstanding.arriveAndAwaitAdvance();
+        writeIntervals(logs);
+        logs.values().forEach(HistogramLogWriter::close);
+        writeReport(out);
+    }
+
+    /**
+     * Sends without blocking, so the schedule never waits for a response.
+     */
+    private CompletableFuture<HttpResponse<Void>> send(Endpoint endpoint, String accountNumber, long intendedStart) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        return client.sendAsync(request(endpoint, accountNumber), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, ex) ->
+                        endpointStats.record(intendedStart, ex == null && response.statusCode() / 100 == 2));
+    }
+
+    private HttpRequest request(Endpoint endpoint, String accountNumber) {
+        return switch (endpoint) {
+            case CREDIT -> post("/api/account-balance/credit", """
+                    {"accountNumber":"%s","currency":"EUR","amount":1.00}""".formatted(accountNumber));
+            case DEBIT -> post("/api/account-balance/debit", """
+                    {"accountNumber":"%s","currency":"EUR","amount":1.00}""".formatted(accountNumber));
+            case BALANCES -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/account-balances/" + accountNumber))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+            case FIXED -> post("/api/currency-exchange/fixed", """
+                    {"accountNumber":"%s","fromCurrency":"EUR","toCurrency":"USD","amount":1.00}""".formatted(accountNumber));
+            case FLOATING -> post("/api/currency-exchange/floating", """
+                    {"accountNumber":"%s","fromCurrency":"EUR","toCurrency":"SEK","amount":1.00}""".formatted(accountNumber));
+        };
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Endpoints repeated by weight and shuffled once, so the mix is exact over every full round.
+     */
+    private static Endpoint[] buildSchedule(Map<Endpoint, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Endpoint[] schedule = new Endpoint[total];
+        int index = 0;
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                schedule[index++] = entry.getKey();
+            }
+        }
+        for (int i = schedule.length - 1; i > 0; i--) {
+            int other = ThreadLocalRandom.current().nextInt(i + 1);
+            Endpoint swapped = schedule[i];
+            schedule[i] = schedule[other];
+            schedule[other] = swapped;
+        }
+        return schedule;
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private Map<Endpoint, HistogramLogWriter> openLogs() throws IOException {
+        Map<Endpoint, HistogramLogWriter> logs = new EnumMap<>(Endpoint.class);
+        long startMillis = System.currentTimeMillis();
+        for (Endpoint endpoint : stats.keySet()) {
+            HistogramLogWriter log = new HistogramLogWriter(options.output().resolve(endpoint.key() + ".hlog").toFile());
+            log.outputComment("[" + endpoint.description() + ", latency in microseconds]");
+            log.outputStartTime(startMillis);
+            log.setBaseTime(startMillis);
+            log.outputLegend();
+            logs.put(endpoint, log);
+        }
+        return logs;
+    }
+
+    private void writeIntervals(Map<Endpoint, HistogramLogWriter> logs) {
+        stats.forEach((endpoint, endpointStats) -> logs.get(endpoint).outputIntervalHistogram(endpointStats.interval()));
+    }
+
+    private void writeReport(PrintStream out) throws IOException {
+        out.println();
+        out.printf("%-36s %9s %7s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "p50 ms", "p99 ms",
+                "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            Histogram total = entry.getValue().total();
+            out.printf("%-36s %9d %7d %10.2f %10.2f %10.2f %10.2f%n", entry.getKey().description(),
+                    total.getTotalCount(), entry.getValue().errors.get(),
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(99)),
+                    millis(total.getValueAtPercentile(99.9)), millis(total.getMaxValue()));
+
+            Path distribution = options.output().resolve(entry.getKey().key() + ".hgrm");
+            try (PrintStream file = new PrintStream(Files.newOutputStream(distribution))) {
+                total.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+        out.printf("%nPercentile distributions (.hgrm, ms) and interval logs (.hlog, us) are in %s%n",
+                options.output().toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Latencies in microseconds of one endpoint. The recorder hands out per second intervals for the log, the total
+     * histogram sums them up for the report.
+     */
+    private static class EndpointStats {
+        private final Recorder recorder = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+        private final Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private Histogram reusable;
+
+        void record(long intendedStart, boolean success) {
+            long micros = (System.nanoTime() - intendedStart) / 1000;
+            recorder.recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Histogram interval() {
+            reusable = recorder.getIntervalHistogram(reusable);
+            total.add(reusable);
+            return reusable;
+        }
+
+        Histogram total() {
+            return total;
+        }
+
+        void reset() {
+            recorder.reset();
+            errors.set(0);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bank_account_app.loadtest;
+
+import com.example.bank_account_app.BankAccountAppApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test of the REST API. Boots the app on its in-memory H2 database with a local rate provider stub,
+ * creates and funds accounts, then drives the configured endpoint mix at a fixed arrival rate and reports latency
+ * percentiles and errors per endpoint. Needs no network. Run with {@code mvn -Ploadtest verify}, see
+ * {@link LoadTestOptions} for the arguments.
+ */
+public final class LoadTest {
+    private static final Pattern ACCOUNT_NUMBER = Pattern.compile("\"accountNumber\"\\s*:\\s*\"(EE\\d{18})\"");
+    private static final String FUNDING = "1000000.00";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        try (RateProviderStub stub = new RateProviderStub(options.stubLatency(), options.stubErrorRate());
+             ConfigurableApplicationContext app = startApplication(options, stub)) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+
+            List<String> accountNumbers = createAccounts(client, baseUrl, options.accounts());
+            System.out.printf("Created %d accounts, rate provider stub at %s (latency %s, error rate %.3f)%n",
+                    accountNumbers.size(), stub.endpoint(), options.stubLatency(), options.stubErrorRate());
+
+            new LoadGenerator(client, baseUrl, accountNumbers, options).run(System.out);
+            System.out.printf("Rate provider stub served %d requests, %d of them failed on purpose%n",
+                    stub.getRequests(), stub.getFailures());
+        }
+    }
+
+    /**
+     * Starts the app on a random port against the stub. Harness defaults are only used when the same property is not
+     * given in the application arguments.
+     */
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options, RateProviderStub stub) {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("bank-account-app.currency-exchange.endpoint", stub.endpoint());
+        // Debug logging of every request would be measured instead of the app
+        defaults.put("logging.level.com.example.bank_account_app", "WARN");
+
+        List<String> args = new ArrayList<>(options.applicationArgs());
+        defaults.forEach((property, value) -> {
+            if (args.stream().noneMatch(arg -> arg.startsWith("--" + property + "="))) {
+                args.add("--" + property + "=" + value);
+            }
+        });
+        return SpringApplication.run(BankAccountAppApplication.class, args.toArray(String[]::new));
+    }
+
+    /**
+     * Creates the accounts through the API and credits every one of them, so debits and exchanges do not run out.
+     */
+    private static List<String> createAccounts(HttpClient client, String baseUrl, int count)
+            throws IOException, InterruptedException {
+        List<String> accountNumbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String created = post(client, baseUrl + "/api/account/create", "{\"accountHolder\":\"Load Test\"}");
+            Matcher matcher = ACCOUNT_NUMBER.matcher(created);
+            if (!matcher.find()) {
+                throw new IllegalStateException("Account was not created: " + created);
+            }
+            String accountNumber = matcher.group(1);
+            post(client, baseUrl + "/api/account-balance/credit", """
+                    {"accountNumber":"%s","currency":"EUR","amount":%s}""".formatted(accountNumber, FUNDING));
+            accountNumbers.add(accountNumber);
+        }
+        return accountNumbers;
+    }
+
+    private static String post(HttpClient client, String url, String body) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("POST " + url + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bank_account_app.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given as {@code key=value} arguments. Arguments starting with {@code --} are passed
+ * on to the application, e.g. {@code --bank-account-app.ledger.mode=engine}.
+ *
+ * @param rate             requests per second started by the open model, independent of response times
+ * @param duration         measured part of the run
+ * @param warmup           run time before measuring starts, its requests are not reported
+ * @param mix              relative weight of every endpoint
+ * @param accounts         accounts created and funded before the run, requests pick one at random
+ * @param stubLatency      delay of every rate provider stub response
+ * @param stubErrorRate    share of rate provider stub responses that fail with 500
+ * @param output           directory of the HdrHistogram result files
+ * @param applicationArgs  arguments passed on to the application
+ */
+record LoadTestOptions(int rate, Duration duration, Duration warmup, Map<Endpoint, Integer> mix, int accounts,
+                       Duration stubLatency, double stubErrorRate, Path output, List<String> applicationArgs) {
+    private static final String DEFAULT_MIX = "credit:30,debit:20,balances:40,fixed:5,floating:5";
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Invalid argument " + arg + ", expected <key>=<value>");
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("rate", "200")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                Integer.parseInt(values.getOrDefault("accounts", "100")),
+                DurationStyle.detectAndParse(values.getOrDefault("stub-latency", "50ms")),
+                Double.parseDouble(values.getOrDefault("stub-error-rate", "0")),
+                Path.of(values.getOrDefault("output", "target/loadtest")),
+                Collections.unmodifiableList(applicationArgs));
+        if (options.rate < 1 || options.accounts < 1) {
+            throw new IllegalArgumentException("Rate and accounts must be positive");
+        }
+        if (options.stubErrorRate < 0 || options.stubErrorRate > 1) {
+            throw new IllegalArgumentException("Stub error rate must be between 0 and 1");
+        }
+        return options;
+    }
+
+    /**
+     * Parses weights like {@code credit:30,balances:70}. Endpoints that are not listed are not called.
+     */
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry " + entry + ", expected <endpoint>:<weight>");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + parts[0] + " must not be negative");
+            }
+            mix.put(Endpoint.fromKey(parts[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix must contain at least one endpoint with a positive weight");
+        }
+        return Collections.unmodifiableMap(mix);
+    }
+}
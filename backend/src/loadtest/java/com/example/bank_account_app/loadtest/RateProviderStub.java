@@ -0,0 +1,88 @@
+package com.example.bank_account_app.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the exchange rate provider configured in {@code bank-account-app.currency-exchange.endpoint}.
+ * Answers {@code GET /v6/latest/{base}} in the format of the real provider after the configured latency, and fails
+ * the configured share of requests with 500.
+ */
+class RateProviderStub implements AutoCloseable {
+    private static final String PATH = "/v6/latest/";
+    private static final String RATES = """
+            {"result":"success","base_code":"USD","rates":{"USD":1.0,"EUR":0.91,"SEK":10.45,"RUB":88.5,"KRW":1320.0}}
+            """;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final double errorRate;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    RateProviderStub(Duration latency, double errorRate) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Own platform threads, so injected latency neither limits concurrency nor competes with virtual threads of the app
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext(PATH, this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Value for {@code bank-account-app.currency-exchange.endpoint}, the base currency is appended by the app.
+     */
+    String endpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    long getFailures() {
+        return failures.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] body = RATES.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
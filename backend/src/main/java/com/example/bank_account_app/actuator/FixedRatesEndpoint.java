@@ -0,0 +1,52 @@
+package com.example.bank_account_app.actuator;
+
+import com.example.bank_account_app.service.FixedRateService;
+import com.example.bank_account_app.util.ExchangeRateUtils.FixedRates;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to inspect the fixed exchange rates (GET /actuator/fixedrates) and reload them from the
+ * configured file (POST /actuator/fixedrates).
+ */
+@Slf4j
+@Component
+@Endpoint(id = "fixedrates")
+public class FixedRatesEndpoint {
+    private final FixedRateService fixedRateService;
+
+    public FixedRatesEndpoint(FixedRateService fixedRateService) {
+        this.fixedRateService = fixedRateService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> fixedRates() {
+        return describe(fixedRateService.getFixedRates());
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> reload() {
+        try {
+            return new WebEndpointResponse<>(describe(fixedRateService.reload()));
+        } catch (IllegalArgumentException | UncheckedIOException ex) {
+            log.warn("Fixed exchange rates not reloaded: {}", ex.getMessage());
+            return new WebEndpointResponse<>(Map.of("error", ex.getMessage()), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    private Map<String, Object> describe(FixedRates fixedRates) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("version", fixedRates.version());
+        result.put("loadedAt", fixedRates.matrix().getFetchedAt());
+        result.put("rates", fixedRates.matrix().toMap());
+        return result;
+    }
+}
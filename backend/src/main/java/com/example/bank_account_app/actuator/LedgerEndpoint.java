@@ -0,0 +1,52 @@
+package com.example.bank_account_app.actuator;
+
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.EventLedger.RebuildResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to inspect the ledger (GET /actuator/ledger) and rebuild all balances of the events ledger
+ * mode from the transaction log (POST /actuator/ledger).
+ */
+@Slf4j
+@Component
+@Endpoint(id = "ledger")
+public class LedgerEndpoint {
+    private final LedgerConf ledgerConf;
+    private final EventLedger eventLedger;
+
+    public LedgerEndpoint(LedgerConf ledgerConf, EventLedger eventLedger) {
+        this.ledgerConf = ledgerConf;
+        this.eventLedger = eventLedger;
+    }
+
+    @ReadOperation
+    public Map<String, Object> ledger() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", ledgerConf.getMode());
+        if (eventLedger.isEnabled()) {
+            result.put("loadedAccounts", eventLedger.getLoadedAccounts());
+        }
+        return result;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> rebuild() {
+        if (!eventLedger.isEnabled()) {
+            log.warn("Balances not rebuilt, the ledger mode is {}", ledgerConf.getMode());
+            return new WebEndpointResponse<>(Map.of("error", "Rebuild needs the events ledger mode"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        RebuildResult result = eventLedger.rebuild();
+        return new WebEndpointResponse<>(result);
+    }
+}
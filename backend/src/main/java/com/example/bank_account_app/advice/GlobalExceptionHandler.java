@@ -3,6 +3,8 @@ package com.example.bank_account_app.advice;
 
 import com.example.bank_account_app.exceptions.BalanceNotFoundException;
 import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @Slf4j
 @RestControllerAdvice()
 @Order(Ordered.HIGHEST_PRECEDENCE)
@@ -29,6 +33,25 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
     }
 
+    @ExceptionHandler(LedgerBusyException.class)
+    public ResponseEntity<String> handleLedgerBusy(LedgerBusyException ex) {
+        log.warn("Operation withdrawn: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("The ledger is busy, nothing was changed, try again later");
+    }
+
+    @ExceptionHandler(OutcomeUnknownException.class)
+    public ResponseEntity<String> handleOutcomeUnknown(OutcomeUnknownException ex) {
+        log.error("Outcome unknown: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("The outcome of the operation is unknown, check the balance before retrying");
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejectedExecution(RejectedExecutionException ex) {
+        log.warn("Request rejected, executor is full: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many requests in progress, try again later");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGenericException(Exception ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("An error occurred: " + ex.getMessage());
@@ -0,0 +1,30 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class AccountCacheConf {
+
+    @Min(0)
+    @Value("${bank-account-app.account-cache.max-size:100000}")
+    private long maxSize; // cached accounts, the least valuable ones are evicted first, 0 disables the cache
+
+    @NotNull
+    @Value("${bank-account-app.account-cache.ttl:30m}")
+    private Duration ttl; // bounds how long a change made by another instance can go unnoticed
+}
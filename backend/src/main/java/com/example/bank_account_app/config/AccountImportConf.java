@@ -0,0 +1,31 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class AccountImportConf {
+
+    @Min(1)
+    @Value("${bank-account-app.account-import.commit-size:5000}")
+    private int commitSize; // accounts saved in one database transaction, a failed transaction rejects only its lines
+
+    @Min(1)
+    @Value("${bank-account-app.account-import.jdbc-batch-size:1000}")
+    private int jdbcBatchSize; // statements sent to the database in one JDBC batch
+
+    @Min(0)
+    @Value("${bank-account-app.account-import.max-reported-errors:1000}")
+    private int maxReportedErrors; // rejected lines listed in the response, all of them are counted
+}
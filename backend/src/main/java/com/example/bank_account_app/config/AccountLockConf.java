@@ -0,0 +1,23 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class AccountLockConf {
+
+    @Min(1)
+    @Value("${bank-account-app.account-lock.stripes:64}")
+    private int stripes; // number of locks shared by all accounts
+}
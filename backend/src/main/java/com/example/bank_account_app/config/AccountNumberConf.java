@@ -0,0 +1,25 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class AccountNumberConf {
+
+    @Min(1)
+    @Max(10000)
+    @Value("${bank-account-app.account-number.block-size:1000}")
+    private int blockSize; // account numbers reserved with one database round trip, unused ones are skipped on restart
+}
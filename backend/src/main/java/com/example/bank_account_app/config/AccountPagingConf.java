@@ -0,0 +1,31 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class AccountPagingConf {
+
+    @Min(1)
+    @Value("${bank-account-app.account-paging.default-limit:100}")
+    private int defaultLimit; // page size when the request does not give a limit
+
+    @Min(1)
+    @Value("${bank-account-app.account-paging.max-limit:1000}")
+    private int maxLimit; // largest accepted page size, larger exports use the stream endpoint
+
+    @Min(1)
+    @Value("${bank-account-app.account-paging.stream-fetch-size:500}")
+    private int streamFetchSize; // rows the JDBC driver reads per round trip while streaming
+}
@@ -0,0 +1,27 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class BalanceBatchConf {
+
+    @Min(1)
+    @Value("${bank-account-app.balance-batch.max-items:10000}")
+    private int maxItems; // largest accepted batch request
+
+    @Min(1)
+    @Value("${bank-account-app.balance-batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize; // statements sent to the database in one JDBC batch
+}
@@ -0,0 +1,23 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class BalanceResponseCacheConf {
+
+    @Min(0)
+    @Value("${bank-account-app.balance-response-cache.max-size:100000}")
+    private long maxSize; // accounts whose serialized balance response is kept, 0 disables the cache
+}
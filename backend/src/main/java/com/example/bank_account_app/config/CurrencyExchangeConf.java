@@ -1,5 +1,7 @@
 package com.example.bank_account_app.config;
 
+import com.example.bank_account_app.enums.Currency;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -27,4 +29,28 @@ public class CurrencyExchangeConf {
     @NotBlank
     @Value("${bank-account-app.currency-exchange.endpoint}")
     private String currencyExchangeEndpoint;
-}
\ No newline at end of file
+
+    @NotNull
+    @Value("${bank-account-app.currency-exchange.base-currency:USD}")
+    private Currency baseCurrency; // the only base fetched for exchanges, all cross rates are derived from it
+
+    @NotNull
+    @Value("${bank-account-app.currency-exchange.cache.ttl:10m}")
+    private Duration cacheTtl; // cached rates of a base currency are not used after this age
+
+    @NotNull
+    @Value("${bank-account-app.currency-exchange.cache.refresh-after:8m}")
+    private Duration cacheRefreshAfter; // rates older than this are refreshed in the background on the next request
+
+    @Min(1)
+    @Value("${bank-account-app.currency-exchange.cache.max-size:100}")
+    private int cacheMaxSize; // number of cached base currencies
+
+    @Min(1)
+    @Value("${bank-account-app.currency-exchange.executor.threads:8}")
+    private int executorThreads; // threads that apply floating exchanges to the database after the rate is known
+
+    @Min(1)
+    @Value("${bank-account-app.currency-exchange.executor.queue-capacity:1000}")
+    private int executorQueueCapacity; // floating exchanges waiting for a thread, further ones are rejected
+}
@@ -0,0 +1,51 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class DataGeneratorConf {
+
+    @Value("${bank-account-app.data-generator.enabled:false}")
+    private boolean enabled; // true = generate the dataset below instead of the sample accounts when the database is empty
+
+    @Min(1)
+    @Value("${bank-account-app.data-generator.accounts:1000000}")
+    private int accounts; // number of generated accounts
+
+    @Min(1)
+    @Max(5)
+    @Value("${bank-account-app.data-generator.balances-per-account:2}")
+    private int balancesPerAccount; // balances of every account, each in a different currency
+
+    @Min(0)
+    @Value("${bank-account-app.data-generator.transactions-per-account:10}")
+    private int transactionsPerAccount; // credits and debits of every account
+
+    @Value("${bank-account-app.data-generator.seed:42}")
+    private long seed; // the same seed generates the same holders, currencies, amounts and transactions, and on a new database the same account numbers
+
+    @Min(0)
+    @Value("${bank-account-app.data-generator.parallelism:0}")
+    private int parallelism; // generating threads, 0 = number of cores
+
+    @Min(1)
+    @Value("${bank-account-app.data-generator.chunk-size:10000}")
+    private int chunkSize; // accounts generated and committed together by one thread
+
+    @Min(1)
+    @Value("${bank-account-app.data-generator.jdbc-batch-size:1000}")
+    private int jdbcBatchSize; // statements sent to the database in one JDBC batch
+}
@@ -0,0 +1,32 @@
+package com.example.bank_account_app.config;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ThreadFactory;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+public class ExecutionConf {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads; // the same switch that moves Tomcat request handling to virtual threads
+
+    /**
+     * Thread factory of the configured execution mode. Platform threads are daemons, so they do not keep the
+     * application alive.
+     */
+    public ThreadFactory threadFactory(String namePrefix) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(namePrefix, 1).factory();
+        }
+        return Thread.ofPlatform().name(namePrefix, 1).daemon(true).factory();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class FixedRatesConf {
+
+    @NotBlank
+    @Value("${bank-account-app.fixed-rates.location:classpath:fixed-rates.properties}")
+    private String location; // classpath: or file: resource, read on startup and on every reload
+}
@@ -0,0 +1,35 @@
+package com.example.bank_account_app.config;
+
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Slf4j
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class IdGeneratorConf {
+
+    @Min(0)
+    @Max(SnowflakeIdGenerator.MAX_NODE_ID)
+    @Value("${bank-account-app.id-generator.node-id:0}")
+    private int nodeId; // must be unique for every application instance writing to the same database
+
+    @PostConstruct
+    public void configure() {
+        SnowflakeIdGenerator.configureShared(nodeId);
+        log.info("Id generator configured with node id {}", nodeId);
+    }
+}
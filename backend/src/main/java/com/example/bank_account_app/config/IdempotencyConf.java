@@ -0,0 +1,34 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class IdempotencyConf {
+
+    @Min(0)
+    @Value("${bank-account-app.idempotency.max-size:100000}")
+    private long maxSize; // keys whose response is kept in memory, older keys are looked up in the database
+
+    @Value("${bank-account-app.idempotency.ttl:24h}")
+    private Duration ttl; // how long a key is remembered, a retry after that is applied again
+
+    @Value("${bank-account-app.idempotency.pending-timeout:30s}")
+    private Duration pendingTimeout; // a key whose first request did not finish in this time, e.g. after a crash, can be claimed again
+
+    @Value("${bank-account-app.idempotency.cleanup-interval:10m}")
+    private Duration cleanupInterval; // delay between deletions of expired keys from the database
+}
@@ -0,0 +1,75 @@
+package com.example.bank_account_app.config;
+
+import com.example.bank_account_app.enums.LedgerMode;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class LedgerConf {
+
+    @NotNull
+    @Value("${bank-account-app.ledger.mode:jpa}")
+    private LedgerMode mode; // where balances are mutated
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.shards:8}")
+    private int shards; // number of single-writer shards, accounts are partitioned by id
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.queue-capacity:10000}")
+    private int queueCapacity; // pending operations per shard before callers wait
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.batch-size:500}")
+    private int batchSize; // rows per JDBC batch when flushing to the database
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.write-behind-capacity:100000}")
+    private int writeBehindCapacity; // queued balance changes before the shards wait
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.max-flush-attempts:5}")
+    private int maxFlushAttempts; // failed batch flushes before rows are written one by one, rejected rows block the engine
+
+    @NotNull
+    @Value("${bank-account-app.ledger.flush-interval:5ms}")
+    private Duration flushInterval; // delay between write-behind flushes
+
+    @NotNull
+    @Value("${bank-account-app.ledger.enqueue-timeout:100ms}")
+    private Duration enqueueTimeout; // how long a full shard or write-behind queue is waited for before 503
+
+    @NotNull
+    @Value("${bank-account-app.ledger.operation-timeout:2s}")
+    private Duration operationTimeout; // how long a caller waits for its shard to apply an operation
+
+    @NotNull
+    @Value("${bank-account-app.ledger.snapshot-interval:30s}")
+    private Duration snapshotInterval; // delay between balance snapshots in the events mode
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.snapshot-min-events:100}")
+    private int snapshotMinEvents; // accounts with fewer events since their last snapshot are skipped
+
+    @Min(1)
+    @Value("${bank-account-app.ledger.replay-fetch-size:1000}")
+    private int replayFetchSize; // transactions fetched per round trip when the log is replayed
+
+    @Min(0)
+    @Value("${bank-account-app.ledger.rebuild-parallelism:0}")
+    private int rebuildParallelism; // threads replaying the log in a rebuild, 0 = number of cores
+}
@@ -0,0 +1,27 @@
+package com.example.bank_account_app.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class TransactionHistoryConf {
+
+    @Min(1)
+    @Value("${bank-account-app.transaction-history.default-limit:50}")
+    private int defaultLimit; // page size when the request does not give a limit
+
+    @Min(1)
+    @Value("${bank-account-app.transaction-history.max-limit:500}")
+    private int maxLimit; // largest accepted page size
+}
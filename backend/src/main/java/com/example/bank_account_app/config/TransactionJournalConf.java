@@ -0,0 +1,47 @@
+package com.example.bank_account_app.config;
+
+import com.example.bank_account_app.enums.JournalAckMode;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Configuration
+@Validated
+public class TransactionJournalConf {
+
+    @Min(1)
+    @Value("${bank-account-app.transaction-journal.capacity:16384}")
+    private int capacity; // queued transactions before callers are blocked
+
+    @Min(1)
+    @Value("${bank-account-app.transaction-journal.batch-size:500}")
+    private int batchSize; // a group commit is written as soon as this many transactions are queued
+
+    @NotNull
+    @Value("${bank-account-app.transaction-journal.flush-interval:2ms}")
+    private Duration flushInterval; // longest time a queued transaction waits for its group commit
+
+    @NotNull
+    @Value("${bank-account-app.transaction-journal.ack-mode:durable}")
+    private JournalAckMode ackMode; // default acknowledgement of TransactionService callers
+
+    @NotNull
+    @Value("${bank-account-app.transaction-journal.ack-timeout:5s}")
+    private Duration ackTimeout; // how long a caller waits for free space or for the durable acknowledgement
+
+    @Min(1)
+    @Value("${bank-account-app.transaction-journal.max-attempts:3}")
+    private int maxAttempts; // writes of a failed group commit before its transactions are given up
+}
@@ -1,14 +1,19 @@
 package com.example.bank_account_app.controller;
 
 import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.example.bank_account_app.dto.BalanceBatchRequestDTO;
+import com.example.bank_account_app.dto.BalanceBatchResultDTO;
 import com.example.bank_account_app.dto.CreditBalanceDTO;
 import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.dto.TransactionCommand;
 import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
 import com.example.bank_account_app.model.Account;
-import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.service.AccountBalanceService;
 import com.example.bank_account_app.service.AccountService;
+import com.example.bank_account_app.service.BalanceBatchService;
+import com.example.bank_account_app.service.IdempotencyService;
 import com.example.bank_account_app.service.TransactionService;
 import com.example.bank_account_app.util.AccountUtils;
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,11 +26,11 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @Slf4j
 @RestController
@@ -35,6 +40,8 @@ public class AccountBalanceController {
     private final AccountBalanceService accountBalanceService;
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final BalanceBatchService balanceBatchService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Feature 3: Get account balances by account number. Retrieve the account balance for all supported currencies.
@@ -65,12 +72,10 @@ public class AccountBalanceController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
         }
 
-        // Fetch account balances for all supported currencies
-        List<AccountBalance> accountBalances = accountBalanceService.getAccountBalances(account);
-
-        // Create response DTO
-        AccountBalanceDTO response = accountBalanceService.mapAccountBalancesToDTO(accountBalances, account);
-        return ResponseEntity.ok(response);
+        // Fetch account balances for all supported currencies, already serialized
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(accountBalanceService.getAccountBalancesJson(account));
     }
 
     /**
@@ -83,10 +88,19 @@ public class AccountBalanceController {
             @ApiResponse(responseCode = "404", description = "Not found - The account does not exist",
                     content = @Content()),
             @ApiResponse(responseCode = "400", description = "Bad request - Invalid CreditBalanceDTO payload",
+                    content = @Content()),
+            @ApiResponse(responseCode = "409", description = "Conflict - A request with the same Idempotency-Key is in progress",
+                    content = @Content()),
+            @ApiResponse(responseCode = "422", description = "Unprocessable entity - Idempotency-Key was used for a different request",
+                    content = @Content()),
+            @ApiResponse(responseCode = "503", description = "Service unavailable - The ledger is busy and nothing was changed, "
+                    + "or the outcome is unknown and a retry with the same Idempotency-Key is not applied again",
                     content = @Content())
     })
     @PostMapping("/account-balance/credit")
     public ResponseEntity<?> depositMoney(
+            @Parameter(description = "Unique key of the request, a retry with the same key is not applied again")
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CreditBalanceDTO creditBalanceDTO,
             Errors errors) {
 
@@ -97,6 +111,11 @@ public class AccountBalanceController {
             return ResponseEntity.badRequest().body(errors.getAllErrors());
         }
 
+        // A retry with the same Idempotency-Key gets the response of the first request
+        return idempotencyService.execute(idempotencyKey, "credit", creditBalanceDTO, () -> credit(creditBalanceDTO));
+    }
+
+    private ResponseEntity<?> credit(CreditBalanceDTO creditBalanceDTO) {
         // Fetch account by account number
         Account account = accountService.getAccountByAccountNumber(creditBalanceDTO.getAccountNumber());
         if (account == null) {
@@ -107,15 +126,16 @@ public class AccountBalanceController {
         // Deposit money into account for the specified currency
         accountBalanceService.creditMoney(account, creditBalanceDTO, account.getAccountHolder());
 
-        // Also save this step as a transaction
-        TransactionCommand cmd = TransactionCommand.builder()
-                .account(account)
-                .amount(creditBalanceDTO.getAmount())
-                .currency(creditBalanceDTO.getCurrency())
-                .type(TransactionType.CREDIT)
-                .createdBy(account.getAccountHolder())
-                .build();
-        transactionService.createNewTransaction(cmd);
+        // Also save this step as a transaction, unless the balance change already was one
+        if (!accountBalanceService.recordsTransactions()) {
+            TransactionCommand cmd = TransactionCommand.builder()
+                    .account(account)
+                    .amount(Money.of(creditBalanceDTO.getAmount(), creditBalanceDTO.getCurrency()))
+                    .type(TransactionType.CREDIT)
+                    .createdBy(account.getAccountHolder())
+                    .build();
+            recordTransaction(cmd);
+        }
 
         log.info("Deposit successful");
         return ResponseEntity.ok("Deposit/Credit successful");
@@ -134,11 +154,19 @@ public class AccountBalanceController {
                     content = @Content()),
             @ApiResponse(responseCode = "400", description = "Bad request - Invalid CreditBalanceDTO payload",
                     content = @Content()),
-            @ApiResponse(responseCode = "422", description = "Unprocessable entity - Insufficient balance",
+            @ApiResponse(responseCode = "409", description = "Conflict - A request with the same Idempotency-Key is in progress",
+                    content = @Content()),
+            @ApiResponse(responseCode = "422", description = "Unprocessable entity - Insufficient balance, "
+                    + "or Idempotency-Key was used for a different request",
+                    content = @Content()),
+            @ApiResponse(responseCode = "503", description = "Service unavailable - The ledger is busy and nothing was changed, "
+                    + "or the outcome is unknown and a retry with the same Idempotency-Key is not applied again",
                     content = @Content())
     })
     @PostMapping("/account-balance/debit")
     public ResponseEntity<?> debitMoney(
+            @Parameter(description = "Unique key of the request, a retry with the same key is not applied again")
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody DebitBalanceDTO debitBalanceDTO,
             Errors errors) {
         log.info("Debiting money from account...");
@@ -148,6 +176,11 @@ public class AccountBalanceController {
             return ResponseEntity.badRequest().body(errors.getAllErrors());
         }
 
+        // A retry with the same Idempotency-Key gets the response of the first request
+        return idempotencyService.execute(idempotencyKey, "debit", debitBalanceDTO, () -> debit(debitBalanceDTO));
+    }
+
+    private ResponseEntity<?> debit(DebitBalanceDTO debitBalanceDTO) {
         // Fetch account by account number
         Account account = accountService.getAccountByAccountNumber(debitBalanceDTO.getAccountNumber());
         if (account == null) {
@@ -158,19 +191,66 @@ public class AccountBalanceController {
         // Debit money from account for the specified currency
         accountBalanceService.debitMoney(account, debitBalanceDTO, account.getAccountHolder());
 
-        // Also save this step as a transaction
-        TransactionCommand cmd = TransactionCommand.builder()
-                .account(account)
-                .amount(debitBalanceDTO.getAmount())
-                .currency(debitBalanceDTO.getCurrency())
-                .type(TransactionType.DEBIT)
-                .createdBy(account.getAccountHolder())
-                .build();
-        transactionService.createNewTransaction(cmd);
+        // Also save this step as a transaction, unless the balance change already was one
+        if (!accountBalanceService.recordsTransactions()) {
+            TransactionCommand cmd = TransactionCommand.builder()
+                    .account(account)
+                    .amount(Money.of(debitBalanceDTO.getAmount(), debitBalanceDTO.getCurrency()))
+                    .type(TransactionType.DEBIT)
+                    .createdBy(account.getAccountHolder())
+                    .build();
+            recordTransaction(cmd);
+        }
 
         log.info("Debit successful");
         return ResponseEntity.ok("Debit successful");
     }
 
+    /**
+     * Records the transaction of a balance change that is already applied. The change is not undone when this
+     * fails, so the failure is an unknown outcome and a retry with the same Idempotency-Key does not apply it again.
+     */
+    private void recordTransaction(TransactionCommand cmd) {
+        try {
+            transactionService.createNewTransaction(cmd);
+        } catch (RuntimeException ex) {
+            throw new OutcomeUnknownException("Balance was changed but its transaction was not recorded", ex);
+        }
+    }
 
+    /**
+     * Apply many credits and debits in one request. Items are applied in the given order and the outcome of every
+     * item is reported, a rejected item does not roll back the others.
+     */
+    @Operation(summary = "Apply credits and debits in a batch", description = "Credit and debit many accounts in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the status of every item",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BalanceBatchResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request - Invalid BalanceBatchRequestDTO payload",
+                    content = @Content()),
+            @ApiResponse(responseCode = "413", description = "Payload too large - Too many items in the batch",
+                    content = @Content())
+    })
+    @PostMapping("/account-balance/batch")
+    public ResponseEntity<?> processBalanceBatch(
+            @Valid @RequestBody BalanceBatchRequestDTO balanceBatchRequestDTO,
+            Errors errors) {
+        log.info("Processing balance batch...");
+        // Validate request DTO
+        if (errors.hasErrors()) {
+            log.warn("Invalid request: {}", errors.getAllErrors());
+            return ResponseEntity.badRequest().body(errors.getAllErrors());
+        }
+
+        int items = balanceBatchRequestDTO.getItems().size();
+        if (items > balanceBatchService.getMaxItems()) {
+            log.warn("Balance batch too large: {} items", items);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Batch can contain at most " + balanceBatchService.getMaxItems() + " items");
+        }
+
+        BalanceBatchResultDTO response = balanceBatchService.processBatch(balanceBatchRequestDTO.getItems());
+        return ResponseEntity.ok(response);
+    }
 }
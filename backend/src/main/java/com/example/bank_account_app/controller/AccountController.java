@@ -1,10 +1,17 @@
 package com.example.bank_account_app.controller;
 
+import com.example.bank_account_app.config.AccountPagingConf;
 import com.example.bank_account_app.dto.AccountDTO;
+import com.example.bank_account_app.dto.AccountImportResultDTO;
 import com.example.bank_account_app.dto.CreateAccountDTO;
+import com.example.bank_account_app.enums.AccountImportFormat;
 import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.service.AccountImportService;
+import com.example.bank_account_app.service.AccountNumberGenerator;
 import com.example.bank_account_app.service.AccountService;
 import com.example.bank_account_app.util.AccountUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,10 +21,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -25,27 +38,80 @@ import java.util.List;
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class AccountController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
     private final AccountService accountService;
+    private final AccountNumberGenerator accountNumberGenerator;
+    private final AccountImportService accountImportService;
+    private final AccountPagingConf accountPagingConf;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Get all bank accounts.
+     * Get bank accounts page by page. The next page starts after the id given in the X-Next-Cursor header.
      */
-    @Operation(summary = "Get all bank accounts", description = "Returns a list of all bank accounts")
+    @Operation(summary = "Get bank accounts", description = "Returns one page of bank accounts in creation order")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved bank accounts",
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved bank accounts, "
+                    + "the X-Next-Cursor header is set when more accounts may follow",
                     content = @Content(mediaType = "application/json",
-                            array = @ArraySchema(schema = @Schema(implementation = AccountDTO.class))))
+                            array = @ArraySchema(schema = @Schema(implementation = AccountDTO.class)))),
+            @ApiResponse(responseCode = "400", description = "Bad request - Invalid limit",
+                    content = @Content())
     })
     @GetMapping("/accounts")
-    public ResponseEntity<List<AccountDTO>> getAllAccounts() {
-        log.info("Fetching all bank accounts...");
-        // Fetch all accounts
-        List<Account> accounts = accountService.getAllAccounts();
+    public ResponseEntity<?> getAllAccounts(
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Page size, at most the configured maximum")
+            @RequestParam(required = false) Integer limit) {
+        log.info("Fetching bank accounts after {}...", after);
+        int pageSize = limit == null ? accountPagingConf.getDefaultLimit() : limit;
+        if (pageSize < 1 || pageSize > accountPagingConf.getMaxLimit()) {
+            log.warn("Invalid page limit: {}", limit);
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + accountPagingConf.getMaxLimit());
+        }
+
+        // Fetch one page of accounts
+        List<Account> accounts = accountService.getAccountsPage(after == null ? Long.MIN_VALUE : after, pageSize);
         // Map accounts to DTO
         List<AccountDTO> response = accountService.mapAccountsToDTO(accounts);
+
+        // A full page may be followed by more accounts
+        if (accounts.size() == pageSize) {
+            return ResponseEntity.ok()
+                    .header(NEXT_CURSOR_HEADER, String.valueOf(accounts.get(accounts.size() - 1).getId()))
+                    .body(response);
+        }
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Stream all bank accounts as newline delimited JSON. Rows are written as they are read from the database.
+     */
+    @Operation(summary = "Stream all bank accounts", description = "Returns all bank accounts as newline delimited JSON, one account per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed bank accounts",
+                    content = @Content(mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = AccountDTO.class)))
+    })
+    @GetMapping(value = "/accounts/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAccounts() {
+        log.info("Streaming all bank accounts...");
+        ObjectWriter writer = objectMapper.writerFor(AccountDTO.class);
+        StreamingResponseBody body = out -> accountService.streamAccounts(accountPagingConf.getStreamFetchSize(), account -> {
+            try {
+                out.write(writer.writeValueAsBytes(account));
+                out.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Get bank account by account number.
      */
@@ -107,7 +173,7 @@ public class AccountController {
         }
 
         // Generate account number and save account
-        String accountNumber = AccountUtils.generateAccountNumber();
+        String accountNumber = accountNumberGenerator.generateAccountNumber();
         Account account = accountService.buildAccountEntity(accountNumber, createAccountDTO.getAccountHolder(), createAccountDTO.getAccountHolder());
         accountService.saveAccount(account);
 
@@ -116,4 +182,25 @@ public class AccountController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Import bank accounts from a CSV or newline delimited JSON upload, which is read as it arrives. Invalid lines
+     * are rejected and reported, all other lines are imported.
+     */
+    @Operation(summary = "Import bank accounts", description = "Creates a bank account, and optionally its opening balance, "
+            + "for every line of a CSV (account_holder,currency,balance) or newline delimited JSON upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Upload processed, rejected lines are listed in the result",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AccountImportResultDTO.class))),
+            @ApiResponse(responseCode = "415", description = "Unsupported media type - Upload is not CSV or NDJSON",
+                    content = @Content())
+    })
+    @PostMapping(value = "/accounts/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<AccountImportResultDTO> importAccounts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream upload) throws IOException {
+        AccountImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? AccountImportFormat.NDJSON : AccountImportFormat.CSV;
+        return ResponseEntity.ok(accountImportService.importAccounts(upload, format));
+    }
 }
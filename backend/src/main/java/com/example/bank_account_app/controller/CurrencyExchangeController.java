@@ -4,7 +4,9 @@ import com.example.bank_account_app.dto.AccountBalanceDTO;
 import com.example.bank_account_app.dto.ExchangeCurrencyDTO;
 import com.example.bank_account_app.service.AccountService;
 import com.example.bank_account_app.service.CurrencyExchangeService;
+import com.example.bank_account_app.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,6 +18,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/currency-exchange")
@@ -23,9 +27,11 @@ import org.springframework.web.bind.annotation.*;
 public class CurrencyExchangeController {
     private final CurrencyExchangeService currencyExchangeService;
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Gives the exchange rate between two currencies from external API and does the exchange.
+     * The request thread is released while the rate is fetched, the response is written when the exchange is done.
      */
     @Operation(summary = "Currency exchange using External API", description = "Returns the exchange rate between two currencies and does the exchange")
     @ApiResponses(value = {
@@ -34,10 +40,18 @@ public class CurrencyExchangeController {
             @ApiResponse(responseCode = "404", description = "Not found - The account does not exist",
                     content = @Content()),
             @ApiResponse(responseCode = "400", description = "Bad request - Invalid account number",
+                    content = @Content()),
+            @ApiResponse(responseCode = "409", description = "Conflict - A request with the same Idempotency-Key is in progress",
+                    content = @Content()),
+            @ApiResponse(responseCode = "422", description = "Unprocessable entity - Idempotency-Key was used for a different request",
+                    content = @Content()),
+            @ApiResponse(responseCode = "503", description = "Service unavailable - Too many exchanges in progress",
                     content = @Content())
     })
     @PostMapping("/floating")
-    public ResponseEntity<?> exchangeCurrency(
+    public CompletableFuture<ResponseEntity<?>> exchangeCurrency(
+            @Parameter(description = "Unique key of the request, a retry with the same key is not applied again")
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody ExchangeCurrencyDTO exchangeCurrencyDTO,
             Errors errors) {
         log.info("Exchange currency request: {}", exchangeCurrencyDTO);
@@ -45,19 +59,25 @@ public class CurrencyExchangeController {
         // Validate the request
         if (errors.hasErrors()) {
             log.warn("Invalid exchange currency request: {}", errors.getAllErrors());
-            return ResponseEntity.badRequest().body(errors.getAllErrors());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errors.getAllErrors()));
         }
 
+        // A retry with the same Idempotency-Key gets the response of the first request
+        return idempotencyService.executeAsync(idempotencyKey, "floating-exchange", exchangeCurrencyDTO,
+                () -> exchange(exchangeCurrencyDTO));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> exchange(ExchangeCurrencyDTO exchangeCurrencyDTO) {
         //  Check if account exists
         var account = accountService.getAccountByAccountNumber(exchangeCurrencyDTO.getAccountNumber());
         if (account == null) {
             log.warn("Account not found: {}", exchangeCurrencyDTO.getAccountNumber());
-            return ResponseEntity.notFound().build();
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
 
         // Fetch the exchange rate from an external API and do the exchange
-        AccountBalanceDTO results = currencyExchangeService.exchangeCurrency(exchangeCurrencyDTO, account, account.getAccountHolder());
-        return ResponseEntity.ok(results);
+        return currencyExchangeService.exchangeCurrency(exchangeCurrencyDTO, account, account.getAccountHolder())
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -70,10 +90,16 @@ public class CurrencyExchangeController {
             @ApiResponse(responseCode = "404", description = "Not found - The account does not exist",
                     content = @Content()),
             @ApiResponse(responseCode = "400", description = "Bad request - Invalid account number",
+                    content = @Content()),
+            @ApiResponse(responseCode = "409", description = "Conflict - A request with the same Idempotency-Key is in progress",
+                    content = @Content()),
+            @ApiResponse(responseCode = "422", description = "Unprocessable entity - Idempotency-Key was used for a different request",
                     content = @Content())
     })
     @PostMapping("/fixed")
     public ResponseEntity<?> exchangeCurrencyFixed(
+            @Parameter(description = "Unique key of the request, a retry with the same key is not applied again")
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody ExchangeCurrencyDTO exchangeCurrencyDTO,
             Errors errors) {
         log.info("Exchange currency request: {}", exchangeCurrencyDTO);
@@ -84,6 +110,12 @@ public class CurrencyExchangeController {
             return ResponseEntity.badRequest().body(errors.getAllErrors());
         }
 
+        // A retry with the same Idempotency-Key gets the response of the first request
+        return idempotencyService.execute(idempotencyKey, "fixed-exchange", exchangeCurrencyDTO,
+                () -> exchangeFixed(exchangeCurrencyDTO));
+    }
+
+    private ResponseEntity<?> exchangeFixed(ExchangeCurrencyDTO exchangeCurrencyDTO) {
         //  Check if account exists
         var account = accountService.getAccountByAccountNumber(exchangeCurrencyDTO.getAccountNumber());
         if (account == null) {
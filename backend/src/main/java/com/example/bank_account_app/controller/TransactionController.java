@@ -0,0 +1,115 @@
+package com.example.bank_account_app.controller;
+
+import com.example.bank_account_app.config.TransactionHistoryConf;
+import com.example.bank_account_app.dto.TransactionCursor;
+import com.example.bank_account_app.dto.TransactionDTO;
+import com.example.bank_account_app.dto.TransactionFilter;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.service.AccountService;
+import com.example.bank_account_app.service.TransactionService;
+import com.example.bank_account_app.util.AccountUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class TransactionController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final TransactionHistoryConf transactionHistoryConf;
+
+    /**
+     * Get the transaction history of an account page by page, newest first. The next page starts after the
+     * cursor given in the X-Next-Cursor header.
+     */
+    @Operation(summary = "Get transaction history", description = "Returns one page of the transactions of an account, newest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved transactions, "
+                    + "the X-Next-Cursor header is set when more transactions may follow",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = TransactionDTO.class)))),
+            @ApiResponse(responseCode = "404", description = "Not found - The account does not exist",
+                    content = @Content()),
+            @ApiResponse(responseCode = "400", description = "Bad request - Invalid account number, filter, cursor or limit",
+                    content = @Content())
+    })
+    @GetMapping("/accounts/{accountNumber}/transactions")
+    public ResponseEntity<?> getTransactions(
+            @Parameter(description = "Bank account number", example = "EE123456789012345678")
+            @PathVariable String accountNumber,
+            @Parameter(description = "Only transactions in this currency")
+            @RequestParam(required = false) Currency currency,
+            @Parameter(description = "Only transactions of this type")
+            @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Only transactions at or after this time", example = "2025-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Only transactions before this time", example = "2025-02-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, at most the configured maximum")
+            @RequestParam(required = false) Integer limit) {
+        log.info("Fetching transactions of account {}", accountNumber);
+
+        // Validate the request
+        if (!AccountUtils.isValidAccountNumber(accountNumber)) {
+            log.warn("Invalid account number: {}", accountNumber);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid account number");
+        }
+        int pageSize = limit == null ? transactionHistoryConf.getDefaultLimit() : limit;
+        if (pageSize < 1 || pageSize > transactionHistoryConf.getMaxLimit()) {
+            log.warn("Invalid page limit: {}", limit);
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + transactionHistoryConf.getMaxLimit());
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            log.warn("Invalid date range: {} - {}", from, to);
+            return ResponseEntity.badRequest().body("From must be before to");
+        }
+        TransactionCursor cursor;
+        try {
+            cursor = after == null ? null : TransactionCursor.decode(after);
+        } catch (IllegalArgumentException ex) {
+            log.warn("Invalid cursor: {}", after);
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+
+        // Check if account exists
+        Account account = accountService.getAccountByAccountNumber(accountNumber);
+        if (account == null) {
+            log.warn("Account not found: {}", accountNumber);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
+        }
+
+        // Fetch one page of transactions
+        List<TransactionDTO> transactions = transactionService.getTransactionHistory(account,
+                new TransactionFilter(currency, type, from, to), cursor, pageSize);
+
+        // A full page may be followed by more transactions
+        if (transactions.size() == pageSize) {
+            return ResponseEntity.ok()
+                    .header(NEXT_CURSOR_HEADER, TransactionCursor.of(transactions.get(transactions.size() - 1)).encode())
+                    .body(transactions);
+        }
+        return ResponseEntity.ok(transactions);
+    }
+}
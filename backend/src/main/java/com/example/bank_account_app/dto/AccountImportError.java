@@ -0,0 +1,17 @@
+package com.example.bank_account_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountImportError {
+    @Schema(description = "Line of the upload, starting from 1", example = "12")
+    private long line;
+
+    @Schema(description = "Why the line was not imported", example = "Invalid account holder name")
+    private String error;
+}
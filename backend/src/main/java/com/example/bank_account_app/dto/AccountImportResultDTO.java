@@ -0,0 +1,22 @@
+package com.example.bank_account_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountImportResultDTO {
+    @Schema(description = "Number of created accounts", example = "100000")
+    private long imported;
+
+    @Schema(description = "Number of rejected lines", example = "1")
+    private long failed;
+
+    @Schema(description = "Rejected lines, at most the configured number of them")
+    private List<AccountImportError> errors;
+}
@@ -0,0 +1,22 @@
+package com.example.bank_account_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountImportRowDTO {
+    @Schema(description = "Account holder's name", example = "Mari Maasikas")
+    private String accountHolder;
+
+    @Schema(description = "Currency of the opening balance, empty for an account without balance", example = "EUR")
+    private String currency;
+
+    @Schema(description = "Opening balance, empty for an account without balance", example = "100.00")
+    private BigDecimal balance;
+}
@@ -0,0 +1,37 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.validation.ValidAccountNumber;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceBatchItemDTO {
+    @Schema(description = "Type of the balance change", example = "CREDIT")
+    @NotNull(message = "Type is required")
+    private TransactionType type;
+
+    @Schema(description = "Bank account number", example = "EE123456789012345678")
+    @NotBlank(message = "Account number cannot be empty")
+    @ValidAccountNumber
+    private String accountNumber;
+
+    @Schema(description = "Currency of the amount", example = "EUR")
+    @NotNull(message = "Currency is required")
+    private Currency currency;
+
+    @Schema(description = "Amount to credit or debit", example = "100.0")
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be greater than 0")
+    private BigDecimal amount;
+}
@@ -0,0 +1,21 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.BatchItemStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceBatchItemResult {
+    @Schema(description = "Position of the item in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Bank account number", example = "EE123456789012345678")
+    private String accountNumber;
+
+    @Schema(description = "Outcome of the item", example = "SUCCESS")
+    private BatchItemStatus status;
+}
@@ -0,0 +1,19 @@
+package com.example.bank_account_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceBatchRequestDTO {
+    @Schema(description = "Credits and debits, applied in the given order")
+    @NotEmpty(message = "Batch must contain at least one item")
+    private List<@Valid BalanceBatchItemDTO> items;
+}
@@ -0,0 +1,22 @@
+package com.example.bank_account_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceBatchResultDTO {
+    @Schema(description = "Number of applied items", example = "2")
+    private int succeeded;
+
+    @Schema(description = "Number of rejected items", example = "0")
+    private int failed;
+
+    @Schema(description = "Outcome of every item, in request order")
+    private List<BalanceBatchItemResult> results;
+}
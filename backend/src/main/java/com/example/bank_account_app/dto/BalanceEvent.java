@@ -0,0 +1,24 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One transaction of the append-only log in the event-sourced ledger mode. Events of an account are ordered by id.
+ */
+public record BalanceEvent(long id, long accountId, TransactionType type, Money amount, LocalDateTime createdAt,
+                           String createdBy) {
+
+    public Currency currency() {
+        return amount.currency();
+    }
+
+    /**
+     * Change of the balance, negative for debits.
+     */
+    public Money signedAmount() {
+        return type == TransactionType.CREDIT ? amount : amount.negate();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+
+import java.util.EnumMap;
+
+/**
+ * Balances of an account after applying all of its events up to and including lastTransactionId.
+ */
+public record BalanceSnapshot(long accountId, long lastTransactionId, EnumMap<Currency, Money> balances) {
+    // Snowflake ids are positive, so every event comes after an empty snapshot
+    public static final long NO_TRANSACTIONS = 0;
+
+    /**
+     * Snapshot of an account that has no events yet.
+     */
+    public static BalanceSnapshot empty(long accountId) {
+        return new BalanceSnapshot(accountId, NO_TRANSACTIONS, new EnumMap<>(Currency.class));
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.bank_account_app.dto;
 
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.validation.ValidAccountNumber;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -14,7 +17,7 @@ public class CreditBalanceDTO {
 
     @Schema(description = "Bank account number", example = "EE123456789012345678")
     @NotBlank(message = "Account number cannot be empty")
-    @Pattern(regexp = "^EE\\d{18}$", message = "Invalid account number format")
+    @ValidAccountNumber
     private String accountNumber;
 
     @Schema(description = "Currency of the amount", example = "EUR")
@@ -22,6 +25,7 @@ public class CreditBalanceDTO {
     private Currency currency;
 
     @Schema(description = "Amount to credit", example = "100.0")
+    @NotNull(message = "Amount is required")
     @Min(value = 0, message = "Amount must be greater than 0")
-    private double amount;
+    private BigDecimal amount;
 }
@@ -1,22 +1,24 @@
 package com.example.bank_account_app.dto;
 
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.validation.ValidAccountNumber;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class DebitBalanceDTO {
     @Schema(description = "Bank account number", example = "EE123456789012345678")
     @NotBlank(message = "Account number cannot be empty")
-    @Pattern(regexp = "^EE\\d{18}$", message = "Invalid account number format")
+    @ValidAccountNumber
     private String accountNumber;
 
     @Schema(description = "Currency of the amount", example = "EUR")
@@ -24,6 +26,7 @@ public class DebitBalanceDTO {
     private Currency currency;
 
     @Schema(description = "Amount to credit", example = "100.0")
+    @NotNull(message = "Amount is required")
     @Min(value = 0, message = "Amount must be greater than 0")
-    private double amount;
+    private BigDecimal amount;
 }
@@ -1,11 +1,11 @@
 package com.example.bank_account_app.dto;
 
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.validation.ValidAccountNumber;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,7 +18,7 @@ import java.math.BigDecimal;
 public class ExchangeCurrencyDTO {
     @Schema(description = "Account number", example = "EE123456789012345678")
     @NotBlank(message = "Account number cannot be empty")
-    @Pattern(regexp = "^EE\\d{18}$", message = "Invalid account number format")
+    @ValidAccountNumber
     private String accountNumber;
 
     @Schema(description = "Currency to exchange from", example = "EUR")
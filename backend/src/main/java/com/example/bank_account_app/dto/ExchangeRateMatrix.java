@@ -0,0 +1,86 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the exchange rates between all supported currencies, taken from one point in time.
+ * Rates are stored in one flat array indexed by the ordinals of the source and target currency.
+ */
+public final class ExchangeRateMatrix {
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    public static final ExchangeRateMatrix EMPTY = new ExchangeRateMatrix(new double[CURRENCIES.length * CURRENCIES.length], null);
+
+    private final double[] rates;
+
+    @Getter
+    private final Instant fetchedAt; // when the rates were fetched or loaded, null for an empty matrix
+
+    private ExchangeRateMatrix(double[] rates, Instant fetchedAt) {
+        this.rates = rates;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Builds all cross rates from the rates of one base currency: from -> to = (base -> to) / (base -> from).
+     * Pairs with a currency missing from the base rates have rate 0.
+     */
+    public static ExchangeRateMatrix triangulate(Map<String, Double> baseRates, Instant fetchedAt) {
+        double[] rates = new double[CURRENCIES.length * CURRENCIES.length];
+        for (Currency from : CURRENCIES) {
+            double baseToFrom = baseRates.getOrDefault(from.name(), 0.0);
+            if (baseToFrom <= 0) {
+                continue;
+            }
+            for (Currency to : CURRENCIES) {
+                double baseToTo = baseRates.getOrDefault(to.name(), 0.0);
+                rates[index(from, to)] = from == to ? 1.0 : baseToTo / baseToFrom;
+            }
+        }
+        return new ExchangeRateMatrix(rates, fetchedAt);
+    }
+
+    /**
+     * Builds the matrix from explicitly given pairs. Same currency pairs always have rate 1, missing pairs have rate 0.
+     */
+    public static ExchangeRateMatrix of(Map<Currency, Map<Currency, Double>> pairRates, Instant fetchedAt) {
+        double[] rates = new double[CURRENCIES.length * CURRENCIES.length];
+        pairRates.forEach((from, targets) -> targets.forEach((to, rate) -> rates[index(from, to)] = rate));
+        for (Currency currency : CURRENCIES) {
+            rates[index(currency, currency)] = 1.0;
+        }
+        return new ExchangeRateMatrix(rates, fetchedAt);
+    }
+
+    /**
+     * Rate to convert one unit of the source currency to the target currency, 0 when the rate is not known.
+     */
+    public double getRate(Currency from, Currency to) {
+        return rates[index(from, to)];
+    }
+
+    /**
+     * All known rates between different currencies, grouped by the source currency.
+     */
+    public Map<Currency, Map<Currency, Double>> toMap() {
+        Map<Currency, Map<Currency, Double>> result = new EnumMap<>(Currency.class);
+        for (Currency from : CURRENCIES) {
+            for (Currency to : CURRENCIES) {
+                double rate = getRate(from, to);
+                if (from != to && rate != 0) {
+                    result.computeIfAbsent(from, key -> new EnumMap<>(Currency.class)).put(to, rate);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int index(Currency from, Currency to) {
+        return from.ordinal() * CURRENCIES.length + to.ordinal();
+    }
+}
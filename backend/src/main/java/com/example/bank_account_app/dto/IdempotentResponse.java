@@ -0,0 +1,17 @@
+package com.example.bank_account_app.dto;
+
+/**
+ * Response stored for an Idempotency-Key, together with the fingerprint of the request that produced it. A status
+ * of {@link #PENDING} means the first request with the key is still in progress.
+ */
+public record IdempotentResponse(long fingerprint, int status, String contentType, String body) {
+    public static final int PENDING = 0;
+
+    public static IdempotentResponse pending(long fingerprint) {
+        return new IdempotentResponse(fingerprint, PENDING, null, null);
+    }
+
+    public boolean isPending() {
+        return status == PENDING;
+    }
+}
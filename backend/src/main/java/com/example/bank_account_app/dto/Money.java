@@ -0,0 +1,148 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Amount of money in one currency, held as a whole number of minor units of the currency (cents, or won for KRW
+ * which has no minor unit). Arithmetic is exact long arithmetic, an overflow fails instead of wrapping around.
+ */
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+    // Exchange rates are applied as fixed-point numbers with this many decimals
+    public static final int RATE_SCALE = 12;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+    private static final double RATE_FACTOR = POWERS_OF_TEN[RATE_SCALE];
+    private static final double MAX_RATE = Long.MAX_VALUE / RATE_FACTOR;
+
+    public Money {
+        Objects.requireNonNull(currency, "Currency is required");
+    }
+
+    /**
+     * Exact amount in the currency. Fails when the amount has more decimals than the minor unit of the currency.
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        if (amount.stripTrailingZeros().scale() > currency.getScale()) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " has more than "
+                    + currency.getScale() + " decimals, which is the minor unit of " + currency);
+        }
+        try {
+            return new Money(amount.movePointRight(currency.getScale()).longValueExact(), currency);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " is too large");
+        }
+    }
+
+    /**
+     * Amount given in minor units of the currency.
+     */
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0, currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+
+    /**
+     * Converts to the target currency with a rate for one unit of this currency, rounded half up to the minor unit
+     * of the target currency. The rate is taken to {@link #RATE_SCALE} decimals, the multiplication is exact and
+     * rounded once.
+     */
+    public Money convert(double rate, Currency to) {
+        if (!(rate > 0 && rate < MAX_RATE)) {
+            throw new IllegalArgumentException("Exchange rate " + rate + " is out of range");
+        }
+        long rateUnits = Math.round(rate * RATE_FACTOR);
+        long divisor = POWERS_OF_TEN[RATE_SCALE + currency.getScale() - to.getScale()];
+
+        long high = Math.multiplyHigh(minorUnits, rateUnits);
+        long product = minorUnits * rateUnits;
+        if (high == product >> 63) {
+            // The product fits into a long, which is the case unless the amount is huge
+            return new Money(divideHalfUp(product, divisor), to);
+        }
+        BigDecimal wide = new BigDecimal(BigInteger.valueOf(minorUnits).multiply(BigInteger.valueOf(rateUnits)));
+        return new Money(wide.divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP).longValueExact(), to);
+    }
+
+    /**
+     * Amount in units of the currency, e.g. 12.50 for 1250 cents.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getScale());
+    }
+
+    /**
+     * Approximate amount in units of the currency, only for metrics and logs.
+     */
+    public double doubleValue() {
+        return (double) minorUnits / POWERS_OF_TEN[currency.getScale()];
+    }
+
+    /**
+     * Amount with all decimals of the minor unit and without currency, e.g. "12.50" or "1000" for KRW.
+     */
+    public String toPlainString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -11,9 +11,12 @@ import lombok.ToString;
 @ToString
 @Builder
 public class TransactionCommand {
-    private Currency currency;
-    private double amount;
+    private Money amount;
     private Account account;
     private TransactionType type;
     private String createdBy;
+
+    public Currency getCurrency() {
+        return amount.currency();
+    }
 }
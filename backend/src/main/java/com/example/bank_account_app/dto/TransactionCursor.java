@@ -0,0 +1,41 @@
+package com.example.bank_account_app.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the transaction history. The next page starts with the transactions older than this one.
+ */
+public record TransactionCursor(LocalDateTime transactionDate, long id) {
+
+    /**
+     * Cursor of the given transaction.
+     */
+    public static TransactionCursor of(TransactionDTO transaction) {
+        return new TransactionCursor(transaction.getTransactionDate(), transaction.getId());
+    }
+
+    /**
+     * Opaque URL-safe form of the cursor, clients pass it back without interpreting it.
+     */
+    public String encode() {
+        String value = transactionDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor created by {@link #encode()}.
+     */
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionDTO {
+    @Schema(description = "Transaction id", example = "237471595403149312")
+    private long id;
+
+    @Schema(description = "Type of the transaction", example = "CREDIT")
+    private TransactionType transactionType;
+
+    @Schema(description = "Transaction amount", example = "100.00")
+    private BigDecimal amount;
+
+    @Schema(description = "Currency of the transaction", example = "EUR")
+    private Currency currency;
+
+    @Schema(description = "Time of the transaction", example = "2025-03-01T12:30:00")
+    private LocalDateTime transactionDate;
+}
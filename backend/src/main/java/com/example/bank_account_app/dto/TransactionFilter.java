@@ -0,0 +1,15 @@
+package com.example.bank_account_app.dto;
+
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the transaction history, a null value does not filter.
+ *
+ * @param from inclusive lower bound of the transaction date
+ * @param to   exclusive upper bound of the transaction date
+ */
+public record TransactionFilter(Currency currency, TransactionType transactionType, LocalDateTime from, LocalDateTime to) {
+}
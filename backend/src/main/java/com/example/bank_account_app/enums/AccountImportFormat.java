@@ -0,0 +1,9 @@
+package com.example.bank_account_app.enums;
+
+/**
+ * Enum to represent the formats of an account import upload.
+ */
+public enum AccountImportFormat {
+    CSV, // text/csv, one account per line: account_holder,currency,balance with an optional header line
+    NDJSON // application/x-ndjson, one AccountImportRowDTO per line
+}
@@ -0,0 +1,12 @@
+package com.example.bank_account_app.enums;
+
+/**
+ * Enum to represent the outcome of a single item of a balance batch.
+ */
+public enum BatchItemStatus {
+    SUCCESS, // balance change and transaction were saved
+    ACCOUNT_NOT_FOUND, // account number does not exist
+    BALANCE_NOT_FOUND, // debit from a currency the account has no balance in
+    INSUFFICIENT_BALANCE, // debit larger than the balance
+    LEDGER_BUSY // the ledger engine withdrew the item after the operation timeout, nothing was changed
+}
@@ -1,12 +1,25 @@
 package com.example.bank_account_app.enums;
 /**
- * Enum to represent the currency codes supported in this application.
+ * Enum to represent the currency codes supported in this application, with the number of decimals of their
+ * minor unit (ISO 4217).
  */
 public enum Currency {
-    EUR, // Euro
-    USD, // US Dollar
-    SEK, // Swedish Króna
-    RUB, // Russian Ruble
-    KRW, // Korean Won
-}
+    EUR(2), // Euro
+    USD(2), // US Dollar
+    SEK(2), // Swedish Króna
+    RUB(2), // Russian Ruble
+    KRW(0); // Korean Won
+
+    private final int scale;
 
+    Currency(int scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * Number of decimals of the minor unit, e.g. 2 for cents.
+     */
+    public int getScale() {
+        return scale;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bank_account_app.enums;
+
+/**
+ * Enum to represent when a caller of the transaction journal is acknowledged.
+ */
+public enum JournalAckMode {
+    DURABLE, // the caller waits until the transaction is committed to the database
+    FIRE_AND_FORGET // the caller continues as soon as the transaction is queued
+}
@@ -0,0 +1,10 @@
+package com.example.bank_account_app.enums;
+
+/**
+ * Enum to represent where account balances are mutated.
+ */
+public enum LedgerMode {
+    JPA, // balances are updated directly in the database
+    ENGINE, // balances are held in memory by the ledger engine and written to the database in batches
+    EVENTS // transactions are the append-only log, balances are a projection rebuilt from snapshots and the log
+}
@@ -0,0 +1,47 @@
+package com.example.bank_account_app.enums;
+
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Enum to represent the outcome of a balance operation, used as the outcome tag of its metrics.
+ */
+public enum OperationOutcome {
+    SUCCESS("success"), // the operation was applied
+    INSUFFICIENT("insufficient"), // the balance was lower than the amount
+    NOT_FOUND("not-found"), // the balance or the exchange rate does not exist
+    ERROR("error"); // any other failure
+
+    private final String tag;
+
+    OperationOutcome(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Outcome of an operation that failed with the given exception, success when it is null.
+     */
+    public static OperationOutcome of(Throwable failure) {
+        while ((failure instanceof CompletionException || failure instanceof ExecutionException)
+                && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure == null) {
+            return SUCCESS;
+        }
+        if (failure instanceof InsufficientBalanceException) {
+            return INSUFFICIENT;
+        }
+        if (failure instanceof BalanceNotFoundException) {
+            return NOT_FOUND;
+        }
+        return ERROR;
+    }
+}
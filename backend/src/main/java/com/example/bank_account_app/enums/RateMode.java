@@ -0,0 +1,19 @@
+package com.example.bank_account_app.enums;
+
+/**
+ * Enum to represent where the rate of a currency exchange comes from, used as the rate tag of its metrics.
+ */
+public enum RateMode {
+    FIXED("fixed"), // configured fixed rates
+    FLOATING("floating"); // latest rates of the external API
+
+    private final String tag;
+
+    RateMode(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
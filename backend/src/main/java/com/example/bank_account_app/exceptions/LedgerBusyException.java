@@ -0,0 +1,10 @@
+package com.example.bank_account_app.exceptions;
+
+/**
+ * The operation was withdrawn before it was applied, it is safe to retry.
+ */
+public class LedgerBusyException extends RuntimeException {
+    public LedgerBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bank_account_app.exceptions;
+
+/**
+ * The operation may have been applied, a retry could apply it twice.
+ */
+public class OutcomeUnknownException extends RuntimeException {
+    public OutcomeUnknownException(String message) {
+        super(message);
+    }
+
+    public OutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -6,8 +6,8 @@ import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.repository.AccountBalanceRepository;
 import com.example.bank_account_app.repository.AccountRepository;
 import com.example.bank_account_app.service.AccountBalanceService;
+import com.example.bank_account_app.service.AccountNumberGenerator;
 import com.example.bank_account_app.service.AccountService;
-import com.example.bank_account_app.util.AccountUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
@@ -28,13 +28,15 @@ public class InitialDataLoader implements ApplicationRunner {
     private final AccountRepository accountRepository;
     private final AccountBalanceRepository accountBalanceRepository;
     private final AccountService accountService;
+    private final AccountNumberGenerator accountNumberGenerator;
     private final AccountBalanceService accountBalanceService;
+    private final SyntheticDataGenerator syntheticDataGenerator;
 
     private static final String DATA_LOADED_BY = "initial data loader";
     public boolean alreadySetup = false;
 
     /**
-     * Creates initial bank account data if the database is empty.
+     * Creates initial bank account data if the database is empty, either the sample accounts or a generated dataset.
      */
     @Override
     public void run(ApplicationArguments args) {
@@ -43,6 +45,11 @@ public class InitialDataLoader implements ApplicationRunner {
             alreadySetup = true;
             return;
         }
+        if (syntheticDataGenerator.isEnabled()) {
+            syntheticDataGenerator.generate();
+            alreadySetup = true;
+            return;
+        }
         log.info("Loading initial data...");
 
         List<Account> accounts = createBankAccounts();
@@ -60,7 +67,7 @@ public class InitialDataLoader implements ApplicationRunner {
         List<String> accountHolders = List.of("Mart Tamm", "Mari Maasikas", "Siim Sepp", "Kati Kask");
         List<Account> accounts = new ArrayList<>();
         for (String name : accountHolders) {
-            String accountNumber = AccountUtils.generateAccountNumber();
+            String accountNumber = accountNumberGenerator.generateAccountNumber();
             Account account = accountService.buildAccountEntity(accountNumber, name, DATA_LOADED_BY);
             accounts.add(account);
         }
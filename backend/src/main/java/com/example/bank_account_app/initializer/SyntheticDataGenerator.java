@@ -0,0 +1,254 @@
+package com.example.bank_account_app.initializer;
+
+import com.example.bank_account_app.config.DataGeneratorConf;
+import com.example.bank_account_app.config.ExecutionConf;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.model.Transaction;
+import com.example.bank_account_app.repository.AccountBatchRepository;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository.ReservedBlock;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountNumberPermutation;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a dataset of configurable size for benchmarks and load tests. Accounts are split into chunks that are
+ * generated and inserted in parallel with JDBC batches, every chunk in its own database transaction. Holders,
+ * currencies, amounts and transactions of an account depend only on the seed and the position of the account, so
+ * the same configuration gives the same data regardless of the number of threads. On a new database the seed also
+ * becomes the key of the account number permutation, so the account numbers are the same as well.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SyntheticDataGenerator {
+    private static final String GENERATED_BY = "data generator";
+    private static final String[] FIRST_NAMES = {"Mart", "Mari", "Siim", "Kati", "Jaan", "Liis", "Peeter", "Anu",
+            "Toomas", "Kadri", "Andres", "Piret", "Juhan", "Triin", "Rein", "Maarja"};
+    private static final String[] LAST_NAMES = {"Tamm", "Maasikas", "Sepp", "Kask", "Saar", "Mets", "Kukk", "Rebane",
+            "Ilves", "Karu", "Lepik", "Kuusk", "Oja", "Pihlak", "Vaher", "Lill"};
+    private static final Currency[] CURRENCIES = Currency.values();
+    // Opening balances and transaction amounts in minor units
+    private static final long MAX_OPENING_BALANCE = 10_000_000;
+    private static final long MAX_TRANSACTION_AMOUNT = 100_000;
+    // Generated transactions of an account are this far apart, the last one just before the generation started
+    private static final long TRANSACTION_SPACING_MINUTES = 10;
+
+    private final AccountNumberBlockRepository accountNumberBlockRepository;
+    private final AccountBatchRepository accountBatchRepository;
+    private final EventLedger eventLedger;
+    private final LedgerEngine ledgerEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final DataGeneratorConf config;
+    private final ExecutionConf executionConf;
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Generates and saves all accounts with their balances and transactions. The account numbers are one reserved
+     * range of the account number counter, so accounts created later never collide with them. With the event ledger
+     * the opening balances are written as credits ahead of the generated transactions instead of balance rows.
+     * When a chunk fails the chunks that were already saved are deleted, so the next start generates the whole
+     * dataset again instead of keeping a part of it.
+     */
+    public GeneratedData generate() {
+        long start = System.nanoTime();
+        int threads = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        log.info("Generating {} accounts with {} balances and {} transactions each, seed {}, on {} threads",
+                config.getAccounts(), config.getBalancesPerAccount(), config.getTransactionsPerAccount(),
+                config.getSeed(), threads);
+
+        long seedPermutationKey = AccountNumberPermutation.mix(config.getSeed());
+        ReservedBlock block = accountNumberBlockRepository.reserve(config.getAccounts(), seedPermutationKey);
+        if (block.end() - 1 > AccountNumberCodec.MAX_KEY) {
+            throw new IllegalStateException("Not enough account numbers left for " + config.getAccounts() + " accounts");
+        }
+        if (block.permutationKey() != seedPermutationKey || block.first() != 0) {
+            log.warn("Account numbers were handed out before, the generated account numbers do not follow from seed {}",
+                    config.getSeed());
+        }
+        AccountNumberPermutation permutation = new AccountNumberPermutation(block.permutationKey());
+        LocalDateTime now = LocalDateTime.now();
+
+        long balances = 0;
+        long transactions = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads,
+                executionConf.threadFactory("data-generator-"))) {
+            List<Future<GeneratedData>> chunks = new ArrayList<>();
+            for (int from = 0; from < config.getAccounts(); from += config.getChunkSize()) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(config.getAccounts(), from + config.getChunkSize());
+                chunks.add(executor.submit(() -> generateChunk(chunkStart, chunkEnd, block.first(), permutation, now)));
+            }
+            try {
+                for (Future<GeneratedData> chunk : chunks) {
+                    GeneratedData generated = chunk.get();
+                    balances += generated.balances();
+                    transactions += generated.transactions();
+                }
+            } catch (ExecutionException | InterruptedException ex) {
+                // Chunks that have not started are not generated, closing the executor waits for the running ones
+                chunks.forEach(chunk -> chunk.cancel(false));
+                throw ex;
+            }
+        } catch (ExecutionException ex) {
+            deleteGenerated();
+            throw new IllegalStateException("Generating data failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            deleteGenerated();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generating data interrupted");
+        }
+
+        GeneratedData result = new GeneratedData(config.getAccounts(), balances, transactions,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Data generated: {}", result);
+        return result;
+    }
+
+    /**
+     * Generates the accounts at positions {@code from} (inclusive) to {@code to} (exclusive) and saves them in one
+     * database transaction.
+     */
+    private GeneratedData generateChunk(int from, int to, long firstCounter, AccountNumberPermutation permutation,
+                                        LocalDateTime now) {
+        boolean events = eventLedger.isEnabled();
+        List<Account> accounts = new ArrayList<>(to - from);
+        List<AccountBalance> accountBalances = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+
+        for (int position = from; position < to; position++) {
+            SplittableRandom random = new SplittableRandom(accountSeed(config.getSeed(), position));
+            long accountKey = permutation.permute(firstCounter + position);
+            Account account = Account.builder()
+                    .id(SnowflakeIdGenerator.shared().nextId())
+                    .accountNumber(AccountNumberCodec.decode(accountKey))
+                    .accountKey(accountKey)
+                    .accountHolder(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                            + LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                    .createdBy(GENERATED_BY)
+                    .build();
+            accounts.add(account);
+
+            // Distinct currencies from a partial shuffle, every balance opens with a positive amount
+            Currency[] currencies = CURRENCIES.clone();
+            Map<Currency, Long> balances = new EnumMap<>(Currency.class);
+            int firstTransaction = transactions.size();
+            for (int i = 0; i < config.getBalancesPerAccount(); i++) {
+                int pick = i + random.nextInt(currencies.length - i);
+                Currency currency = currencies[pick];
+                currencies[pick] = currencies[i];
+                currencies[i] = currency;
+                long opening = random.nextLong(1, MAX_OPENING_BALANCE);
+                balances.put(currency, opening);
+                if (events) {
+                    transactions.add(transaction(account, TransactionType.CREDIT, opening, currency));
+                }
+            }
+
+            // Debits never take a balance below zero, a debit that would is generated as a credit
+            for (int i = 0; i < config.getTransactionsPerAccount(); i++) {
+                Currency currency = currencies[random.nextInt(config.getBalancesPerAccount())];
+                long amount = random.nextLong(1, MAX_TRANSACTION_AMOUNT);
+                long balance = balances.get(currency);
+                TransactionType type = random.nextInt(3) == 0 && amount <= balance
+                        ? TransactionType.DEBIT : TransactionType.CREDIT;
+                balances.put(currency, type == TransactionType.DEBIT ? balance - amount : balance + amount);
+                transactions.add(transaction(account, type, amount, currency));
+            }
+
+            // Transactions of an account are in date order, the opening credits come first
+            int count = transactions.size() - firstTransaction;
+            for (int i = 0; i < count; i++) {
+                LocalDateTime date = now.minusMinutes((count - i) * TRANSACTION_SPACING_MINUTES);
+                transactions.get(firstTransaction + i).setTransactionDate(date);
+                transactions.get(firstTransaction + i).setCreatedAt(date);
+            }
+
+            if (!events) {
+                balances.forEach((currency, balance) -> accountBalances.add(AccountBalance.builder()
+                        .id(SnowflakeIdGenerator.shared().nextId())
+                        .account(account)
+                        .currency(currency)
+                        .balance(balance)
+                        .createdBy(GENERATED_BY)
+                        .build()));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            accountBatchRepository.insertAccounts(accounts, config.getJdbcBatchSize());
+            if (ledgerEngine.isEnabled()) {
+                ledgerEngine.openBalances(accountBalances);
+            } else {
+                accountBatchRepository.insertAccountBalances(accountBalances, config.getJdbcBatchSize());
+            }
+            accountBatchRepository.insertTransactions(transactions, config.getJdbcBatchSize());
+        });
+        log.debug("Generated accounts {}-{}", from, to);
+        return new GeneratedData(accounts.size(), accountBalances.size(), transactions.size(), 0);
+    }
+
+    /**
+     * Deletes the accounts of the chunks that were saved before the generation failed. The failure stops the
+     * application, so the ledger engine never serves balances of the deleted accounts.
+     */
+    private void deleteGenerated() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int deleted = accountBatchRepository.deleteAccountsCreatedBy(GENERATED_BY);
+                log.warn("Generating data failed, deleted the {} accounts that were already generated", deleted);
+            });
+        } catch (RuntimeException ex) {
+            log.error("Could not delete the accounts that were already generated", ex);
+        }
+    }
+
+    private static Transaction transaction(Account account, TransactionType type, long amount, Currency currency) {
+        return Transaction.builder()
+                .id(SnowflakeIdGenerator.shared().nextId())
+                .account(account)
+                .transactionType(type)
+                .amount(amount)
+                .currency(currency)
+                .createdBy(GENERATED_BY)
+                .build();
+    }
+
+    /**
+     * Seed of the random numbers of one account, the SplitMix64 finalizer keeps the streams of neighbouring accounts
+     * apart.
+     */
+    private static long accountSeed(long seed, long position) {
+        return AccountNumberPermutation.mix(seed + (position + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Rows written by a generation.
+     */
+    public record GeneratedData(long accounts, long balances, long transactions, long durationMillis) {
+    }
+}
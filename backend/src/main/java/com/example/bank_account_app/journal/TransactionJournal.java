@@ -0,0 +1,279 @@
+package com.example.bank_account_app.journal;
+
+import com.example.bank_account_app.config.TransactionJournalConf;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.enums.JournalAckMode;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes transactions to the database off the request thread. Callers queue transactions into a bounded ring
+ * buffer and a single writer thread inserts them in group commits: one JDBC batch and one database transaction
+ * as soon as the batch is full or the flush interval has passed since its first transaction.
+ */
+@Slf4j
+@Component
+public class TransactionJournal implements Runnable {
+    private static final String INSERT_TRANSACTION_SQL = """
+            INSERT INTO transactions (id, account_id, transaction_type, amount, currency, transaction_date, created_at, created_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionJournalConf config;
+    private final BlockingQueue<JournalEntry> buffer;
+    private final Timer flushTimer;
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private Thread writer;
+    private volatile boolean running;
+
+    public TransactionJournal(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              TransactionJournalConf config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.buffer = new ArrayBlockingQueue<>(config.getCapacity());
+        this.flushTimer = Timer.builder("bank.transaction.journal.flush")
+                .description("Time spent writing one group commit of transactions")
+                .register(meterRegistry);
+        Gauge.builder("bank.transaction.journal.backlog", buffer, BlockingQueue::size)
+                .description("Transactions queued but not yet written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    @PostConstruct
+    public void start() {
+        lifecycleLock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+            writer = new Thread(this, "transaction-journal");
+            writer.setDaemon(true);
+            writer.start();
+            log.info("Transaction journal started, group commits of {} rows or every {}",
+                    config.getBatchSize(), config.getFlushInterval());
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting transactions and waits until the queued ones are written. Transactions still queued when
+     * the writer has not finished in time are failed.
+     */
+    @PreDestroy
+    public void stop() {
+        lifecycleLock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+            List<JournalEntry> unwritten = new ArrayList<>();
+            buffer.drainTo(unwritten);
+            IllegalStateException failure = new IllegalStateException("Transaction journal stopped");
+            unwritten.forEach(entry -> entry.written().completeExceptionally(failure));
+            log.info("Transaction journal stopped, {} transactions left unwritten", unwritten.size());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Queues the transaction and acknowledges it with the configured acknowledgement mode.
+     */
+    public void record(TransactionCommand cmd) {
+        record(cmd, config.getAckMode());
+    }
+
+    /**
+     * Queues the transaction. With {@link JournalAckMode#DURABLE} returns only after it is committed.
+     */
+    public void record(TransactionCommand cmd, JournalAckMode ackMode) {
+        CompletableFuture<Void> written = append(cmd);
+        if (ackMode == JournalAckMode.DURABLE) {
+            await(written);
+        }
+    }
+
+    /**
+     * Queues all transactions and waits once for all of them with the configured acknowledgement mode.
+     */
+    public void recordAll(List<TransactionCommand> commands) {
+        List<CompletableFuture<Void>> written = new ArrayList<>(commands.size());
+        commands.forEach(cmd -> written.add(append(cmd)));
+        if (config.getAckMode() == JournalAckMode.DURABLE) {
+            await(CompletableFuture.allOf(written.toArray(CompletableFuture[]::new)));
+        }
+    }
+
+    /**
+     * Queues the transaction and returns a future that completes once it is committed. Blocks the caller
+     * while the buffer is full, and fails when no space frees up within the acknowledgement timeout, or when
+     * the journal is stopped before the writer took the transaction.
+     */
+    public CompletableFuture<Void> append(TransactionCommand cmd) {
+        if (!running) {
+            throw new IllegalStateException("Transaction journal is not running");
+        }
+        JournalEntry entry = new JournalEntry(SnowflakeIdGenerator.shared().nextId(), cmd, LocalDateTime.now(),
+                new CompletableFuture<>());
+        try {
+            if (!buffer.offer(entry, config.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Transaction journal is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing transaction");
+        }
+        // Stopped while queueing, the writer may have exited already. Still queued means it will not be written.
+        if (!running && buffer.remove(entry)) {
+            throw new IllegalStateException("Transaction journal is not running");
+        }
+        return entry.written();
+    }
+
+    /**
+     * Number of transactions queued but not yet written.
+     */
+    public int getBacklog() {
+        return buffer.size();
+    }
+
+    @Override
+    public void run() {
+        List<JournalEntry> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !buffer.isEmpty()) {
+            try {
+                JournalEntry first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch, System.nanoTime() + config.getFlushInterval().toNanos());
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds queued transactions to the batch until it is full or the deadline has passed.
+     */
+    private void collectBatch(List<JournalEntry> batch, long deadlineNanos) throws InterruptedException {
+        int batchSize = config.getBatchSize();
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadlineNanos - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            JournalEntry next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Inserts the batch in one database transaction and acknowledges its callers. A failed batch is retried,
+     * after the last attempt its rows are written one by one, so only the rows the database rejects are failed.
+     */
+    private void write(List<JournalEntry> batch) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= config.getMaxAttempts(); attempt++) {
+            try {
+                insert(batch);
+                batch.forEach(entry -> entry.written().complete(null));
+                log.debug("Transaction journal wrote {} transactions", batch.size());
+                return;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                log.warn("Transaction journal write failed (attempt {}/{}): {}", attempt, config.getMaxAttempts(), ex.getMessage());
+            }
+        }
+        if (batch.size() == 1) {
+            fail(batch.get(0), failure);
+            return;
+        }
+        for (JournalEntry entry : batch) {
+            try {
+                insert(List.of(entry));
+                entry.written().complete(null);
+            } catch (RuntimeException ex) {
+                fail(entry, ex);
+            }
+        }
+    }
+
+    private void insert(List<JournalEntry> entries) {
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, entries, entries.size(), (ps, entry) -> {
+                    Timestamp createdAt = Timestamp.valueOf(entry.createdAt());
+                    ps.setLong(1, entry.id());
+                    ps.setLong(2, entry.cmd().getAccount().getId());
+                    ps.setString(3, entry.cmd().getType().name());
+                    ps.setLong(4, entry.cmd().getAmount().minorUnits());
+                    ps.setString(5, entry.cmd().getCurrency().name());
+                    ps.setTimestamp(6, createdAt);
+                    ps.setTimestamp(7, createdAt);
+                    ps.setString(8, entry.cmd().getCreatedBy());
+                })));
+    }
+
+    private void fail(JournalEntry entry, RuntimeException failure) {
+        log.error("Transaction journal gave up the {} {} {} of account {}", entry.cmd().getType(),
+                entry.cmd().getAmount().minorUnits(), entry.cmd().getCurrency(), entry.cmd().getAccount().getId(), failure);
+        entry.written().completeExceptionally(failure);
+    }
+
+    private void await(CompletableFuture<?> written) {
+        try {
+            written.get(config.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Transaction could not be written", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("Transaction was not written in time");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transaction");
+        }
+    }
+
+    private record JournalEntry(long id, TransactionCommand cmd, LocalDateTime createdAt, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bank_account_app.ledger;
+
+import com.example.bank_account_app.dto.BalanceEvent;
+import com.example.bank_account_app.dto.BalanceSnapshot;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+
+import java.util.EnumMap;
+
+/**
+ * Balances of one account folded from its snapshot and the events after it. Only mutated while holding the
+ * lock of the account.
+ */
+class AccountProjection {
+    private final long accountId;
+    private final EnumMap<Currency, Money> balances;
+    private long lastTransactionId;
+
+    // Events not covered by a written snapshot, read by the snapshot thread without the account lock
+    private volatile int pendingEvents;
+
+    AccountProjection(BalanceSnapshot snapshot) {
+        this.accountId = snapshot.accountId();
+        this.balances = new EnumMap<>(snapshot.balances());
+        this.lastTransactionId = snapshot.lastTransactionId();
+    }
+
+    void apply(BalanceEvent event) {
+        balances.merge(event.currency(), event.signedAmount(), Money::plus);
+        lastTransactionId = event.id();
+        pendingEvents++;
+    }
+
+    /**
+     * Balance in the currency, null if the account never had one.
+     */
+    Money getBalance(Currency currency) {
+        return balances.get(currency);
+    }
+
+    EnumMap<Currency, Money> getBalances() {
+        return new EnumMap<>(balances);
+    }
+
+    long getAccountId() {
+        return accountId;
+    }
+
+    int getPendingEvents() {
+        return pendingEvents;
+    }
+
+    BalanceSnapshot snapshot() {
+        return new BalanceSnapshot(accountId, lastTransactionId, new EnumMap<>(balances));
+    }
+
+    /**
+     * A snapshot covering the given number of events was written.
+     */
+    void snapshotWritten(int events) {
+        pendingEvents -= events;
+    }
+}
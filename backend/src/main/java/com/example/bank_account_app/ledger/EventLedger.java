@@ -0,0 +1,417 @@
+package com.example.bank_account_app.ledger;
+
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.BalanceEvent;
+import com.example.bank_account_app.dto.BalanceSnapshot;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.enums.BatchItemStatus;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.LedgerMode;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.BalanceEventRepository;
+import com.example.bank_account_app.repository.BalanceSnapshotRepository;
+import com.example.bank_account_app.service.AccountLockManager;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Ledger of the EVENTS ledger mode. The transactions table is the append-only log and the only source of truth:
+ * a balance change is one inserted transaction and no row is ever updated. Balances are a projection held in
+ * memory, loaded per account from its latest snapshot plus the transactions after it. Snapshots are written
+ * periodically, so loading an account replays only a short tail of its log.
+ */
+@Slf4j
+@Component
+public class EventLedger {
+    private final LedgerConf config;
+    private final BalanceEventRepository balanceEventRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer rebuildTimer;
+    private final Map<Long, AccountProjection> projections = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private ScheduledExecutorService snapshotter;
+
+    public EventLedger(LedgerConf config, BalanceEventRepository balanceEventRepository,
+                       BalanceSnapshotRepository balanceSnapshotRepository, AccountLockManager accountLockManager,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.balanceEventRepository = balanceEventRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildTimer = Timer.builder("bank.ledger.rebuild")
+                .description("Time spent rebuilding all balances from the transaction log")
+                .register(meterRegistry);
+        Gauge.builder("bank.ledger.projections", projections, Map::size)
+                .description("Accounts whose balances are loaded in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the snapshot thread when the events ledger mode is configured.
+     */
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        lifecycleLock.lock();
+        try {
+            if (snapshotter != null) {
+                return;
+            }
+            snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-snapshots");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = config.getSnapshotInterval().toMillis();
+            snapshotter.scheduleWithFixedDelay(() -> writeSnapshots(config.getSnapshotMinEvents()),
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            log.info("Event ledger started, snapshots every {}", config.getSnapshotInterval());
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the snapshot thread and snapshots every account with events since its last snapshot.
+     */
+    @PreDestroy
+    public void stop() {
+        lifecycleLock.lock();
+        try {
+            if (snapshotter == null) {
+                return;
+            }
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            snapshotter = null;
+            writeSnapshots(1);
+            log.info("Event ledger stopped");
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Is the events ledger mode configured.
+     */
+    public boolean isEnabled() {
+        return config.getMode() == LedgerMode.EVENTS;
+    }
+
+    /**
+     * Deposit the amount, the balance is created if the account does not have one in this currency.
+     */
+    public void credit(Account account, Money amount, String createdBy) {
+        accountLockManager.withLock(account.getId(), () -> {
+            projectionOf(account.getId());
+            append(List.of(event(account.getId(), TransactionType.CREDIT, amount, createdBy)));
+        });
+    }
+
+    /**
+     * Withdraw the amount if the balance in this currency is sufficient.
+     */
+    public void debit(Account account, Money amount, String createdBy) {
+        accountLockManager.withLock(account.getId(), () -> {
+            Money current = projectionOf(account.getId()).getBalance(amount.currency());
+            if (current == null) {
+                throw new BalanceNotFoundException("No balance found");
+            }
+            if (current.isLessThan(amount)) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            append(List.of(event(account.getId(), TransactionType.DEBIT, amount, createdBy)));
+        });
+    }
+
+    /**
+     * Moves money between two balances of the account with the same rules as the JPA exchange path. The debit
+     * of the amount and the credit of the converted amount are appended in one database transaction. Returns the
+     * updated source and target balances.
+     */
+    public List<AccountBalance> exchange(Account account, Money amount, Money convertedAmount, String createdBy) {
+        return accountLockManager.withLock(account.getId(), () -> {
+            AccountProjection projection = projectionOf(account.getId());
+            Money fromBalance = projection.getBalance(amount.currency());
+            if (fromBalance == null) {
+                throw new BalanceNotFoundException("Account balance not found");
+            }
+            if (fromBalance.isLessThan(amount)) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            append(List.of(
+                    event(account.getId(), TransactionType.DEBIT, amount, createdBy),
+                    event(account.getId(), TransactionType.CREDIT, convertedAmount, createdBy)));
+            return List.of(toEntity(account, projection.getBalance(amount.currency())),
+                    toEntity(account, projection.getBalance(convertedAmount.currency())));
+        });
+    }
+
+    /**
+     * Applies the credits and debits in order and appends the accepted ones in one database transaction.
+     * Returns the outcome of every command.
+     */
+    public BatchItemStatus[] applyAll(List<TransactionCommand> commands) {
+        Set<Long> accountIds = commands.stream()
+                .map(cmd -> cmd.getAccount().getId())
+                .collect(Collectors.toSet());
+        return accountLockManager.withLocks(accountIds, () -> {
+            // Commands are checked against working copies, the projections only change once the events are written
+            Map<Long, EnumMap<Currency, Money>> working = new HashMap<>();
+            List<BalanceEvent> events = new ArrayList<>();
+            BatchItemStatus[] statuses = new BatchItemStatus[commands.size()];
+            for (int i = 0; i < commands.size(); i++) {
+                TransactionCommand cmd = commands.get(i);
+                long accountId = cmd.getAccount().getId();
+                EnumMap<Currency, Money> balances = working.computeIfAbsent(accountId,
+                        id -> projectionOf(id).getBalances());
+                Money current = balances.get(cmd.getCurrency());
+                if (cmd.getType() == TransactionType.DEBIT && current == null) {
+                    statuses[i] = BatchItemStatus.BALANCE_NOT_FOUND;
+                } else if (cmd.getType() == TransactionType.DEBIT && current.isLessThan(cmd.getAmount())) {
+                    statuses[i] = BatchItemStatus.INSUFFICIENT_BALANCE;
+                } else {
+                    BalanceEvent event = event(accountId, cmd.getType(), cmd.getAmount(), cmd.getCreatedBy());
+                    balances.merge(event.currency(), event.signedAmount(), Money::plus);
+                    events.add(event);
+                    statuses[i] = BatchItemStatus.SUCCESS;
+                }
+            }
+            append(events);
+            return statuses;
+        });
+    }
+
+    /**
+     * Appends the opening balances of new accounts as credits.
+     */
+    public void openBalances(List<AccountBalance> accountBalances) {
+        applyAll(accountBalances.stream()
+                .map(balance -> TransactionCommand.builder()
+                        .account(balance.getAccount())
+                        .amount(balance.toMoney())
+                        .type(TransactionType.CREDIT)
+                        .createdBy(balance.getCreatedBy())
+                        .build())
+                .toList());
+    }
+
+    /**
+     * Current balances of the account.
+     */
+    public List<AccountBalance> getBalances(Account account) {
+        return accountLockManager.withLock(account.getId(), () -> {
+            List<AccountBalance> result = new ArrayList<>();
+            projectionOf(account.getId()).getBalances()
+                    .values().forEach(balance -> result.add(toEntity(account, balance)));
+            return result;
+        });
+    }
+
+    /**
+     * Replays the whole transaction log and replaces all snapshots and loaded balances with the result.
+     * Accounts are split into contiguous id ranges that are replayed in parallel, one per thread. Balance
+     * changes wait until the rebuild is done.
+     */
+    public RebuildResult rebuild() {
+        return accountLockManager.withAllLocks(() -> rebuildTimer.record(() -> {
+            long start = System.nanoTime();
+            List<Long> accountIds = balanceEventRepository.findAccountIds();
+            int parallelism = config.getRebuildParallelism() > 0
+                    ? config.getRebuildParallelism()
+                    : Runtime.getRuntime().availableProcessors();
+            int partitions = Math.max(1, Math.min(parallelism, accountIds.size()));
+            log.info("Rebuilding balances of {} accounts from the transaction log on {} threads",
+                    accountIds.size(), partitions);
+
+            balanceSnapshotRepository.deleteAll();
+            projections.clear();
+            long events = 0;
+            if (!accountIds.isEmpty()) {
+                try (ExecutorService executor = Executors.newFixedThreadPool(partitions,
+                        Thread.ofPlatform().name("ledger-rebuild-", 1).daemon(true).factory())) {
+                    List<Future<Long>> replayed = new ArrayList<>(partitions);
+                    for (int partition = 0; partition < partitions; partition++) {
+                        long fromAccountId = accountIds.get(partition * accountIds.size() / partitions);
+                        long toAccountId = accountIds.get((partition + 1) * accountIds.size() / partitions - 1);
+                        replayed.add(executor.submit(() -> rebuildAccounts(fromAccountId, toAccountId)));
+                    }
+                    for (Future<Long> result : replayed) {
+                        events += result.get();
+                    }
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("Rebuilding balances failed", ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Rebuilding balances interrupted");
+                }
+            }
+
+            RebuildResult result = new RebuildResult(accountIds.size(), events,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), partitions);
+            log.info("Balances rebuilt: {}", result);
+            return result;
+        }));
+    }
+
+    /**
+     * Snapshots every loaded account with at least the given number of events since its last snapshot.
+     */
+    public void writeSnapshots(int minEvents) {
+        try {
+            List<BalanceSnapshot> snapshots = new ArrayList<>();
+            Map<AccountProjection, Integer> covered = new HashMap<>();
+            projections.forEach((accountId, projection) -> {
+                if (projection.getPendingEvents() >= minEvents) {
+                    accountLockManager.withLock(accountId, () -> {
+                        covered.put(projection, projection.getPendingEvents());
+                        snapshots.add(projection.snapshot());
+                    });
+                }
+            });
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    balanceSnapshotRepository.saveAll(snapshots, config.getBatchSize()));
+            covered.forEach((projection, events) -> accountLockManager.withLock(projection.getAccountId(),
+                    () -> projection.snapshotWritten(events)));
+            log.debug("Event ledger wrote snapshots of {} accounts", snapshots.size());
+        } catch (RuntimeException ex) {
+            // Pending events are kept and snapshotted next time
+            log.error("Event ledger snapshot failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Number of accounts whose balances are loaded in memory.
+     */
+    public int getLoadedAccounts() {
+        return projections.size();
+    }
+
+    private long rebuildAccounts(long fromAccountId, long toAccountId) {
+        Map<Long, AccountProjection> rebuilt = new HashMap<>();
+        long[] events = {0};
+        balanceEventRepository.replay(fromAccountId, toAccountId, config.getReplayFetchSize(), event -> {
+            rebuilt.computeIfAbsent(event.accountId(), id -> new AccountProjection(BalanceSnapshot.empty(id)))
+                    .apply(event);
+            events[0]++;
+        });
+
+        List<BalanceSnapshot> snapshots = rebuilt.values().stream().map(AccountProjection::snapshot).toList();
+        transactionTemplate.executeWithoutResult(status ->
+                balanceSnapshotRepository.saveAll(snapshots, config.getBatchSize()));
+        rebuilt.values().forEach(projection -> projection.snapshotWritten(projection.getPendingEvents()));
+        projections.putAll(rebuilt);
+        return events[0];
+    }
+
+    /**
+     * Projection of the account, loaded from its snapshot and the transactions after it on first use.
+     * Must be called while holding the account lock.
+     */
+    private AccountProjection projectionOf(long accountId) {
+        AccountProjection projection = projections.get(accountId);
+        if (projection == null) {
+            BalanceSnapshot snapshot = balanceSnapshotRepository.findByAccountId(accountId);
+            projection = new AccountProjection(snapshot);
+            List<BalanceEvent> tail = balanceEventRepository.findAfter(accountId, snapshot.lastTransactionId());
+            tail.forEach(projection::apply);
+            log.debug("Loaded balances of account {} from snapshot and {} transactions", accountId, tail.size());
+            projections.put(accountId, projection);
+        }
+        return projection;
+    }
+
+    /**
+     * Writes the events and applies them to the projections once they are committed. Must be called while
+     * holding the locks of their accounts. When the caller already runs a database transaction the events are
+     * only committed with it, so the projections of their accounts are dropped once it completes instead, and
+     * are loaded again from what was committed.
+     */
+    private void append(List<BalanceEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        transactionTemplate.executeWithoutResult(status -> balanceEventRepository.append(events, config.getBatchSize()));
+        if (joined) {
+            Set<Long> accountIds = events.stream().map(BalanceEvent::accountId).collect(Collectors.toSet());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    accountLockManager.withLocks(accountIds, () -> {
+                        accountIds.forEach(projections::remove);
+                        return null;
+                    });
+                }
+            });
+            return;
+        }
+        events.forEach(event -> projectionOf(event.accountId()).apply(event));
+    }
+
+    /**
+     * New event with an id taken under the account lock, so the events of an account are in id order.
+     */
+    private BalanceEvent event(long accountId, TransactionType type, Money amount, String createdBy) {
+        return new BalanceEvent(SnowflakeIdGenerator.shared().nextId(), accountId, type, amount, LocalDateTime.now(),
+                createdBy);
+    }
+
+    private AccountBalance toEntity(Account account, Money balance) {
+        return AccountBalance.builder()
+                .account(account)
+                .currency(balance.currency())
+                .balance(balance.minorUnits())
+                .build();
+    }
+
+    /**
+     * Outcome of a rebuild.
+     */
+    public record RebuildResult(int accounts, long transactions, long durationMillis, int threads) {
+    }
+}
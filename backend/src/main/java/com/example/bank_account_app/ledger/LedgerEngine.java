@@ -0,0 +1,234 @@
+package com.example.bank_account_app.ledger;
+
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.LedgerMode;
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.AccountBatchRepository;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * In-memory ledger for the ENGINE ledger mode. Balances are partitioned into shards by account id and every
+ * shard is mutated by its own single writer thread. Changes reach the database asynchronously through
+ * {@link LedgerWriteBehind}.
+ * <p>
+ * The engine must be the only writer of the account_balances table. A balance is loaded once, when its account is
+ * first used, and the write-behind later overwrites the row with the value in memory, so a change made to the
+ * table behind the engine is lost. Opening balances of new accounts are saved with {@link #openBalances}.
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+    private final LedgerConf config;
+    private final LedgerWriteBehind writeBehind;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final AccountBatchRepository accountBatchRepository;
+    private LedgerShard[] shards = new LedgerShard[0];
+
+    public LedgerEngine(LedgerConf config, LedgerWriteBehind writeBehind, AccountBalanceRepository accountBalanceRepository,
+                        AccountBatchRepository accountBatchRepository) {
+        this.config = config;
+        this.writeBehind = writeBehind;
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountBatchRepository = accountBatchRepository;
+    }
+
+    /**
+     * Starts the shard threads when the engine ledger mode is configured.
+     */
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        shards = new LedgerShard[config.getShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, config.getQueueCapacity(), config.getEnqueueTimeout().toMillis(),
+                    this::loadBalances);
+            shards[i].start();
+        }
+        writeBehind.start();
+        log.info("Ledger engine started with {} shards", shards.length);
+    }
+
+    /**
+     * Applies the queued operations and flushes them to the database before shutdown.
+     */
+    @PreDestroy
+    public void stop() {
+        for (LedgerShard shard : shards) {
+            shard.stop(config.getOperationTimeout().toMillis());
+        }
+        writeBehind.stop();
+    }
+
+    /**
+     * Is the engine ledger mode configured.
+     */
+    public boolean isEnabled() {
+        return config.getMode() == LedgerMode.ENGINE;
+    }
+
+    /**
+     * Deposit the amount, the balance is created if the account does not have one in this currency.
+     */
+    public void credit(Account account, Money amount, String createdBy) {
+        executeWrite(account, balances -> {
+            Money updated = balances.getOrDefault(amount.currency(), Money.zero(amount.currency())).plus(amount);
+            writeBehind.enqueueBalance(account.getId(), updated, createdBy);
+            balances.put(amount.currency(), updated);
+            return null;
+        });
+    }
+
+    /**
+     * Withdraw the amount if the balance in this currency is sufficient.
+     */
+    public void debit(Account account, Money amount, String createdBy) {
+        executeWrite(account, balances -> {
+            Money current = balances.get(amount.currency());
+            if (current == null) {
+                throw new BalanceNotFoundException("No balance found");
+            }
+            if (current.isLessThan(amount)) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            Money updated = current.minus(amount);
+            writeBehind.enqueueBalance(account.getId(), updated, createdBy);
+            balances.put(amount.currency(), updated);
+            return null;
+        });
+    }
+
+    /**
+     * Moves money between two balances of the account with the same rules as the JPA exchange path: the amount is
+     * taken from its currency and the converted amount is added in the target currency.
+     * Returns the updated source and target balances.
+     */
+    public List<AccountBalance> exchange(Account account, Money amount, Money convertedAmount, String createdBy) {
+        Currency from = amount.currency();
+        Currency to = convertedAmount.currency();
+        return executeWrite(account, balances -> {
+            Money fromBalance = balances.get(from);
+            if (fromBalance == null) {
+                throw new BalanceNotFoundException("Account balance not found");
+            }
+            if (fromBalance.isLessThan(amount)) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            Money updatedFrom = fromBalance.minus(amount);
+            Money updatedTo = balances.getOrDefault(to, Money.zero(to)).plus(convertedAmount);
+
+            writeBehind.enqueueBalances(account.getId(), List.of(updatedFrom, updatedTo), createdBy);
+            balances.put(from, updatedFrom);
+            balances.put(to, updatedTo);
+            return List.of(toEntity(account, updatedFrom), toEntity(account, updatedTo));
+        });
+    }
+
+    /**
+     * Saves the opening balances of accounts created in the caller's database transaction. No shard has loaded
+     * such an account yet, so the balances are inserted right away and commit or roll back with the accounts, and
+     * the shard loads them when the account is first used. Inserting fails for a balance that already exists.
+     */
+    public void openBalances(List<AccountBalance> balances) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Ledger engine is not enabled");
+        }
+        balances.stream()
+                .filter(balance -> balance.getId() == 0)
+                .forEach(balance -> balance.setId(SnowflakeIdGenerator.shared().nextId()));
+        accountBatchRepository.insertAccountBalances(balances, config.getBatchSize());
+    }
+
+    /**
+     * Current balances of the account.
+     */
+    public List<AccountBalance> getBalances(Account account) {
+        return execute(account, balances -> {
+            List<AccountBalance> result = new ArrayList<>(balances.size());
+            balances.values().forEach(balance -> result.add(toEntity(account, balance)));
+            return result;
+        });
+    }
+
+    /**
+     * Shard that owns the account.
+     */
+    int shardIndex(long accountId) {
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (hash >>> 32), shards.length);
+    }
+
+    /**
+     * Runs an operation that changes balances. Rejected while the write-behind holds balances the database keeps
+     * rejecting, so nothing is changed in memory that could not be written.
+     */
+    private <T> T executeWrite(Account account, Function<EnumMap<Currency, Money>, T> operation) {
+        if (writeBehind.isBlocked()) {
+            throw new LedgerBusyException("Ledger is not accepting writes until the rejected balances are written");
+        }
+        return execute(account, operation);
+    }
+
+    private <T> T execute(Account account, Function<EnumMap<Currency, Money>, T> operation) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Ledger engine is not enabled");
+        }
+        LedgerShard.Operation<T> queued = shards[shardIndex(account.getId())].submit(account.getId(), operation);
+        try {
+            return queued.result().get(config.getOperationTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ledger operation failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            if (queued.withdraw()) {
+                throw new LedgerBusyException("Ledger operation timed out for account " + account.getAccountNumber());
+            }
+            throw new OutcomeUnknownException("Ledger operation is still being applied for account "
+                    + account.getAccountNumber());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            if (queued.withdraw()) {
+                throw new LedgerBusyException("Ledger operation interrupted");
+            }
+            throw new OutcomeUnknownException("Ledger operation interrupted while it was being applied");
+        }
+    }
+
+    private EnumMap<Currency, Money> loadBalances(long accountId) {
+        EnumMap<Currency, Money> balances = new EnumMap<>(Currency.class);
+        accountBalanceRepository.findAllByAccountId(accountId)
+                .forEach(balance -> balances.put(balance.getCurrency(), balance.toMoney()));
+        return balances;
+    }
+
+    private AccountBalance toEntity(Account account, Money balance) {
+        return AccountBalance.builder()
+                .account(account)
+                .currency(balance.currency())
+                .balance(balance.minorUnits())
+                .build();
+    }
+}
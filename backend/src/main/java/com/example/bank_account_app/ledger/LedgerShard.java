@@ -0,0 +1,130 @@
+package com.example.bank_account_app.ledger;
+
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * One partition of the ledger. All balances of the shard are owned by a single writer thread,
+ * so operations on them need no locking. Other threads only enqueue operations.
+ */
+@Slf4j
+class LedgerShard implements Runnable {
+    private final BlockingQueue<Runnable> queue;
+    private final Map<Long, EnumMap<Currency, Money>> balances = new HashMap<>();
+    private final LongFunction<EnumMap<Currency, Money>> balanceLoader;
+    private final long enqueueTimeoutMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    LedgerShard(int index, int queueCapacity, long enqueueTimeoutMillis,
+                LongFunction<EnumMap<Currency, Money>> balanceLoader) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.balanceLoader = balanceLoader;
+        this.thread = new Thread(this, "ledger-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues an operation on the balances of one account. Waits up to the enqueue timeout while the queue is full
+     * and then throws {@link LedgerBusyException}, the operation is not queued in that case.
+     */
+    <T> Operation<T> submit(long accountId, Function<EnumMap<Currency, Money>, T> operation) {
+        if (!running) {
+            throw new IllegalStateException("Ledger shard " + thread.getName() + " is stopped");
+        }
+        Operation<T> queued = new Operation<>();
+        Runnable task = () -> {
+            if (!queued.claim()) {
+                return;
+            }
+            try {
+                queued.result().complete(operation.apply(balancesOf(accountId)));
+            } catch (RuntimeException ex) {
+                queued.result().completeExceptionally(ex);
+            }
+        };
+        try {
+            if (!queue.offer(task, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new LedgerBusyException("Ledger shard " + thread.getName() + " is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new LedgerBusyException("Interrupted while waiting for ledger shard " + thread.getName());
+        }
+        return queued;
+    }
+
+    /**
+     * Stops accepting operations and waits until the queued ones are applied.
+     */
+    void stop(long timeoutMillis) {
+        running = false;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Runnable operation = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (operation != null) {
+                    operation.run();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Ledger operation failed on {}", thread.getName(), ex);
+            }
+        }
+    }
+
+    /**
+     * Balances of the account, loaded from the database the first time the account is touched.
+     */
+    private EnumMap<Currency, Money> balancesOf(long accountId) {
+        return balances.computeIfAbsent(accountId, balanceLoader::apply);
+    }
+
+    /**
+     * A queued operation. It is applied by the shard or withdrawn by its caller, whichever claims it first.
+     */
+    record Operation<T>(CompletableFuture<T> result, AtomicBoolean claimed) {
+        Operation() {
+            this(new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        /**
+         * Withdraws the operation, false when the shard has already started to apply it.
+         */
+        boolean withdraw() {
+            return claim();
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
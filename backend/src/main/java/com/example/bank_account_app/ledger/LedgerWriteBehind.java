@@ -0,0 +1,261 @@
+package com.example.bank_account_app.ledger;
+
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists ledger engine balances asynchronously. Changes of the same account and currency are coalesced
+ * so that only the latest value is written. Transactions are written by the transaction journal.
+ * No balance is ever dropped: a row the database keeps rejecting stays pending, and the engine accepts no
+ * writes until it is written.
+ */
+@Slf4j
+@Component
+public class LedgerWriteBehind {
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final String UPSERT_BALANCE_SQL = """
+            MERGE INTO account_balances b
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(3)), CAST(? AS BIGINT),
+                           CAST(? AS VARCHAR(100)), CAST(? AS TIMESTAMP)))
+                AS s (id, account_id, currency, balance, modified_by, modified_at)
+            ON b.account_id = s.account_id AND b.currency = s.currency
+            WHEN MATCHED THEN
+                UPDATE SET balance = s.balance, last_modified_at = s.modified_at, last_modified_by = s.modified_by,
+                           version = b.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (id, account_id, currency, balance, created_at, created_by, version)
+                VALUES (s.id, s.account_id, s.currency, s.balance, s.modified_at, s.modified_by, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerConf config;
+    private final BlockingQueue<List<BalanceWrite>> balanceWrites;
+
+    // Only touched by the flushing thread, kept between flushes when a write fails
+    private final Map<BalanceKey, BalanceWrite> pendingBalances = new LinkedHashMap<>();
+    private int failedFlushes;
+    private long nextFlushNanos;
+    // Rows still pending after they were written one by one, the engine rejects writes while there are any
+    private volatile int rejectedBalances;
+
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private ScheduledExecutorService flusher;
+
+    public LedgerWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, LedgerConf config,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.balanceWrites = new LinkedBlockingQueue<>(config.getWriteBehindCapacity());
+        Gauge.builder("bank.ledger.write-behind.backlog", balanceWrites, BlockingQueue::size)
+                .description("Balance changes queued but not yet written")
+                .register(meterRegistry);
+        Gauge.builder("bank.ledger.write-behind.rejected", this, writeBehind -> writeBehind.rejectedBalances)
+                .description("Balances the database keeps rejecting, the ledger engine accepts no writes while above 0")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the background flushing thread.
+     */
+    public void start() {
+        lifecycleLock.lock();
+        try {
+            if (flusher != null) {
+                return;
+            }
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMicros = config.getFlushInterval().toNanos() / 1000;
+            flusher.scheduleWithFixedDelay(this::scheduledFlush, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+            log.info("Ledger write-behind started, flushing every {}", config.getFlushInterval());
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background thread and writes everything that is still queued.
+     */
+    public void stop() {
+        lifecycleLock.lock();
+        try {
+            if (flusher == null) {
+                return;
+            }
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+            flush();
+            if (!pendingBalances.isEmpty()) {
+                log.error("Ledger write-behind stopped with {} balances not written", pendingBalances.size());
+            }
+            log.info("Ledger write-behind stopped");
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Queues the new value of a balance. Waits up to the enqueue timeout while the queue is full and then throws
+     * {@link LedgerBusyException}, the balance is not queued in that case.
+     */
+    public void enqueueBalance(long accountId, Money balance, String modifiedBy) {
+        enqueueBalances(accountId, List.of(balance), modifiedBy);
+    }
+
+    /**
+     * Queues the new values of several balances of the account, either all of them or none.
+     */
+    public void enqueueBalances(long accountId, List<Money> balances, String modifiedBy) {
+        LocalDateTime modifiedAt = LocalDateTime.now();
+        List<BalanceWrite> writes = balances.stream()
+                .map(balance -> new BalanceWrite(new BalanceKey(accountId, balance.currency()), balance, modifiedBy,
+                        modifiedAt))
+                .toList();
+        try {
+            if (!balanceWrites.offer(writes, config.getEnqueueTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new LedgerBusyException("Ledger write-behind queue is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new LedgerBusyException("Interrupted while waiting for the ledger write-behind queue");
+        }
+    }
+
+    /**
+     * Are there balances the database keeps rejecting. They stay pending and are retried, the ledger engine
+     * accepts no writes until they are written.
+     */
+    public boolean isBlocked() {
+        return rejectedBalances > 0;
+    }
+
+    /**
+     * Writes queued balances in one database transaction.
+     */
+    void flush() {
+        try {
+            drainQueues();
+            while (!pendingBalances.isEmpty()) {
+                int count = pendingBalances.size();
+                if (failedFlushes >= config.getMaxFlushAttempts()) {
+                    writeOneByOne();
+                } else {
+                    write(new ArrayList<>(pendingBalances.values()));
+                    pendingBalances.clear();
+                }
+                log.debug("Ledger write-behind flushed {} balances", count);
+                failedFlushes = 0;
+                rejectedBalances = 0;
+                drainQueues();
+            }
+        } catch (RuntimeException ex) {
+            // Pending rows are kept and retried with a growing delay
+            failedFlushes++;
+            long delayNanos = Math.min(config.getFlushInterval().toNanos() << Math.min(failedFlushes, 20),
+                    MAX_RETRY_DELAY.toNanos());
+            nextFlushNanos = System.nanoTime() + delayNanos;
+            log.error("Ledger write-behind flush failed {} times, retrying in {} ms: {}", failedFlushes,
+                    TimeUnit.NANOSECONDS.toMillis(delayNanos), ex.getMessage());
+        }
+    }
+
+    /**
+     * Number of queued balance changes not yet written.
+     */
+    public int getBacklog() {
+        return balanceWrites.size();
+    }
+
+    private void scheduledFlush() {
+        if (failedFlushes > 0 && System.nanoTime() - nextFlushNanos < 0) {
+            return;
+        }
+        flush();
+    }
+
+    private void write(List<BalanceWrite> balances) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(UPSERT_BALANCE_SQL, balances, config.getBatchSize(), (ps, write) -> {
+                    ps.setLong(1, SnowflakeIdGenerator.shared().nextId());
+                    ps.setLong(2, write.key().accountId());
+                    ps.setString(3, write.key().currency().name());
+                    ps.setLong(4, write.balance().minorUnits());
+                    ps.setString(5, write.modifiedBy());
+                    ps.setTimestamp(6, Timestamp.valueOf(write.modifiedAt()));
+                }));
+    }
+
+    /**
+     * Writes the pending rows one at a time after the batch has failed repeatedly, so a row the database keeps
+     * rejecting does not hold back the others. The rejected rows stay pending and are retried with the next flush.
+     */
+    private void writeOneByOne() {
+        RuntimeException failure = null;
+        Iterator<BalanceWrite> pending = pendingBalances.values().iterator();
+        while (pending.hasNext()) {
+            BalanceWrite balance = pending.next();
+            try {
+                write(List.of(balance));
+                pending.remove();
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            if (rejectedBalances == 0) {
+                pendingBalances.values().forEach(balance -> log.error("Ledger write-behind could not write the {} "
+                        + "balance of account {}, the ledger accepts no writes until it is written",
+                        balance.key().currency(), balance.key().accountId()));
+            }
+            rejectedBalances = pendingBalances.size();
+            throw failure;
+        }
+    }
+
+    private void drainQueues() {
+        List<List<BalanceWrite>> changes = new ArrayList<>();
+        balanceWrites.drainTo(changes, config.getBatchSize() * 10);
+        // A later value of the same balance replaces the earlier one
+        changes.forEach(writes -> writes.forEach(write -> pendingBalances.put(write.key(), write)));
+    }
+
+    private record BalanceKey(long accountId, Currency currency) {
+    }
+
+    private record BalanceWrite(BalanceKey key, Money balance, String modifiedBy, LocalDateTime modifiedAt) {
+    }
+}
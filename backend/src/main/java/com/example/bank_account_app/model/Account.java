@@ -1,5 +1,6 @@
 package com.example.bank_account_app.model;
 
+import com.example.bank_account_app.util.AccountNumberCodec;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @Table(name = "accounts")
+@EntityListeners(AccountCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,13 +21,16 @@ import java.time.LocalDateTime;
 @ToString
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     @Column(name = "id")
-    private int id; // unique account ID
+    private long id; // unique account ID, ordered by creation time
 
-    @Column(name = "account_number", nullable = false, unique = true)
+    @Column(name = "account_number", nullable = false)
     private String accountNumber; // unique account number
 
+    @Column(name = "account_key", nullable = false, unique = true)
+    private long accountKey; // digits of the account number, accounts are looked up by it
+
     @Column(name = "account_holder", nullable = false)
     private String accountHolder; // account holder's name
 
@@ -35,4 +40,16 @@ public class Account {
 
     @Column(name = "created_by", nullable = false)
     private String createdBy; // the user who created the bank account
+
+    /**
+     * Keeps the key in line with the account number, also for accounts that are not built by the account service.
+     */
+    @PrePersist
+    @PreUpdate
+    void encodeAccountKey() {
+        accountKey = AccountNumberCodec.encode(accountNumber);
+        if (accountKey == AccountNumberCodec.INVALID) {
+            throw new IllegalArgumentException("Invalid account number: " + accountNumber);
+        }
+    }
 }
@@ -1,12 +1,12 @@
 package com.example.bank_account_app.model;
 
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.enums.Currency;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
  */
 @Builder
 @Entity
-@Table(name = "account_balances")
+@Table(name = "account_balances",
+        uniqueConstraints = @UniqueConstraint(name = "unique_account_currency", columnNames = {"account_id", "currency"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,9 +25,9 @@ import java.time.LocalDateTime;
 public class AccountBalance {
 
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @SnowflakeId
         @Column(name = "id")
-        private int id; // unique account balance ID
+        private long id; // unique account balance ID, ordered by creation time
 
         @ManyToOne(fetch = FetchType.LAZY)
         @JoinColumn(name = "account_id", nullable = false)
@@ -36,8 +37,8 @@ public class AccountBalance {
         @Column(name = "currency", nullable = false, length = 3)
         private Currency currency; // currency of the balance
 
-        @Column(name = "balance", nullable = false, precision = 15, scale = 2)
-        private BigDecimal balance; // current balance of the account
+        @Column(name = "balance", nullable = false)
+        private long balance; // current balance of the account in minor units of the currency
 
         @CreationTimestamp
         @Column(name = "created_at", nullable = false)
@@ -46,9 +47,21 @@ public class AccountBalance {
         @Column(name = "created_by", nullable = false)
         private String createdBy; // the user who created the balance
 
+        @UpdateTimestamp
         @Column(name = "last_modified_at")
         private LocalDateTime lastModifiedAt; // timestamp of when the balance was last modified
 
         @Column(name = "last_modified_by")
         private String lastModifiedBy; // the user who last modified the balance
+
+        @Version
+        @Column(name = "version", nullable = false)
+        private long version; // incremented by every update, also by the JDBC statements that change the balance
+
+        /**
+         * Balance as money in the currency of the balance.
+         */
+        public Money toMoney() {
+                return Money.ofMinor(balance, currency);
+        }
 }
@@ -0,0 +1,25 @@
+package com.example.bank_account_app.model;
+
+import com.example.bank_account_app.service.AccountCache;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the account cache in line with changes that do not go through the account service,
+ * for example updates of a managed entity or repository deletes.
+ */
+@Component
+public class AccountCacheListener {
+    private final AccountCache accountCache;
+
+    public AccountCacheListener(AccountCache accountCache) {
+        this.accountCache = accountCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Account account) {
+        accountCache.evict(account.getAccountKey());
+    }
+}
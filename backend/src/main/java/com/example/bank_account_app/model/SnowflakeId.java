@@ -0,0 +1,18 @@
+package com.example.bank_account_app.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an id that is assigned by {@link com.example.bank_account_app.util.SnowflakeIdGenerator} before the insert.
+ * Unlike identity columns this keeps Hibernate insert batching enabled.
+ */
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
@@ -6,7 +6,6 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -14,7 +13,8 @@ import java.time.LocalDateTime;
  */
 @Builder
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = @Index(name = "idx_transactions_account_date_id", columnList = "account_id, transaction_date desc, id desc"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,8 +23,9 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    @SnowflakeId
+    @Column(name = "id")
+    private long id; // unique transaction ID, ordered by creation time
 
     @ManyToOne
     @JoinColumn(name = "account_id", referencedColumnName = "id", nullable = false)
@@ -34,8 +35,8 @@ public class Transaction {
     @Column(name = "transaction_type", nullable = false)
     private TransactionType transactionType;
 
-    @Column(name = "amount", nullable = false, precision = 15, scale = 2)
-    private BigDecimal amount;
+    @Column(name = "amount", nullable = false)
+    private long amount; // in minor units of the currency
 
     @Enumerated(EnumType.STRING)
     @Column(name = "currency", nullable = false)
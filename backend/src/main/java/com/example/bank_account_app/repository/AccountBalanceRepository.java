@@ -3,8 +3,13 @@ package com.example.bank_account_app.repository;
 import com.example.bank_account_app.enums.Currency;
 import com.example.bank_account_app.model.AccountBalance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,10 +18,49 @@ import java.util.List;
 @Repository
 public interface AccountBalanceRepository extends JpaRepository<AccountBalance, Long> {
     // find all account balances by account id
-    List<AccountBalance> findAllByAccountId(int accountId);
+    List<AccountBalance> findAllByAccountId(long accountId);
 
     // find account balance by account number and currency
-    AccountBalance findByAccountIdAndCurrency(int accountId, Currency currency);
+    AccountBalance findByAccountIdAndCurrency(long accountId, Currency currency);
 
+    // find all account balances of the accounts
+    List<AccountBalance> findAllByAccountIdIn(Collection<Long> accountIds);
 
+    // version of all balances of the account, 0 if it has none. Balances are never deleted, so the value grows
+    // whenever a balance is created or updated
+    @Query(value = """
+            SELECT COALESCE(SUM(version + 1), 0) FROM account_balances WHERE account_id = :accountId
+            """, nativeQuery = true)
+    long findBalancesVersion(@Param("accountId") long accountId);
+
+    // add the amount in minor units to the balance in one statement, the balance is created with the given id if it does not exist yet
+    @Transactional
+    @Modifying
+    @Query(value = """
+            MERGE INTO account_balances b
+            USING (VALUES (CAST(:id AS BIGINT), CAST(:accountId AS BIGINT), CAST(:currency AS VARCHAR(3)),
+                           CAST(:amount AS BIGINT), CAST(:modifiedBy AS VARCHAR(100))))
+                AS s (id, account_id, currency, amount, modified_by)
+            ON b.account_id = s.account_id AND b.currency = s.currency
+            WHEN MATCHED THEN
+                UPDATE SET balance = b.balance + s.amount, last_modified_at = LOCALTIMESTAMP, last_modified_by = s.modified_by,
+                           version = b.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (id, account_id, currency, balance, created_at, created_by, version)
+                VALUES (s.id, s.account_id, s.currency, s.amount, LOCALTIMESTAMP, s.modified_by, 0)
+            """, nativeQuery = true)
+    int creditBalance(@Param("id") long id, @Param("accountId") long accountId, @Param("currency") String currency,
+                      @Param("amount") long amount, @Param("modifiedBy") String modifiedBy);
+
+    // subtract the amount in minor units in one statement only if the balance is sufficient, returns 0 when nothing was updated
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE account_balances
+            SET balance = balance - :amount, last_modified_at = LOCALTIMESTAMP, last_modified_by = :modifiedBy,
+                version = version + 1
+            WHERE account_id = :accountId AND currency = :currency AND balance >= :amount
+            """, nativeQuery = true)
+    int debitBalance(@Param("accountId") long accountId, @Param("currency") String currency,
+                     @Param("amount") long amount, @Param("modifiedBy") String modifiedBy);
 }
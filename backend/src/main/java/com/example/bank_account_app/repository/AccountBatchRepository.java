@@ -0,0 +1,103 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * This is a repository for inserting many new accounts, balances and transactions with JDBC batches.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountBatchRepository {
+    private static final String INSERT_ACCOUNT_SQL = """
+            INSERT INTO accounts (id, account_number, account_key, account_holder, created_at, created_by)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_ACCOUNT_BALANCE_SQL = """
+            INSERT INTO account_balances (id, account_id, currency, balance, created_at, created_by, version)
+            VALUES (?, ?, ?, ?, ?, ?, 0)
+            """;
+    private static final String INSERT_TRANSACTION_SQL = """
+            INSERT INTO transactions (id, account_id, transaction_type, amount, currency, transaction_date, created_at, created_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Rows of the accounts go first, the foreign keys reference the accounts
+    private static final List<String> DELETE_CREATED_BY_SQL = List.of("""
+            DELETE FROM transactions WHERE account_id IN (SELECT id FROM accounts WHERE created_by = ?)
+            """, """
+            DELETE FROM account_balances WHERE account_id IN (SELECT id FROM accounts WHERE created_by = ?)
+            """, """
+            DELETE FROM balance_snapshots WHERE account_id IN (SELECT id FROM accounts WHERE created_by = ?)
+            """, """
+            DELETE FROM accounts WHERE created_by = ?
+            """);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts accounts whose id, account number and key are already set.
+     */
+    public void insertAccounts(List<Account> accounts, int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT_SQL, accounts, batchSize, (ps, account) -> {
+            ps.setLong(1, account.getId());
+            ps.setString(2, account.getAccountNumber());
+            ps.setLong(3, account.getAccountKey());
+            ps.setString(4, account.getAccountHolder());
+            ps.setTimestamp(5, now);
+            ps.setString(6, account.getCreatedBy());
+        });
+    }
+
+    /**
+     * Inserts balances whose id is already set.
+     */
+    public void insertAccountBalances(List<AccountBalance> accountBalances, int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT_BALANCE_SQL, accountBalances, batchSize, (ps, balance) -> {
+            ps.setLong(1, balance.getId());
+            ps.setLong(2, balance.getAccount().getId());
+            ps.setString(3, balance.getCurrency().name());
+            ps.setLong(4, balance.getBalance());
+            ps.setTimestamp(5, now);
+            ps.setString(6, balance.getCreatedBy());
+        });
+    }
+
+    /**
+     * Inserts transactions whose id and dates are already set.
+     */
+    public void insertTransactions(List<Transaction> transactions, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, transactions, batchSize, (ps, transaction) -> {
+            ps.setLong(1, transaction.getId());
+            ps.setLong(2, transaction.getAccount().getId());
+            ps.setString(3, transaction.getTransactionType().name());
+            ps.setLong(4, transaction.getAmount());
+            ps.setString(5, transaction.getCurrency().name());
+            ps.setTimestamp(6, Timestamp.valueOf(transaction.getTransactionDate()));
+            ps.setTimestamp(7, Timestamp.valueOf(transaction.getCreatedAt()));
+            ps.setString(8, transaction.getCreatedBy());
+        });
+    }
+
+    /**
+     * Deletes the accounts created by {@code createdBy} together with their balances, snapshots and transactions.
+     * Returns the number of deleted accounts.
+     */
+    public int deleteAccountsCreatedBy(String createdBy) {
+        int accounts = 0;
+        for (String sql : DELETE_CREATED_BY_SQL) {
+            accounts = jdbcTemplate.update(sql, createdBy);
+        }
+        return accounts;
+    }
+}
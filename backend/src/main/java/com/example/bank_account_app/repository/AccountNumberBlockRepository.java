@@ -0,0 +1,59 @@
+package com.example.bank_account_app.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+
+/**
+ * This is a repository for the high-water mark of the account number counter, shared by all application instances.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountNumberBlockRepository {
+    private static final String SELECT_FOR_UPDATE_SQL = """
+            SELECT next_counter, permutation_key FROM account_number_blocks WHERE id = 1 FOR UPDATE
+            """;
+    private static final String UPDATE_SQL = """
+            UPDATE account_number_blocks SET next_counter = ?, permutation_key = ? WHERE id = 1
+            """;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserves the next block of counter values for this instance. The row lock makes concurrent reservations
+     * wait for each other, so every counter value is handed out only once. The permutation key is created with the
+     * first reservation and never changes.
+     */
+    @Transactional
+    public ReservedBlock reserve(int size) {
+        return reserve(size, RANDOM.nextLong());
+    }
+
+    /**
+     * Same as {@link #reserve(int)}, but the permutation key is the given one when it has not been created yet.
+     */
+    @Transactional
+    public ReservedBlock reserve(int size, long initialPermutationKey) {
+        ReservedBlock block = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE_SQL, (rs, rowNum) -> {
+            long first = rs.getLong("next_counter");
+            long permutationKey = rs.getLong("permutation_key");
+            if (rs.wasNull()) {
+                permutationKey = initialPermutationKey;
+            }
+            return new ReservedBlock(first, Math.addExact(first, size), permutationKey);
+        });
+        jdbcTemplate.update(UPDATE_SQL, block.end(), block.permutationKey());
+        return block;
+    }
+
+    /**
+     * Counter values from {@code first} (inclusive) to {@code end} (exclusive), and the key of the permutation
+     * that turns them into account numbers.
+     */
+    public record ReservedBlock(long first, long end, long permutationKey) {
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.bank_account_app.repository;
 
 import com.example.bank_account_app.model.Account;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * This is a repository interface for Account entity to perform CRUD operations.
  */
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    Account findByAccountNumber(String accountNumber);
+    Account findByAccountKey(long accountKey);
+
+    List<Account> findAllByAccountKeyIn(Collection<Long> accountKeys);
+
+    @Query("SELECT a.accountKey FROM Account a WHERE a.accountKey IN :accountKeys")
+    List<Long> findExistingAccountKeys(@Param("accountKeys") Collection<Long> accountKeys);
+
+    List<Account> findAllByIdGreaterThanOrderById(long id, Limit limit);
 }
@@ -0,0 +1,38 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.dto.AccountDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * This is a repository for reading all accounts row by row without loading them into memory.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountStreamRepository {
+    private static final String SELECT_ACCOUNTS_SQL = """
+            SELECT account_number, account_holder FROM accounts ORDER BY id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Passes every account to the consumer in primary key order. The rows are read through a forward-only
+     * cursor, so only one fetch of rows is held in memory at a time.
+     */
+    public void streamAccounts(int fetchSize, Consumer<AccountDTO> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_ACCOUNTS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs ->
+                consumer.accept(new AccountDTO(rs.getString("account_number"), rs.getString("account_holder"))));
+    }
+}
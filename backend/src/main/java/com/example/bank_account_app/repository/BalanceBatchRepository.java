@@ -0,0 +1,78 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a repository for applying many balance changes and transactions with JDBC batches.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceBatchRepository {
+    // A positive delta is a credit and creates the balance if needed, a negative delta is a debit
+    // that only matches an existing balance which stays non-negative. Every statement reports 1 or 0 rows.
+    private static final String APPLY_BALANCE_CHANGE_SQL = """
+            MERGE INTO account_balances b
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(3)), CAST(? AS BIGINT),
+                           CAST(? AS VARCHAR(100)))) AS s (id, account_id, currency, delta, modified_by)
+            ON b.account_id = s.account_id AND b.currency = s.currency
+            WHEN MATCHED AND b.balance + s.delta >= 0 THEN
+                UPDATE SET balance = b.balance + s.delta, last_modified_at = LOCALTIMESTAMP, last_modified_by = s.modified_by,
+                           version = b.version + 1
+            WHEN NOT MATCHED AND s.delta >= 0 THEN
+                INSERT (id, account_id, currency, balance, created_at, created_by, version)
+                VALUES (s.id, s.account_id, s.currency, s.delta, LOCALTIMESTAMP, s.modified_by, 0)
+            """;
+    private static final String INSERT_TRANSACTION_SQL = """
+            INSERT INTO transactions (id, account_id, transaction_type, amount, currency, transaction_date, created_at, created_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies the changes in order and returns the number of updated rows for every change.
+     */
+    public int[] applyBalanceChanges(List<BalanceChange> changes, int batchSize) {
+        int[][] counts = jdbcTemplate.batchUpdate(APPLY_BALANCE_CHANGE_SQL, changes, batchSize, (ps, change) -> {
+            ps.setLong(1, SnowflakeIdGenerator.shared().nextId());
+            ps.setLong(2, change.accountId());
+            ps.setString(3, change.delta().currency().name());
+            ps.setLong(4, change.delta().minorUnits());
+            ps.setString(5, change.modifiedBy());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    /**
+     * Inserts transactions with JDBC batches.
+     */
+    public void insertTransactions(List<TransactionCommand> commands, int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, commands, batchSize, (ps, cmd) -> {
+            ps.setLong(1, SnowflakeIdGenerator.shared().nextId());
+            ps.setLong(2, cmd.getAccount().getId());
+            ps.setString(3, cmd.getType().name());
+            ps.setLong(4, cmd.getAmount().minorUnits());
+            ps.setString(5, cmd.getCurrency().name());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+            ps.setString(8, cmd.getCreatedBy());
+        });
+    }
+
+    /**
+     * Signed change of one balance.
+     */
+    public record BalanceChange(long accountId, Money delta, String modifiedBy) {
+    }
+}
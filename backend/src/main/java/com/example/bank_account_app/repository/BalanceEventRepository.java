@@ -0,0 +1,100 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.dto.BalanceEvent;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This is a repository for appending to and replaying the transaction log of the event-sourced ledger mode.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceEventRepository {
+    private static final String INSERT_EVENT_SQL = """
+            INSERT INTO transactions (id, account_id, transaction_type, amount, currency, transaction_date, created_at, created_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String SELECT_EVENTS_AFTER_SQL = """
+            SELECT id, account_id, transaction_type, amount, currency, created_at, created_by
+            FROM transactions
+            WHERE account_id = ? AND id > ?
+            ORDER BY id
+            """;
+    private static final String SELECT_EVENTS_OF_ACCOUNTS_SQL = """
+            SELECT id, account_id, transaction_type, amount, currency, created_at, created_by
+            FROM transactions
+            WHERE account_id BETWEEN ? AND ?
+            ORDER BY account_id, id
+            """;
+    private static final String SELECT_ACCOUNT_IDS_SQL = """
+            SELECT DISTINCT account_id FROM transactions ORDER BY account_id
+            """;
+
+    private static final RowMapper<BalanceEvent> EVENT_MAPPER = (rs, rowNum) -> new BalanceEvent(
+            rs.getLong("id"),
+            rs.getLong("account_id"),
+            TransactionType.valueOf(rs.getString("transaction_type")),
+            Money.ofMinor(rs.getLong("amount"), Currency.valueOf(rs.getString("currency"))),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getString("created_by"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the events with JDBC batches.
+     */
+    public void append(List<BalanceEvent> events, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, events, batchSize, (ps, event) -> {
+            Timestamp createdAt = Timestamp.valueOf(event.createdAt());
+            ps.setLong(1, event.id());
+            ps.setLong(2, event.accountId());
+            ps.setString(3, event.type().name());
+            ps.setLong(4, event.amount().minorUnits());
+            ps.setString(5, event.currency().name());
+            ps.setTimestamp(6, createdAt);
+            ps.setTimestamp(7, createdAt);
+            ps.setString(8, event.createdBy());
+        });
+    }
+
+    /**
+     * Events of the account with an id larger than the given one, in id order.
+     */
+    public List<BalanceEvent> findAfter(long accountId, long afterId) {
+        return jdbcTemplate.query(SELECT_EVENTS_AFTER_SQL, EVENT_MAPPER, accountId, afterId);
+    }
+
+    /**
+     * Ids of all accounts that have events, in ascending order.
+     */
+    public List<Long> findAccountIds() {
+        return jdbcTemplate.queryForList(SELECT_ACCOUNT_IDS_SQL, Long.class);
+    }
+
+    /**
+     * Passes every event of the accounts in the id range to the consumer, ordered by account and event id.
+     * The rows are read through a forward-only cursor, so only one fetch of rows is held in memory at a time.
+     */
+    public void replay(long fromAccountId, long toAccountId, int fetchSize, Consumer<BalanceEvent> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_EVENTS_OF_ACCOUNTS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, fromAccountId);
+            ps.setLong(2, toAccountId);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(EVENT_MAPPER.mapRow(rs, 0)));
+    }
+}
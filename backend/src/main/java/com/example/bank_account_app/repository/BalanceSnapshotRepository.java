@@ -0,0 +1,79 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.dto.BalanceSnapshot;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a repository for the balance snapshots of the event-sourced ledger mode.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceSnapshotRepository {
+    private static final String SELECT_SNAPSHOT_SQL = """
+            SELECT currency, balance, last_transaction_id FROM balance_snapshots WHERE account_id = ?
+            """;
+    private static final String UPSERT_SNAPSHOT_SQL = """
+            MERGE INTO balance_snapshots s
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(3)), CAST(? AS BIGINT), CAST(? AS BIGINT),
+                           CAST(? AS TIMESTAMP))) AS v (account_id, currency, balance, last_transaction_id, created_at)
+            ON s.account_id = v.account_id AND s.currency = v.currency
+            WHEN MATCHED THEN
+                UPDATE SET balance = v.balance, last_transaction_id = v.last_transaction_id, created_at = v.created_at
+            WHEN NOT MATCHED THEN
+                INSERT (account_id, currency, balance, last_transaction_id, created_at)
+                VALUES (v.account_id, v.currency, v.balance, v.last_transaction_id, v.created_at)
+            """;
+    private static final String DELETE_SNAPSHOTS_SQL = "DELETE FROM balance_snapshots";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Latest snapshot of the account, an empty one when the account has none.
+     */
+    public BalanceSnapshot findByAccountId(long accountId) {
+        BalanceSnapshot snapshot = BalanceSnapshot.empty(accountId);
+        long[] lastTransactionId = {BalanceSnapshot.NO_TRANSACTIONS};
+        jdbcTemplate.query(SELECT_SNAPSHOT_SQL, rs -> {
+            Currency currency = Currency.valueOf(rs.getString("currency"));
+            snapshot.balances().put(currency, Money.ofMinor(rs.getLong("balance"), currency));
+            lastTransactionId[0] = rs.getLong("last_transaction_id");
+        }, accountId);
+        return new BalanceSnapshot(accountId, lastTransactionId[0], snapshot.balances());
+    }
+
+    /**
+     * Writes the snapshots with JDBC batches, replacing the previous snapshots of the same accounts.
+     */
+    public void saveAll(List<BalanceSnapshot> snapshots, int batchSize) {
+        List<SnapshotRow> rows = new ArrayList<>();
+        snapshots.forEach(snapshot -> snapshot.balances().forEach((currency, balance) ->
+                rows.add(new SnapshotRow(snapshot.accountId(), balance, snapshot.lastTransactionId()))));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row.accountId());
+            ps.setString(2, row.balance().currency().name());
+            ps.setLong(3, row.balance().minorUnits());
+            ps.setLong(4, row.lastTransactionId());
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    /**
+     * Deletes all snapshots.
+     */
+    public void deleteAll() {
+        jdbcTemplate.update(DELETE_SNAPSHOTS_SQL);
+    }
+
+    private record SnapshotRow(long accountId, Money balance, long lastTransactionId) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.dto.IdempotentResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * This is a repository for the Idempotency-Key responses, shared by all application instances.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at) VALUES (?, ?, ?)
+            """;
+    private static final String SELECT_SQL = """
+            SELECT fingerprint, response_status, content_type, response_body FROM idempotency_keys
+            WHERE idempotency_key = ?
+            """;
+    private static final String TAKE_OVER_SQL = """
+            UPDATE idempotency_keys SET fingerprint = ?, created_at = ?
+            WHERE idempotency_key = ? AND response_status IS NULL AND created_at < ?
+            """;
+    private static final String COMPLETE_SQL = """
+            UPDATE idempotency_keys SET response_status = ?, content_type = ?, response_body = ?
+            WHERE idempotency_key = ?
+            """;
+    private static final String DELETE_SQL = "DELETE FROM idempotency_keys WHERE idempotency_key = ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM idempotency_keys WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records the key as in progress. Returns false when the key is already known, the primary key makes only one
+     * of concurrent claims succeed.
+     */
+    public boolean claim(String key, long fingerprint, LocalDateTime now) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, key, fingerprint, Timestamp.valueOf(now));
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Claims a key whose request has been in progress since before {@code staleBefore}.
+     */
+    public boolean takeOver(String key, long fingerprint, LocalDateTime now, LocalDateTime staleBefore) {
+        return jdbcTemplate.update(TAKE_OVER_SQL, fingerprint, Timestamp.valueOf(now), key,
+                Timestamp.valueOf(staleBefore)) == 1;
+    }
+
+    public Optional<IdempotentResponse> find(String key) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new IdempotentResponse(
+                rs.getLong("fingerprint"),
+                rs.getInt("response_status"), // NULL is read as 0, which is PENDING
+                rs.getString("content_type"),
+                rs.getString("response_body")), key).stream().findFirst();
+    }
+
+    /**
+     * Stores the response of the request that claimed the key.
+     */
+    public void complete(String key, IdempotentResponse response) {
+        jdbcTemplate.update(COMPLETE_SQL, response.status(), response.contentType(), response.body(), key);
+    }
+
+    /**
+     * Forgets the key, e.g. when its request failed and may be retried.
+     */
+    public void delete(String key) {
+        jdbcTemplate.update(DELETE_SQL, key);
+    }
+
+    /**
+     * Deletes the keys created before the given time and returns their number.
+     */
+    public int deleteCreatedBefore(LocalDateTime time) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(time));
+    }
+}
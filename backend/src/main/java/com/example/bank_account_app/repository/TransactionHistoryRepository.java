@@ -0,0 +1,76 @@
+package com.example.bank_account_app.repository;
+
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCursor;
+import com.example.bank_account_app.dto.TransactionDTO;
+import com.example.bank_account_app.dto.TransactionFilter;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a repository for reading the transaction history of an account page by page.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionHistoryRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Transactions of the account, newest first, starting after the cursor. Only the conditions of the given
+     * filters are added to the query, so every condition can use the (account_id, transaction_date, id) index.
+     */
+    public List<TransactionDTO> findPage(long accountId, TransactionFilter filter, TransactionCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, transaction_type, amount, currency, transaction_date
+                FROM transactions
+                WHERE account_id = ?
+                """);
+        List<Object> args = new ArrayList<>();
+        args.add(accountId);
+
+        if (after != null) {
+            // Expanded form of (transaction_date, id) < (?, ?), the first condition bounds the index range
+            sql.append(" AND transaction_date <= ? AND (transaction_date < ? OR id < ?)");
+            Timestamp afterDate = Timestamp.valueOf(after.transactionDate());
+            args.add(afterDate);
+            args.add(afterDate);
+            args.add(after.id());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND transaction_date >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND transaction_date < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.currency() != null) {
+            sql.append(" AND currency = ?");
+            args.add(filter.currency().name());
+        }
+        if (filter.transactionType() != null) {
+            sql.append(" AND transaction_type = ?");
+            args.add(filter.transactionType().name());
+        }
+        // account_id is part of the order, so the database reads the rows in index order and stops at the limit
+        sql.append(" ORDER BY account_id, transaction_date DESC, id DESC FETCH FIRST ? ROWS ONLY");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Currency currency = Currency.valueOf(rs.getString("currency"));
+            return new TransactionDTO(
+                    rs.getLong("id"),
+                    TransactionType.valueOf(rs.getString("transaction_type")),
+                    Money.ofMinor(rs.getLong("amount"), currency).toBigDecimal(),
+                    currency,
+                    rs.getTimestamp("transaction_date").toLocalDateTime());
+        }, args.toArray());
+    }
+}
@@ -4,102 +4,189 @@ import com.example.bank_account_app.dto.AccountBalanceDTO;
 import com.example.bank_account_app.dto.CreditBalanceDTO;
 import com.example.bank_account_app.dto.CurrencyBalance;
 import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.OperationOutcome;
+import com.example.bank_account_app.enums.TransactionType;
 import com.example.bank_account_app.exceptions.BalanceNotFoundException;
 import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.repository.AccountBalanceRepository;
 import com.example.bank_account_app.util.BalanceUtils;
 import com.example.bank_account_app.util.CurrencyUtils;
-import lombok.RequiredArgsConstructor;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class AccountBalanceService {
+    private static final int CURRENCY_COUNT = Currency.values().length;
+    private static final String ZERO_BALANCE = "0";
+
     private final AccountBalanceRepository accountBalanceRepository;
+    private final AccountLockManager accountLockManager;
+    private final LedgerEngine ledgerEngine;
+    private final EventLedger eventLedger;
+    private final BalanceResponseCache balanceResponseCache;
+    private final Map<TransactionType, Map<Currency, Map<OperationOutcome, Timer>>> operationTimers;
+    private final Map<TransactionType, Map<Currency, DistributionSummary>> amountSummaries;
+
+    public AccountBalanceService(AccountBalanceRepository accountBalanceRepository,
+                                 AccountLockManager accountLockManager,
+                                 LedgerEngine ledgerEngine,
+                                 EventLedger eventLedger,
+                                 BalanceResponseCache balanceResponseCache,
+                                 MeterRegistry meterRegistry) {
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.accountLockManager = accountLockManager;
+        this.ledgerEngine = ledgerEngine;
+        this.eventLedger = eventLedger;
+        this.balanceResponseCache = balanceResponseCache;
+        // Meters are registered once for every tag combination, so an operation only looks them up
+        this.operationTimers = new EnumMap<>(TransactionType.class);
+        this.amountSummaries = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TransactionType.values()) {
+            String operation = type.name().toLowerCase();
+            Map<Currency, Map<OperationOutcome, Timer>> timersByCurrency = new EnumMap<>(Currency.class);
+            Map<Currency, DistributionSummary> summariesByCurrency = new EnumMap<>(Currency.class);
+            for (Currency currency : Currency.values()) {
+                Map<OperationOutcome, Timer> timersByOutcome = new EnumMap<>(OperationOutcome.class);
+                for (OperationOutcome outcome : OperationOutcome.values()) {
+                    timersByOutcome.put(outcome, Timer.builder("bank.balance.operation")
+                            .description("Time spent applying a credit or debit")
+                            .tags("operation", operation, "currency", currency.name(), "outcome", outcome.getTag())
+                            .register(meterRegistry));
+                }
+                timersByCurrency.put(currency, timersByOutcome);
+                summariesByCurrency.put(currency, DistributionSummary.builder("bank.balance.amount")
+                        .description("Amounts of applied credits and debits")
+                        .tags("operation", operation, "currency", currency.name())
+                        .register(meterRegistry));
+            }
+            operationTimers.put(type, timersByCurrency);
+            amountSummaries.put(type, summariesByCurrency);
+        }
+    }
 
     /**
      * Deposit the provided amount to the account balance.
      */
     public void creditMoney(Account account, CreditBalanceDTO dto, String createdBy) {
-        log.debug("Depositing money to account: {}", account.getAccountNumber());
-        List<AccountBalance> accountBalances = getAccountBalances(account);
-
-        Currency currency = dto.getCurrency();
-        BigDecimal amount = BigDecimal.valueOf(dto.getAmount());
-
-        // Find the balance with the same currency
-        AccountBalance accountBalance = accountBalances.stream()
-                .filter(balance -> balance.getCurrency().equals(dto.getCurrency()))
-                .findFirst()
-                .orElse(null);
-
-        // If the balance does not exist, create a new one
-        if (accountBalance == null) {
-            log.debug("Creating a new balance");
-            accountBalance = buildAccountBalanceEntity(account, amount, currency, createdBy);
-            accountBalances.add(accountBalance);
-        } else {
-            // Update the balance
-            log.debug("Updating balance");
-            accountBalance.setBalance(accountBalance.getBalance().add(amount));
-            accountBalance.setLastModifiedBy(createdBy);
-            accountBalance.setLastModifiedAt(LocalDateTime.now());
-        }
-
-        log.debug("Saving account balances");
-        saveAllAccountBalances(accountBalances);
+        Money amount = Money.of(dto.getAmount(), dto.getCurrency());
+        recordOperation(TransactionType.CREDIT, amount, () -> {
+            if (ledgerEngine.isEnabled()) {
+                ledgerEngine.credit(account, amount, createdBy);
+                return;
+            }
+            if (eventLedger.isEnabled()) {
+                eventLedger.credit(account, amount, createdBy);
+                return;
+            }
+            accountLockManager.withLock(account.getId(), () -> applyCredit(account, amount, createdBy));
+        });
     }
 
     /**
      * Withdraw the provided amount from the account balance.
      */
     public void debitMoney(Account account, DebitBalanceDTO dto, String createdBy) {
-        log.debug("Withdrawing money from account: {}", account.getAccountNumber());
-        List<AccountBalance> accountBalances = getAccountBalances(account);
-
-        Currency currency = dto.getCurrency();
-        BigDecimal amount = BigDecimal.valueOf(dto.getAmount());
+        Money amount = Money.of(dto.getAmount(), dto.getCurrency());
+        recordOperation(TransactionType.DEBIT, amount, () -> {
+            if (ledgerEngine.isEnabled()) {
+                ledgerEngine.debit(account, amount, createdBy);
+                return;
+            }
+            if (eventLedger.isEnabled()) {
+                eventLedger.debit(account, amount, createdBy);
+                return;
+            }
+            accountLockManager.withLock(account.getId(), () -> applyDebit(account, amount, createdBy));
+        });
+    }
 
-        // Find the balance with the same currency
-        AccountBalance accountBalance = accountBalances.stream()
-                .filter(balance -> balance.getCurrency().equals(dto.getCurrency()))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Runs the credit or debit and records its duration by currency and outcome, and the amount when it succeeded.
+     */
+    private void recordOperation(TransactionType type, Money amount, Runnable operation) {
+        long start = System.nanoTime();
+        try {
+            operation.run();
+        } catch (RuntimeException ex) {
+            recordOperation(type, amount, start, OperationOutcome.of(ex));
+            throw ex;
+        }
+        recordOperation(type, amount, start, OperationOutcome.SUCCESS);
+    }
 
-        // Check if the balance exists
-        if (accountBalance == null) {
-            log.warn("No balance found for currency: {}", currency);
-            throw new BalanceNotFoundException("No balance found");
+    private void recordOperation(TransactionType type, Money amount, long start, OperationOutcome outcome) {
+        operationTimers.get(type).get(amount.currency()).get(outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (outcome == OperationOutcome.SUCCESS) {
+            amountSummaries.get(type).get(amount.currency()).record(amount.doubleValue());
         }
+    }
+
+    /**
+     * Credits the balance with a single upsert statement. Must be called while holding the account lock.
+     */
+    private void applyCredit(Account account, Money amount, String createdBy) {
+        log.debug("Depositing money to account: {}", account.getAccountNumber());
+
+        // The id is only used when the balance has to be created
+        long balanceId = SnowflakeIdGenerator.shared().nextId();
+        accountBalanceRepository.creditBalance(balanceId, account.getId(), amount.currency().name(),
+                amount.minorUnits(), createdBy);
+    }
+
+    /**
+     * Debits the balance with a single conditional update. Must be called while holding the account lock.
+     */
+    private void applyDebit(Account account, Money amount, String createdBy) {
+        log.debug("Withdrawing money from account: {}", account.getAccountNumber());
+        Currency currency = amount.currency();
 
-        // Check if the balance is sufficient
-        if (!isBalanceSufficient(amount, accountBalance)) {
-            log.warn("Insufficient balance for currency: {}", currency);
-            throw new InsufficientBalanceException("Insufficient balance");
+        int updatedRows = accountBalanceRepository.debitBalance(account.getId(), currency.name(), amount.minorUnits(),
+                createdBy);
+        if (updatedRows > 0) {
+            return;
         }
 
-        // Update the balance
-        accountBalance.setBalance(accountBalance.getBalance().subtract(amount));
-        accountBalance.setLastModifiedBy(createdBy);
-        accountBalance.setLastModifiedAt(LocalDateTime.now());
+        // Nothing was updated, find out whether the balance is missing or too low
+        if (accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), currency) == null) {
+            log.warn("No balance found for currency: {}", currency);
+            throw new BalanceNotFoundException("No balance found");
+        }
+        log.warn("Insufficient balance for currency: {}", currency);
+        throw new InsufficientBalanceException("Insufficient balance");
+    }
 
-        log.debug("Saving account balances");
-        saveAllAccountBalances(accountBalances);
+    /**
+     * Is the credit or debit itself stored as the transaction, so callers must not create another one.
+     * True in the events ledger mode, where the transactions are the balances.
+     */
+    public boolean recordsTransactions() {
+        return eventLedger.isEnabled();
     }
 
     /**
      * Is the balance sufficient for the provided amount
      */
-    public boolean isBalanceSufficient(BigDecimal amount, AccountBalance accountBalance) {
-        return accountBalance.getBalance().compareTo(amount) >= 0;
+    public boolean isBalanceSufficient(Money amount, AccountBalance accountBalance) {
+        return !accountBalance.toMoney().isLessThan(amount);
     }
 
 
@@ -107,48 +194,78 @@ public class AccountBalanceService {
      * Fetches account balances for the provided accounts.
      */
     public List<AccountBalance> getAccountBalances(Account account) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.getBalances(account);
+        }
+        if (eventLedger.isEnabled()) {
+            return eventLedger.getBalances(account);
+        }
         return accountBalanceRepository.findAllByAccountId(account.getId());
     }
 
     /**
-     * Map account balances to DTO and go though all supported currencies.
+     * Balances of the account for all supported currencies as serialized {@link AccountBalanceDTO}. In the jpa
+     * ledger mode the serialized response is reused while the balances of the account are unchanged.
      */
-    public AccountBalanceDTO mapAccountBalancesToDTO(List<AccountBalance> accountBalances, Account account) {
-        List<Currency> supportedCurrencies = CurrencyUtils.getSupportedCurrencies();
-
-        // Initialize DTO with the account number
-        AccountBalanceDTO accountBalanceDTO = new AccountBalanceDTO();
-        accountBalanceDTO.setAccountNumber(account.getAccountNumber());
+    public byte[] getAccountBalancesJson(Account account) {
+        if (ledgerEngine.isEnabled() || eventLedger.isEnabled()) {
+            // Balances live in memory and reach the database later, so the database has no version to check
+            return balanceResponseCache.serialize(mapAccountBalancesToDTO(getAccountBalances(account), account));
+        }
+        // The version is read before the balances, so a change in between is picked up by the next request
+        long version = accountBalanceRepository.findBalancesVersion(account.getId());
+        return balanceResponseCache.get(account.getId(), version,
+                () -> mapAccountBalancesToDTO(accountBalanceRepository.findAllByAccountId(account.getId()), account));
+    }
 
-        // Map balances for all supported currencies
-        List<CurrencyBalance> currencyBalances = supportedCurrencies.stream()
-                .map(currency -> accountBalances.stream()
-                        .filter(balance -> balance.getCurrency().equals(currency))
-                        .findFirst()
-                        .map(balance -> new CurrencyBalance(currency.name(), balance.getBalance().toString()))
-                        .orElse(new CurrencyBalance(currency.name(), "0"))
-                )
-                .toList();
+    /**
+     * Map account balances to DTO and go though all supported currencies. The balances are indexed by currency
+     * ordinal in one pass, currencies without a balance get "0".
+     */
+    public AccountBalanceDTO mapAccountBalancesToDTO(List<AccountBalance> accountBalances, Account account) {
+        AccountBalance[] balanceByCurrency = new AccountBalance[CURRENCY_COUNT];
+        for (AccountBalance balance : accountBalances) {
+            int ordinal = balance.getCurrency().ordinal();
+            if (balanceByCurrency[ordinal] == null) {
+                balanceByCurrency[ordinal] = balance;
+            }
+        }
 
-        accountBalanceDTO.setCurrencyBalances(currencyBalances);
-        return accountBalanceDTO;
+        List<Currency> supportedCurrencies = CurrencyUtils.getSupportedCurrencies();
+        List<CurrencyBalance> currencyBalances = new ArrayList<>(supportedCurrencies.size());
+        for (Currency currency : supportedCurrencies) {
+            AccountBalance balance = balanceByCurrency[currency.ordinal()];
+            currencyBalances.add(new CurrencyBalance(currency.name(),
+                    balance == null ? ZERO_BALANCE : balance.toMoney().toPlainString()));
+        }
+        return new AccountBalanceDTO(account.getAccountNumber(), currencyBalances);
     }
 
     /**
      * Saves account balances for the provided accounts.
      */
     public void saveAllAccountBalances(List<AccountBalance> accountBalances) {
+        if (ledgerEngine.isEnabled()) {
+            // The engine owns the balances table
+            ledgerEngine.openBalances(accountBalances);
+            return;
+        }
+        if (eventLedger.isEnabled()) {
+            // Opening balances become the first transactions of the accounts
+            eventLedger.openBalances(accountBalances);
+            return;
+        }
         accountBalanceRepository.saveAllAndFlush(accountBalances);
     }
 
     /**
      * Builds an account balance entity with the provided parameters.
      */
-    public AccountBalance buildAccountBalanceEntity(Account account, BigDecimal balance, Currency currency, String createdBy) {
+    public AccountBalance buildAccountBalanceEntity(Account account, Money balance, String createdBy) {
         return AccountBalance.builder()
                 .account(account)
-                .balance(balance)
-                .currency(currency)
+                .balance(balance.minorUnits())
+                .currency(balance.currency())
                 .createdBy(createdBy)
                 .build();
     }
@@ -158,8 +275,7 @@ public class AccountBalanceService {
      */
     public AccountBalance createAccountBalance(Account account, String createdBy) {
         var currency = CurrencyUtils.getRandomCurrency();
-        var balance = BalanceUtils.generateRandomBalance(currency);
-        return buildAccountBalanceEntity(account, BigDecimal.valueOf(balance), currency, createdBy);
+        return buildAccountBalanceEntity(account, randomBalance(currency), createdBy);
     }
 
     /**
@@ -170,8 +286,15 @@ public class AccountBalanceService {
         while (existingCurrencies.contains(currency)) {
             currency = CurrencyUtils.getRandomCurrency();
         }
-        var balance = BalanceUtils.generateRandomBalance(currency);
-        return buildAccountBalanceEntity(account, BigDecimal.valueOf(balance), currency, createdBy);
+        return buildAccountBalanceEntity(account, randomBalance(currency), createdBy);
+    }
+
+    /**
+     * Random balance rounded to the minor unit of the currency.
+     */
+    private Money randomBalance(Currency currency) {
+        BigDecimal balance = BigDecimal.valueOf(BalanceUtils.generateRandomBalance(currency));
+        return Money.of(balance.setScale(currency.getScale(), RoundingMode.HALF_UP), currency);
     }
 
     /**
@@ -0,0 +1,98 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.AccountCacheConf;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of accounts by account key (see {@link AccountNumberCodec}). Accounts are only cached
+ * once they exist, so an unknown account number always goes to the database. With a max size of 0 no cache is
+ * built and every lookup goes to the database.
+ */
+@Component
+public class AccountCache {
+    private final Cache<Long, Account> accounts; // null when the cache is disabled
+
+    public AccountCache(AccountCacheConf config, MeterRegistry meterRegistry) {
+        if (config.getMaxSize() == 0) {
+            this.accounts = null;
+            return;
+        }
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accounts");
+    }
+
+    /**
+     * Cached account, or the account returned by the loader. A missing account is not cached.
+     * The loader runs outside the cache: Caffeine calls it inside a synchronized block of its map, and a virtual
+     * thread that waits there for the database pins its carrier thread. Concurrent misses of the same account
+     * may therefore load it more than once.
+     */
+    public Account get(long accountKey, Function<Long, Account> loader) {
+        if (accounts == null) {
+            return loader.apply(accountKey);
+        }
+        Account account = accounts.getIfPresent(accountKey);
+        if (account == null) {
+            account = loader.apply(accountKey);
+            if (account != null) {
+                accounts.put(accountKey, account);
+            }
+        }
+        return account;
+    }
+
+    /**
+     * Cached accounts of the given account keys, the rest is loaded with one call of the loader.
+     */
+    public Map<Long, Account> getAll(Collection<Long> accountKeys,
+                                     Function<Collection<Long>, Map<Long, Account>> loader) {
+        if (accounts == null) {
+            return loader.apply(List.copyOf(accountKeys));
+        }
+        return accounts.getAll(accountKeys, missing -> loader.apply(List.copyOf(missing)));
+    }
+
+    /**
+     * Caches the current state of the account.
+     */
+    public void put(Account account) {
+        if (accounts != null && account != null && account.getAccountNumber() != null) {
+            accounts.put(AccountNumberCodec.encode(account.getAccountNumber()), account);
+        }
+    }
+
+    /**
+     * Removes the account, the next lookup reads it from the database.
+     */
+    public void evict(long accountKey) {
+        if (accounts != null) {
+            accounts.invalidate(accountKey);
+        }
+    }
+
+    /**
+     * Number of cached accounts.
+     */
+    public long size() {
+        if (accounts == null) {
+            return 0;
+        }
+        accounts.cleanUp();
+        return accounts.estimatedSize();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.AccountImportConf;
+import com.example.bank_account_app.dto.AccountImportError;
+import com.example.bank_account_app.dto.AccountImportResultDTO;
+import com.example.bank_account_app.dto.AccountImportRowDTO;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.AccountImportFormat;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBatchRepository;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountUtils;
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AccountImportService {
+    public static final String IMPORTED_BY = "account import";
+
+    private static final String CSV_HEADER_START = "account_holder";
+
+    private final AccountNumberGenerator accountNumberGenerator;
+    private final AccountBatchRepository accountBatchRepository;
+    private final EventLedger eventLedger;
+    private final LedgerEngine ledgerEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final AccountImportConf config;
+
+    /**
+     * Creates an account, and optionally its opening balance, for every line of the upload. The upload is read line
+     * by line and never held in memory as a whole. Valid lines are saved with JDBC batches, every commit-size
+     * accounts in their own database transaction, so a failed transaction rejects only its lines. Invalid lines are
+     * rejected and the import goes on.
+     */
+    public AccountImportResultDTO importAccounts(InputStream input, AccountImportFormat format) throws IOException {
+        log.info("Importing accounts from {} upload...", format);
+        ObjectReader rowReader = objectMapper.readerFor(AccountImportRowDTO.class);
+        ImportProgress progress = new ImportProgress(config.getMaxReportedErrors());
+        List<ImportedAccount> chunk = new ArrayList<>(config.getCommitSize());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && format == AccountImportFormat.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+                try {
+                    AccountImportRowDTO row = format == AccountImportFormat.CSV ? parseCsv(line) : rowReader.readValue(line);
+                    chunk.add(toImportedAccount(lineNumber, row));
+                } catch (JsonProcessingException ex) {
+                    progress.reject(lineNumber, "Invalid JSON");
+                } catch (IllegalArgumentException ex) {
+                    progress.reject(lineNumber, ex.getMessage());
+                }
+                if (chunk.size() >= config.getCommitSize()) {
+                    save(chunk, progress);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            save(chunk, progress);
+        }
+
+        log.info("Account import finished: {} imported, {} failed", progress.imported, progress.failed);
+        return new AccountImportResultDTO(progress.imported, progress.failed, progress.errors);
+    }
+
+    /**
+     * Saves the accounts and their opening balances in one database transaction and empties the chunk. With the
+     * event ledger the opening balances are appended as credits instead, with the ledger engine they are saved
+     * through the engine.
+     */
+    private void save(List<ImportedAccount> chunk, ImportProgress progress) {
+        List<Account> accounts = chunk.stream().map(ImportedAccount::account).toList();
+        List<AccountBalance> balances = chunk.stream()
+                .map(ImportedAccount::balance)
+                .filter(Objects::nonNull)
+                .toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                accountBatchRepository.insertAccounts(accounts, config.getJdbcBatchSize());
+                if (balances.isEmpty()) {
+                    return;
+                }
+                if (eventLedger.isEnabled()) {
+                    eventLedger.openBalances(balances);
+                } else if (ledgerEngine.isEnabled()) {
+                    ledgerEngine.openBalances(balances);
+                } else {
+                    accountBatchRepository.insertAccountBalances(balances, config.getJdbcBatchSize());
+                }
+            });
+            progress.imported += chunk.size();
+        } catch (DataAccessException ex) {
+            log.error("Could not save imported accounts of lines {}-{}", chunk.get(0).line(),
+                    chunk.get(chunk.size() - 1).line(), ex);
+            chunk.forEach(imported -> progress.reject(imported.line(), "Could not be saved"));
+        }
+        log.info("Account import progress: {} imported, {} failed", progress.imported, progress.failed);
+        chunk.clear();
+    }
+
+    /**
+     * Validates the row and builds its account with a generated number, and its opening balance when one is given.
+     */
+    private ImportedAccount toImportedAccount(long line, AccountImportRowDTO row) {
+        if (!AccountUtils.isValidAccountHolder(row.getAccountHolder())) {
+            throw new IllegalArgumentException("Invalid account holder name");
+        }
+        if ((row.getCurrency() == null) != (row.getBalance() == null)) {
+            throw new IllegalArgumentException("Currency and balance must be given together");
+        }
+
+        String accountNumber = accountNumberGenerator.generateAccountNumber();
+        Account account = Account.builder()
+                .id(SnowflakeIdGenerator.shared().nextId())
+                .accountNumber(accountNumber)
+                .accountKey(AccountNumberCodec.encode(accountNumber))
+                .accountHolder(row.getAccountHolder())
+                .createdBy(IMPORTED_BY)
+                .build();
+        if (row.getCurrency() == null) {
+            return new ImportedAccount(line, account, null);
+        }
+
+        Money balance = Money.of(row.getBalance(), toCurrency(row.getCurrency()));
+        if (balance.isNegative()) {
+            throw new IllegalArgumentException("Opening balance cannot be negative");
+        }
+        AccountBalance accountBalance = AccountBalance.builder()
+                .id(SnowflakeIdGenerator.shared().nextId())
+                .account(account)
+                .currency(balance.currency())
+                .balance(balance.minorUnits())
+                .createdBy(IMPORTED_BY)
+                .build();
+        return new ImportedAccount(line, account, accountBalance);
+    }
+
+    /**
+     * Row of a CSV line "account_holder,currency,balance", currency and balance may be left out together.
+     */
+    private static AccountImportRowDTO parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 1 && fields.length != 3) {
+            throw new IllegalArgumentException("Expected 1 or 3 fields but got " + fields.length);
+        }
+        String accountHolder = fields[0].strip();
+        if (fields.length == 1 || (fields[1].isBlank() && fields[2].isBlank())) {
+            return new AccountImportRowDTO(accountHolder, null, null);
+        }
+        String currency = fields[1].isBlank() ? null : fields[1].strip();
+        BigDecimal balance = null;
+        if (!fields[2].isBlank()) {
+            try {
+                balance = new BigDecimal(fields[2].strip());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid balance: " + fields[2].strip());
+            }
+        }
+        return new AccountImportRowDTO(accountHolder, currency, balance);
+    }
+
+    private static Currency toCurrency(String currency) {
+        try {
+            return Currency.valueOf(currency.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.strip().toLowerCase(Locale.ROOT).startsWith(CSV_HEADER_START);
+    }
+
+    /**
+     * Valid line of the upload, its balance is null when the account is opened without one.
+     */
+    private record ImportedAccount(long line, Account account, AccountBalance balance) {
+    }
+
+    /**
+     * Counts of the import so far, only the first rejected lines are kept.
+     */
+    private static final class ImportProgress {
+        private final int maxErrors;
+        private final List<AccountImportError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private ImportProgress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void reject(long line, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new AccountImportError(line, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.AccountLockConf;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes balance mutations of the same account with a fixed number of lock stripes.
+ * Accounts that map to different stripes run fully in parallel.
+ */
+@Service
+@Slf4j
+public class AccountLockManager {
+    private final ReentrantLock[] stripes;
+    private final Timer lockWaitTimer;
+
+    public AccountLockManager(AccountLockConf config, MeterRegistry meterRegistry) {
+        this.stripes = new ReentrantLock[config.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockWaitTimer = Timer.builder("bank.account.lock.wait")
+                .description("Time spent waiting for an account lock stripe")
+                .register(meterRegistry);
+        Gauge.builder("bank.account.lock.stripes", stripes, array -> array.length)
+                .description("Number of account lock stripes")
+                .register(meterRegistry);
+        log.debug("Account lock manager created with {} stripes", stripes.length);
+    }
+
+    /**
+     * Runs the action while holding the lock of the given account.
+     */
+    public <T> T withLock(long accountId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeIndex(accountId)];
+        long waitStart = System.nanoTime();
+        lock.lock();
+        lockWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the lock of the given account.
+     */
+    public void withLock(long accountId, Runnable action) {
+        withLock(accountId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action while holding the locks of all given accounts. Stripes are always taken in ascending
+     * order, so two callers locking overlapping accounts cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Long> accountIds, Supplier<T> action) {
+        int[] indexes = accountIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+        return withStripes(indexes, action);
+    }
+
+    /**
+     * Runs the action while holding the locks of all accounts, no balance can change until it returns.
+     */
+    public <T> T withAllLocks(Supplier<T> action) {
+        return withStripes(IntStream.range(0, stripes.length).toArray(), action);
+    }
+
+    private <T> T withStripes(int[] indexes, Supplier<T> action) {
+        long waitStart = System.nanoTime();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        lockWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        try {
+            return action.get();
+        } finally {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Number of lock stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Maps an account id to its lock stripe. The high bits of a multiplicative hash are used, so ids that only
+     * differ in their low sequence bits or only in their timestamp bits do not cluster.
+     */
+    public int stripeIndex(long accountId) {
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (hash >>> 32), stripes.length);
+    }
+}
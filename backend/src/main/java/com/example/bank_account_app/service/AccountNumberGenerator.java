@@ -0,0 +1,107 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.AccountNumberConf;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository.ReservedBlock;
+import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountNumberPermutation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates account numbers that are unique without a database round trip per account. Counter values are
+ * reserved in blocks from {@link AccountNumberBlockRepository} and mapped to account numbers with a keyed
+ * permutation, so numbers are unique across instances and restarts but not predictable from each other.
+ * Handing out a number from the current block is lock-free, only the thread that finds the block used up reserves
+ * the next one.
+ */
+@Slf4j
+@Service
+public class AccountNumberGenerator {
+    private final AccountNumberBlockRepository accountNumberBlockRepository;
+    private final AccountRepository accountRepository;
+    private final int blockSize;
+    private final ReentrantLock reserveLock = new ReentrantLock();
+
+    private volatile Block block = Block.EMPTY;
+
+    public AccountNumberGenerator(AccountNumberBlockRepository accountNumberBlockRepository,
+                                  AccountRepository accountRepository, AccountNumberConf config) {
+        this.accountNumberBlockRepository = accountNumberBlockRepository;
+        this.accountRepository = accountRepository;
+        this.blockSize = config.getBlockSize();
+    }
+
+    /**
+     * Next unused account number.
+     */
+    public String generateAccountNumber() {
+        while (true) {
+            Block current = block;
+            long accountKey = current.next();
+            if (accountKey != AccountNumberCodec.INVALID) {
+                return AccountNumberCodec.decode(accountKey);
+            }
+            reserveNextBlock(current);
+        }
+    }
+
+    private void reserveNextBlock(Block usedUp) {
+        reserveLock.lock();
+        try {
+            // Another thread may have reserved a new block while this one waited for the lock
+            if (block == usedUp) {
+                block = reserveBlock();
+            }
+        } finally {
+            reserveLock.unlock();
+        }
+    }
+
+    private Block reserveBlock() {
+        ReservedBlock reserved = accountNumberBlockRepository.reserve(blockSize);
+        if (reserved.first() > AccountNumberCodec.MAX_KEY) {
+            throw new IllegalStateException("All account numbers are used");
+        }
+        long end = Math.min(reserved.end(), AccountNumberCodec.MAX_KEY + 1);
+        AccountNumberPermutation permutation = new AccountNumberPermutation(reserved.permutationKey());
+        long[] accountKeys = new long[(int) (end - reserved.first())];
+        for (int i = 0; i < accountKeys.length; i++) {
+            accountKeys[i] = permutation.permute(reserved.first() + i);
+        }
+
+        // Accounts created before the generator, e.g. with random account numbers, may already use some of the keys
+        Set<Long> taken = new HashSet<>(accountRepository.findExistingAccountKeys(
+                Arrays.stream(accountKeys).boxed().toList()));
+        if (!taken.isEmpty()) {
+            log.info("Skipping {} account numbers of block {}-{} that are already used", taken.size(),
+                    reserved.first(), end);
+            accountKeys = Arrays.stream(accountKeys).filter(accountKey -> !taken.contains(accountKey)).toArray();
+        }
+        log.debug("Reserved account number block {}-{}", reserved.first(), end);
+        return new Block(accountKeys);
+    }
+
+    private static final class Block {
+        static final Block EMPTY = new Block(new long[0]);
+
+        private final long[] accountKeys;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Block(long[] accountKeys) {
+            this.accountKeys = accountKeys;
+        }
+
+        long next() {
+            int index = next.getAndIncrement();
+            return index < accountKeys.length ? accountKeys[index] : AccountNumberCodec.INVALID;
+        }
+    }
+}
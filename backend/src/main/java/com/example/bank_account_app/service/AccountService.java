@@ -3,30 +3,67 @@ package com.example.bank_account_app.service;
 import com.example.bank_account_app.dto.AccountDTO;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.repository.AccountStreamRepository;
+import com.example.bank_account_app.util.AccountNumberCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final AccountStreamRepository accountStreamRepository;
+    private final AccountCache accountCache;
 
     /**
-     * Fetches all accounts from the database.
+     * Fetches one page of accounts in primary key order, starting after the given account id.
      */
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    public List<Account> getAccountsPage(long afterId, int limit) {
+        return accountRepository.findAllByIdGreaterThanOrderById(afterId, Limit.of(limit));
     }
 
     /**
-     * Fetches an account by account number.
+     * Passes all accounts to the consumer one by one, without loading them into memory.
+     */
+    public void streamAccounts(int fetchSize, Consumer<AccountDTO> consumer) {
+        accountStreamRepository.streamAccounts(fetchSize, consumer);
+    }
+
+    /**
+     * Fetches an account by account number, from the account cache when possible.
      */
     public Account getAccountByAccountNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber);
+        long accountKey = AccountNumberCodec.encode(accountNumber);
+        if (accountKey == AccountNumberCodec.INVALID) {
+            return null;
+        }
+        return accountCache.get(accountKey, accountRepository::findByAccountKey);
+    }
+
+    /**
+     * Fetches accounts by account numbers, keyed by account number. Accounts missing from the account cache
+     * are read with one query. Invalid account numbers are never found.
+     */
+    public Map<String, Account> getAccountsByAccountNumbers(Collection<String> accountNumbers) {
+        List<Long> accountKeys = accountNumbers.stream()
+                .mapToLong(AccountNumberCodec::encode)
+                .filter(accountKey -> accountKey != AccountNumberCodec.INVALID)
+                .boxed()
+                .toList();
+        return accountCache.getAll(accountKeys, missing -> accountRepository.findAllByAccountKeyIn(missing).stream()
+                        .collect(Collectors.toMap(Account::getAccountKey, Function.identity())))
+                .values().stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
     }
 
     /**
@@ -49,14 +86,14 @@ public class AccountService {
      * Save account to the database.
      */
     public void saveAccount(Account account) {
-        accountRepository.save(account);
+        accountCache.put(accountRepository.save(account));
     }
 
     /**
      * Saves all accounts to the database.
      */
     public void saveAllAccounts(List<Account> accounts) {
-        accountRepository.saveAllAndFlush(accounts);
+        accountRepository.saveAllAndFlush(accounts).forEach(accountCache::put);
     }
 
     /**
@@ -65,6 +102,7 @@ public class AccountService {
     public Account buildAccountEntity(String accountNumber, String accountHolder, String createdBy) {
         return Account.builder()
                 .accountNumber(accountNumber)
+                .accountKey(AccountNumberCodec.encode(accountNumber))
                 .accountHolder(accountHolder)
                 .createdBy(createdBy)
                 .build();
@@ -0,0 +1,216 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.BalanceBatchConf;
+import com.example.bank_account_app.dto.BalanceBatchItemDTO;
+import com.example.bank_account_app.dto.BalanceBatchItemResult;
+import com.example.bank_account_app.dto.BalanceBatchResultDTO;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.enums.BatchItemStatus;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.BalanceBatchRepository;
+import com.example.bank_account_app.repository.BalanceBatchRepository.BalanceChange;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BalanceBatchService {
+    private final AccountService accountService;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final BalanceBatchRepository balanceBatchRepository;
+    private final AccountLockManager accountLockManager;
+    private final LedgerEngine ledgerEngine;
+    private final EventLedger eventLedger;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceBatchConf config;
+
+    /**
+     * Largest number of items accepted in one batch.
+     */
+    public int getMaxItems() {
+        return config.getMaxItems();
+    }
+
+    /**
+     * Applies credits and debits of many accounts in request order and reports the outcome of every item.
+     * Accounts are resolved with one query, balance changes and transactions are written with JDBC batches
+     * in one database transaction.
+     */
+    public BalanceBatchResultDTO processBatch(List<BalanceBatchItemDTO> items) {
+        log.debug("Processing balance batch with {} items", items.size());
+        // An amount with more decimals than its currency has rejects the whole batch before anything is applied
+        items.forEach(this::toAmount);
+        Set<String> accountNumbers = items.stream()
+                .map(BalanceBatchItemDTO::getAccountNumber)
+                .collect(Collectors.toSet());
+        Map<String, Account> accounts = accountService.getAccountsByAccountNumbers(accountNumbers);
+
+        // Items whose account does not exist are rejected up front
+        BatchItemStatus[] statuses = new BatchItemStatus[items.size()];
+        List<Integer> applicable = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (accounts.containsKey(items.get(i).getAccountNumber())) {
+                applicable.add(i);
+            } else {
+                statuses[i] = BatchItemStatus.ACCOUNT_NOT_FOUND;
+            }
+        }
+
+        if (!applicable.isEmpty()) {
+            if (ledgerEngine.isEnabled()) {
+                applyWithLedgerEngine(items, accounts, applicable, statuses);
+            } else if (eventLedger.isEnabled()) {
+                applyWithEventLedger(items, accounts, applicable, statuses);
+            } else {
+                applyWithJdbcBatches(items, accounts, applicable, statuses);
+            }
+        }
+
+        return buildResult(items, statuses);
+    }
+
+    /**
+     * Applies the items with JDBC batches while holding the locks of all involved accounts.
+     */
+    private void applyWithJdbcBatches(List<BalanceBatchItemDTO> items, Map<String, Account> accounts,
+                                      List<Integer> applicable, BatchItemStatus[] statuses) {
+        Set<Long> accountIds = applicable.stream()
+                .map(index -> accounts.get(items.get(index).getAccountNumber()).getId())
+                .collect(Collectors.toSet());
+
+        accountLockManager.withLocks(accountIds, () -> transactionTemplate.execute(status -> {
+            // Balances that exist before the batch, a failed item is classified by whether its balance existed
+            // when it was applied
+            Set<BalanceKey> existingBalances = accountBalanceRepository.findAllByAccountIdIn(accountIds).stream()
+                    .map(balance -> new BalanceKey(balance.getAccount().getId(), balance.getCurrency()))
+                    .collect(Collectors.toCollection(HashSet::new));
+            List<BalanceChange> changes = applicable.stream()
+                    .map(index -> toBalanceChange(items.get(index), accounts.get(items.get(index).getAccountNumber())))
+                    .toList();
+            int[] updatedRows = balanceBatchRepository.applyBalanceChanges(changes, config.getJdbcBatchSize());
+
+            List<TransactionCommand> transactions = new ArrayList<>();
+            for (int i = 0; i < applicable.size(); i++) {
+                int index = applicable.get(i);
+                BalanceBatchItemDTO item = items.get(index);
+                Account account = accounts.get(item.getAccountNumber());
+                BalanceKey balance = new BalanceKey(account.getId(), item.getCurrency());
+                if (updatedRows[i] > 0) {
+                    statuses[index] = BatchItemStatus.SUCCESS;
+                    transactions.add(toTransactionCommand(item, account));
+                    // A credit creates the balance if it did not exist
+                    existingBalances.add(balance);
+                } else if (existingBalances.contains(balance)) {
+                    statuses[index] = BatchItemStatus.INSUFFICIENT_BALANCE;
+                } else {
+                    statuses[index] = BatchItemStatus.BALANCE_NOT_FOUND;
+                }
+            }
+            balanceBatchRepository.insertTransactions(transactions, config.getJdbcBatchSize());
+            return null;
+        }));
+    }
+
+    /**
+     * Applies the items one by one with the ledger engine, which already batches its database writes.
+     * The transactions go through the transaction journal.
+     */
+    private void applyWithLedgerEngine(List<BalanceBatchItemDTO> items, Map<String, Account> accounts,
+                                       List<Integer> applicable, BatchItemStatus[] statuses) {
+        List<TransactionCommand> transactions = new ArrayList<>();
+        try {
+            for (int index : applicable) {
+                BalanceBatchItemDTO item = items.get(index);
+                Account account = accounts.get(item.getAccountNumber());
+                Money amount = toAmount(item);
+                try {
+                    if (item.getType() == TransactionType.CREDIT) {
+                        ledgerEngine.credit(account, amount, account.getAccountHolder());
+                    } else {
+                        ledgerEngine.debit(account, amount, account.getAccountHolder());
+                    }
+                    transactions.add(toTransactionCommand(item, account));
+                    statuses[index] = BatchItemStatus.SUCCESS;
+                } catch (BalanceNotFoundException ex) {
+                    statuses[index] = BatchItemStatus.BALANCE_NOT_FOUND;
+                } catch (InsufficientBalanceException ex) {
+                    statuses[index] = BatchItemStatus.INSUFFICIENT_BALANCE;
+                } catch (LedgerBusyException ex) {
+                    statuses[index] = BatchItemStatus.LEDGER_BUSY;
+                }
+            }
+        } finally {
+            // The items applied before a failure keep their transactions
+            transactionService.createNewTransactions(transactions);
+        }
+    }
+
+    /**
+     * Appends the accepted items to the transaction log in one database transaction, they are the balance changes.
+     */
+    private void applyWithEventLedger(List<BalanceBatchItemDTO> items, Map<String, Account> accounts,
+                                      List<Integer> applicable, BatchItemStatus[] statuses) {
+        List<TransactionCommand> commands = applicable.stream()
+                .map(index -> toTransactionCommand(items.get(index), accounts.get(items.get(index).getAccountNumber())))
+                .toList();
+        BatchItemStatus[] applied = eventLedger.applyAll(commands);
+        for (int i = 0; i < applicable.size(); i++) {
+            statuses[applicable.get(i)] = applied[i];
+        }
+    }
+
+    private BalanceChange toBalanceChange(BalanceBatchItemDTO item, Account account) {
+        Money amount = toAmount(item);
+        Money delta = item.getType() == TransactionType.CREDIT ? amount : amount.negate();
+        return new BalanceChange(account.getId(), delta, account.getAccountHolder());
+    }
+
+    private TransactionCommand toTransactionCommand(BalanceBatchItemDTO item, Account account) {
+        return TransactionCommand.builder()
+                .account(account)
+                .amount(toAmount(item))
+                .type(item.getType())
+                .createdBy(account.getAccountHolder())
+                .build();
+    }
+
+    private Money toAmount(BalanceBatchItemDTO item) {
+        return Money.of(item.getAmount(), item.getCurrency());
+    }
+
+    private BalanceBatchResultDTO buildResult(List<BalanceBatchItemDTO> items, BatchItemStatus[] statuses) {
+        List<BalanceBatchItemResult> results = new ArrayList<>(items.size());
+        int succeeded = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (statuses[i] == BatchItemStatus.SUCCESS) {
+                succeeded++;
+            }
+            results.add(new BalanceBatchItemResult(i, items.get(i).getAccountNumber(), statuses[i]));
+        }
+        log.info("Balance batch processed: {} succeeded, {} failed", succeeded, items.size() - succeeded);
+        return new BalanceBatchResultDTO(succeeded, items.size() - succeeded, results);
+    }
+
+    private record BalanceKey(long accountId, Currency currency) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.BalanceResponseCacheConf;
+import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of serialized balance responses by account id. Every response is tagged with the
+ * version of the balances it was built from and only served while that version is current, so balance changes
+ * need no eviction, also when they are made by another instance.
+ */
+@Component
+public class BalanceResponseCache {
+    private final Cache<Long, CachedResponse> responses;
+    private final ObjectWriter writer;
+
+    public BalanceResponseCache(BalanceResponseCacheConf config, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .recordStats()
+                .build();
+        this.writer = objectMapper.writerFor(AccountBalanceDTO.class);
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "balance-responses");
+    }
+
+    /**
+     * Cached response of the account if it was built from the given version, otherwise the response is built,
+     * serialized and cached. The returned array is shared and must not be modified.
+     */
+    public byte[] get(long accountId, long version, Supplier<AccountBalanceDTO> response) {
+        CachedResponse cached = responses.getIfPresent(accountId);
+        if (cached != null && cached.version() == version) {
+            return cached.json();
+        }
+        byte[] json = serialize(response.get());
+        responses.put(accountId, new CachedResponse(version, json));
+        return json;
+    }
+
+    /**
+     * Serializes the response with a writer prepared once for the DTO type.
+     */
+    public byte[] serialize(AccountBalanceDTO response) {
+        try {
+            return writer.writeValueAsBytes(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Balance response could not be serialized", ex);
+        }
+    }
+
+    private record CachedResponse(long version, byte[] json) {
+    }
+}
@@ -3,91 +3,201 @@ package com.example.bank_account_app.service;
 import com.example.bank_account_app.dto.AccountBalanceDTO;
 import com.example.bank_account_app.dto.CurrencyBalance;
 import com.example.bank_account_app.dto.ExchangeCurrencyDTO;
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.OperationOutcome;
+import com.example.bank_account_app.enums.RateMode;
 import com.example.bank_account_app.exceptions.BalanceNotFoundException;
 import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.repository.AccountBalanceRepository;
 import com.example.bank_account_app.util.ExchangeRateUtils;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class CurrencyExchangeService {
     private final AccountBalanceRepository accountBalanceRepository;
     private final ExternalAPIService externalAPIService;
     private final AccountBalanceService accountBalanceService;
+    private final AccountLockManager accountLockManager;
+    private final LedgerEngine ledgerEngine;
+    private final EventLedger eventLedger;
+    private final ExchangeExecutor exchangeExecutor;
+    private final Map<RateMode, Map<Currency, Map<OperationOutcome, Timer>>> exchangeTimers;
+    private final Map<RateMode, Map<Currency, DistributionSummary>> amountSummaries;
+
+    public CurrencyExchangeService(AccountBalanceRepository accountBalanceRepository,
+                                   ExternalAPIService externalAPIService,
+                                   AccountBalanceService accountBalanceService,
+                                   AccountLockManager accountLockManager,
+                                   LedgerEngine ledgerEngine,
+                                   EventLedger eventLedger,
+                                   ExchangeExecutor exchangeExecutor,
+                                   MeterRegistry meterRegistry) {
+        this.accountBalanceRepository = accountBalanceRepository;
+        this.externalAPIService = externalAPIService;
+        this.accountBalanceService = accountBalanceService;
+        this.accountLockManager = accountLockManager;
+        this.ledgerEngine = ledgerEngine;
+        this.eventLedger = eventLedger;
+        this.exchangeExecutor = exchangeExecutor;
+        // Meters are registered once for every tag combination, so an exchange only looks them up
+        this.exchangeTimers = new EnumMap<>(RateMode.class);
+        this.amountSummaries = new EnumMap<>(RateMode.class);
+        for (RateMode rateMode : RateMode.values()) {
+            Map<Currency, Map<OperationOutcome, Timer>> timersByCurrency = new EnumMap<>(Currency.class);
+            Map<Currency, DistributionSummary> summariesByCurrency = new EnumMap<>(Currency.class);
+            for (Currency currency : Currency.values()) {
+                Map<OperationOutcome, Timer> timersByOutcome = new EnumMap<>(OperationOutcome.class);
+                for (OperationOutcome outcome : OperationOutcome.values()) {
+                    timersByOutcome.put(outcome, Timer.builder("bank.exchange")
+                            .description("Time spent on a currency exchange, including the rate lookup")
+                            .tags("rate", rateMode.getTag(), "currency", currency.name(), "outcome", outcome.getTag())
+                            .register(meterRegistry));
+                }
+                timersByCurrency.put(currency, timersByOutcome);
+                summariesByCurrency.put(currency, DistributionSummary.builder("bank.exchange.amount")
+                        .description("Exchanged amounts in the source currency")
+                        .tags("rate", rateMode.getTag(), "currency", currency.name())
+                        .register(meterRegistry));
+            }
+            exchangeTimers.put(rateMode, timersByCurrency);
+            amountSummaries.put(rateMode, summariesByCurrency);
+        }
+    }
 
     /**
-     * Exchange currency using external API rates
+     * Exchange currency using external API rates. The rate is fetched without blocking the caller and the
+     * balances are updated on the exchange executor.
      */
-    public AccountBalanceDTO exchangeCurrency(ExchangeCurrencyDTO exchangeCurrencyDTO, Account account, String createdBy) {
-        return processCurrencyExchange(exchangeCurrencyDTO, account, createdBy, false);
+    public CompletableFuture<AccountBalanceDTO> exchangeCurrency(ExchangeCurrencyDTO exchangeCurrencyDTO, Account account, String createdBy) {
+        logExchange(exchangeCurrencyDTO);
+        Currency from = exchangeCurrencyDTO.getFromCurrency();
+        Currency to = exchangeCurrencyDTO.getToCurrency();
+
+        long start = System.nanoTime();
+        Money amount;
+        try {
+            amount = Money.of(exchangeCurrencyDTO.getAmount(), from);
+        } catch (RuntimeException ex) {
+            // an invalid amount fails before the chain is built, so it is recorded here
+            recordExchange(RateMode.FLOATING, exchangeCurrencyDTO, start, ex);
+            throw ex;
+        }
+        // Retrieve exchange rate before locking, so a slow rate provider does not block the account
+        return externalAPIService.getExchangeRateMatrixAsync()
+                .thenApply(rates -> getExternalExchangeRate(rates, from, to))
+                .thenApplyAsync(exchangeRate -> applyExchange(amount, to, account, createdBy, exchangeRate),
+                        exchangeExecutor)
+                .whenComplete((result, ex) -> recordExchange(RateMode.FLOATING, exchangeCurrencyDTO, start, ex));
     }
 
     /**
      * Exchange currency using fixed rates
      */
     public AccountBalanceDTO exchangeCurrencyFixed(ExchangeCurrencyDTO exchangeCurrencyDTO, Account account, String createdBy) {
-        return processCurrencyExchange(exchangeCurrencyDTO, account, createdBy, true);
+        logExchange(exchangeCurrencyDTO);
+        long start = System.nanoTime();
+        AccountBalanceDTO result;
+        try {
+            Money amount = Money.of(exchangeCurrencyDTO.getAmount(), exchangeCurrencyDTO.getFromCurrency());
+            double exchangeRate = getFixedExchangeRate(exchangeCurrencyDTO.getFromCurrency(), exchangeCurrencyDTO.getToCurrency());
+            result = applyExchange(amount, exchangeCurrencyDTO.getToCurrency(), account, createdBy, exchangeRate);
+        } catch (RuntimeException ex) {
+            recordExchange(RateMode.FIXED, exchangeCurrencyDTO, start, ex);
+            throw ex;
+        }
+        recordExchange(RateMode.FIXED, exchangeCurrencyDTO, start, null);
+        return result;
     }
 
     /**
-     * Process currency exchange (common method)
+     * Records the duration of the exchange by rate mode, source currency and outcome, and the amount when it succeeded.
      */
-    private AccountBalanceDTO processCurrencyExchange(ExchangeCurrencyDTO exchangeCurrencyDTO, Account account,
-                                                      String createdBy, boolean useFixedRate) {
+    private void recordExchange(RateMode rateMode, ExchangeCurrencyDTO exchangeCurrencyDTO, long start, Throwable failure) {
+        OperationOutcome outcome = OperationOutcome.of(failure);
+        Currency currency = exchangeCurrencyDTO.getFromCurrency();
+        exchangeTimers.get(rateMode).get(currency).get(outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (outcome == OperationOutcome.SUCCESS) {
+            amountSummaries.get(rateMode).get(currency).record(exchangeCurrencyDTO.getAmount().doubleValue());
+        }
+    }
+
+    private void logExchange(ExchangeCurrencyDTO exchangeCurrencyDTO) {
         log.info("Processing currency exchange: {} -> {} for amount {}",
                 exchangeCurrencyDTO.getFromCurrency(), exchangeCurrencyDTO.getToCurrency(), exchangeCurrencyDTO.getAmount());
+    }
 
-        Currency from = exchangeCurrencyDTO.getFromCurrency();
-        Currency to = exchangeCurrencyDTO.getToCurrency();
-        BigDecimal amount = exchangeCurrencyDTO.getAmount();
-
-        // Validate balances
-        AccountBalance fromBalance = validateAndGetBalance(account, from, amount);
+    /**
+     * Apply the exchange with a known rate (common method). The amount is taken from its currency and the
+     * converted amount, rounded to the minor unit of the target currency, is added in the target currency.
+     */
+    private AccountBalanceDTO applyExchange(Money amount, Currency to, Account account, String createdBy,
+                                            double exchangeRate) {
+        Money convertedAmount = amount.convert(exchangeRate, to);
+
+        if (ledgerEngine.isEnabled()) {
+            List<AccountBalance> updated = ledgerEngine.exchange(account, amount, convertedAmount, createdBy);
+            log.info("Currency exchange successful: {} converted to {}", amount, convertedAmount);
+            return buildAccountBalanceDTO(account, updated.get(0), updated.get(1));
+        }
+        if (eventLedger.isEnabled()) {
+            List<AccountBalance> updated = eventLedger.exchange(account, amount, convertedAmount, createdBy);
+            log.info("Currency exchange successful: {} converted to {}", amount, convertedAmount);
+            return buildAccountBalanceDTO(account, updated.get(0), updated.get(1));
+        }
 
-        // Retrieve exchange rate
-        double exchangeRate = useFixedRate ? getFixedExchangeRate(from, to) : getExternalExchangeRate(from, to);
-        BigDecimal convertedAmount = amount.multiply(BigDecimal.valueOf(exchangeRate));
+        return accountLockManager.withLock(account.getId(), () -> {
+            // Validate balances
+            AccountBalance fromBalance = validateAndGetBalance(account, amount);
 
-        // Update balances
-        AccountBalance toBalance = updateBalances(account, fromBalance, to, convertedAmount, createdBy);
+            // Update balances
+            AccountBalance toBalance = updateBalances(account, fromBalance, amount, convertedAmount, createdBy);
 
-        log.info("Currency exchange successful: {} {} converted to {} {}", amount, from, convertedAmount, to);
+            log.info("Currency exchange successful: {} converted to {}", amount, convertedAmount);
 
-        return buildAccountBalanceDTO(account, fromBalance, toBalance);
+            return buildAccountBalanceDTO(account, fromBalance, toBalance);
+        });
     }
 
     /**
      * Validate if account has enough balance in the source currency
      */
-    public AccountBalance validateAndGetBalance(Account account, Currency currency, BigDecimal amount) {
+    public AccountBalance validateAndGetBalance(Account account, Money amount) {
+        Currency currency = amount.currency();
         AccountBalance balance = accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), currency);
         if (balance == null) {
             log.warn("Balance not found for currency: {}", currency);
             throw new BalanceNotFoundException("Account balance not found");
         }
-        if (balance.getBalance().compareTo(amount) < 0) {
-            log.warn("Insufficient balance: {} {} required, but only {} available", currency, amount, balance.getBalance());
+        if (balance.toMoney().isLessThan(amount)) {
+            log.warn("Insufficient balance: {} required, but only {} available", amount, balance.toMoney());
             throw new InsufficientBalanceException("Insufficient balance");
         }
         return balance;
     }
 
     /**
-     * Get exchange rate from external API
+     * Get exchange rate from external API. All pairs come from one cached fetch of the base currency.
      */
-    private double getExternalExchangeRate(Currency from, Currency to) {
-        double exchangeRate = externalAPIService.getCurrencyExchangeRates(from.name()).getOrDefault(to.name(), 0.0);
+    private double getExternalExchangeRate(ExchangeRateMatrix rates, Currency from, Currency to) {
+        double exchangeRate = rates.getRate(from, to);
         if (exchangeRate == 0) {
             log.warn("External exchange rate not found for {} -> {}", from, to);
             throw new BalanceNotFoundException("Exchange rate not found");
@@ -110,15 +220,16 @@ public class CurrencyExchangeService {
     /**
      * Update the balance for both source and target currencies
      */
-    private AccountBalance updateBalances(Account account, AccountBalance fromBalance, Currency to,
-                                          BigDecimal convertedAmount, String createdBy) {
-        fromBalance.setBalance(fromBalance.getBalance().subtract(convertedAmount));
+    private AccountBalance updateBalances(Account account, AccountBalance fromBalance, Money amount,
+                                          Money convertedAmount, String createdBy) {
+        fromBalance.setBalance(fromBalance.toMoney().minus(amount).minorUnits());
 
-        AccountBalance toBalance = accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), to);
+        AccountBalance toBalance = accountBalanceRepository.findByAccountIdAndCurrency(account.getId(),
+                convertedAmount.currency());
         if (toBalance == null) {
-            toBalance = accountBalanceService.buildAccountBalanceEntity(account, convertedAmount, to, createdBy);
+            toBalance = accountBalanceService.buildAccountBalanceEntity(account, convertedAmount, createdBy);
         } else {
-            toBalance.setBalance(toBalance.getBalance().add(convertedAmount));
+            toBalance.setBalance(toBalance.toMoney().plus(convertedAmount).minorUnits());
         }
 
         accountBalanceRepository.saveAll(List.of(fromBalance, toBalance));
@@ -129,12 +240,9 @@ public class CurrencyExchangeService {
      * Build the response DTO with updated balances
      */
     private AccountBalanceDTO buildAccountBalanceDTO(Account account, AccountBalance fromBalance, AccountBalance toBalance) {
-        BigDecimal fromBalanceRounded = fromBalance.getBalance().setScale(2, RoundingMode.HALF_UP);
-        BigDecimal toBalanceRounded = toBalance.getBalance().setScale(2, RoundingMode.HALF_UP);
-
         return new AccountBalanceDTO(account.getAccountNumber(), List.of(
-                new CurrencyBalance(fromBalance.getCurrency().name(), fromBalanceRounded.toString()),
-                new CurrencyBalance(toBalance.getCurrency().name(), toBalanceRounded.toString())
+                new CurrencyBalance(fromBalance.getCurrency().name(), fromBalance.toMoney().toPlainString()),
+                new CurrencyBalance(toBalance.getCurrency().name(), toBalance.toMoney().toPlainString())
         ));
     }
 }
@@ -0,0 +1,56 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.CurrencyExchangeConf;
+import com.example.bank_account_app.config.ExecutionConf;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool that applies floating exchanges once their rate has arrived, so request threads are not held
+ * while the rate provider responds. Work beyond the queue capacity is rejected instead of piling up.
+ */
+@Slf4j
+@Component
+public class ExchangeExecutor implements Executor {
+    private final ThreadPoolExecutor executor;
+
+    public ExchangeExecutor(CurrencyExchangeConf config, ExecutionConf executionConf, MeterRegistry meterRegistry) {
+        // With virtual threads the pool is kept as well, its size still limits the concurrent database writes
+        this.executor = new ThreadPoolExecutor(config.getExecutorThreads(), config.getExecutorThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getExecutorQueueCapacity()),
+                executionConf.threadFactory("exchange-executor-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "exchange-executor");
+    }
+
+    /**
+     * Runs the task on the pool, throws {@link java.util.concurrent.RejectedExecutionException} when it is full.
+     */
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Finishes the accepted exchanges before shutdown.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Exchange executor did not finish in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
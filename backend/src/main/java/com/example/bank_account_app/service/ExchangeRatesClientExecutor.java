@@ -0,0 +1,37 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.ExecutionConf;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads of the rate provider's HTTP client, they handle its responses. Virtual threads in the virtual execution
+ * mode, otherwise a cached pool like the client's default one. The threads end with the application context.
+ */
+@Component
+public class ExchangeRatesClientExecutor implements Executor {
+    private final ExecutorService executor;
+
+    public ExchangeRatesClientExecutor(ExecutionConf executionConf) {
+        this.executor = executionConf.isVirtualThreads()
+                ? Executors.newThreadPerTaskExecutor(executionConf.threadFactory("exchange-rates-client-"))
+                : Executors.newCachedThreadPool(executionConf.threadFactory("exchange-rates-client-"));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Stops the threads, responses that are still in flight are dropped.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
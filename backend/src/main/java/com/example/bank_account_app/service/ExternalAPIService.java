@@ -3,56 +3,168 @@ package com.example.bank_account_app.service;
 
 import com.example.bank_account_app.config.CurrencyExchangeConf;
 import com.example.bank_account_app.dto.CurrencyExchangeResponse;
-import lombok.*;
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
+import com.example.bank_account_app.enums.OperationOutcome;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
-import java.util.Collections;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class ExternalAPIService {
     private final CurrencyExchangeConf config;
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient client;
+    private final AsyncLoadingCache<String, CachedRates> ratesCache;
+    private final Timer foundLookupTimer;
+    private final Timer notFoundLookupTimer;
+    private final Timer successfulFetchTimer;
+    private final Timer failedFetchTimer;
+
+    public ExternalAPIService(CurrencyExchangeConf config, ExchangeRatesClientExecutor clientExecutor,
+                              WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        this.config = config;
+
+        // One client for all requests, so connections to the rate provider are kept alive and reused
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.getTimeout())
+                .executor(clientExecutor)
+                .build();
+        this.client = webClientBuilder
+                .clientConnector(new JdkClientHttpConnector(httpClient))
+                .build();
+
+        // Concurrent misses of the same base currency share one fetch, rates are refreshed before they expire
+        this.ratesCache = Caffeine.newBuilder()
+                .maximumSize(config.getCacheMaxSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .refreshAfterWrite(config.getCacheRefreshAfter())
+                .recordStats()
+                .buildAsync((baseCurrency, executor) -> fetchCurrencyExchangeRates(baseCurrency));
+
+        this.foundLookupTimer = lookupTimer(OperationOutcome.SUCCESS, meterRegistry);
+        this.notFoundLookupTimer = lookupTimer(OperationOutcome.NOT_FOUND, meterRegistry);
+        this.successfulFetchTimer = fetchTimer("success", meterRegistry);
+        this.failedFetchTimer = fetchTimer("failure", meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, ratesCache, "exchange-rates");
+        Gauge.builder("bank.exchange.rates.staleness", this, service -> service.getOldestRatesAge().toMillis() / 1000.0)
+                .description("Age of the oldest cached exchange rates")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
 
     /**
-     * Fetch currency exchange rates from external API.
+     * Cross rates of all supported currencies, derived from one fetch of the configured base currency.
+     * The matrix is empty when the rates can not be fetched. The future completes on the thread that finished
+     * the fetch, or right away when the rates are cached.
      */
-    public Map<String, Double> getCurrencyExchangeRates(String fromCurrency) {
-        if (fromCurrency == null || fromCurrency.isBlank()) {
-            throw new IllegalArgumentException("Invalid base currency provided");
-        }
+    public CompletableFuture<ExchangeRateMatrix> getExchangeRateMatrixAsync() {
+        long start = System.nanoTime();
+        return getCachedRates(config.getBaseCurrency().name())
+                .thenApply(rates -> {
+                    recordLookup(start, rates.isPresent());
+                    return rates.map(CachedRates::matrix).orElse(ExchangeRateMatrix.EMPTY);
+                });
+    }
 
-        String url = config.getCurrencyExchangeEndpoint() + fromCurrency.toUpperCase();
+    /**
+     * Age of the oldest cached rates, zero when nothing is cached.
+     */
+    public Duration getOldestRatesAge() {
+        Instant now = Instant.now();
+        return ratesCache.synchronous().asMap().values().stream()
+                .map(cached -> Duration.between(cached.fetchedAt(), now))
+                .max(Duration::compareTo)
+                .orElse(Duration.ZERO);
+    }
+
+    private CompletableFuture<Optional<CachedRates>> getCachedRates(String baseCurrency) {
+        CompletableFuture<CachedRates> rates = ratesCache.get(baseCurrency);
+        // The timeout applies to this caller only, the shared fetch keeps running for the others
+        return rates.thenApply(Optional::of)
+                .orTimeout(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    log.error("Error fetching exchange rates: {}", ex.getMessage());
+                    if (rates.isCompletedExceptionally()) {
+                        // Drop the failed fetch right away, so the next request tries again
+                        ratesCache.asMap().remove(baseCurrency, rates);
+                    }
+                    return Optional.empty();
+                });
+    }
+
+    /**
+     * Calls the external API without blocking. A failed or empty response fails the future, so it is not cached
+     * and a failed refresh keeps the previous rates.
+     */
+    private CompletableFuture<CachedRates> fetchCurrencyExchangeRates(String baseCurrency) {
+        String url = config.getCurrencyExchangeEndpoint() + baseCurrency;
         log.debug("Fetching currency exchange rates from external API: {}", url);
+        Timer.Sample sample = Timer.start();
 
-        WebClient client = webClientBuilder.build();
-
-        try {
-            Mono<CurrencyExchangeResponse> response = client.get()
-                    .uri(url)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError, resp -> {
-                        log.error("Failed to fetch exchange rates. Status: {}", resp.statusCode());
-                        return resp.createException().flatMap(Mono::error);
-                    })
-                    .bodyToMono(CurrencyExchangeResponse.class);
-
-            return response
-                    .retry(2)
-                    .blockOptional(config.getTimeout())
-                    .map(CurrencyExchangeResponse::getRates)
-                    .orElse(Collections.emptyMap());
-
-        } catch (Exception ex) {
-            log.error("Error fetching exchange rates: {}", ex.getMessage());
-            return Collections.emptyMap();
-        }
+        return client.get()
+                .uri(url)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp -> {
+                    log.error("Failed to fetch exchange rates. Status: {}", resp.statusCode());
+                    return resp.createException().flatMap(Mono::error);
+                })
+                .bodyToMono(CurrencyExchangeResponse.class)
+                .retry(2)
+                .timeout(config.getTimeout())
+                .filter(response -> response.getRates() != null && !response.getRates().isEmpty())
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("No exchange rates returned for " + baseCurrency)))
+                .map(response -> toCachedRates(response.getRates()))
+                .doOnNext(rates -> sample.stop(successfulFetchTimer))
+                .doOnError(ex -> sample.stop(failedFetchTimer))
+                .toFuture();
     }
-}
 
+    /**
+     * Records how long the caller waited for the rates, a cache hit or a shared fetch, and whether it got any.
+     */
+    private void recordLookup(long start, boolean found) {
+        (found ? foundLookupTimer : notFoundLookupTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer lookupTimer(OperationOutcome outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("bank.exchange.rates.lookup")
+                .description("Time until a caller got exchange rates from the cache or a fetch")
+                .tag("outcome", outcome.getTag())
+                .register(meterRegistry);
+    }
+
+    private static Timer fetchTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("bank.exchange.rates.fetch")
+                .description("Time spent fetching exchange rates from the external API")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The matrix is built once per fetch, so every reader of a snapshot sees the same consistent rates.
+     */
+    private CachedRates toCachedRates(Map<String, Double> rates) {
+        Instant fetchedAt = Instant.now();
+        return new CachedRates(ExchangeRateMatrix.triangulate(rates, fetchedAt), fetchedAt);
+    }
+
+    private record CachedRates(ExchangeRateMatrix matrix, Instant fetchedAt) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.FixedRatesConf;
+import com.example.bank_account_app.util.ExchangeRateUtils;
+import com.example.bank_account_app.util.ExchangeRateUtils.FixedRates;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads the fixed exchange rates from the configured file and replaces them at runtime without a redeploy.
+ */
+@Service
+@Slf4j
+public class FixedRateService {
+    private final FixedRatesConf config;
+    private final ResourceLoader resourceLoader;
+
+    public FixedRateService(FixedRatesConf config, ResourceLoader resourceLoader, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.resourceLoader = resourceLoader;
+        Gauge.builder("bank.exchange.fixed-rates.version", () -> ExchangeRateUtils.getFixedRates().version())
+                .description("Version of the fixed exchange rates in use")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the configured fixed rates on startup, an invalid file stops the application.
+     */
+    @PostConstruct
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Reads the configured file again and installs its rates as a new version. When the file is invalid the
+     * current rates stay in use.
+     */
+    public FixedRates reload() {
+        FixedRates fixedRates = ExchangeRateUtils.install(ExchangeRateUtils.read(resourceLoader.getResource(config.getLocation())));
+        log.info("Fixed exchange rates version {} loaded from {}", fixedRates.version(), config.getLocation());
+        return fixedRates;
+    }
+
+    /**
+     * Fixed rates currently in use.
+     */
+    public FixedRates getFixedRates() {
+        return ExchangeRateUtils.getFixedRates();
+    }
+}
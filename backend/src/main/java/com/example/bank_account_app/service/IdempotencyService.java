@@ -0,0 +1,321 @@
+package com.example.bank_account_app.service;
+
+import com.example.bank_account_app.config.IdempotencyConf;
+import com.example.bank_account_app.dto.IdempotentResponse;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
+import com.example.bank_account_app.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes requests with an Idempotency-Key header safe to retry. The first request with a key claims it and its
+ * response is stored, a repeated request gets the stored response without being applied again. Responses are kept
+ * in a bounded in-memory window in front of the idempotency_keys table, so a retry usually costs one cache lookup
+ * and keys claimed by another instance or before a restart are still honoured.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+    private static final String OUTCOME_UNKNOWN_BODY = "The outcome of the request is unknown, check the balance and "
+            + "use a new " + HEADER + " to apply it again";
+
+    private final IdempotencyKeyRepository repository;
+    private final IdempotencyConf config;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, IdempotentResponse> responses;
+    private final Counter replays;
+    private ScheduledExecutorService cleaner;
+
+    public IdempotencyService(IdempotencyKeyRepository repository, IdempotencyConf config, ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        this.replays = Counter.builder("bank.idempotency.replays")
+                .description("Requests answered with the stored response of an earlier request with the same key")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency-keys");
+    }
+
+    /**
+     * Starts the thread deleting expired keys from the database.
+     */
+    @PostConstruct
+    public void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = config.getCleanupInterval().toMillis();
+        cleaner.scheduleWithFixedDelay(this::deleteExpiredKeys, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the request unless its key was used before. Without a key the request always runs. A repeated request
+     * gets the stored response, 409 while the first request is still in progress, or 422 when the key was used for
+     * a different request. A 5xx response or an exception releases the key, so the request can be retried, unless
+     * the exception is an {@link OutcomeUnknownException}. The request may have been applied then, so the key is
+     * kept and a retry gets a 503 response instead of applying it again.
+     */
+    public ResponseEntity<?> execute(String key, String operation, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        long fingerprint = fingerprint(key, operation, request);
+        IdempotentResponse existing = claim(key, fingerprint);
+        if (existing != null) {
+            return replay(key, fingerprint, existing);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error ex) {
+            fail(key, fingerprint, ex);
+            throw ex;
+        }
+        complete(key, fingerprint, response);
+        return response;
+    }
+
+    /**
+     * Same as {@link #execute} for a request whose response is completed later.
+     */
+    public CompletableFuture<ResponseEntity<?>> executeAsync(String key, String operation, Object request,
+                                                             Supplier<CompletableFuture<ResponseEntity<?>>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        long fingerprint = fingerprint(key, operation, request);
+        IdempotentResponse existing = claim(key, fingerprint);
+        if (existing != null) {
+            return CompletableFuture.completedFuture(replay(key, fingerprint, existing));
+        }
+
+        CompletableFuture<ResponseEntity<?>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error ex) {
+            fail(key, fingerprint, ex);
+            throw ex;
+        }
+        return response.whenComplete((result, ex) -> {
+            if (ex != null) {
+                fail(key, fingerprint, ex);
+            } else {
+                complete(key, fingerprint, result);
+            }
+        });
+    }
+
+    /**
+     * Deletes the keys that are older than the TTL from the database, the cache expires them by itself.
+     */
+    public void deleteExpiredKeys() {
+        try {
+            int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minus(config.getTtl()));
+            log.debug("Deleted {} expired idempotency keys", deleted);
+        } catch (DataAccessException ex) {
+            log.warn("Could not delete expired idempotency keys", ex);
+        }
+    }
+
+    /**
+     * Claims the key for this request and returns null, or returns what is known about the earlier request.
+     * The key is claimed in the cache first, and forgotten again when the database could not be asked.
+     */
+    private IdempotentResponse claim(String key, long fingerprint) {
+        IdempotentResponse cached = responses.asMap().putIfAbsent(key, IdempotentResponse.pending(fingerprint));
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return claimInDatabase(key, fingerprint);
+        } catch (RuntimeException | Error ex) {
+            // A claim that may have reached the database is taken over once it is stale
+            responses.invalidate(key);
+            throw ex;
+        }
+    }
+
+    private IdempotentResponse claimInDatabase(String key, long fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        if (repository.claim(key, fingerprint, now)) {
+            return null;
+        }
+
+        // The key was used by another instance or before a restart
+        IdempotentResponse stored = repository.find(key).orElse(IdempotentResponse.pending(fingerprint));
+        if (stored.isPending() && repository.takeOver(key, fingerprint, now, now.minus(config.getPendingTimeout()))) {
+            log.info("Idempotency key {} was in progress for longer than {}, claimed again", key,
+                    config.getPendingTimeout());
+            return null;
+        }
+        if (stored.isPending()) {
+            // Not cached, the other instance completes it in the database
+            responses.invalidate(key);
+        } else {
+            responses.put(key, stored);
+        }
+        return stored;
+    }
+
+    private ResponseEntity<?> replay(String key, long fingerprint, IdempotentResponse existing) {
+        if (existing.fingerprint() != fingerprint) {
+            log.warn("Idempotency key {} reused for a different request", key);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(HEADER + " was already used for a different request");
+        }
+        if (existing.isPending()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("A request with this " + HEADER + " is in progress, try again later");
+        }
+        replays.increment();
+        log.debug("Replaying stored response of idempotency key {}", key);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(existing.status()).header(REPLAYED_HEADER, "true");
+        if (existing.contentType() != null) {
+            response.contentType(MediaType.parseMediaType(existing.contentType()));
+        }
+        return response.body(existing.body());
+    }
+
+    /**
+     * Stores the response. The request has already been applied, so a failure to store it is only logged.
+     */
+    private void complete(String key, long fingerprint, ResponseEntity<?> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            release(key);
+            return;
+        }
+        IdempotentResponse completed;
+        try {
+            completed = toIdempotentResponse(fingerprint, response);
+        } catch (IllegalStateException ex) {
+            log.warn("Could not store the response of idempotency key {}", key, ex);
+            release(key);
+            return;
+        }
+        store(key, completed);
+    }
+
+    /**
+     * Releases the key of a request that failed before it was applied. A request whose outcome is unknown keeps
+     * its key with a 503 response, so a retry with the key cannot apply it a second time.
+     */
+    private void fail(String key, long fingerprint, Throwable failure) {
+        if (!isOutcomeUnknown(failure)) {
+            release(key);
+            return;
+        }
+        log.warn("Outcome of the request with idempotency key {} is unknown, the key is kept", key);
+        store(key, new IdempotentResponse(fingerprint, HttpStatus.SERVICE_UNAVAILABLE.value(),
+                MediaType.TEXT_PLAIN_VALUE, OUTCOME_UNKNOWN_BODY));
+    }
+
+    private static boolean isOutcomeUnknown(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OutcomeUnknownException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void store(String key, IdempotentResponse completed) {
+        responses.put(key, completed);
+        try {
+            repository.complete(key, completed);
+        } catch (DataAccessException ex) {
+            log.warn("Could not store the response of idempotency key {}", key, ex);
+        }
+    }
+
+    private void release(String key) {
+        responses.invalidate(key);
+        try {
+            repository.delete(key);
+        } catch (DataAccessException ex) {
+            log.warn("Could not release idempotency key {}", key, ex);
+        }
+    }
+
+    /**
+     * String bodies are stored as they are, other bodies as the JSON they are written as.
+     */
+    private IdempotentResponse toIdempotentResponse(long fingerprint, ResponseEntity<?> response) {
+        Object body = response.getBody();
+        MediaType contentType = response.getHeaders().getContentType();
+        if (body == null) {
+            return new IdempotentResponse(fingerprint, response.getStatusCode().value(), null, null);
+        }
+        if (body instanceof String text) {
+            return new IdempotentResponse(fingerprint, response.getStatusCode().value(),
+                    contentType == null ? MediaType.TEXT_PLAIN_VALUE : contentType.toString(), text);
+        }
+        try {
+            return new IdempotentResponse(fingerprint, response.getStatusCode().value(),
+                    MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Response could not be serialized", ex);
+        }
+    }
+
+    /**
+     * 64 bits of the SHA-256 of the operation and the request as JSON. Requests are compared by their content, so
+     * the fingerprint is the same on every instance.
+     */
+    private long fingerprint(String key, String operation, Object request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+            throw new IllegalStateException("Request fingerprint could not be computed", ex);
+        }
+    }
+}
@@ -1,41 +1,136 @@
 package com.example.bank_account_app.service;
 
 import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.dto.TransactionCursor;
+import com.example.bank_account_app.dto.TransactionDTO;
+import com.example.bank_account_app.dto.TransactionFilter;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.OperationOutcome;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.journal.TransactionJournal;
+import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.Transaction;
+import com.example.bank_account_app.repository.TransactionHistoryRepository;
 import com.example.bank_account_app.repository.TransactionRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class TransactionService {
+    private static final String NONE = "none";
+
     private final TransactionRepository transactionRepository;
+    private final TransactionJournal transactionJournal;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final Map<TransactionType, Map<Currency, Map<OperationOutcome, Timer>>> saveTimers;
+    private final Map<OperationOutcome, Timer> untypedSaveTimers; // transactions without a type or currency
+    private final Map<OperationOutcome, Timer> batchSaveTimers;
+    private final DistributionSummary batchSizeSummary;
+
+    public TransactionService(TransactionRepository transactionRepository,
+                              TransactionJournal transactionJournal,
+                              TransactionHistoryRepository transactionHistoryRepository,
+                              MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.transactionJournal = transactionJournal;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        // Meters are registered once for every tag combination, so a save only looks them up
+        this.saveTimers = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TransactionType.values()) {
+            Map<Currency, Map<OperationOutcome, Timer>> timersByCurrency = new EnumMap<>(Currency.class);
+            for (Currency currency : Currency.values()) {
+                timersByCurrency.put(currency, saveTimers(type.name().toLowerCase(), currency.name(), meterRegistry));
+            }
+            saveTimers.put(type, timersByCurrency);
+        }
+        this.untypedSaveTimers = saveTimers(NONE, NONE, meterRegistry);
+        this.batchSaveTimers = new EnumMap<>(OperationOutcome.class);
+        for (OperationOutcome outcome : OperationOutcome.values()) {
+            batchSaveTimers.put(outcome, Timer.builder("bank.transaction.save.batch")
+                    .description("Time a caller waited for a batch of transactions to be saved")
+                    .tags("outcome", outcome.getTag())
+                    .register(meterRegistry));
+        }
+        this.batchSizeSummary = DistributionSummary.builder("bank.transaction.save.batch.size")
+                .description("Number of transactions saved together")
+                .register(meterRegistry);
+    }
+
+    private static Map<OperationOutcome, Timer> saveTimers(String type, String currency, MeterRegistry meterRegistry) {
+        Map<OperationOutcome, Timer> timers = new EnumMap<>(OperationOutcome.class);
+        for (OperationOutcome outcome : OperationOutcome.values()) {
+            timers.put(outcome, Timer.builder("bank.transaction.save")
+                    .description("Time a caller waited for a transaction to be saved")
+                    .tags("type", type, "currency", currency, "outcome", outcome.getTag())
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
 
     /**
      * Save transaction to the database.
      */
     public void saveTransaction(Transaction transaction) {
-        transactionRepository.save(transaction);
+        recordSave(transaction.getTransactionType(), transaction.getCurrency(),
+                () -> transactionRepository.save(transaction));
         log.debug("New transaction created successfully");
     }
 
     /**
-     * Create a new transaction
+     * Create a new transaction. It is written by the transaction journal in a group commit.
      */
     public void createNewTransaction(TransactionCommand cmd) {
         log.debug("Creating new transaction...");
-        Transaction newTransaction = new Transaction();
-        newTransaction.setAccount(cmd.getAccount());
-        newTransaction.setTransactionType(cmd.getType());
-        newTransaction.setAmount(BigDecimal.valueOf(cmd.getAmount()));
-        newTransaction.setCurrency(cmd.getCurrency());
-        newTransaction.setTransactionDate(LocalDateTime.now());
-        newTransaction.setCreatedBy(cmd.getCreatedBy());
-        saveTransaction(newTransaction);
+        recordSave(cmd.getType(), cmd.getCurrency(), () -> transactionJournal.record(cmd));
+    }
+
+    /**
+     * Runs the save and records how long the caller waited for it, by transaction type, currency and outcome.
+     */
+    private void recordSave(TransactionType type, Currency currency, Runnable save) {
+        long start = System.nanoTime();
+        OperationOutcome outcome = OperationOutcome.ERROR;
+        try {
+            save.run();
+            outcome = OperationOutcome.SUCCESS;
+        } finally {
+            Map<OperationOutcome, Timer> timers = type == null || currency == null
+                    ? untypedSaveTimers : saveTimers.get(type).get(currency);
+            timers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Create new transactions, waiting once for all of them. Records how long the caller waited by outcome,
+     * and the number of transactions.
+     */
+    public void createNewTransactions(List<TransactionCommand> commands) {
+        log.debug("Creating {} new transactions...", commands.size());
+        long start = System.nanoTime();
+        OperationOutcome outcome = OperationOutcome.ERROR;
+        try {
+            transactionJournal.recordAll(commands);
+            outcome = OperationOutcome.SUCCESS;
+        } finally {
+            batchSaveTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(commands.size());
+        }
+    }
+
+    /**
+     * One page of the transaction history of the account, newest first. Starts from the newest transaction
+     * when no cursor is given.
+     */
+    public List<TransactionDTO> getTransactionHistory(Account account, TransactionFilter filter, TransactionCursor after, int limit) {
+        return transactionHistoryRepository.findPage(account.getId(), filter, after, limit);
     }
 }
@@ -0,0 +1,60 @@
+package com.example.bank_account_app.util;
+
+/**
+ * Converts account numbers ("EE" followed by 18 digits) to and from their 18 digits as a {@code long}, which is how
+ * accounts are stored, indexed and cached. 18 digits always fit into a {@code long}, so every account number has
+ * exactly one key.
+ */
+public final class AccountNumberCodec {
+    // Key of anything that is not an account number, keys of account numbers are never negative
+    public static final long INVALID = -1;
+    public static final long MAX_KEY = 999_999_999_999_999_999L;
+
+    private static final char PREFIX = 'E';
+    private static final int PREFIX_LENGTH = 2;
+    private static final int LENGTH = PREFIX_LENGTH + 18;
+
+    private AccountNumberCodec() {
+    }
+
+    /**
+     * Key of the account number in one pass over its characters, or {@link #INVALID} when the value is not an
+     * account number.
+     */
+    public static long encode(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != LENGTH
+                || accountNumber.charAt(0) != PREFIX || accountNumber.charAt(1) != PREFIX) {
+            return INVALID;
+        }
+        long key = 0;
+        for (int i = PREFIX_LENGTH; i < LENGTH; i++) {
+            int digit = accountNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            key = key * 10 + digit;
+        }
+        return key;
+    }
+
+    /**
+     * Account number of the key, the digits are padded with leading zeros.
+     */
+    public static String decode(long accountKey) {
+        if (accountKey < 0 || accountKey > MAX_KEY) {
+            throw new IllegalArgumentException("Not an account number key: " + accountKey);
+        }
+        char[] chars = new char[LENGTH];
+        chars[0] = PREFIX;
+        chars[1] = PREFIX;
+        for (int i = LENGTH - 1; i >= PREFIX_LENGTH; i--) {
+            chars[i] = (char) ('0' + accountKey % 10);
+            accountKey /= 10;
+        }
+        return new String(chars);
+    }
+
+    public static boolean isValid(String accountNumber) {
+        return encode(accountNumber) != INVALID;
+    }
+}
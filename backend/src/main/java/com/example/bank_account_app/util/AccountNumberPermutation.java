@@ -0,0 +1,51 @@
+package com.example.bank_account_app.util;
+
+/**
+ * Keyed permutation of the account keys 0 to {@link AccountNumberCodec#MAX_KEY}. A value is split into two halves
+ * of 9 digits that go through a balanced Feistel network, so different values always give different keys, while
+ * consecutive values give keys that cannot be predicted without the permutation key.
+ */
+public class AccountNumberPermutation {
+    private static final long HALF = 1_000_000_000L;
+    private static final int ROUNDS = 8;
+
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public AccountNumberPermutation(long key) {
+        long state = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(state);
+        }
+    }
+
+    /**
+     * Key the value is mapped to, also between 0 and {@link AccountNumberCodec#MAX_KEY}.
+     */
+    public long permute(long value) {
+        if (value < 0 || value > AccountNumberCodec.MAX_KEY) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+        long left = value / HALF;
+        long right = value % HALF;
+        for (long roundKey : roundKeys) {
+            long next = (left + round(right, roundKey)) % HALF;
+            left = right;
+            right = next;
+        }
+        return left * HALF + right;
+    }
+
+    private static long round(long half, long roundKey) {
+        return Math.floorMod(mix(half ^ roundKey), HALF);
+    }
+
+    /**
+     * Finalizer of SplitMix64, every input bit affects every output bit.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -2,32 +2,24 @@ package com.example.bank_account_app.util;
 
 import org.springframework.stereotype.Component;
 
-import java.security.SecureRandom;
+import java.util.regex.Pattern;
 
 @Component
 public class AccountUtils {
-    private static final SecureRandom RANDOM = new SecureRandom();
-
-    /**
-     * Generates a random account number in the format "EE" followed by 18 digits.
-     */
-    public static String generateAccountNumber() {
-        long randomNumber = (long) (RANDOM.nextDouble() * 1_000_000_000_000_000_000L);
-        return "EE" + String.format("%018d", randomNumber);
-    }
+    private static final Pattern ACCOUNT_HOLDER = Pattern.compile("^[a-zA-Z -]+$");
 
     /**
      * Validates the given account number.
-     * The account number must be a string of 20 characters starting with "EE".
+     * The account number must be a string of 20 characters starting with "EE" followed by 18 digits.
      */
     public static boolean isValidAccountNumber(String accountNumber) {
-        return accountNumber != null && accountNumber.matches("^EE\\d{18}$");
+        return AccountNumberCodec.isValid(accountNumber);
     }
 
     /**
      * Validates the given account holder name. The name must contain only letters, spaces, and hyphens.
      */
     public static boolean isValidAccountHolder(String accountHolder) {
-        return accountHolder != null && accountHolder.matches("^[a-zA-Z -]+$");
+        return accountHolder != null && ACCOUNT_HOLDER.matcher(accountHolder).matches();
     }
 }
@@ -9,19 +9,19 @@ import java.util.Random;
 @Component
 public class CurrencyUtils {
     private static final Random RANDOM = new Random();
+    private static final List<Currency> SUPPORTED_CURRENCIES = List.of(Currency.values());
 
     /**
      * Fetches a random currency from the available currencies.
      */
     public static Currency getRandomCurrency() {
-        List<Currency> currencies = List.of(Currency.values());
-        return currencies.get(RANDOM.nextInt(currencies.size()));
+        return SUPPORTED_CURRENCIES.get(RANDOM.nextInt(SUPPORTED_CURRENCIES.size()));
     }
 
     /**
      * Fetches all supported currencies.
      */
     public static List<Currency> getSupportedCurrencies() {
-        return List.of(Currency.values());
+        return SUPPORTED_CURRENCIES;
     }
 }
@@ -1,60 +1,108 @@
 package com.example.bank_account_app.util;
 
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
 import com.example.bank_account_app.enums.Currency;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Utility class to get the exchange rate between two currencies.
+ * The fixed rates are held in an immutable versioned snapshot that can be replaced at runtime.
  */
 @Component
 public class ExchangeRateUtils {
-    private static final Map<Currency, Map<Currency, Double>> FIXED_RATES = Map.of(
-            Currency.EUR, Map.of(
-                    Currency.USD, 1.10,
-                    Currency.SEK, 11.50,
-                    Currency.RUB, 95.00,
-                    Currency.KRW, 1450.00
-            ),
-            Currency.USD, Map.of(
-                    Currency.EUR, 0.91,
-                    Currency.SEK, 10.45,
-                    Currency.RUB, 86.36,
-                    Currency.KRW, 1318.18
-            ),
-            Currency.SEK, Map.of(
-                    Currency.EUR, 0.087,
-                    Currency.USD, 0.096,
-                    Currency.RUB, 8.27,
-                    Currency.KRW, 126.19
-            ),
-            Currency.RUB, Map.of(
-                    Currency.EUR, 0.0105,
-                    Currency.USD, 0.0116,
-                    Currency.SEK, 0.121,
-                    Currency.KRW, 15.25
-            ),
-            Currency.KRW, Map.of(
-                    Currency.EUR, 0.00069,
-                    Currency.USD, 0.00076,
-                    Currency.SEK, 0.0079,
-                    Currency.RUB, 0.066
-            )
-    );
+    public static final String DEFAULT_LOCATION = "classpath:fixed-rates.properties";
+
+    private static final AtomicReference<FixedRates> FIXED_RATES =
+            new AtomicReference<>(new FixedRates(0, ExchangeRateMatrix.EMPTY));
+
+    static {
+        install(read(new DefaultResourceLoader().getResource(DEFAULT_LOCATION)));
+    }
 
     /**
-     * Get the exchange rate between two currencies.
+     * Get the exchange rate between two currencies, 0 when the pair has no fixed rate.
      */
     public static double getExchangeRate(Currency from, Currency to) {
-        if (from == to) {
-            return 1.0;
+        return FIXED_RATES.get().matrix().getRate(from, to);
+    }
+
+    /**
+     * Currently used fixed rates.
+     */
+    public static FixedRates getFixedRates() {
+        return FIXED_RATES.get();
+    }
+
+    /**
+     * Replaces the fixed rates. Readers see either the old or the new snapshot, never a mix of both.
+     */
+    public static FixedRates install(ExchangeRateMatrix matrix) {
+        return FIXED_RATES.updateAndGet(current -> new FixedRates(current.version() + 1, matrix));
+    }
+
+    /**
+     * Reads fixed rates from a properties file with entries like {@code EUR.USD=1.10}.
+     */
+    public static ExchangeRateMatrix read(Resource resource) {
+        Properties properties = new Properties();
+        try (InputStream input = resource.getInputStream()) {
+            properties.load(input);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Fixed rates could not be read from " + resource.getDescription(), ex);
         }
 
-        if (!FIXED_RATES.containsKey(from) || !FIXED_RATES.get(from).containsKey(to)) {
-            throw new IllegalArgumentException("Exchange rate not found for " + from + " -> " + to);
+        Map<Currency, Map<Currency, Double>> rates = new EnumMap<>(Currency.class);
+        for (String pair : properties.stringPropertyNames()) {
+            String[] currencies = pair.split("\\.");
+            if (currencies.length != 2) {
+                throw new IllegalArgumentException("Invalid currency pair " + pair + ", expected <from>.<to>");
+            }
+            Currency from = parseCurrency(currencies[0], pair);
+            Currency to = parseCurrency(currencies[1], pair);
+            double rate = parseRate(properties.getProperty(pair), pair);
+            if (from == to && rate != 1.0) {
+                throw new IllegalArgumentException("Rate of " + pair + " must be 1");
+            }
+            rates.computeIfAbsent(from, key -> new EnumMap<>(Currency.class)).put(to, rate);
         }
-        return FIXED_RATES.get(from).get(to);
+        return ExchangeRateMatrix.of(rates, Instant.now());
     }
-}
 
+    private static Currency parseCurrency(String code, String pair) {
+        try {
+            return Currency.valueOf(code.trim());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported currency " + code + " in " + pair);
+        }
+    }
+
+    private static double parseRate(String value, String pair) {
+        double rate;
+        try {
+            rate = Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid rate " + value + " for " + pair);
+        }
+        if (!Double.isFinite(rate) || rate <= 0) {
+            throw new IllegalArgumentException("Rate for " + pair + " must be positive");
+        }
+        return rate;
+    }
+
+    /**
+     * Fixed rates with the version they were installed as. The version grows by one with every reload.
+     */
+    public record FixedRates(long version, ExchangeRateMatrix matrix) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bank_account_app.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates 64-bit ids that are ordered by creation time. An id is made of 41 bits of milliseconds since
+ * {@link #EPOCH}, 10 bits of node id and 12 bits of sequence, so every node can create 4096 ids per millisecond
+ * without coordinating with the database.
+ */
+public class SnowflakeIdGenerator {
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long EPOCH_MILLIS = EPOCH.toEpochMilli();
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Generator used by the entities and JDBC inserts, replaced once the node id is configured
+    private static volatile SnowflakeIdGenerator shared = new SnowflakeIdGenerator(0);
+
+    private final long nodeBits;
+
+    // Last used timestamp and sequence packed as (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Generator shared by the whole application.
+     */
+    public static SnowflakeIdGenerator shared() {
+        return shared;
+    }
+
+    /**
+     * Replaces the shared generator with one for the given node id.
+     */
+    public static void configureShared(int nodeId) {
+        shared = new SnowflakeIdGenerator(nodeId);
+    }
+
+    /**
+     * Next unique id. Never blocks: when the sequence of the current millisecond is used up, or the clock moves
+     * backwards, the id is taken from the following millisecond so ids keep increasing.
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long next;
+        long previous;
+        do {
+            previous = state.get();
+            next = Math.max(now, previous + 1);
+        } while (!state.compareAndSet(previous, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Time at which the id was created.
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    /**
+     * Smallest id that can be created at the given time, useful as a bound for range scans by creation time.
+     */
+    public static long lowestIdAt(Instant time) {
+        return (time.toEpochMilli() - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bank_account_app.validation;
+
+import com.example.bank_account_app.util.AccountNumberCodec;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Checks {@link ValidAccountNumber} with {@link AccountNumberCodec} instead of a regular expression.
+ */
+public class AccountNumberValidator implements ConstraintValidator<ValidAccountNumber, String> {
+
+    @Override
+    public boolean isValid(String accountNumber, ConstraintValidatorContext context) {
+        return accountNumber == null || AccountNumberCodec.isValid(accountNumber);
+    }
+}
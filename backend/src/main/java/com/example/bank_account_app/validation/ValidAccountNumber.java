@@ -0,0 +1,26 @@
+package com.example.bank_account_app.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated string must be an account number, "EE" followed by 18 digits. {@code null} is valid, combine with
+ * {@code @NotBlank} to require a value.
+ */
+@Documented
+@Constraint(validatedBy = AccountNumberValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidAccountNumber {
+    String message() default "Invalid account number format";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
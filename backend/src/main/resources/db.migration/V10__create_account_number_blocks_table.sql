@@ -0,0 +1,11 @@
+-- High-water mark of the account number counter. Every instance reserves blocks of counter values by moving
+-- next_counter forward, and turns them into account numbers with a permutation keyed by permutation_key.
+-- The key is created by the application on the first reservation.
+CREATE TABLE IF NOT EXISTS account_number_blocks
+(
+    id INTEGER PRIMARY KEY NOT NULL,
+    next_counter BIGINT NOT NULL,
+    permutation_key BIGINT
+);
+
+INSERT INTO account_number_blocks (id, next_counter) VALUES (1, 0);
@@ -0,0 +1,14 @@
+-- Responses of credit, debit and exchange requests by their Idempotency-Key header, so a retried request gets the
+-- stored response instead of being applied again. response_status is NULL while the first request is in progress.
+-- Keys are deleted by the application once they are older than the configured TTL.
+CREATE TABLE IF NOT EXISTS idempotency_keys
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY NOT NULL,
+    fingerprint BIGINT NOT NULL,
+    response_status SMALLINT,
+    content_type VARCHAR(100),
+    response_body VARCHAR(8000),
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
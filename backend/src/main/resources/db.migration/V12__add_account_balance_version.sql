@@ -0,0 +1,4 @@
+-- Change counter of a balance, incremented by every update. The cached balance response of an account is keyed by
+-- the sum of the counters and the number of balances, which unlike the latest modification time changes with every
+-- committed update: LOCALTIMESTAMP is fixed at the start of the writing transaction.
+ALTER TABLE account_balances ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1 @@
+ALTER TABLE account_balances ADD CONSTRAINT unique_account_currency UNIQUE (account_id, currency);
@@ -0,0 +1,12 @@
+-- Ids are generated by the application (time-ordered 64-bit ids), so identity columns are replaced with plain
+-- BIGINT keys. Without identity columns Hibernate can send inserts in JDBC batches.
+ALTER TABLE accounts ALTER COLUMN id SET DATA TYPE BIGINT;
+ALTER TABLE accounts ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE account_balances ALTER COLUMN id SET DATA TYPE BIGINT;
+ALTER TABLE account_balances ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE account_balances ALTER COLUMN account_id SET DATA TYPE BIGINT;
+
+ALTER TABLE transactions ALTER COLUMN id SET DATA TYPE BIGINT;
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE transactions ALTER COLUMN account_id SET DATA TYPE BIGINT;
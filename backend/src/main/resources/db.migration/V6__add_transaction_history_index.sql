@@ -0,0 +1,8 @@
+-- Transaction history is read per account, newest first, in pages keyed by (transaction_date, id).
+-- The index columns are in the order of the history query, so a page is one index range scan without sorting.
+CREATE INDEX IF NOT EXISTS idx_transactions_account_date_id ON transactions (account_id, transaction_date DESC, id DESC);
+
+-- Covered by the new index or not selective enough to be used.
+-- idx_transactions_account_id stays, the foreign key constraint of account_id is backed by it.
+DROP INDEX IF EXISTS idx_transactions_transaction_type;
+DROP INDEX IF EXISTS idx_transactions_transaction_date;
@@ -0,0 +1,13 @@
+-- Balances of the event-sourced ledger mode folded up to last_transaction_id. The balance of an account is its
+-- snapshot plus the transactions with a larger id. All rows of an account are written with the same
+-- last_transaction_id.
+CREATE TABLE IF NOT EXISTS balance_snapshots
+(
+    account_id BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    balance DECIMAL(15, 2) NOT NULL,
+    last_transaction_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (account_id, currency),
+    FOREIGN KEY (account_id) REFERENCES accounts(id)
+);
@@ -0,0 +1,14 @@
+-- Amounts are stored as whole numbers of minor units of their currency, e.g. cents, so the application can use
+-- exact long arithmetic. KRW has no minor unit and is rounded to whole won, all other currencies have 2 decimals.
+-- The columns are widened first, so the largest DECIMAL(15, 2) value still fits after scaling.
+ALTER TABLE account_balances ALTER COLUMN balance SET DATA TYPE DECIMAL(19, 2);
+UPDATE account_balances SET balance = CASE currency WHEN 'KRW' THEN ROUND(balance, 0) ELSE balance * 100 END;
+ALTER TABLE account_balances ALTER COLUMN balance SET DATA TYPE BIGINT;
+
+ALTER TABLE transactions ALTER COLUMN amount SET DATA TYPE DECIMAL(19, 2);
+UPDATE transactions SET amount = CASE currency WHEN 'KRW' THEN ROUND(amount, 0) ELSE amount * 100 END;
+ALTER TABLE transactions ALTER COLUMN amount SET DATA TYPE BIGINT;
+
+ALTER TABLE balance_snapshots ALTER COLUMN balance SET DATA TYPE DECIMAL(19, 2);
+UPDATE balance_snapshots SET balance = CASE currency WHEN 'KRW' THEN ROUND(balance, 0) ELSE balance * 100 END;
+ALTER TABLE balance_snapshots ALTER COLUMN balance SET DATA TYPE BIGINT;
@@ -0,0 +1,10 @@
+-- Accounts are looked up by the 18 digits of the account number as a BIGINT key (see AccountNumberCodec).
+-- An 8 byte key makes the unique index smaller and cheaper to compare than one on the VARCHAR account number.
+ALTER TABLE accounts ADD COLUMN account_key BIGINT;
+UPDATE accounts SET account_key = CAST(SUBSTRING(account_number, 3) AS BIGINT);
+ALTER TABLE accounts ALTER COLUMN account_key SET NOT NULL;
+ALTER TABLE accounts ADD CONSTRAINT unique_account_key UNIQUE (account_key);
+
+-- The account number stays unique through its key, so both of its indexes go.
+ALTER TABLE accounts DROP CONSTRAINT unique_account_number;
+DROP INDEX IF EXISTS idx_account_number;
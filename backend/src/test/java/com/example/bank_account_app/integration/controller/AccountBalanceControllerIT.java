@@ -1,12 +1,17 @@
 package com.example.bank_account_app.integration.controller;
 
+import com.example.bank_account_app.dto.BalanceBatchItemDTO;
+import com.example.bank_account_app.dto.BalanceBatchRequestDTO;
 import com.example.bank_account_app.dto.CreditBalanceDTO;
 import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.dto.ExchangeCurrencyDTO;
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.repository.AccountBalanceRepository;
 import com.example.bank_account_app.repository.AccountRepository;
 import com.example.bank_account_app.repository.TransactionRepository;
+import com.example.bank_account_app.service.IdempotencyService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +22,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -81,7 +93,7 @@ class AccountBalanceControllerIT {
     void testDepositMoney_Success() throws Exception {
         CreditBalanceDTO creditDTO = new CreditBalanceDTO();
         creditDTO.setAccountNumber(account.getAccountNumber());
-        creditDTO.setAmount(100.0);
+        creditDTO.setAmount(new BigDecimal("100"));
         creditDTO.setCurrency(Currency.USD);
         String json = objectMapper.writeValueAsString(creditDTO);
 
@@ -92,11 +104,40 @@ class AccountBalanceControllerIT {
                 .andExpect(content().string("Deposit/Credit successful"));
     }
 
+    @Test
+    void testDepositMoney_RetryWithIdempotencyKey() throws Exception {
+        CreditBalanceDTO creditDTO = new CreditBalanceDTO();
+        creditDTO.setAccountNumber(account.getAccountNumber());
+        creditDTO.setAmount(new BigDecimal("100"));
+        creditDTO.setCurrency(Currency.USD);
+        String json = objectMapper.writeValueAsString(creditDTO);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        mockMvc.perform(post("/api/account-balance/credit")
+                        .header(IdempotencyService.HEADER, idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER));
+        mockMvc.perform(post("/api/account-balance/credit")
+                        .header(IdempotencyService.HEADER, idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andExpect(content().string("Deposit/Credit successful"));
+
+        assertEquals(1, transactionRepository.count());
+        mockMvc.perform(get("/api/account-balances/" + account.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currencyBalances[?(@.currency == 'USD')].balance").value("100.00"));
+    }
+
     @Test
     void testDebitMoney_Success() throws Exception {
         CreditBalanceDTO creditDTO = new CreditBalanceDTO();
         creditDTO.setAccountNumber(account.getAccountNumber());
-        creditDTO.setAmount(100.0);
+        creditDTO.setAmount(new BigDecimal("100"));
         creditDTO.setCurrency(Currency.USD);
         String creditJson = objectMapper.writeValueAsString(creditDTO);
 
@@ -108,7 +149,7 @@ class AccountBalanceControllerIT {
 
         DebitBalanceDTO debitDTO = new DebitBalanceDTO();
         debitDTO.setAccountNumber(account.getAccountNumber());
-        debitDTO.setAmount(50.0);
+        debitDTO.setAmount(new BigDecimal("50"));
         debitDTO.setCurrency(Currency.USD);
         String debitJson = objectMapper.writeValueAsString(debitDTO);
 
@@ -118,5 +159,68 @@ class AccountBalanceControllerIT {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Debit successful"));
     }
-}
 
+    @Test
+    void testGetAccountBalance_NewVersionAfterEveryChange() throws Exception {
+        CreditBalanceDTO creditDTO = new CreditBalanceDTO();
+        creditDTO.setAccountNumber(account.getAccountNumber());
+        creditDTO.setAmount(new BigDecimal("100"));
+        creditDTO.setCurrency(Currency.USD);
+        DebitBalanceDTO debitDTO = new DebitBalanceDTO();
+        debitDTO.setAccountNumber(account.getAccountNumber());
+        debitDTO.setAmount(new BigDecimal("30"));
+        debitDTO.setCurrency(Currency.USD);
+        ExchangeCurrencyDTO exchangeDTO = new ExchangeCurrencyDTO();
+        exchangeDTO.setAccountNumber(account.getAccountNumber());
+        exchangeDTO.setFromCurrency(Currency.USD);
+        exchangeDTO.setToCurrency(Currency.EUR);
+        exchangeDTO.setAmount(new BigDecimal("20"));
+
+        long version = accountBalanceRepository.findBalancesVersion(account.getId());
+        String[][] changes = {
+                {"/api/account-balance/credit", objectMapper.writeValueAsString(creditDTO), "100.00"},
+                {"/api/account-balance/debit", objectMapper.writeValueAsString(debitDTO), "70.00"},
+                {"/api/currency-exchange/fixed", objectMapper.writeValueAsString(exchangeDTO), "50.00"}};
+        for (String[] change : changes) {
+            mockMvc.perform(post(change[0])
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(change[1]))
+                    .andExpect(status().isOk());
+
+            long changed = accountBalanceRepository.findBalancesVersion(account.getId());
+            assertTrue(changed > version, change[0]);
+            version = changed;
+            // The cached response of the previous version is not served
+            mockMvc.perform(get("/api/account-balances/" + account.getAccountNumber()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.currencyBalances[?(@.currency == 'USD')].balance").value(change[2]));
+        }
+    }
+
+    @Test
+    void testProcessBalanceBatch_Success() throws Exception {
+        BalanceBatchRequestDTO request = new BalanceBatchRequestDTO(List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, account.getAccountNumber(), Currency.USD, new BigDecimal("100")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, account.getAccountNumber(), Currency.USD, new BigDecimal("30")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, account.getAccountNumber(), Currency.USD, new BigDecimal("500")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, account.getAccountNumber(), Currency.SEK, new BigDecimal("1")),
+                new BalanceBatchItemDTO(TransactionType.CREDIT, "EE000000000000000000", Currency.USD, new BigDecimal("1"))));
+        String json = objectMapper.writeValueAsString(request);
+
+        mockMvc.perform(post("/api/account-balance/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.results[0].status").value("SUCCESS"))
+                .andExpect(jsonPath("$.results[1].status").value("SUCCESS"))
+                .andExpect(jsonPath("$.results[2].status").value("INSUFFICIENT_BALANCE"))
+                .andExpect(jsonPath("$.results[3].status").value("BALANCE_NOT_FOUND"))
+                .andExpect(jsonPath("$.results[4].status").value("ACCOUNT_NOT_FOUND"));
+
+        long balance = accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.USD).getBalance();
+        assertEquals(7000, balance);
+        assertEquals(2, transactionRepository.count());
+    }
+}
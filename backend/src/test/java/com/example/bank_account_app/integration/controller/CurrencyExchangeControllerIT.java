@@ -16,9 +16,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -67,7 +69,7 @@ class CurrencyExchangeControllerIT {
 
         CreditBalanceDTO creditDTO = new CreditBalanceDTO();
         creditDTO.setAccountNumber(account.getAccountNumber());
-        creditDTO.setAmount(100.0);
+        creditDTO.setAmount(new BigDecimal("100"));
         creditDTO.setCurrency(Currency.USD);
         String creditJson = objectMapper.writeValueAsString(creditDTO);
 
@@ -76,9 +78,13 @@ class CurrencyExchangeControllerIT {
                 .content(creditJson));
 
 
-        mockMvc.perform(post("/api/currency-exchange/floating")
+        MvcResult result = mockMvc.perform(post("/api/currency-exchange/floating")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()));
     }
@@ -95,7 +101,7 @@ class CurrencyExchangeControllerIT {
 
         CreditBalanceDTO creditDTO = new CreditBalanceDTO();
         creditDTO.setAccountNumber(account.getAccountNumber());
-        creditDTO.setAmount(100.0);
+        creditDTO.setAmount(new BigDecimal("100"));
         creditDTO.setCurrency(Currency.USD);
         String creditJson = objectMapper.writeValueAsString(creditDTO);
 
@@ -109,7 +115,7 @@ class CurrencyExchangeControllerIT {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
                 .andExpect(jsonPath("$.currencyBalances[0].currency").value(Currency.USD.name()))
-                .andExpect(jsonPath("$.currencyBalances[0].balance").value("9.00"))
+                .andExpect(jsonPath("$.currencyBalances[0].balance").value("0.00"))
                 .andExpect(jsonPath("$.currencyBalances[1].currency").value(Currency.EUR.name()))
                 .andExpect(jsonPath("$.currencyBalances[1].balance").value("91.00"));
 
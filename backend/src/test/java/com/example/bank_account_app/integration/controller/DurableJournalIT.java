@@ -0,0 +1,103 @@
+package com.example.bank_account_app.integration.controller;
+
+import com.example.bank_account_app.dto.CreditBalanceDTO;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Concurrent requests waiting for their DURABLE acknowledgement must not hold the database connections that the
+ * transaction journal needs to write their group commit.
+ */
+@SpringBootTest(properties = {
+        "bank-account-app.transaction-journal.ack-mode=durable",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "spring.datasource.url=jdbc:h2:mem:bank-account-app-durable-test-db"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DurableJournalIT {
+    private static final int REQUESTS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        accountBalanceRepository.deleteAll();
+        accountRepository.deleteAll();
+        account = new Account();
+        account.setAccountNumber("EE123456789012345678");
+        account.setAccountHolder("Mari Maasikas");
+        account.setCreatedBy("integration test");
+        account = accountRepository.save(account);
+    }
+
+    @Test
+    void shouldAcknowledgeConcurrentDurableCreditsWithSmallPool() throws Exception {
+        CreditBalanceDTO creditDTO = new CreditBalanceDTO();
+        creditDTO.setAccountNumber(account.getAccountNumber());
+        creditDTO.setAmount(new BigDecimal("10"));
+        creditDTO.setCurrency(Currency.EUR);
+        String json = objectMapper.writeValueAsString(creditDTO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            statuses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/api/account-balance/credit")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        start.countDown();
+
+        for (Future<Integer> status : statuses) {
+            assertEquals(200, status.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(REQUESTS, transactionRepository.count());
+        assertEquals(REQUESTS * 1000L, accountBalanceRepository.findAllByAccountId(account.getId()).get(0).getBalance());
+    }
+}
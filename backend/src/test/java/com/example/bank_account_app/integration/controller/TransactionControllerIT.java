@@ -0,0 +1,112 @@
+package com.example.bank_account_app.integration.controller;
+
+import com.example.bank_account_app.controller.TransactionController;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.Transaction;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransactionControllerIT {
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        accountBalanceRepository.deleteAll();
+        accountRepository.deleteAll();
+        account = new Account();
+        account.setAccountNumber("EE123456789012345678");
+        account.setAccountHolder("Mari Maasikas");
+        account.setCreatedBy("integration test");
+        account = accountRepository.save(account);
+
+        // Two transactions share a date, so the page boundary falls between rows with equal dates
+        saveTransaction(TransactionType.CREDIT, Currency.EUR, DATE);
+        saveTransaction(TransactionType.DEBIT, Currency.EUR, DATE.plusHours(1));
+        saveTransaction(TransactionType.CREDIT, Currency.USD, DATE.plusHours(1));
+        saveTransaction(TransactionType.CREDIT, Currency.EUR, DATE.plusHours(2));
+    }
+
+    @Test
+    void testGetTransactions_PagesNewestFirst() throws Exception {
+        String url = "/api/accounts/" + account.getAccountNumber() + "/transactions";
+        MvcResult first = mockMvc.perform(get(url).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].transactionDate").value("2025-03-01T14:00:00"))
+                .andExpect(jsonPath("$[1].transactionDate").value("2025-03-01T13:00:00"))
+                .andReturn();
+        String cursor = first.getResponse().getHeader(TransactionController.NEXT_CURSOR_HEADER);
+
+        MvcResult second = mockMvc.perform(get(url).param("limit", "2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].transactionDate").value("2025-03-01T13:00:00"))
+                .andExpect(jsonPath("$[1].transactionDate").value("2025-03-01T12:00:00"))
+                .andReturn();
+        cursor = second.getResponse().getHeader(TransactionController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get(url).param("limit", "2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(TransactionController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void testGetTransactions_Filtered() throws Exception {
+        mockMvc.perform(get("/api/accounts/" + account.getAccountNumber() + "/transactions")
+                        .param("currency", "EUR")
+                        .param("type", "CREDIT")
+                        .param("from", "2025-03-01T12:00:00")
+                        .param("to", "2025-03-01T14:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].transactionDate").value("2025-03-01T12:00:00"))
+                .andExpect(jsonPath("$[0].amount").value(10.0));
+    }
+
+    private void saveTransaction(TransactionType type, Currency currency, LocalDateTime date) {
+        transactionRepository.save(Transaction.builder()
+                .account(account)
+                .transactionType(type)
+                .amount(1000)
+                .currency(currency)
+                .transactionDate(date)
+                .createdBy("integration test")
+                .build());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.bank_account_app.integration.ledger;
+
+import com.example.bank_account_app.dto.CreditBalanceDTO;
+import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.EventLedger.RebuildResult;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.repository.BalanceSnapshotRepository;
+import com.example.bank_account_app.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "bank-account-app.ledger.mode=events",
+        "spring.datasource.url=jdbc:h2:mem:bank-account-app-events-test-db"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EventLedgerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private EventLedger eventLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        balanceSnapshotRepository.deleteAll();
+        transactionRepository.deleteAll();
+        accountBalanceRepository.deleteAll();
+        accountRepository.deleteAll();
+        account = new Account();
+        account.setAccountNumber("EE123456789012345678");
+        account.setAccountHolder("Mari Maasikas");
+        account.setCreatedBy("integration test");
+        account = accountRepository.save(account);
+    }
+
+    @Test
+    void testBalancesAreProjectedFromTransactions() throws Exception {
+        credit("100");
+        mockMvc.perform(post("/api/account-balance/debit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new DebitBalanceDTO(account.getAccountNumber(), Currency.EUR, new BigDecimal("30")))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/account-balance/debit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new DebitBalanceDTO(account.getAccountNumber(), Currency.EUR, new BigDecimal("500")))))
+                .andExpect(status().isUnprocessableEntity());
+
+        mockMvc.perform(get("/api/account-balances/" + account.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currencyBalances[?(@.currency == 'EUR')].balance").value("70.00"));
+
+        // Every accepted change is exactly one transaction and account_balances is never written
+        assertEquals(2, transactionRepository.count());
+        assertEquals(0, accountBalanceRepository.count());
+    }
+
+    @Test
+    void testRebuildAndSnapshotsGiveTheSameBalances() throws Exception {
+        credit("100");
+        credit("0.55");
+        eventLedger.writeSnapshots(1);
+        credit("10");
+
+        RebuildResult result = eventLedger.rebuild();
+
+        assertEquals(1, result.accounts());
+        assertEquals(3, result.transactions());
+        assertEquals(Money.ofMinor(11055, Currency.EUR),
+                balanceSnapshotRepository.findByAccountId(account.getId()).balances().get(Currency.EUR));
+        mockMvc.perform(get("/api/account-balances/" + account.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currencyBalances[?(@.currency == 'EUR')].balance").value("110.55"));
+    }
+
+    @Test
+    void testOpeningBalancesOfFailedChunkAreNotServed() throws Exception {
+        // Same as an import chunk that fails after its opening balances were appended
+        transactionTemplate.executeWithoutResult(status -> {
+            eventLedger.openBalances(List.of(openingBalance("100")));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, transactionRepository.count());
+        mockMvc.perform(get("/api/account-balances/" + account.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currencyBalances[?(@.currency == 'EUR')].balance").value("0"));
+
+        transactionTemplate.executeWithoutResult(status -> eventLedger.openBalances(List.of(openingBalance("100"))));
+
+        mockMvc.perform(get("/api/account-balances/" + account.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currencyBalances[?(@.currency == 'EUR')].balance").value("100.00"));
+    }
+
+    private AccountBalance openingBalance(String amount) {
+        return AccountBalance.builder()
+                .account(account)
+                .currency(Currency.EUR)
+                .balance(Money.of(new BigDecimal(amount), Currency.EUR).minorUnits())
+                .createdBy("integration test")
+                .build();
+    }
+
+    private void credit(String amount) throws Exception {
+        mockMvc.perform(post("/api/account-balance/credit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CreditBalanceDTO(account.getAccountNumber(), Currency.EUR, new BigDecimal(amount)))))
+                .andExpect(status().isOk());
+    }
+}
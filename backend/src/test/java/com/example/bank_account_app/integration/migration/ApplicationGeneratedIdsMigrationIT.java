@@ -0,0 +1,100 @@
+package com.example.bank_account_app.integration.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs V5 over a database that was created by V1-V4 and already has rows with identity ids.
+ */
+class ApplicationGeneratedIdsMigrationIT {
+    private static final long SNOWFLAKE_ID = 237500035271491584L;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migration-test-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migrate("4");
+
+        jdbcTemplate.update("""
+                INSERT INTO accounts (account_number, account_holder, created_at, created_by)
+                VALUES ('EE123456789012345678', 'Mari Maasikas', LOCALTIMESTAMP, 'test')""");
+        long accountId = jdbcTemplate.queryForObject("SELECT id FROM accounts", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO account_balances (account_id, currency, balance, created_at, created_by)
+                VALUES (?, 'EUR', 100.50, LOCALTIMESTAMP, 'test')""", accountId);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (account_id, transaction_type, amount, currency, transaction_date, created_at,
+                                          created_by)
+                VALUES (?, 'CREDIT', 100.50, 'EUR', LOCALTIMESTAMP, LOCALTIMESTAMP, 'test')""", accountId);
+    }
+
+    @Test
+    void shouldKeepExistingRowsAndReferences() {
+        migrate("5");
+
+        assertEquals(1, jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM accounts a
+                JOIN account_balances b ON b.account_id = a.id
+                JOIN transactions t ON t.account_id = a.id
+                WHERE a.account_number = 'EE123456789012345678'""", Integer.class));
+        for (String column : new String[]{"ACCOUNTS.ID", "ACCOUNT_BALANCES.ID", "ACCOUNT_BALANCES.ACCOUNT_ID",
+                "TRANSACTIONS.ID", "TRANSACTIONS.ACCOUNT_ID"}) {
+            String[] parts = column.split("\\.");
+            assertEquals("BIGINT", jdbcTemplate.queryForObject("""
+                    SELECT data_type FROM information_schema.columns
+                    WHERE table_schema = 'PUBLIC' AND table_name = ? AND column_name = ?""",
+                    String.class, parts[0], parts[1]), column);
+        }
+    }
+
+    @Test
+    void shouldAcceptApplicationIdsAndKeepForeignKeys() {
+        migrate("5");
+
+        jdbcTemplate.update("""
+                INSERT INTO accounts (id, account_number, account_holder, created_at, created_by)
+                VALUES (?, 'EE123456789012345679', 'Jaan Tamm', LOCALTIMESTAMP, 'test')""", SNOWFLAKE_ID);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (id, account_id, transaction_type, amount, currency, transaction_date,
+                                          created_at, created_by)
+                VALUES (?, ?, 'CREDIT', 1, 'EUR', LOCALTIMESTAMP, LOCALTIMESTAMP, 'test')""",
+                SNOWFLAKE_ID + 1, SNOWFLAKE_ID);
+
+        assertEquals(SNOWFLAKE_ID, jdbcTemplate.queryForObject(
+                "SELECT account_id FROM transactions WHERE id = ?", Long.class, SNOWFLAKE_ID + 1));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("""
+                INSERT INTO transactions (id, account_id, transaction_type, amount, currency, transaction_date,
+                                          created_at, created_by)
+                VALUES (?, ?, 'CREDIT', 1, 'EUR', LOCALTIMESTAMP, LOCALTIMESTAMP, 'test')""",
+                SNOWFLAKE_ID + 2, SNOWFLAKE_ID + 3));
+    }
+
+    @Test
+    void shouldApplyLaterMigrationsToMigratedRows() {
+        migrate("latest");
+
+        assertEquals(10050L, jdbcTemplate.queryForObject("SELECT balance FROM account_balances", Long.class));
+        assertEquals(10050L, jdbcTemplate.queryForObject("SELECT amount FROM transactions", Long.class));
+    }
+
+    private void migrate(String target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db.migration")
+                .target(target)
+                .load()
+                .migrate();
+    }
+}
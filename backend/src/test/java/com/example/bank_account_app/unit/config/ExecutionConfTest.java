@@ -0,0 +1,29 @@
+package com.example.bank_account_app.unit.config;
+
+import com.example.bank_account_app.config.ExecutionConf;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionConfTest {
+
+    @Test
+    void shouldCreatePlatformDaemonThreadsByDefault() {
+        Thread thread = new ExecutionConf().threadFactory("worker-").newThread(() -> { });
+
+        assertFalse(thread.isVirtual());
+        assertTrue(thread.isDaemon());
+        assertEquals("worker-1", thread.getName());
+    }
+
+    @Test
+    void shouldCreateVirtualThreadsWhenEnabled() {
+        ExecutionConf config = new ExecutionConf();
+        config.setVirtualThreads(true);
+
+        Thread thread = config.threadFactory("worker-").newThread(() -> { });
+
+        assertTrue(thread.isVirtual());
+        assertEquals("worker-1", thread.getName());
+    }
+}
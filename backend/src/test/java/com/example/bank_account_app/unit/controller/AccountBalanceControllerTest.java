@@ -1,17 +1,30 @@
 package com.example.bank_account_app.unit.controller;
 
+import com.example.bank_account_app.advice.GlobalExceptionHandler;
+import com.example.bank_account_app.config.IdempotencyConf;
 import com.example.bank_account_app.controller.AccountBalanceController;
 import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.example.bank_account_app.dto.BalanceBatchItemDTO;
+import com.example.bank_account_app.dto.BalanceBatchItemResult;
+import com.example.bank_account_app.dto.BalanceBatchRequestDTO;
+import com.example.bank_account_app.dto.BalanceBatchResultDTO;
 import com.example.bank_account_app.dto.CreditBalanceDTO;
 import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.enums.BatchItemStatus;
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
 import com.example.bank_account_app.model.Account;
-import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.IdempotencyKeyRepository;
 import com.example.bank_account_app.service.AccountBalanceService;
 import com.example.bank_account_app.service.AccountService;
+import com.example.bank_account_app.service.BalanceBatchService;
+import com.example.bank_account_app.service.IdempotencyService;
 import com.example.bank_account_app.service.TransactionService;
 import com.example.bank_account_app.util.AccountUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,11 +39,18 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
-import java.util.Collections;
+import java.time.Duration;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.mockStatic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -52,11 +72,19 @@ public class AccountBalanceControllerTest {
     @Mock
     private TransactionService transactionService;
 
+    @Mock
+    private BalanceBatchService balanceBatchService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
     private AccountBalanceController accountBalanceController;
 
     @BeforeEach
     void setUp() {
-        accountBalanceController = new AccountBalanceController(accountBalanceService, accountService, transactionService);
+        lenient().when(idempotencyKeyRepository.claim(anyString(), anyLong(), any())).thenReturn(true);
+        accountBalanceController = new AccountBalanceController(accountBalanceService, accountService, transactionService,
+                balanceBatchService, createIdempotencyService());
         mockMvc = MockMvcBuilders.standaloneSetup(accountBalanceController).build();
     }
 
@@ -91,21 +119,17 @@ public class AccountBalanceControllerTest {
         Account account = new Account();
         account.setAccountNumber(validAccountNumber);
 
-        AccountBalance balance = new AccountBalance();
-        balance.setBalance(new BigDecimal("100"));
-        List<AccountBalance> balances = Collections.singletonList(balance);
-
         AccountBalanceDTO balanceDTO = new AccountBalanceDTO();
         balanceDTO.setAccountNumber(validAccountNumber);
 
         try (MockedStatic<AccountUtils> accountUtilsMock = mockStatic(AccountUtils.class)) {
             accountUtilsMock.when(() -> AccountUtils.isValidAccountNumber(validAccountNumber)).thenReturn(true);
             when(accountService.getAccountByAccountNumber(validAccountNumber)).thenReturn(account);
-            when(accountBalanceService.getAccountBalances(account)).thenReturn(balances);
-            when(accountBalanceService.mapAccountBalancesToDTO(balances, account)).thenReturn(balanceDTO);
+            when(accountBalanceService.getAccountBalancesJson(account)).thenReturn(objectMapper.writeValueAsBytes(balanceDTO));
 
             mockMvc.perform(get("/api/account-balances/" + validAccountNumber))
                     .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$.accountNumber").value(validAccountNumber));
         }
     }
@@ -124,7 +148,7 @@ public class AccountBalanceControllerTest {
     void testDepositMoney_AccountNotFound() throws Exception {
         CreditBalanceDTO creditDTO = new CreditBalanceDTO();
         creditDTO.setAccountNumber("EE123456789012345678");
-        creditDTO.setAmount(100);
+        creditDTO.setAmount(new BigDecimal("100"));
         creditDTO.setCurrency(Currency.USD);
 
         String json = objectMapper.writeValueAsString(creditDTO);
@@ -141,7 +165,7 @@ public class AccountBalanceControllerTest {
     void testDepositMoney_Success() throws Exception {
         CreditBalanceDTO creditDTO = new CreditBalanceDTO();
         creditDTO.setAccountNumber("EE123456789012345678");
-        creditDTO.setAmount(100);
+        creditDTO.setAmount(new BigDecimal("100"));
         creditDTO.setCurrency(Currency.USD);
 
         String json = objectMapper.writeValueAsString(creditDTO);
@@ -173,7 +197,7 @@ public class AccountBalanceControllerTest {
     void testDebitMoney_AccountNotFound() throws Exception {
         DebitBalanceDTO debitDTO = new DebitBalanceDTO();
         debitDTO.setAccountNumber("EE123456789012345678");
-        debitDTO.setAmount(50.0);
+        debitDTO.setAmount(new BigDecimal("50"));
         debitDTO.setCurrency(Currency.USD);
 
         String json = objectMapper.writeValueAsString(debitDTO);
@@ -190,7 +214,7 @@ public class AccountBalanceControllerTest {
     void testDebitMoney_Success() throws Exception {
         DebitBalanceDTO debitDTO = new DebitBalanceDTO();
         debitDTO.setAccountNumber("EE123456789012345678");
-        debitDTO.setAmount(50.0);
+        debitDTO.setAmount(new BigDecimal("50"));
         debitDTO.setCurrency(Currency.USD);
 
         String json = objectMapper.writeValueAsString(debitDTO);
@@ -208,5 +232,182 @@ public class AccountBalanceControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Debit successful"));
     }
-}
 
+    @Test
+    void testDebitMoney_RetryWithIdempotencyKeyIsNotAppliedAgain() throws Exception {
+        DebitBalanceDTO debitDTO = new DebitBalanceDTO();
+        debitDTO.setAccountNumber("EE123456789012345678");
+        debitDTO.setAmount(new BigDecimal("50"));
+        debitDTO.setCurrency(Currency.USD);
+
+        String json = objectMapper.writeValueAsString(debitDTO);
+        Account account = new Account();
+        account.setAccountNumber("EE123456789012345678");
+        account.setAccountHolder("Mari Maasikas");
+        when(accountService.getAccountByAccountNumber(debitDTO.getAccountNumber())).thenReturn(account);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            mockMvc.perform(post("/api/account-balance/debit")
+                            .header(IdempotencyService.HEADER, "debit-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("Debit successful"));
+        }
+
+        verify(accountService, times(1)).getAccountByAccountNumber(debitDTO.getAccountNumber());
+        verify(accountBalanceService, times(1)).debitMoney(account, debitDTO, account.getAccountHolder());
+        verify(transactionService, times(1)).createNewTransaction(any());
+    }
+
+    @Test
+    void testDepositMoney_RetryAfterJournalTimeoutIsNotAppliedAgain() throws Exception {
+        CreditBalanceDTO creditDTO = new CreditBalanceDTO("EE123456789012345678", Currency.EUR, new BigDecimal("25"));
+        Account account = new Account();
+        account.setAccountNumber(creditDTO.getAccountNumber());
+        account.setAccountHolder("Mari Maasikas");
+        when(accountService.getAccountByAccountNumber(creditDTO.getAccountNumber())).thenReturn(account);
+        // The balance is changed, then the transaction journal does not acknowledge in time
+        doThrow(new IllegalStateException("Transaction was not written in time"))
+                .when(transactionService).createNewTransaction(any());
+        MockMvc mockMvcWithAdvice = MockMvcBuilders.standaloneSetup(accountBalanceController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvcWithAdvice.perform(post("/api/account-balance/credit")
+                            .header(IdempotencyService.HEADER, "credit-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(creditDTO)))
+                    .andExpect(status().isServiceUnavailable());
+        }
+
+        verify(accountBalanceService, times(1)).creditMoney(account, creditDTO, account.getAccountHolder());
+        verify(idempotencyKeyRepository, never()).delete("credit-1");
+    }
+
+    @Test
+    void testDebitMoney_RetryAfterLedgerTimeout() throws Exception {
+        DebitBalanceDTO debitDTO = new DebitBalanceDTO("EE123456789012345678", Currency.EUR, new BigDecimal("25"));
+        Account account = new Account();
+        account.setAccountNumber(debitDTO.getAccountNumber());
+        account.setAccountHolder("Mari Maasikas");
+        when(accountService.getAccountByAccountNumber(debitDTO.getAccountNumber())).thenReturn(account);
+        MockMvc mockMvcWithAdvice = MockMvcBuilders.standaloneSetup(accountBalanceController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        // Withdrawn before it was applied, the key is released and a retry is applied
+        doThrow(new LedgerBusyException("Ledger operation timed out"))
+                .doNothing()
+                .when(accountBalanceService).debitMoney(account, debitDTO, account.getAccountHolder());
+        mockMvcWithAdvice.perform(post("/api/account-balance/debit")
+                        .header(IdempotencyService.HEADER, "debit-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(debitDTO)))
+                .andExpect(status().isServiceUnavailable());
+        mockMvcWithAdvice.perform(post("/api/account-balance/debit")
+                        .header(IdempotencyService.HEADER, "debit-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(debitDTO)))
+                .andExpect(status().isOk());
+
+        // Timed out while it was being applied, the key is kept and a retry is not applied
+        doThrow(new OutcomeUnknownException("Ledger operation is still being applied"))
+                .when(accountBalanceService).debitMoney(account, debitDTO, account.getAccountHolder());
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvcWithAdvice.perform(post("/api/account-balance/debit")
+                            .header(IdempotencyService.HEADER, "debit-4")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(debitDTO)))
+                    .andExpect(status().isServiceUnavailable());
+        }
+
+        verify(accountBalanceService, times(3)).debitMoney(account, debitDTO, account.getAccountHolder());
+        verify(idempotencyKeyRepository).delete("debit-3");
+        verify(idempotencyKeyRepository, never()).delete("debit-4");
+    }
+
+    @Test
+    void testDebitMoney_IdempotencyKeyOfDifferentRequest() throws Exception {
+        DebitBalanceDTO debitDTO = new DebitBalanceDTO();
+        debitDTO.setAccountNumber("EE123456789012345678");
+        debitDTO.setAmount(new BigDecimal("50"));
+        debitDTO.setCurrency(Currency.USD);
+        when(accountService.getAccountByAccountNumber(debitDTO.getAccountNumber())).thenReturn(null);
+
+        mockMvc.perform(post("/api/account-balance/debit")
+                        .header(IdempotencyService.HEADER, "debit-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(debitDTO)))
+                .andExpect(status().isNotFound());
+        debitDTO.setAmount(new BigDecimal("60"));
+        mockMvc.perform(post("/api/account-balance/debit")
+                        .header(IdempotencyService.HEADER, "debit-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(debitDTO)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void testProcessBalanceBatch_InvalidPayload() throws Exception {
+        mockMvc.perform(post("/api/account-balance/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testProcessBalanceBatch_ZeroAmount() throws Exception {
+        BalanceBatchItemDTO item = new BalanceBatchItemDTO(TransactionType.CREDIT, "EE123456789012345678", Currency.EUR, BigDecimal.ZERO);
+        String json = objectMapper.writeValueAsString(new BalanceBatchRequestDTO(List.of(item)));
+
+        mockMvc.perform(post("/api/account-balance/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+        verify(balanceBatchService, never()).processBatch(any());
+    }
+
+    @Test
+    void testProcessBalanceBatch_TooManyItems() throws Exception {
+        BalanceBatchItemDTO item = new BalanceBatchItemDTO(TransactionType.CREDIT, "EE123456789012345678", Currency.EUR, new BigDecimal("10"));
+        String json = objectMapper.writeValueAsString(new BalanceBatchRequestDTO(List.of(item, item)));
+        when(balanceBatchService.getMaxItems()).thenReturn(1);
+
+        mockMvc.perform(post("/api/account-balance/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void testProcessBalanceBatch_Success() throws Exception {
+        BalanceBatchItemDTO credit = new BalanceBatchItemDTO(TransactionType.CREDIT, "EE123456789012345678", Currency.EUR, new BigDecimal("10"));
+        BalanceBatchItemDTO debit = new BalanceBatchItemDTO(TransactionType.DEBIT, "EE123456789012345678", Currency.USD, new BigDecimal("500"));
+        String json = objectMapper.writeValueAsString(new BalanceBatchRequestDTO(List.of(credit, debit)));
+        BalanceBatchResultDTO result = new BalanceBatchResultDTO(1, 1, List.of(
+                new BalanceBatchItemResult(0, credit.getAccountNumber(), BatchItemStatus.SUCCESS),
+                new BalanceBatchItemResult(1, debit.getAccountNumber(), BatchItemStatus.INSUFFICIENT_BALANCE)));
+
+        when(balanceBatchService.getMaxItems()).thenReturn(10);
+        when(balanceBatchService.processBatch(any())).thenReturn(result);
+
+        mockMvc.perform(post("/api/account-balance/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("INSUFFICIENT_BALANCE"));
+    }
+
+    private IdempotencyService createIdempotencyService() {
+        IdempotencyConf config = new IdempotencyConf();
+        config.setMaxSize(100);
+        config.setTtl(Duration.ofHours(1));
+        config.setPendingTimeout(Duration.ofSeconds(30));
+        config.setCleanupInterval(Duration.ofMinutes(10));
+        return new IdempotencyService(idempotencyKeyRepository, config, objectMapper, new SimpleMeterRegistry());
+    }
+}
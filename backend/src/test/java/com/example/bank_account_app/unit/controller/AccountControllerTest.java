@@ -1,9 +1,14 @@
 package com.example.bank_account_app.unit.controller;
 
+import com.example.bank_account_app.config.AccountPagingConf;
 import com.example.bank_account_app.controller.AccountController;
 import com.example.bank_account_app.dto.AccountDTO;
+import com.example.bank_account_app.dto.AccountImportResultDTO;
 import com.example.bank_account_app.dto.CreateAccountDTO;
+import com.example.bank_account_app.enums.AccountImportFormat;
 import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.service.AccountImportService;
+import com.example.bank_account_app.service.AccountNumberGenerator;
 import com.example.bank_account_app.service.AccountService;
 import com.example.bank_account_app.util.AccountUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,30 +16,44 @@ import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.mockStatic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AccountController.class)
+@Import(AccountPagingConf.class)
 public class AccountControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
+    @MockitoBean
     private AccountService accountService;
 
+    @MockitoBean
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @MockitoBean
+    private AccountImportService accountImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -48,15 +67,60 @@ public class AccountControllerTest {
         accountDTO.setAccountNumber("EE123456789012345678");
         List<AccountDTO> accountDTOs = Collections.singletonList(accountDTO);
 
-        when(accountService.getAllAccounts()).thenReturn(accounts);
+        when(accountService.getAccountsPage(Long.MIN_VALUE, 100)).thenReturn(accounts);
         when(accountService.mapAccountsToDTO(accounts)).thenReturn(accountDTOs);
 
         mockMvc.perform(get("/api/accounts"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(AccountController.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].accountNumber").value("EE123456789012345678"));
     }
 
+    @Test
+    void testGetAllAccounts_FullPageHasNextCursor() throws Exception {
+        List<Account> accounts = List.of(
+                Account.builder().id(10).accountNumber("EE123456789012345678").build(),
+                Account.builder().id(11).accountNumber("EE123456789012345679").build());
+        when(accountService.getAccountsPage(5, 2)).thenReturn(accounts);
+        when(accountService.mapAccountsToDTO(accounts)).thenReturn(List.of(new AccountDTO(), new AccountDTO()));
+
+        mockMvc.perform(get("/api/accounts").param("after", "5").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(AccountController.NEXT_CURSOR_HEADER, "11"))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void testGetAllAccounts_InvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/accounts").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/accounts").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testStreamAllAccounts() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<AccountDTO> consumer = invocation.getArgument(1);
+            consumer.accept(new AccountDTO("EE123456789012345678", "Mari Maasikas"));
+            consumer.accept(new AccountDTO("EE123456789012345679", "Mart Tamm"));
+            return null;
+        }).when(accountService).streamAccounts(eq(500), any());
+
+        MvcResult result = mockMvc.perform(get("/api/accounts/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"accountNumber":"EE123456789012345678","accountHolder":"Mari Maasikas"}
+                        {"accountNumber":"EE123456789012345679","accountHolder":"Mart Tamm"}
+                        """));
+    }
+
     @Test
     void testGetAccountByNumber_InvalidAccountNumber() throws Exception {
         String invalidAccountNumber = "invalid";
@@ -112,8 +176,7 @@ public class AccountControllerTest {
 
         try (MockedStatic<AccountUtils> accountUtilsMock = mockStatic(AccountUtils.class)) {
             accountUtilsMock.when(() -> AccountUtils.isValidAccountHolder("Mari Maasikas")).thenReturn(true);
-            accountUtilsMock.when(AccountUtils::generateAccountNumber)
-                    .thenReturn("EE123456789012345678");
+            when(accountNumberGenerator.generateAccountNumber()).thenReturn("EE123456789012345678");
 
             Account account = new Account();
             account.setAccountNumber("EE123456789012345678");
@@ -132,5 +195,27 @@ public class AccountControllerTest {
                     .andExpect(jsonPath("$.accountNumber").value("EE123456789012345678"));
         }
     }
-}
 
+    @Test
+    void testImportAccounts_FormatFromContentType() throws Exception {
+        when(accountImportService.importAccounts(any(), eq(AccountImportFormat.NDJSON)))
+                .thenReturn(new AccountImportResultDTO(1, 0, List.of()));
+        when(accountImportService.importAccounts(any(), eq(AccountImportFormat.CSV)))
+                .thenReturn(new AccountImportResultDTO(2, 0, List.of()));
+
+        mockMvc.perform(post("/api/accounts/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"accountHolder\":\"Mari Maasikas\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+        mockMvc.perform(post("/api/accounts/import")
+                        .contentType("text/csv;charset=UTF-8")
+                        .content("Mari Maasikas\nJaan Tamm\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+        mockMvc.perform(post("/api/accounts/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
@@ -7,6 +7,7 @@ import com.example.bank_account_app.enums.Currency;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.service.AccountService;
 import com.example.bank_account_app.service.CurrencyExchangeService;
+import com.example.bank_account_app.service.IdempotencyService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,10 +15,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,21 +42,33 @@ public class CurrencyExchangeControllerTest {
 
     @Mock
     private AccountService accountService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
     
     private CurrencyExchangeController currencyExchangeController;
 
     @BeforeEach
     void setUp() {
-        currencyExchangeController = new CurrencyExchangeController(currencyExchangeService, accountService);
+        // Requests without an Idempotency-Key run as they are
+        lenient().when(idempotencyService.execute(isNull(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<?>>>getArgument(3).get());
+        lenient().when(idempotencyService.executeAsync(isNull(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CompletableFuture<ResponseEntity<?>>>>getArgument(3).get());
+        currencyExchangeController = new CurrencyExchangeController(currencyExchangeService, accountService, idempotencyService);
         mockMvc = MockMvcBuilders.standaloneSetup(currencyExchangeController).build();
     }
 
     @Test
     void testExchangeCurrency_Floating_InvalidPayload() throws Exception {
         String invalidJson = "{}";
-        mockMvc.perform(post("/api/currency-exchange/floating")
+        MvcResult result = mockMvc.perform(post("/api/currency-exchange/floating")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(invalidJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest());
     }
 
@@ -60,9 +82,13 @@ public class CurrencyExchangeControllerTest {
         
         when(accountService.getAccountByAccountNumber("EE123456789012345678")).thenReturn(null);
 
-        mockMvc.perform(post("/api/currency-exchange/floating")
+        MvcResult result = mockMvc.perform(post("/api/currency-exchange/floating")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound());
     }
 
@@ -84,11 +110,15 @@ public class CurrencyExchangeControllerTest {
         accountBalanceDTO.setAccountNumber("EE123456789012345678");
 
         when(currencyExchangeService.exchangeCurrency(exchangeDTO, account, "Mari Maasikas"))
-                .thenReturn(accountBalanceDTO);
+                .thenReturn(CompletableFuture.completedFuture(accountBalanceDTO));
 
-        mockMvc.perform(post("/api/currency-exchange/floating")
+        MvcResult result = mockMvc.perform(post("/api/currency-exchange/floating")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value("EE123456789012345678"));
     }
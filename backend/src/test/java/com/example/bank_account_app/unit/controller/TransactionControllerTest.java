@@ -0,0 +1,132 @@
+package com.example.bank_account_app.unit.controller;
+
+import com.example.bank_account_app.config.TransactionHistoryConf;
+import com.example.bank_account_app.controller.TransactionController;
+import com.example.bank_account_app.dto.TransactionCursor;
+import com.example.bank_account_app.dto.TransactionDTO;
+import com.example.bank_account_app.dto.TransactionFilter;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.service.AccountService;
+import com.example.bank_account_app.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransactionController.class)
+@Import(TransactionHistoryConf.class)
+public class TransactionControllerTest {
+    private static final String ACCOUNT_NUMBER = "EE123456789012345678";
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AccountService accountService;
+
+    @MockitoBean
+    private TransactionService transactionService;
+
+    @Test
+    void testGetTransactions() throws Exception {
+        Account account = Account.builder().id(1).accountNumber(ACCOUNT_NUMBER).build();
+        when(accountService.getAccountByAccountNumber(ACCOUNT_NUMBER)).thenReturn(account);
+        when(transactionService.getTransactionHistory(account, new TransactionFilter(null, null, null, null), null, 50))
+                .thenReturn(List.of(transaction(2L, DATE)));
+
+        mockMvc.perform(get("/api/accounts/" + ACCOUNT_NUMBER + "/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(TransactionController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].transactionType").value("CREDIT"));
+    }
+
+    @Test
+    void testGetTransactions_FiltersAndFullPageHasNextCursor() throws Exception {
+        Account account = Account.builder().id(1).accountNumber(ACCOUNT_NUMBER).build();
+        TransactionCursor after = new TransactionCursor(DATE, 9L);
+        TransactionFilter filter = new TransactionFilter(Currency.EUR, TransactionType.CREDIT,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 4, 1, 0, 0));
+        when(accountService.getAccountByAccountNumber(ACCOUNT_NUMBER)).thenReturn(account);
+        when(transactionService.getTransactionHistory(account, filter, after, 2))
+                .thenReturn(List.of(transaction(8L, DATE), transaction(5L, DATE.minusDays(1))));
+
+        mockMvc.perform(get("/api/accounts/" + ACCOUNT_NUMBER + "/transactions")
+                        .param("currency", "EUR")
+                        .param("type", "CREDIT")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("to", "2025-04-01T00:00:00")
+                        .param("after", after.encode())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TransactionController.NEXT_CURSOR_HEADER,
+                        new TransactionCursor(DATE.minusDays(1), 5L).encode()))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void testGetTransactions_InvalidAccountNumber() throws Exception {
+        mockMvc.perform(get("/api/accounts/invalid/transactions"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid account number"));
+    }
+
+    @Test
+    void testGetTransactions_AccountNotFound() throws Exception {
+        when(accountService.getAccountByAccountNumber(ACCOUNT_NUMBER)).thenReturn(null);
+
+        mockMvc.perform(get("/api/accounts/" + ACCOUNT_NUMBER + "/transactions"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Account not found"));
+    }
+
+    @Test
+    void testGetTransactions_InvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/accounts/" + ACCOUNT_NUMBER + "/transactions").param("limit", "501"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Limit must be between 1 and 500"));
+
+        verify(transactionService, never()).getTransactionHistory(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetTransactions_InvalidDateRange() throws Exception {
+        mockMvc.perform(get("/api/accounts/" + ACCOUNT_NUMBER + "/transactions")
+                        .param("from", "2025-02-01T00:00:00")
+                        .param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("From must be before to"));
+    }
+
+    @Test
+    void testGetTransactions_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/accounts/" + ACCOUNT_NUMBER + "/transactions").param("after", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor"));
+
+        verify(transactionService, never()).getTransactionHistory(any(), any(), any(), anyInt());
+    }
+
+    private TransactionDTO transaction(long id, LocalDateTime date) {
+        return new TransactionDTO(id, TransactionType.CREDIT, new BigDecimal("10.00"), Currency.EUR, date);
+    }
+}
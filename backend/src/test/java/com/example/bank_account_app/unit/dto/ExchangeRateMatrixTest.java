@@ -0,0 +1,50 @@
+package com.example.bank_account_app.unit.dto;
+
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
+import com.example.bank_account_app.enums.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRateMatrixTest {
+
+    private static final Map<String, Double> USD_RATES = Map.of(
+            "USD", 1.0,
+            "EUR", 0.9,
+            "SEK", 10.5,
+            "RUB", 90.0,
+            "KRW", 1350.0,
+            "JPY", 150.0);
+
+    @Test
+    void shouldTriangulateCrossRatesFromBaseRates() {
+        ExchangeRateMatrix matrix = ExchangeRateMatrix.triangulate(USD_RATES, Instant.EPOCH);
+
+        assertEquals(0.9, matrix.getRate(Currency.USD, Currency.EUR), 1e-9);
+        assertEquals(1 / 0.9, matrix.getRate(Currency.EUR, Currency.USD), 1e-9);
+        assertEquals(10.5 / 0.9, matrix.getRate(Currency.EUR, Currency.SEK), 1e-9);
+        assertEquals(1350.0 / 90.0, matrix.getRate(Currency.RUB, Currency.KRW), 1e-9);
+        assertEquals(Instant.EPOCH, matrix.getFetchedAt());
+    }
+
+    @Test
+    void shouldHaveIdentityRateForSameCurrency() {
+        ExchangeRateMatrix matrix = ExchangeRateMatrix.triangulate(USD_RATES, Instant.EPOCH);
+
+        for (Currency currency : Currency.values()) {
+            assertEquals(1.0, matrix.getRate(currency, currency));
+        }
+    }
+
+    @Test
+    void shouldReturnZeroForMissingCurrency() {
+        ExchangeRateMatrix matrix = ExchangeRateMatrix.triangulate(Map.of("USD", 1.0, "EUR", 0.9), Instant.EPOCH);
+
+        assertEquals(0.0, matrix.getRate(Currency.EUR, Currency.KRW));
+        assertEquals(0.0, matrix.getRate(Currency.KRW, Currency.EUR));
+        assertEquals(0.0, ExchangeRateMatrix.EMPTY.getRate(Currency.EUR, Currency.USD));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bank_account_app.unit.dto;
+
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void shouldStoreAmountInMinorUnitsOfCurrency() {
+        assertEquals(1250, Money.of(new BigDecimal("12.5"), Currency.EUR).minorUnits());
+        assertEquals(1000, Money.of(new BigDecimal("1000.00"), Currency.KRW).minorUnits());
+        assertEquals("12.50", Money.ofMinor(1250, Currency.EUR).toPlainString());
+        assertEquals("1000", Money.ofMinor(1000, Currency.KRW).toPlainString());
+        assertEquals("12.50 EUR", Money.ofMinor(1250, Currency.EUR).toString());
+    }
+
+    @Test
+    void shouldRejectMoreDecimalsThanMinorUnit() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("12.345"), Currency.EUR));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1000.5"), Currency.KRW));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1e20"), Currency.EUR));
+    }
+
+    @Test
+    void shouldAddAndSubtractExactly() {
+        Money balance = Money.ofMinor(10, Currency.EUR).plus(Money.ofMinor(20, Currency.EUR));
+
+        assertEquals(Money.ofMinor(30, Currency.EUR), balance);
+        assertTrue(balance.minus(Money.ofMinor(31, Currency.EUR)).isNegative());
+        assertTrue(balance.isLessThan(Money.ofMinor(31, Currency.EUR)));
+    }
+
+    @Test
+    void shouldFailOnCurrencyMismatchAndOverflow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Money.ofMinor(1, Currency.EUR).plus(Money.ofMinor(1, Currency.USD)));
+        assertThrows(ArithmeticException.class,
+                () -> Money.ofMinor(Long.MAX_VALUE, Currency.EUR).plus(Money.ofMinor(1, Currency.EUR)));
+    }
+
+    @Test
+    void shouldConvertToMinorUnitOfTargetCurrency() {
+        // 100.00 EUR at 1500 KRW per EUR overflows a long before the division and takes the wide path
+        assertEquals(Money.ofMinor(150_000, Currency.KRW), Money.ofMinor(10_000, Currency.EUR).convert(1500.0, Currency.KRW));
+        // 1000 KRW at 0.000666 EUR per KRW is 0.666 EUR
+        assertEquals(Money.ofMinor(67, Currency.EUR), Money.ofMinor(1000, Currency.KRW).convert(0.000666, Currency.EUR));
+        assertEquals(Money.ofMinor(1100, Currency.USD), Money.ofMinor(1000, Currency.EUR).convert(1.1, Currency.USD));
+    }
+
+    @Test
+    void shouldRoundConversionHalfUp() {
+        assertEquals(Money.ofMinor(1, Currency.USD), Money.ofMinor(1, Currency.EUR).convert(0.5, Currency.USD));
+        assertEquals(Money.ofMinor(0, Currency.USD), Money.ofMinor(1, Currency.EUR).convert(0.49, Currency.USD));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(1, Currency.EUR).convert(0.0, Currency.USD));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bank_account_app.unit.dto;
+
+import com.example.bank_account_app.dto.TransactionCursor;
+import com.example.bank_account_app.dto.TransactionDTO;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCursorTest {
+
+    @Test
+    void shouldDecodeEncodedCursor() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000), 42L);
+
+        assertEquals(cursor, TransactionCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void shouldEncodeUrlSafe() {
+        String encoded = new TransactionCursor(LocalDateTime.of(2025, 3, 1, 12, 30), Long.MAX_VALUE).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void shouldCreateCursorOfTransaction() {
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 12, 30);
+        TransactionDTO transaction = new TransactionDTO(7L, TransactionType.CREDIT, BigDecimal.TEN, Currency.EUR, date);
+
+        assertEquals(new TransactionCursor(date, 7L), TransactionCursor.of(transaction));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("MjAyNQ"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode(""));
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.bank_account_app.unit.initializer;
 
 import com.example.bank_account_app.initializer.InitialDataLoader;
+import com.example.bank_account_app.initializer.SyntheticDataGenerator;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.repository.AccountRepository;
 import com.example.bank_account_app.service.AccountBalanceService;
+import com.example.bank_account_app.service.AccountNumberGenerator;
 import com.example.bank_account_app.service.AccountService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,6 +32,12 @@ class InitialDataLoaderTest {
     @Mock
     private AccountBalanceService accountBalanceService;
 
+    @Mock
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @Mock
+    private SyntheticDataGenerator syntheticDataGenerator;
+
     @InjectMocks
     private InitialDataLoader initialDataLoader;
 
@@ -39,6 +47,7 @@ class InitialDataLoaderTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(accountNumberGenerator.generateAccountNumber()).thenReturn("EE123456789012345678");
     }
 
     @Test
@@ -74,6 +83,18 @@ class InitialDataLoaderTest {
         assertTrue(initialDataLoader.alreadySetup, "Data should be marked as loaded");
     }
 
+    @Test
+    void shouldGenerateDatasetInsteadOfSampleDataWhenEnabled() {
+        when(accountRepository.count()).thenReturn(0L);
+        when(syntheticDataGenerator.isEnabled()).thenReturn(true);
+
+        initialDataLoader.run(applicationArguments);
+
+        verify(syntheticDataGenerator).generate();
+        verify(accountService, never()).saveAllAccounts(anyList());
+        assertTrue(initialDataLoader.alreadySetup, "Data should be marked as loaded");
+    }
+
     @Test
     void shouldCreateAccountsCorrectly() {
         List<String> accountHolders = List.of("Mart Tamm", "Mari Maasikas", "Siim Sepp", "Kati Kask");
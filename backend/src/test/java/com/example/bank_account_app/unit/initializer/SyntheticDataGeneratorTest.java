@@ -0,0 +1,201 @@
+package com.example.bank_account_app.unit.initializer;
+
+import com.example.bank_account_app.config.DataGeneratorConf;
+import com.example.bank_account_app.config.ExecutionConf;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.initializer.SyntheticDataGenerator;
+import com.example.bank_account_app.initializer.SyntheticDataGenerator.GeneratedData;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.model.Transaction;
+import com.example.bank_account_app.repository.AccountBatchRepository;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository.ReservedBlock;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountNumberPermutation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SyntheticDataGeneratorTest {
+
+    @Mock
+    private AccountNumberBlockRepository accountNumberBlockRepository;
+
+    @Mock
+    private AccountBatchRepository accountBatchRepository;
+
+    @Mock
+    private EventLedger eventLedger;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private DataGeneratorConf dataGeneratorConf = createConfig();
+
+    @Spy
+    private ExecutionConf executionConf = new ExecutionConf();
+
+    @InjectMocks
+    private SyntheticDataGenerator syntheticDataGenerator;
+
+    private final Queue<Account> accounts = new ConcurrentLinkedQueue<>();
+    private final Queue<AccountBalance> balances = new ConcurrentLinkedQueue<>();
+    private final Queue<Transaction> transactions = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // A new database, the permutation key is the one given with the first reservation
+        when(accountNumberBlockRepository.reserve(anyInt(), anyLong())).thenAnswer(invocation ->
+                new ReservedBlock(0, invocation.<Integer>getArgument(0), invocation.<Long>getArgument(1)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(invocation -> accounts.addAll(invocation.getArgument(0)))
+                .when(accountBatchRepository).insertAccounts(anyList(), anyInt());
+        doAnswer(invocation -> balances.addAll(invocation.getArgument(0)))
+                .when(accountBatchRepository).insertAccountBalances(anyList(), anyInt());
+        doAnswer(invocation -> transactions.addAll(invocation.getArgument(0)))
+                .when(accountBatchRepository).insertTransactions(anyList(), anyInt());
+    }
+
+    @Test
+    void shouldGenerateConfiguredNumberOfRows() {
+        GeneratedData result = syntheticDataGenerator.generate();
+
+        assertEquals(new GeneratedData(10, 20, 50, result.durationMillis()), result);
+        assertEquals(10, accounts.size());
+        assertEquals(10, accounts.stream().map(Account::getAccountNumber).distinct().count());
+        accounts.forEach(account -> assertEquals(AccountNumberCodec.encode(account.getAccountNumber()), account.getAccountKey()));
+        verify(accountNumberBlockRepository).reserve(10, AccountNumberPermutation.mix(42));
+        // Chunks of 3 accounts
+        verify(transactionTemplate, times(4)).executeWithoutResult(any());
+    }
+
+    @Test
+    void shouldGenerateSameDataWithAnyNumberOfThreads() {
+        dataGeneratorConf.setParallelism(1);
+        syntheticDataGenerator.generate();
+        List<String> sequential = describeAccounts();
+
+        accounts.clear();
+        balances.clear();
+        transactions.clear();
+        dataGeneratorConf.setParallelism(4);
+        syntheticDataGenerator.generate();
+
+        assertEquals(sequential, describeAccounts());
+    }
+
+    @Test
+    void shouldGenerateSameAccountNumbersWithSameSeed() {
+        syntheticDataGenerator.generate();
+        List<String> first = accounts.stream().map(Account::getAccountNumber).sorted().toList();
+
+        accounts.clear();
+        syntheticDataGenerator.generate();
+        List<String> second = accounts.stream().map(Account::getAccountNumber).sorted().toList();
+
+        accounts.clear();
+        dataGeneratorConf.setSeed(43);
+        syntheticDataGenerator.generate();
+        List<String> otherSeed = accounts.stream().map(Account::getAccountNumber).sorted().toList();
+
+        assertEquals(first, second);
+        assertNotEquals(first, otherSeed);
+    }
+
+    @Test
+    void shouldDeleteSavedChunksWhenChunkFails() {
+        AtomicInteger saves = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (saves.incrementAndGet() == 3) {
+                throw new DataIntegrityViolationException("duplicate account number");
+            }
+            return accounts.addAll(invocation.getArgument(0));
+        }).when(accountBatchRepository).insertAccounts(anyList(), anyInt());
+
+        assertThrows(IllegalStateException.class, () -> syntheticDataGenerator.generate());
+
+        verify(accountBatchRepository).deleteAccountsCreatedBy("data generator");
+    }
+
+    @Test
+    void shouldEndWithBalancesOfOpeningCreditsAndTransactions() {
+        when(eventLedger.isEnabled()).thenReturn(true);
+
+        GeneratedData result = syntheticDataGenerator.generate();
+
+        // With the event ledger balances are projected from the transactions, which start with the opening credits
+        assertEquals(0, result.balances());
+        assertEquals(70, result.transactions());
+        Map<String, Long> sums = new HashMap<>();
+        transactions.stream()
+                .sorted(Comparator.comparing(Transaction::getId))
+                .forEach(transaction -> {
+                    String key = transaction.getAccount().getId() + transaction.getCurrency().name();
+                    long amount = transaction.getTransactionType() == TransactionType.CREDIT
+                            ? transaction.getAmount() : -transaction.getAmount();
+                    long balance = sums.merge(key, amount, Long::sum);
+                    assertTrue(balance >= 0, "Balance should never be negative");
+                });
+        assertEquals(20, sums.size());
+    }
+
+    private List<String> describeAccounts() {
+        Map<Long, String> balancesByAccount = balances.stream()
+                .collect(Collectors.groupingBy(balance -> balance.getAccount().getId(), Collectors.mapping(
+                        balance -> balance.getCurrency() + "=" + balance.getBalance(),
+                        Collectors.collectingAndThen(Collectors.toList(), list -> {
+                            Collections.sort(list);
+                            return list.toString();
+                        }))));
+        return accounts.stream()
+                .sorted(Comparator.comparing(Account::getAccountNumber))
+                .map(account -> account.getAccountNumber() + " " + account.getAccountHolder() + " "
+                        + balancesByAccount.get(account.getId()))
+                .toList();
+    }
+
+    private static DataGeneratorConf createConfig() {
+        DataGeneratorConf config = new DataGeneratorConf();
+        config.setEnabled(true);
+        config.setAccounts(10);
+        config.setBalancesPerAccount(2);
+        config.setTransactionsPerAccount(5);
+        config.setSeed(42);
+        config.setParallelism(2);
+        config.setChunkSize(3);
+        config.setJdbcBatchSize(100);
+        return config;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.bank_account_app.unit.journal;
+
+import com.example.bank_account_app.config.TransactionJournalConf;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.JournalAckMode;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.journal.TransactionJournal;
+import com.example.bank_account_app.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransactionJournalTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionJournalConf config;
+    private TransactionJournal journal;
+    private final List<Integer> writtenBatches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config = new TransactionJournalConf();
+        config.setCapacity(100);
+        config.setBatchSize(500);
+        config.setFlushInterval(Duration.ofMillis(20));
+        config.setAckMode(JournalAckMode.DURABLE);
+        config.setAckTimeout(Duration.ofSeconds(5));
+        config.setMaxAttempts(2);
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstWrite.countDown();
+        journal.stop();
+    }
+
+    @Test
+    void shouldAcknowledgeDurableRecordAfterWrite() {
+        startJournal(false);
+
+        journal.record(newCommand(), JournalAckMode.DURABLE);
+
+        assertEquals(List.of(1), writtenBatches);
+        assertEquals(0, journal.getBacklog());
+    }
+
+    @Test
+    void shouldGroupQueuedTransactionsIntoOneWrite() throws InterruptedException {
+        startJournal(true);
+        CompletableFuture<Void> first = journal.append(newCommand());
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<Void>> queued = appendAll(10);
+        releaseFirstWrite.countDown();
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).join();
+
+        assertTrue(first.isDone());
+        assertEquals(List.of(1, 10), writtenBatches);
+    }
+
+    @Test
+    void shouldSplitGroupCommitsByBatchSize() throws InterruptedException {
+        config.setBatchSize(4);
+        startJournal(true);
+        journal.append(newCommand());
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<Void>> queued = appendAll(10);
+        releaseFirstWrite.countDown();
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(List.of(1, 4, 4, 2), writtenBatches);
+    }
+
+    @Test
+    void shouldApplyBackpressureWhenBufferIsFull() throws InterruptedException {
+        config.setCapacity(2);
+        config.setAckTimeout(Duration.ofMillis(100));
+        startJournal(true);
+        journal.append(newCommand());
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        appendAll(2);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> journal.append(newCommand()));
+        assertEquals("Transaction journal is full", ex.getMessage());
+        assertEquals(2, journal.getBacklog());
+    }
+
+    @Test
+    void shouldDrainBufferOnStop() throws InterruptedException {
+        startJournal(true);
+        journal.append(newCommand());
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Void>> queued = appendAll(20);
+
+        new Thread(() -> {
+            sleep(50);
+            releaseFirstWrite.countDown();
+        }).start();
+        journal.stop();
+
+        assertTrue(queued.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(21, writtenBatches.stream().mapToInt(Integer::intValue).sum());
+        assertThrows(IllegalStateException.class, () -> journal.append(newCommand()));
+    }
+
+    @Test
+    void shouldFailDurableRecordWhenWritesKeepFailing() {
+        journal = new TransactionJournal(jdbcTemplate, transactionTemplate, config, new SimpleMeterRegistry());
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new IllegalStateException("database is down"));
+        journal.start();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> journal.record(newCommand()));
+
+        assertEquals("Transaction could not be written", ex.getMessage());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void shouldFailOnlyRejectedTransactionWhenBatchKeepsFailing() throws Exception {
+        journal = new TransactionJournal(jdbcTemplate, transactionTemplate, config, new SimpleMeterRegistry());
+        // The database rejects every statement with a transaction of account 2
+        PreparedStatement statement = mock(PreparedStatement.class);
+        doThrow(new SQLException("account does not exist")).when(statement).setLong(2, 2L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+            Collection<Object> rows = invocation.getArgument(1);
+            ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+            for (Object row : rows) {
+                try {
+                    setter.setValues(statement, row);
+                } catch (SQLException ex) {
+                    throw new DataIntegrityViolationException(ex.getMessage());
+                }
+            }
+            writtenBatches.add(rows.size());
+            return new int[0][];
+        });
+        journal.start();
+
+        CompletableFuture<Void> first = journal.append(newCommand(1));
+        CompletableFuture<Void> rejected = journal.append(newCommand(2));
+        CompletableFuture<Void> third = journal.append(newCommand(3));
+
+        first.get(5, TimeUnit.SECONDS);
+        third.get(5, TimeUnit.SECONDS);
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, ex.getCause());
+        assertEquals(2, writtenBatches.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * Starts the journal with a database mock that records batch sizes. When blocking, the first write waits
+     * until the test releases it, so the test can queue transactions behind it.
+     */
+    private void startJournal(boolean blockFirstWrite) {
+        journal = new TransactionJournal(jdbcTemplate, transactionTemplate, config, new SimpleMeterRegistry());
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    boolean first = firstWriteStarted.getCount() > 0;
+                    firstWriteStarted.countDown();
+                    if (blockFirstWrite && first) {
+                        releaseFirstWrite.await(5, TimeUnit.SECONDS);
+                    }
+                    writtenBatches.add(invocation.<Collection<?>>getArgument(1).size());
+                    return new int[0][];
+                });
+        journal.start();
+    }
+
+    private List<CompletableFuture<Void>> appendAll(int count) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(journal.append(newCommand()));
+        }
+        return futures;
+    }
+
+    private TransactionCommand newCommand() {
+        return newCommand(1);
+    }
+
+    private TransactionCommand newCommand(long accountId) {
+        return TransactionCommand.builder()
+                .account(Account.builder().id(accountId).build())
+                .amount(Money.ofMinor(10, Currency.EUR))
+                .type(TransactionType.CREDIT)
+                .createdBy("tester")
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
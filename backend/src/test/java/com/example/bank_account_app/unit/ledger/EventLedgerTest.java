@@ -0,0 +1,239 @@
+package com.example.bank_account_app.unit.ledger;
+
+import com.example.bank_account_app.config.AccountLockConf;
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.BalanceEvent;
+import com.example.bank_account_app.dto.BalanceSnapshot;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.enums.BatchItemStatus;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.LedgerMode;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.EventLedger.RebuildResult;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.BalanceEventRepository;
+import com.example.bank_account_app.repository.BalanceSnapshotRepository;
+import com.example.bank_account_app.service.AccountLockManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventLedgerTest {
+
+    @Mock
+    private BalanceEventRepository balanceEventRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private EventLedger eventLedger;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        LedgerConf config = new LedgerConf();
+        config.setMode(LedgerMode.EVENTS);
+        config.setBatchSize(10);
+        config.setSnapshotInterval(Duration.ofMinutes(1));
+        config.setSnapshotMinEvents(2);
+        config.setReplayFetchSize(100);
+        config.setRebuildParallelism(2);
+        AccountLockConf lockConf = new AccountLockConf();
+        lockConf.setStripes(4);
+
+        account = Account.builder().id(7).accountNumber("EE123456789012345678").build();
+        // EUR 100.00 up to transaction 10, then +5.00 and -20.00
+        EnumMap<Currency, Money> balances = new EnumMap<>(Currency.class);
+        balances.put(Currency.EUR, Money.ofMinor(10000, Currency.EUR));
+        when(balanceSnapshotRepository.findByAccountId(7)).thenReturn(new BalanceSnapshot(7, 10, balances));
+        when(balanceEventRepository.findAfter(7, 10)).thenReturn(List.of(
+                event(11, 7, TransactionType.CREDIT, Currency.EUR, "5.00"),
+                event(12, 7, TransactionType.DEBIT, Currency.EUR, "20.00")));
+
+        eventLedger = new EventLedger(config, balanceEventRepository, balanceSnapshotRepository,
+                new AccountLockManager(lockConf, new SimpleMeterRegistry()),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldLoadBalancesFromSnapshotAndLogTail() {
+        List<AccountBalance> balances = eventLedger.getBalances(account);
+
+        assertEquals(1, balances.size());
+        assertEquals(8500, balances.get(0).getBalance());
+
+        eventLedger.getBalances(account);
+        verify(balanceSnapshotRepository, times(1)).findByAccountId(7);
+        verify(balanceEventRepository, times(1)).findAfter(7, 10);
+    }
+
+    @Test
+    void shouldAppendCreditAsTransaction() {
+        eventLedger.credit(account, Money.ofMinor(1235, Currency.USD), "test user");
+
+        BalanceEvent event = appendedEvents().get(0);
+        assertEquals(TransactionType.CREDIT, event.type());
+        assertEquals(Currency.USD, event.currency());
+        assertEquals(Money.ofMinor(1235, Currency.USD), event.amount());
+        assertEquals("test user", event.createdBy());
+        assertEquals(1235L, balanceOf(Currency.USD));
+    }
+
+    @Test
+    void shouldRejectDebitWithoutAppending() {
+        assertThrows(InsufficientBalanceException.class,
+                () -> eventLedger.debit(account, Money.ofMinor(8501, Currency.EUR), "test user"));
+        assertThrows(BalanceNotFoundException.class,
+                () -> eventLedger.debit(account, Money.ofMinor(100, Currency.USD), "test user"));
+
+        verify(balanceEventRepository, never()).append(anyList(), anyInt());
+        assertEquals(8500L, balanceOf(Currency.EUR));
+    }
+
+    @Test
+    void shouldAppendBothSidesOfExchangeTogether() {
+        List<AccountBalance> updated = eventLedger.exchange(account, Money.ofMinor(1000, Currency.EUR),
+                Money.ofMinor(1000, Currency.SEK), "test user");
+
+        List<BalanceEvent> events = appendedEvents();
+        assertEquals(2, events.size());
+        assertEquals(TransactionType.DEBIT, events.get(0).type());
+        assertEquals(TransactionType.CREDIT, events.get(1).type());
+        assertEquals(7500, updated.get(0).getBalance());
+        assertEquals(1000, updated.get(1).getBalance());
+    }
+
+    @Test
+    void shouldKeepBalancesWhenAppendFails() {
+        doThrow(new IllegalStateException("database down")).when(balanceEventRepository).append(anyList(), anyInt());
+
+        assertThrows(IllegalStateException.class,
+                () -> eventLedger.credit(account, Money.ofMinor(1000, Currency.EUR), "test user"));
+
+        assertEquals(8500L, balanceOf(Currency.EUR));
+    }
+
+    @Test
+    void shouldApplyBatchInOrderWithOneAppend() {
+        List<TransactionCommand> commands = List.of(
+                command(TransactionType.DEBIT, Currency.EUR, 80),
+                command(TransactionType.DEBIT, Currency.EUR, 10),
+                command(TransactionType.DEBIT, Currency.USD, 1),
+                command(TransactionType.CREDIT, Currency.EUR, 30));
+
+        BatchItemStatus[] statuses = eventLedger.applyAll(commands);
+
+        assertArrayEquals(new BatchItemStatus[]{BatchItemStatus.SUCCESS, BatchItemStatus.INSUFFICIENT_BALANCE,
+                BatchItemStatus.BALANCE_NOT_FOUND, BatchItemStatus.SUCCESS}, statuses);
+        assertEquals(2, appendedEvents().size());
+        assertEquals(3500L, balanceOf(Currency.EUR));
+    }
+
+    @Test
+    void shouldSnapshotOnlyAccountsWithEnoughNewEvents() {
+        Account other = Account.builder().id(8).build();
+        when(balanceSnapshotRepository.findByAccountId(8)).thenReturn(BalanceSnapshot.empty(8));
+        eventLedger.credit(other, Money.ofMinor(100, Currency.EUR), "test user");
+        eventLedger.getBalances(account);
+
+        eventLedger.writeSnapshots(2);
+
+        ArgumentCaptor<List<BalanceSnapshot>> snapshots = ArgumentCaptor.captor();
+        verify(balanceSnapshotRepository).saveAll(snapshots.capture(), eq(10));
+        assertEquals(1, snapshots.getValue().size());
+        assertEquals(7, snapshots.getValue().get(0).accountId());
+        assertEquals(12, snapshots.getValue().get(0).lastTransactionId());
+
+        // Nothing new since the snapshot
+        eventLedger.writeSnapshots(2);
+        verify(balanceSnapshotRepository, times(1)).saveAll(anyList(), anyInt());
+    }
+
+    @Test
+    void shouldRebuildAllAccountsFromLogInParallel() {
+        List<BalanceEvent> log = List.of(
+                event(1, 3, TransactionType.CREDIT, Currency.EUR, "50.00"),
+                event(2, 5, TransactionType.CREDIT, Currency.USD, "20.00"),
+                event(3, 3, TransactionType.DEBIT, Currency.EUR, "15.00"),
+                event(4, 7, TransactionType.CREDIT, Currency.EUR, "1.00"),
+                event(5, 9, TransactionType.CREDIT, Currency.SEK, "9.00"));
+        Map<Long, List<BalanceEvent>> byAccount = log.stream().collect(Collectors.groupingBy(BalanceEvent::accountId));
+        when(balanceEventRepository.findAccountIds()).thenReturn(List.of(3L, 5L, 7L, 9L));
+        doAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            Consumer<BalanceEvent> consumer = invocation.getArgument(3);
+            byAccount.keySet().stream().filter(id -> id >= from && id <= to).sorted()
+                    .forEach(id -> byAccount.get(id).forEach(consumer));
+            return null;
+        }).when(balanceEventRepository).replay(anyLong(), anyLong(), eq(100), any());
+
+        RebuildResult result = eventLedger.rebuild();
+
+        assertEquals(4, result.accounts());
+        assertEquals(5, result.transactions());
+        assertEquals(2, result.threads());
+        verify(balanceSnapshotRepository).deleteAll();
+        verify(balanceEventRepository).replay(eq(3L), eq(5L), eq(100), any());
+        verify(balanceEventRepository).replay(eq(7L), eq(9L), eq(100), any());
+        verify(balanceSnapshotRepository, times(2)).saveAll(anyList(), eq(10));
+
+        // Rebuilt balances are served from memory
+        assertEquals(100L, balanceOf(Currency.EUR));
+        assertEquals(3500,
+                eventLedger.getBalances(Account.builder().id(3).build()).get(0).getBalance());
+        verify(balanceSnapshotRepository, never()).findByAccountId(anyLong());
+    }
+
+    private Long balanceOf(Currency currency) {
+        return eventLedger.getBalances(account).stream()
+                .filter(balance -> balance.getCurrency() == currency)
+                .findFirst()
+                .map(AccountBalance::getBalance)
+                .orElse(null);
+    }
+
+    private List<BalanceEvent> appendedEvents() {
+        ArgumentCaptor<List<BalanceEvent>> events = ArgumentCaptor.captor();
+        verify(balanceEventRepository).append(events.capture(), eq(10));
+        return events.getValue();
+    }
+
+    private TransactionCommand command(TransactionType type, Currency currency, long amount) {
+        return TransactionCommand.builder()
+                .account(account)
+                .type(type)
+                .amount(Money.of(BigDecimal.valueOf(amount), currency))
+                .createdBy("test user")
+                .build();
+    }
+
+    private static BalanceEvent event(long id, long accountId, TransactionType type, Currency currency, String amount) {
+        return new BalanceEvent(id, accountId, type, Money.of(new BigDecimal(amount), currency), LocalDateTime.now(),
+                "test");
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.bank_account_app.unit.ledger;
+
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.LedgerMode;
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.ledger.LedgerWriteBehind;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.AccountBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LedgerEngineTest {
+
+    @Mock
+    private LedgerWriteBehind writeBehind;
+
+    @Mock
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Mock
+    private AccountBatchRepository accountBatchRepository;
+
+    private LedgerEngine ledgerEngine;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        LedgerConf config = new LedgerConf();
+        config.setMode(LedgerMode.ENGINE);
+        config.setShards(4);
+        config.setQueueCapacity(100);
+        config.setBatchSize(10);
+        config.setFlushInterval(Duration.ofMillis(5));
+        config.setEnqueueTimeout(Duration.ofMillis(50));
+        config.setOperationTimeout(Duration.ofSeconds(5));
+
+        account = Account.builder().id(7).accountNumber("EE123456789012345678").build();
+        AccountBalance eurBalance = AccountBalance.builder()
+                .account(account)
+                .currency(Currency.EUR)
+                .balance(10000)
+                .build();
+        when(accountBalanceRepository.findAllByAccountId(7)).thenReturn(List.of(eurBalance));
+
+        ledgerEngine = new LedgerEngine(config, writeBehind, accountBalanceRepository, accountBatchRepository);
+        ledgerEngine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerEngine.stop();
+    }
+
+    @Test
+    void shouldLoadBalancesOnFirstAccess() {
+        List<AccountBalance> balances = ledgerEngine.getBalances(account);
+
+        assertEquals(1, balances.size());
+        assertEquals(Currency.EUR, balances.get(0).getCurrency());
+        assertEquals(10000, balances.get(0).getBalance());
+
+        ledgerEngine.getBalances(account);
+        verify(accountBalanceRepository, times(1)).findAllByAccountId(7);
+    }
+
+    @Test
+    void shouldCreditExistingAndNewBalances() {
+        ledgerEngine.credit(account, Money.ofMinor(5050, Currency.EUR), "tester");
+        ledgerEngine.credit(account, Money.ofMinor(1000, Currency.USD), "tester");
+
+        assertEquals(15050L, balanceOf(Currency.EUR));
+        assertEquals(1000L, balanceOf(Currency.USD));
+        verify(writeBehind).enqueueBalance(7, Money.ofMinor(15050, Currency.EUR), "tester");
+        verify(writeBehind).enqueueBalance(7, Money.ofMinor(1000, Currency.USD), "tester");
+    }
+
+    @Test
+    void shouldDebitWhenBalanceIsSufficient() {
+        ledgerEngine.debit(account, Money.ofMinor(4000, Currency.EUR), "tester");
+
+        assertEquals(6000L, balanceOf(Currency.EUR));
+        verify(writeBehind).enqueueBalance(7, Money.ofMinor(6000, Currency.EUR), "tester");
+    }
+
+    @Test
+    void shouldRejectDebitWithInsufficientBalance() {
+        assertThrows(InsufficientBalanceException.class,
+                () -> ledgerEngine.debit(account, Money.ofMinor(10001, Currency.EUR), "tester"));
+
+        assertEquals(10000L, balanceOf(Currency.EUR));
+        verify(writeBehind, never()).enqueueBalance(anyLong(), any(), any());
+    }
+
+    @Test
+    void shouldRejectDebitWithoutBalance() {
+        assertThrows(BalanceNotFoundException.class,
+                () -> ledgerEngine.debit(account, Money.ofMinor(1, Currency.KRW), "tester"));
+    }
+
+    @Test
+    void shouldExchangeBetweenBalances() {
+        List<AccountBalance> updated = ledgerEngine.exchange(account, Money.ofMinor(1000, Currency.EUR),
+                Money.ofMinor(1100, Currency.USD), "tester");
+
+        assertEquals(Currency.EUR, updated.get(0).getCurrency());
+        assertEquals(9000, updated.get(0).getBalance());
+        assertEquals(Currency.USD, updated.get(1).getCurrency());
+        assertEquals(1100, updated.get(1).getBalance());
+        verify(writeBehind).enqueueBalances(7, List.of(Money.ofMinor(9000, Currency.EUR),
+                Money.ofMinor(1100, Currency.USD)), "tester");
+    }
+
+    @Test
+    void shouldKeepBalanceWhenWriteBehindQueueIsFull() {
+        doThrow(new LedgerBusyException("Ledger write-behind queue is full"))
+                .when(writeBehind).enqueueBalance(anyLong(), any(), any());
+
+        assertThrows(LedgerBusyException.class,
+                () -> ledgerEngine.credit(account, Money.ofMinor(5000, Currency.EUR), "tester"));
+        assertEquals(10000L, balanceOf(Currency.EUR));
+    }
+
+    @Test
+    void shouldRejectWritesWhileWriteBehindIsBlocked() {
+        when(writeBehind.isBlocked()).thenReturn(true);
+
+        assertThrows(LedgerBusyException.class,
+                () -> ledgerEngine.credit(account, Money.ofMinor(5000, Currency.EUR), "tester"));
+        assertThrows(LedgerBusyException.class,
+                () -> ledgerEngine.debit(account, Money.ofMinor(5000, Currency.EUR), "tester"));
+        assertThrows(LedgerBusyException.class, () -> ledgerEngine.exchange(account, Money.ofMinor(1000, Currency.EUR),
+                Money.ofMinor(1100, Currency.USD), "tester"));
+        verify(writeBehind, never()).enqueueBalance(anyLong(), any(), any());
+
+        // Balances can still be read
+        assertEquals(10000L, balanceOf(Currency.EUR));
+    }
+
+    @Test
+    void shouldInsertOpeningBalancesOfNewAccounts() {
+        AccountBalance opening = AccountBalance.builder()
+                .account(Account.builder().id(8).build())
+                .currency(Currency.SEK)
+                .balance(500)
+                .build();
+
+        ledgerEngine.openBalances(List.of(opening));
+
+        assertNotEquals(0, opening.getId());
+        verify(accountBatchRepository).insertAccountBalances(List.of(opening), 10);
+    }
+
+    @Test
+    void shouldApplyConcurrentCreditsWithoutLosingUpdates() throws InterruptedException {
+        int threads = 8;
+        int iterations = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    ledgerEngine.credit(account, Money.ofMinor(100, Currency.EUR), "tester");
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(20, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(210000L, balanceOf(Currency.EUR));
+    }
+
+    @Test
+    void shouldWithdrawQueuedOperationsThatTimeOut() throws Exception {
+        ledgerEngine.stop();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountBalanceRepository.findAllByAccountId(7)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        LedgerConf config = new LedgerConf();
+        config.setMode(LedgerMode.ENGINE);
+        config.setShards(1);
+        config.setQueueCapacity(100);
+        config.setEnqueueTimeout(Duration.ofMillis(50));
+        config.setOperationTimeout(Duration.ofMillis(100));
+        ledgerEngine = new LedgerEngine(config, writeBehind, accountBalanceRepository, accountBatchRepository);
+        ledgerEngine.start();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> first = executor.submit(() -> ledgerEngine.credit(account, Money.ofMinor(100, Currency.EUR), "tester"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // The shard is stuck applying the first credit, the second one is still queued
+        assertThrows(LedgerBusyException.class,
+                () -> ledgerEngine.credit(account, Money.ofMinor(200, Currency.EUR), "tester"));
+        ExecutionException unknown = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OutcomeUnknownException.class, unknown.getCause());
+
+        release.countDown();
+        executor.shutdown();
+        assertEquals(100L, balanceOf(Currency.EUR));
+        verify(writeBehind, never()).enqueueBalance(7, Money.ofMinor(300, Currency.EUR), "tester");
+    }
+
+    @Test
+    void shouldRejectOperationsWhileShardQueueIsFull() throws Exception {
+        ledgerEngine.stop();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountBalanceRepository.findAllByAccountId(7)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        LedgerConf config = new LedgerConf();
+        config.setMode(LedgerMode.ENGINE);
+        config.setShards(1);
+        config.setQueueCapacity(1);
+        config.setEnqueueTimeout(Duration.ofMillis(50));
+        config.setOperationTimeout(Duration.ofSeconds(5));
+        ledgerEngine = new LedgerEngine(config, writeBehind, accountBalanceRepository, accountBatchRepository);
+        ledgerEngine.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> first = executor.submit(() -> ledgerEngine.credit(account, Money.ofMinor(100, Currency.EUR), "tester"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<?> second = executor.submit(() -> ledgerEngine.credit(account, Money.ofMinor(200, Currency.EUR), "tester"));
+        Thread.sleep(100);
+
+        // The shard is stuck on the first credit and the second one fills its queue
+        assertThrows(LedgerBusyException.class,
+                () -> ledgerEngine.credit(account, Money.ofMinor(400, Currency.EUR), "tester"));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(300L, balanceOf(Currency.EUR));
+    }
+
+    private Long balanceOf(Currency currency) {
+        return ledgerEngine.getBalances(account).stream()
+                .filter(balance -> balance.getCurrency() == currency)
+                .findFirst()
+                .map(AccountBalance::getBalance)
+                .orElse(null);
+    }
+}
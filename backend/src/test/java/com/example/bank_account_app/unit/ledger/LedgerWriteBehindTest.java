@@ -0,0 +1,128 @@
+package com.example.bank_account_app.unit.ledger;
+
+import com.example.bank_account_app.config.LedgerConf;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.ledger.LedgerWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerWriteBehindTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Integer> writtenBatchSizes = new ArrayList<>();
+    private volatile boolean rejectSecondAccount;
+    private LedgerConf config;
+    private LedgerWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        config = new LedgerConf();
+        config.setWriteBehindCapacity(1);
+        config.setMaxFlushAttempts(2);
+        config.setBatchSize(10);
+        config.setFlushInterval(Duration.ofMillis(1));
+        config.setEnqueueTimeout(Duration.ofMillis(50));
+        writeBehind = new LedgerWriteBehind(jdbcTemplate, transactionTemplate, config, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.stop();
+    }
+
+    @Test
+    void shouldRejectBalanceWhileQueueStaysFull() {
+        answerBatchUpdate();
+        writeBehind.enqueueBalance(1, Money.ofMinor(100, Currency.EUR), "tester");
+
+        assertThrows(LedgerBusyException.class,
+                () -> writeBehind.enqueueBalance(2, Money.ofMinor(200, Currency.EUR), "tester"));
+
+        writeBehind.start();
+        verify(jdbcTemplate, timeout(5000)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        writeBehind.enqueueBalance(2, Money.ofMinor(200, Currency.EUR), "tester");
+    }
+
+    @Test
+    void shouldKeepRejectedRowsPendingAfterRepeatedFailures() throws InterruptedException {
+        config.setWriteBehindCapacity(10);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        writeBehind = new LedgerWriteBehind(jdbcTemplate, transactionTemplate, config, meterRegistry);
+        rejectSecondAccount = true;
+        answerBatchUpdate();
+        writeBehind.enqueueBalance(1, Money.ofMinor(100, Currency.EUR), "tester");
+        writeBehind.enqueueBalance(2, Money.ofMinor(200, Currency.EUR), "tester");
+
+        writeBehind.start();
+
+        // Two failed batches, then the rows are written one by one and the rejected one stays pending
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!writeBehind.isBlocked() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(writeBehind.isBlocked());
+        synchronized (writtenBatchSizes) {
+            assertEquals(List.of(1), writtenBatchSizes);
+        }
+        assertEquals(1.0, meterRegistry.get("bank.ledger.write-behind.rejected").gauge().value());
+
+        // Once the database accepts the row it is written and the engine may write again
+        rejectSecondAccount = false;
+        while (writeBehind.isBlocked() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(writeBehind.isBlocked());
+        synchronized (writtenBatchSizes) {
+            assertEquals(List.of(1, 1), writtenBatchSizes);
+        }
+        assertEquals(0, writeBehind.getBacklog());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answerBatchUpdate() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            Collection<Object> rows = invocation.getArgument(1);
+            if (rejectSecondAccount && rows.stream().anyMatch(row -> row.toString().contains("accountId=2,"))) {
+                throw new DataIntegrityViolationException("account does not exist");
+            }
+            synchronized (writtenBatchSizes) {
+                writtenBatchSizes.add(rows.size());
+            }
+            return new int[0][];
+        });
+    }
+}
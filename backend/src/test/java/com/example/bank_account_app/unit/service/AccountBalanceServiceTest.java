@@ -1,21 +1,34 @@
 package com.example.bank_account_app.unit.service;
 
+import com.example.bank_account_app.config.AccountLockConf;
+import com.example.bank_account_app.config.BalanceResponseCacheConf;
+import com.example.bank_account_app.dto.AccountBalanceDTO;
 import com.example.bank_account_app.dto.CreditBalanceDTO;
+import com.example.bank_account_app.dto.CurrencyBalance;
 import com.example.bank_account_app.dto.DebitBalanceDTO;
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.exceptions.BalanceNotFoundException;
 import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.repository.AccountBalanceRepository;
 import com.example.bank_account_app.service.AccountBalanceService;
+import com.example.bank_account_app.service.AccountLockManager;
+import com.example.bank_account_app.service.BalanceResponseCache;
 import com.example.bank_account_app.util.BalanceUtils;
 import com.example.bank_account_app.util.CurrencyUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -29,6 +42,21 @@ class AccountBalanceServiceTest {
     @Mock
     private AccountBalanceRepository accountBalanceRepository;
 
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private EventLedger eventLedger;
+
+    @Spy
+    private AccountLockManager accountLockManager = createLockManager();
+
+    @Spy
+    private BalanceResponseCache balanceResponseCache = createResponseCache();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private AccountBalanceService accountBalanceService;
 
@@ -52,7 +80,7 @@ class AccountBalanceServiceTest {
 
             assertNotNull(accountBalance);
             assertEquals(account, accountBalance.getAccount());
-            assertEquals(BigDecimal.valueOf(100.0), accountBalance.getBalance());
+            assertEquals(10000, accountBalance.getBalance());
             assertEquals(Currency.EUR, accountBalance.getCurrency());
             assertEquals(createdBy, accountBalance.getCreatedBy());
         }
@@ -74,7 +102,7 @@ class AccountBalanceServiceTest {
 
             assertNotNull(accountBalance);
             assertEquals(account, accountBalance.getAccount());
-            assertEquals(BigDecimal.valueOf(200.0), accountBalance.getBalance());
+            assertEquals(20000, accountBalance.getBalance());
             assertEquals(Currency.USD, accountBalance.getCurrency());
             assertEquals(createdBy, accountBalance.getCreatedBy());
         }
@@ -95,7 +123,7 @@ class AccountBalanceServiceTest {
         Account account = new Account();
         AccountBalance accountBalance = AccountBalance.builder()
             .account(account)
-            .balance(BigDecimal.valueOf(100))
+            .balance(10000)
             .currency(Currency.EUR)
             .createdAt(LocalDateTime.now())
             .createdBy("test user")
@@ -103,7 +131,7 @@ class AccountBalanceServiceTest {
 
         AccountBalance accountBalance2 = AccountBalance.builder()
             .account(account)
-            .balance(BigDecimal.valueOf(200))
+            .balance(20000)
             .currency(Currency.USD)
             .createdAt(LocalDateTime.now())
             .createdBy("test user")
@@ -127,51 +155,45 @@ class AccountBalanceServiceTest {
     @Test
     void shouldTestIsBalanceSufficient() {
         AccountBalance accountBalance = AccountBalance.builder()
-            .balance(BigDecimal.valueOf(100))
+            .balance(10000)
+            .currency(Currency.EUR)
             .build();
 
-        assertTrue(accountBalanceService.isBalanceSufficient(BigDecimal.valueOf(50), accountBalance));
-        assertFalse(accountBalanceService.isBalanceSufficient(BigDecimal.valueOf(150), accountBalance));
+        assertTrue(accountBalanceService.isBalanceSufficient(Money.ofMinor(5000, Currency.EUR), accountBalance));
+        assertFalse(accountBalanceService.isBalanceSufficient(Money.ofMinor(15000, Currency.EUR), accountBalance));
     }
 
     @Test
     void shouldTestIsBalanceSufficientWithZeroBalance() {
         AccountBalance accountBalance = AccountBalance.builder()
-            .balance(BigDecimal.ZERO)
+            .balance(0)
+            .currency(Currency.EUR)
             .build();
 
-        assertFalse(accountBalanceService.isBalanceSufficient(BigDecimal.valueOf(50), accountBalance));
+        assertFalse(accountBalanceService.isBalanceSufficient(Money.ofMinor(5000, Currency.EUR), accountBalance));
     }
 
     @Test
     void shouldTestIsBalanceSufficientWithNegativeBalance() {
         AccountBalance accountBalance = AccountBalance.builder()
-            .balance(BigDecimal.valueOf(-50))
+            .balance(-5000)
+            .currency(Currency.EUR)
             .build();
 
-        assertFalse(accountBalanceService.isBalanceSufficient(BigDecimal.valueOf(50), accountBalance));
+        assertFalse(accountBalanceService.isBalanceSufficient(Money.ofMinor(5000, Currency.EUR), accountBalance));
     }
 
     @Test
     void shouldTestDebitMoney() {
         Account account = new Account();
-        AccountBalance accountBalance = AccountBalance.builder()
-            .account(account)
-            .balance(BigDecimal.valueOf(100))
-            .currency(Currency.EUR)
-            .createdAt(LocalDateTime.now())
-            .createdBy("test user")
-            .build();
-
-        List<AccountBalance> accountBalances = List.of(accountBalance);
 
-        when(accountBalanceRepository.findAllByAccountId(account.getId())).thenReturn(accountBalances);
+        when(accountBalanceRepository.debitBalance(account.getId(), "EUR", 5000L, "test user")).thenReturn(1);
 
-        accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.EUR, 50), "test user");
+        accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(50)), "test user");
 
-        verify(accountBalanceRepository, times(1)).findAllByAccountId(account.getId());
-        verify(accountBalanceRepository, times(1)).saveAllAndFlush(accountBalances);
-        assertEquals(BigDecimal.valueOf(50.0), accountBalance.getBalance());
+        verify(accountBalanceRepository, times(1)).debitBalance(account.getId(), "EUR", 5000L, "test user");
+        verify(accountBalanceRepository, never()).findByAccountIdAndCurrency(anyLong(), any());
+        verify(accountBalanceRepository, never()).saveAllAndFlush(anyList());
     }
 
     @Test
@@ -179,45 +201,156 @@ class AccountBalanceServiceTest {
         Account account = new Account();
         AccountBalance accountBalance = AccountBalance.builder()
             .account(account)
-            .balance(BigDecimal.valueOf(100))
+            .balance(10000)
             .currency(Currency.EUR)
             .createdAt(LocalDateTime.now())
             .createdBy("test user")
             .build();
 
-        List<AccountBalance> accountBalances = List.of(accountBalance);
-
-        when(accountBalanceRepository.findAllByAccountId(account.getId())).thenReturn(accountBalances);
+        when(accountBalanceRepository.debitBalance(account.getId(), "EUR", 15000L, "test user")).thenReturn(0);
+        when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.EUR)).thenReturn(accountBalance);
 
         assertThrows(InsufficientBalanceException.class, () -> {
-            accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.EUR, 150), "test user");
+            accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(150)), "test user");
         });
 
-        verify(accountBalanceRepository, times(1)).findAllByAccountId(account.getId());
-        verify(accountBalanceRepository, times(0)).saveAllAndFlush(accountBalances);
-        assertEquals(BigDecimal.valueOf(100), accountBalance.getBalance());
+        verify(accountBalanceRepository, times(1)).debitBalance(account.getId(), "EUR", 15000L, "test user");
+        assertEquals(10000, accountBalance.getBalance());
+        assertEquals(1, meterRegistry.get("bank.balance.operation")
+                .tags("operation", "debit", "currency", "EUR", "outcome", "insufficient").timer().count());
+        assertEquals(0, meterRegistry.get("bank.balance.amount")
+                .tags("operation", "debit", "currency", "EUR").summary().count());
+    }
+
+    @Test
+    void shouldTestDebitMoneyWithMissingBalance() {
+        Account account = new Account();
+
+        when(accountBalanceRepository.debitBalance(account.getId(), "USD", 5000L, "test user")).thenReturn(0);
+        when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.USD)).thenReturn(null);
+
+        assertThrows(BalanceNotFoundException.class, () -> {
+            accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.USD, BigDecimal.valueOf(50)), "test user");
+        });
     }
 
 
     @Test
     void shouldTestCreditMoney() {
         Account account = new Account();
-        AccountBalance accountBalance = AccountBalance.builder()
-            .account(account)
-            .balance(BigDecimal.valueOf(100))
-            .currency(Currency.EUR)
-            .createdAt(LocalDateTime.now())
-            .createdBy("test user")
-            .build();
 
-        List<AccountBalance> accountBalances = List.of(accountBalance);
+        when(accountBalanceRepository.creditBalance(anyLong(), eq(account.getId()), eq("EUR"), eq(5000L), eq("test user")))
+                .thenReturn(1);
 
-        when(accountBalanceRepository.findAllByAccountId(account.getId())).thenReturn(accountBalances);
+        accountBalanceService.creditMoney(account, new CreditBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(50)), "test user");
+
+        verify(accountBalanceRepository, times(1))
+                .creditBalance(anyLong(), eq(account.getId()), eq("EUR"), eq(5000L), eq("test user"));
+        verify(accountBalanceRepository, never()).findAllByAccountId(anyLong());
+        verify(accountBalanceRepository, never()).saveAllAndFlush(anyList());
+        assertEquals(1, meterRegistry.get("bank.balance.operation")
+                .tags("operation", "credit", "currency", "EUR", "outcome", "success").timer().count());
+        assertEquals(50.0, meterRegistry.get("bank.balance.amount")
+                .tags("operation", "credit", "currency", "EUR").summary().totalAmount());
+    }
 
-        accountBalanceService.creditMoney(account, new CreditBalanceDTO("Mari Maasikas",Currency.EUR, 50), "test user");
+    @Test
+    void shouldDelegateToLedgerEngineWhenEnabled() {
+        Account account = new Account();
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+
+        accountBalanceService.creditMoney(account, new CreditBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(50)), "test user");
+        accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(20)), "test user");
+        accountBalanceService.getAccountBalances(account);
+
+        verify(ledgerEngine).credit(account, Money.ofMinor(5000, Currency.EUR), "test user");
+        verify(ledgerEngine).debit(account, Money.ofMinor(2000, Currency.EUR), "test user");
+        verify(ledgerEngine).getBalances(account);
+        verifyNoInteractions(accountBalanceRepository);
+    }
+
+    @Test
+    void shouldDelegateToEventLedgerWhenEnabled() {
+        Account account = new Account();
+        when(eventLedger.isEnabled()).thenReturn(true);
+        List<AccountBalance> openingBalances = List.of(new AccountBalance());
+
+        accountBalanceService.creditMoney(account, new CreditBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(50)), "test user");
+        accountBalanceService.debitMoney(account, new DebitBalanceDTO("Mari Maasikas",Currency.EUR, BigDecimal.valueOf(20)), "test user");
+        accountBalanceService.getAccountBalances(account);
+        accountBalanceService.saveAllAccountBalances(openingBalances);
+
+        assertTrue(accountBalanceService.recordsTransactions());
+        verify(eventLedger).credit(account, Money.ofMinor(5000, Currency.EUR), "test user");
+        verify(eventLedger).debit(account, Money.ofMinor(2000, Currency.EUR), "test user");
+        verify(eventLedger).getBalances(account);
+        verify(eventLedger).openBalances(openingBalances);
+        verifyNoInteractions(accountBalanceRepository);
+    }
+
+    @Test
+    void shouldMapBalancesOfAllSupportedCurrencies() {
+        Account account = Account.builder().accountNumber("EE123456789012345678").build();
+        List<AccountBalance> balances = List.of(
+                AccountBalance.builder().currency(Currency.SEK).balance(1250).build(),
+                AccountBalance.builder().currency(Currency.EUR).balance(10000).build());
+
+        AccountBalanceDTO dto = accountBalanceService.mapAccountBalancesToDTO(balances, account);
+
+        assertEquals("EE123456789012345678", dto.getAccountNumber());
+        assertEquals(CurrencyUtils.getSupportedCurrencies().size(), dto.getCurrencyBalances().size());
+        assertEquals(new CurrencyBalance("EUR", "100.00"), dto.getCurrencyBalances().get(0));
+        assertEquals(new CurrencyBalance("USD", "0"), dto.getCurrencyBalances().get(1));
+        assertEquals(new CurrencyBalance("SEK", "12.50"), dto.getCurrencyBalances().get(2));
+    }
+
+    @Test
+    void shouldReuseSerializedBalancesWhileVersionIsUnchanged() throws Exception {
+        Account account = Account.builder().id(5).accountNumber("EE123456789012345678").build();
+        when(accountBalanceRepository.findBalancesVersion(5)).thenReturn(3L);
+        when(accountBalanceRepository.findAllByAccountId(5)).thenReturn(List.of(
+                AccountBalance.builder().currency(Currency.EUR).balance(10000).build()));
+
+        byte[] first = accountBalanceService.getAccountBalancesJson(account);
+        byte[] second = accountBalanceService.getAccountBalancesJson(account);
+
+        assertSame(first, second);
+        verify(accountBalanceRepository, times(1)).findAllByAccountId(5);
+        AccountBalanceDTO dto = new ObjectMapper().readValue(first, AccountBalanceDTO.class);
+        assertEquals("100.00", dto.getCurrencyBalances().get(0).getBalance());
+
+        // A changed balance has a new version
+        when(accountBalanceRepository.findBalancesVersion(5)).thenReturn(4L);
+        when(accountBalanceRepository.findAllByAccountId(5)).thenReturn(List.of(
+                AccountBalance.builder().currency(Currency.EUR).balance(9000).build()));
+
+        dto = new ObjectMapper().readValue(accountBalanceService.getAccountBalancesJson(account), AccountBalanceDTO.class);
+        assertEquals("90.00", dto.getCurrencyBalances().get(0).getBalance());
+        verify(accountBalanceRepository, times(2)).findAllByAccountId(5);
+    }
+
+    @Test
+    void shouldNotCacheSerializedBalancesOfInMemoryLedgers() {
+        Account account = Account.builder().id(5).accountNumber("EE123456789012345678").build();
+        when(eventLedger.isEnabled()).thenReturn(true);
+        when(eventLedger.getBalances(account)).thenReturn(List.of());
+
+        accountBalanceService.getAccountBalancesJson(account);
+        accountBalanceService.getAccountBalancesJson(account);
+
+        verify(eventLedger, times(2)).getBalances(account);
+        verifyNoInteractions(accountBalanceRepository);
+    }
+
+    private static AccountLockManager createLockManager() {
+        AccountLockConf config = new AccountLockConf();
+        config.setStripes(4);
+        return new AccountLockManager(config, new SimpleMeterRegistry());
+    }
 
-        verify(accountBalanceRepository, times(1)).findAllByAccountId(account.getId());
-        verify(accountBalanceRepository, times(1)).saveAllAndFlush(accountBalances);
-        assertEquals(BigDecimal.valueOf(150.0), accountBalance.getBalance());
+    private static BalanceResponseCache createResponseCache() {
+        BalanceResponseCacheConf config = new BalanceResponseCacheConf();
+        config.setMaxSize(100);
+        return new BalanceResponseCache(config, new ObjectMapper(), new SimpleMeterRegistry());
     }
 }
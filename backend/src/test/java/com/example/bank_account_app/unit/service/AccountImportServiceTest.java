@@ -0,0 +1,191 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.AccountImportConf;
+import com.example.bank_account_app.dto.AccountImportError;
+import com.example.bank_account_app.dto.AccountImportResultDTO;
+import com.example.bank_account_app.enums.AccountImportFormat;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBatchRepository;
+import com.example.bank_account_app.service.AccountImportService;
+import com.example.bank_account_app.service.AccountNumberGenerator;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AccountImportServiceTest {
+
+    @Mock
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @Mock
+    private AccountBatchRepository accountBatchRepository;
+
+    @Mock
+    private EventLedger eventLedger;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private AccountImportConf accountImportConf = createConfig();
+
+    @InjectMocks
+    private AccountImportService accountImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AtomicLong keys = new AtomicLong();
+        when(accountNumberGenerator.generateAccountNumber())
+                .thenAnswer(invocation -> AccountNumberCodec.decode(keys.incrementAndGet()));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldImportCsvInCommitsAndReportRejectedLines() throws IOException {
+        String csv = """
+                account_holder,currency,balance
+                Mari Maasikas,EUR,100.50
+                Jaan Tamm
+                Mari123,EUR,1
+                Juhan Liiv,XYZ,1
+                Juhan Liiv,EUR,-1
+                Juhan Liiv,EUR,1.005
+                Juhan Liiv,EUR
+                Kati Karu,krw,1000
+                """;
+
+        AccountImportResultDTO result = accountImportService.importAccounts(stream(csv), AccountImportFormat.CSV);
+
+        assertEquals(3, result.getImported());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), result.getErrors().stream().map(AccountImportError::getLine).toList());
+        assertEquals("Invalid account holder name", result.getErrors().get(0).getError());
+        assertEquals("Unsupported currency: XYZ", result.getErrors().get(1).getError());
+        assertEquals("Opening balance cannot be negative", result.getErrors().get(2).getError());
+
+        // Commit size 2 saves the first two accounts together and the last one on its own
+        ArgumentCaptor<List<Account>> accounts = ArgumentCaptor.forClass(List.class);
+        verify(accountBatchRepository, times(2)).insertAccounts(accounts.capture(), eq(10));
+        assertEquals(2, accounts.getAllValues().get(0).size());
+        Account account = accounts.getAllValues().get(0).get(0);
+        assertEquals("Mari Maasikas", account.getAccountHolder());
+        assertEquals(AccountNumberCodec.encode(account.getAccountNumber()), account.getAccountKey());
+        assertEquals(AccountImportService.IMPORTED_BY, account.getCreatedBy());
+
+        ArgumentCaptor<List<AccountBalance>> balances = ArgumentCaptor.forClass(List.class);
+        verify(accountBatchRepository, times(2)).insertAccountBalances(balances.capture(), eq(10));
+        AccountBalance balance = balances.getAllValues().get(0).get(0);
+        assertSame(account, balance.getAccount());
+        assertEquals(10050, balance.getBalance());
+        assertEquals(Currency.KRW, balances.getAllValues().get(1).get(0).getCurrency());
+        assertEquals(1000, balances.getAllValues().get(1).get(0).getBalance());
+    }
+
+    @Test
+    void shouldImportNdjson() throws IOException {
+        String ndjson = """
+                {"accountHolder":"Mari Maasikas","currency":"USD","balance":25}
+                {"accountHolder":"Jaan Tamm"}
+                not json
+                """;
+
+        AccountImportResultDTO result = accountImportService.importAccounts(stream(ndjson), AccountImportFormat.NDJSON);
+
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(new AccountImportError(3, "Invalid JSON")), result.getErrors());
+        verify(accountBatchRepository).insertAccounts(argThat(accounts -> accounts.size() == 2), eq(10));
+    }
+
+    @Test
+    void shouldRejectLinesOfCommitThatCannotBeSaved() throws IOException {
+        doThrow(new DataIntegrityViolationException("duplicate")).doNothing()
+                .when(accountBatchRepository).insertAccounts(anyList(), anyInt());
+
+        AccountImportResultDTO result = accountImportService.importAccounts(
+                stream("Mari Maasikas\nJaan Tamm\nKati Karu\n"), AccountImportFormat.CSV);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(new AccountImportError(1, "Could not be saved"), new AccountImportError(2, "Could not be saved")),
+                result.getErrors());
+    }
+
+    @Test
+    void shouldOpenBalancesWithEventLedger() throws IOException {
+        when(eventLedger.isEnabled()).thenReturn(true);
+
+        accountImportService.importAccounts(stream("Mari Maasikas,SEK,10\n"), AccountImportFormat.CSV);
+
+        verify(eventLedger).openBalances(argThat(balances -> balances.size() == 1));
+        verify(accountBatchRepository, never()).insertAccountBalances(anyList(), anyInt());
+    }
+
+    @Test
+    void shouldOpenBalancesWithLedgerEngine() throws IOException {
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+
+        accountImportService.importAccounts(stream("Mari Maasikas,SEK,10\n"), AccountImportFormat.CSV);
+
+        verify(ledgerEngine).openBalances(argThat(balances -> balances.size() == 1));
+        verify(accountBatchRepository, never()).insertAccountBalances(anyList(), anyInt());
+    }
+
+    @Test
+    void shouldCountAllErrorsButReportOnlyTheFirst() throws IOException {
+        accountImportConf.setMaxReportedErrors(1);
+
+        AccountImportResultDTO result = accountImportService.importAccounts(stream("1\n2\n3\n"), AccountImportFormat.CSV);
+
+        assertEquals(3, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+        verifyNoInteractions(accountBatchRepository);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static AccountImportConf createConfig() {
+        AccountImportConf config = new AccountImportConf();
+        config.setCommitSize(2);
+        config.setJdbcBatchSize(10);
+        config.setMaxReportedErrors(100);
+        return config;
+    }
+}
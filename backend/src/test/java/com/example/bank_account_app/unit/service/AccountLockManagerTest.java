@@ -0,0 +1,98 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.AccountLockConf;
+import com.example.bank_account_app.service.AccountLockManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountLockManager accountLockManager;
+
+    @BeforeEach
+    void setUp() {
+        AccountLockConf config = new AccountLockConf();
+        config.setStripes(8);
+        meterRegistry = new SimpleMeterRegistry();
+        accountLockManager = new AccountLockManager(config, meterRegistry);
+    }
+
+    @Test
+    void shouldMapAccountToStableStripe() {
+        for (int accountId = -100; accountId < 100; accountId++) {
+            int stripe = accountLockManager.stripeIndex(accountId);
+            assertTrue(stripe >= 0 && stripe < 8);
+            assertEquals(stripe, accountLockManager.stripeIndex(accountId));
+        }
+    }
+
+    @Test
+    void shouldReturnActionResult() {
+        String result = accountLockManager.withLock(1, () -> "done");
+        assertEquals("done", result);
+    }
+
+    @Test
+    void shouldSerializeMutationsOfSameAccount() throws InterruptedException {
+        int threads = 8;
+        int iterations = 1000;
+        int[] counter = new int[1]; // deliberately not thread-safe
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    accountLockManager.withLock(42, () -> counter[0]++);
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(threads * iterations, counter[0]);
+    }
+
+    @Test
+    void shouldNotBlockAccountsOnDifferentStripes() throws InterruptedException {
+        int first = 1;
+        int second = 2;
+        while (accountLockManager.stripeIndex(second) == accountLockManager.stripeIndex(first)) {
+            second++;
+        }
+        int otherAccount = second;
+        AtomicInteger otherAccountRuns = new AtomicInteger();
+
+        accountLockManager.withLock(first, () -> {
+            Thread thread = new Thread(() -> accountLockManager.withLock(otherAccount, otherAccountRuns::incrementAndGet));
+            thread.start();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertEquals(1, otherAccountRuns.get());
+    }
+
+    @Test
+    void shouldExposeMetrics() {
+        accountLockManager.withLock(7, () -> { });
+
+        assertEquals(8, meterRegistry.get("bank.account.lock.stripes").gauge().value());
+        assertEquals(1, meterRegistry.get("bank.account.lock.wait").timer().count());
+        assertEquals(8, accountLockManager.getStripeCount());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.AccountNumberConf;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository;
+import com.example.bank_account_app.repository.AccountNumberBlockRepository.ReservedBlock;
+import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.service.AccountNumberGenerator;
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountNumberPermutation;
+import com.example.bank_account_app.util.AccountUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class AccountNumberGeneratorTest {
+    private static final long PERMUTATION_KEY = 42;
+
+    @Mock
+    private AccountNumberBlockRepository accountNumberBlockRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Hands out consecutive blocks like the high-water mark row
+        AtomicLong highWaterMark = new AtomicLong();
+        when(accountNumberBlockRepository.reserve(anyInt())).thenAnswer(invocation -> {
+            int size = invocation.getArgument(0);
+            long first = highWaterMark.getAndAdd(size);
+            return new ReservedBlock(first, first + size, PERMUTATION_KEY);
+        });
+        when(accountRepository.findExistingAccountKeys(anyCollection())).thenReturn(List.of());
+
+        AccountNumberConf config = new AccountNumberConf();
+        config.setBlockSize(10);
+        accountNumberGenerator = new AccountNumberGenerator(accountNumberBlockRepository, accountRepository, config);
+    }
+
+    @Test
+    void shouldReserveBlockOnlyWhenCurrentIsUsedUp() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(AccountUtils.isValidAccountNumber(accountNumberGenerator.generateAccountNumber()));
+        }
+        verify(accountNumberBlockRepository, times(1)).reserve(10);
+
+        accountNumberGenerator.generateAccountNumber();
+        verify(accountNumberBlockRepository, times(2)).reserve(10);
+    }
+
+    @Test
+    void shouldHandOutPermutedCounterValues() {
+        AccountNumberPermutation permutation = new AccountNumberPermutation(PERMUTATION_KEY);
+
+        assertEquals(AccountNumberCodec.decode(permutation.permute(0)), accountNumberGenerator.generateAccountNumber());
+        assertEquals(AccountNumberCodec.decode(permutation.permute(1)), accountNumberGenerator.generateAccountNumber());
+    }
+
+    @Test
+    void shouldSkipAccountNumbersThatAreAlreadyUsed() {
+        AccountNumberPermutation permutation = new AccountNumberPermutation(PERMUTATION_KEY);
+        when(accountRepository.findExistingAccountKeys(anyCollection()))
+                .thenReturn(List.of(permutation.permute(0), permutation.permute(2)));
+
+        assertEquals(AccountNumberCodec.decode(permutation.permute(1)), accountNumberGenerator.generateAccountNumber());
+        assertEquals(AccountNumberCodec.decode(permutation.permute(3)), accountNumberGenerator.generateAccountNumber());
+    }
+
+    @Test
+    void shouldGenerateUniqueNumbersConcurrently() throws InterruptedException {
+        int threads = 8;
+        int iterations = 500;
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    accountNumbers.add(accountNumberGenerator.generateAccountNumber());
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(threads * iterations, accountNumbers.size());
+        verify(accountNumberBlockRepository, times(threads * iterations / 10)).reserve(10);
+    }
+}
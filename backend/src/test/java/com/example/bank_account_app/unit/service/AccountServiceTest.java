@@ -1,16 +1,23 @@
 package com.example.bank_account_app.unit.service;
 
+import com.example.bank_account_app.config.AccountCacheConf;
 import com.example.bank_account_app.dto.AccountDTO;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.repository.AccountRepository;
+import com.example.bank_account_app.service.AccountCache;
 import com.example.bank_account_app.service.AccountService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +27,11 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    @Spy
+    private AccountCache accountCache = createAccountCache();
+
     @InjectMocks
     private AccountService accountService;
 
@@ -86,5 +98,105 @@ class AccountServiceTest {
         assertNotNull(accountDTOs, "Account DTOs should not be null");
         assertEquals(accounts.size(), accountDTOs.size(), "Account DTOs size should match");
     }
-}
 
+    @Test
+    void shouldFetchPageAfterCursor() {
+        List<Account> page = List.of(Account.builder().id(11).accountNumber("EE000000000000000001").accountKey(1).build());
+        when(accountRepository.findAllByIdGreaterThanOrderById(10, Limit.of(2))).thenReturn(page);
+
+        assertEquals(page, accountService.getAccountsPage(10, 2));
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        Account account = Account.builder().id(1).accountNumber("EE000000000000000001").accountKey(1).build();
+        when(accountRepository.findByAccountKey(1)).thenReturn(account);
+
+        assertSame(account, accountService.getAccountByAccountNumber("EE000000000000000001"));
+        assertSame(account, accountService.getAccountByAccountNumber("EE000000000000000001"));
+
+        verify(accountRepository, times(1)).findByAccountKey(1);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "accounts").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldNotCacheUnknownAccount() {
+        Account account = Account.builder().id(1).accountNumber("EE000000000000000001").accountKey(1).build();
+        when(accountRepository.findByAccountKey(1)).thenReturn(null, account);
+
+        assertNull(accountService.getAccountByAccountNumber("EE000000000000000001"));
+        assertSame(account, accountService.getAccountByAccountNumber("EE000000000000000001"));
+    }
+
+    @Test
+    void shouldPopulateCacheOnSave() {
+        Account account = Account.builder().id(1).accountNumber("EE000000000000000001").accountKey(1).build();
+        when(accountRepository.save(account)).thenReturn(account);
+        when(accountRepository.saveAllAndFlush(List.of(account))).thenReturn(List.of(account));
+
+        accountService.saveAccount(account);
+        accountService.saveAllAccounts(List.of(account));
+
+        assertSame(account, accountService.getAccountByAccountNumber("EE000000000000000001"));
+        verify(accountRepository, never()).findByAccountKey(anyLong());
+    }
+
+    @Test
+    void shouldLoadOnlyUncachedAccountsInBatch() {
+        Account cached = Account.builder().id(1).accountNumber("EE000000000000000001").accountKey(1).build();
+        Account uncached = Account.builder().id(2).accountNumber("EE000000000000000002").accountKey(2).build();
+        when(accountRepository.save(cached)).thenReturn(cached);
+        when(accountRepository.findAllByAccountKeyIn(anyCollection())).thenReturn(List.of(uncached));
+        accountService.saveAccount(cached);
+
+        Map<String, Account> accounts = accountService.getAccountsByAccountNumbers(
+                List.of("EE000000000000000001", "EE000000000000000002", "EE000000000000000003", "EE3"));
+
+        assertEquals(Map.of("EE000000000000000001", cached, "EE000000000000000002", uncached), accounts);
+        verify(accountRepository).findAllByAccountKeyIn(argThat(keys ->
+                keys.size() == 2 && keys.containsAll(List.of(2L, 3L))));
+    }
+
+    @Test
+    void shouldNotQueryInvalidAccountNumber() {
+        assertNull(accountService.getAccountByAccountNumber("EE123"));
+
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void shouldReadAccountAgainAfterEviction() {
+        Account account = Account.builder().id(1).accountNumber("EE000000000000000001").accountKey(1).build();
+        when(accountRepository.findByAccountKey(1)).thenReturn(account);
+        accountService.getAccountByAccountNumber("EE000000000000000001");
+
+        accountCache.evict(1);
+        accountService.getAccountByAccountNumber("EE000000000000000001");
+
+        verify(accountRepository, times(2)).findByAccountKey(1);
+    }
+
+    @Test
+    void shouldReadEveryLookupWhenCacheIsDisabled() {
+        AccountCacheConf config = new AccountCacheConf();
+        config.setMaxSize(0);
+        config.setTtl(Duration.ofMinutes(1));
+        AccountCache disabledCache = new AccountCache(config, new SimpleMeterRegistry());
+        Account account = Account.builder().id(1).accountNumber("EE000000000000000001").accountKey(1).build();
+
+        disabledCache.put(account);
+        assertSame(account, disabledCache.get(1, key -> account));
+        assertNull(disabledCache.get(1, key -> null));
+        assertEquals(Map.of(1L, account), disabledCache.getAll(List.of(1L), keys -> Map.of(1L, account)));
+        assertEquals(0, disabledCache.size());
+    }
+
+    private AccountCache createAccountCache() {
+        AccountCacheConf config = new AccountCacheConf();
+        config.setMaxSize(100);
+        config.setTtl(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        return new AccountCache(config, meterRegistry);
+    }
+}
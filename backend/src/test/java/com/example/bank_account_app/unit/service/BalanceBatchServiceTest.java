@@ -0,0 +1,254 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.AccountLockConf;
+import com.example.bank_account_app.config.BalanceBatchConf;
+import com.example.bank_account_app.dto.BalanceBatchItemDTO;
+import com.example.bank_account_app.dto.BalanceBatchResultDTO;
+import com.example.bank_account_app.dto.Money;
+import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.enums.BatchItemStatus;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
+import com.example.bank_account_app.model.Account;
+import com.example.bank_account_app.model.AccountBalance;
+import com.example.bank_account_app.repository.AccountBalanceRepository;
+import com.example.bank_account_app.repository.BalanceBatchRepository;
+import com.example.bank_account_app.repository.BalanceBatchRepository.BalanceChange;
+import com.example.bank_account_app.service.AccountLockManager;
+import com.example.bank_account_app.service.AccountService;
+import com.example.bank_account_app.service.BalanceBatchService;
+import com.example.bank_account_app.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BalanceBatchServiceTest {
+
+    private static final String ACCOUNT_NUMBER = "EE123456789012345678";
+    private static final String UNKNOWN_ACCOUNT_NUMBER = "EE000000000000000000";
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Mock
+    private BalanceBatchRepository balanceBatchRepository;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private EventLedger eventLedger;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private AccountLockManager accountLockManager = createLockManager();
+
+    @Spy
+    private BalanceBatchConf balanceBatchConf = createConfig();
+
+    @InjectMocks
+    private BalanceBatchService balanceBatchService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        account = new Account();
+        account.setId(1);
+        account.setAccountNumber(ACCOUNT_NUMBER);
+        account.setAccountHolder("Mari Maasikas");
+        when(accountService.getAccountsByAccountNumbers(any())).thenReturn(Map.of(ACCOUNT_NUMBER, account));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void shouldApplyItemsWithJdbcBatchesAndReportStatuses() {
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("100")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.USD, new BigDecimal("500")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.SEK, new BigDecimal("5")),
+                new BalanceBatchItemDTO(TransactionType.CREDIT, UNKNOWN_ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("1")));
+        when(balanceBatchRepository.applyBalanceChanges(anyList(), eq(500))).thenReturn(new int[]{1, 0, 0});
+        when(accountBalanceRepository.findAllByAccountIdIn(Set.of(1L))).thenReturn(List.of(balance(Currency.USD)));
+
+        BalanceBatchResultDTO result = balanceBatchService.processBatch(items);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        assertEquals(BatchItemStatus.SUCCESS, result.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.INSUFFICIENT_BALANCE, result.getResults().get(1).getStatus());
+        assertEquals(BatchItemStatus.BALANCE_NOT_FOUND, result.getResults().get(2).getStatus());
+        assertEquals(BatchItemStatus.ACCOUNT_NOT_FOUND, result.getResults().get(3).getStatus());
+
+        ArgumentCaptor<List<BalanceChange>> changes = ArgumentCaptor.captor();
+        verify(balanceBatchRepository).applyBalanceChanges(changes.capture(), eq(500));
+        assertEquals(3, changes.getValue().size());
+        assertEquals(Money.ofMinor(10000, Currency.EUR), changes.getValue().get(0).delta());
+        assertEquals(Money.ofMinor(-50000, Currency.USD), changes.getValue().get(1).delta());
+
+        ArgumentCaptor<List<TransactionCommand>> transactions = ArgumentCaptor.captor();
+        verify(balanceBatchRepository).insertTransactions(transactions.capture(), eq(500));
+        assertEquals(1, transactions.getValue().size());
+        assertEquals(TransactionType.CREDIT, transactions.getValue().get(0).getType());
+        assertEquals("Mari Maasikas", transactions.getValue().get(0).getCreatedBy());
+        verify(accountLockManager).withLocks(eq(Set.of(1L)), any());
+    }
+
+    @Test
+    void shouldClassifyFailedDebitByBalancesBeforeBatch() {
+        // The debit runs before the credit creates the SEK balance, the second debit after it
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.SEK, new BigDecimal("5")),
+                new BalanceBatchItemDTO(TransactionType.CREDIT, ACCOUNT_NUMBER, Currency.SEK, new BigDecimal("1")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.SEK, new BigDecimal("5")));
+        when(balanceBatchRepository.applyBalanceChanges(anyList(), eq(500))).thenReturn(new int[]{0, 1, 0});
+        when(accountBalanceRepository.findAllByAccountIdIn(Set.of(1L))).thenReturn(List.of());
+
+        BalanceBatchResultDTO result = balanceBatchService.processBatch(items);
+
+        assertEquals(BatchItemStatus.BALANCE_NOT_FOUND, result.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.SUCCESS, result.getResults().get(1).getStatus());
+        assertEquals(BatchItemStatus.INSUFFICIENT_BALANCE, result.getResults().get(2).getStatus());
+        verify(accountBalanceRepository, never()).findByAccountIdAndCurrency(anyLong(), any());
+    }
+
+    @Test
+    void shouldSkipDatabaseWhenNoAccountExists() {
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, UNKNOWN_ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("1")));
+
+        BalanceBatchResultDTO result = balanceBatchService.processBatch(items);
+
+        assertEquals(0, result.getSucceeded());
+        assertEquals(BatchItemStatus.ACCOUNT_NOT_FOUND, result.getResults().get(0).getStatus());
+        verifyNoInteractions(balanceBatchRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldApplyItemsWithLedgerEngineWhenEnabled() {
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("100")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.USD, new BigDecimal("500")));
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        doThrow(new InsufficientBalanceException("Insufficient balance"))
+                .when(ledgerEngine).debit(account, Money.ofMinor(50000, Currency.USD), "Mari Maasikas");
+
+        BalanceBatchResultDTO result = balanceBatchService.processBatch(items);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(BatchItemStatus.INSUFFICIENT_BALANCE, result.getResults().get(1).getStatus());
+        verify(ledgerEngine).credit(account, Money.ofMinor(10000, Currency.EUR), "Mari Maasikas");
+        ArgumentCaptor<List<TransactionCommand>> transactions = ArgumentCaptor.captor();
+        verify(transactionService).createNewTransactions(transactions.capture());
+        assertEquals(1, transactions.getValue().size());
+        assertEquals(TransactionType.CREDIT, transactions.getValue().get(0).getType());
+        verifyNoInteractions(balanceBatchRepository);
+    }
+
+    @Test
+    void shouldReportWithdrawnItemsAsLedgerBusy() {
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("100")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.USD, new BigDecimal("500")));
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        doThrow(new LedgerBusyException("Ledger operation timed out"))
+                .when(ledgerEngine).debit(account, Money.ofMinor(50000, Currency.USD), "Mari Maasikas");
+
+        BalanceBatchResultDTO result = balanceBatchService.processBatch(items);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(BatchItemStatus.LEDGER_BUSY, result.getResults().get(1).getStatus());
+    }
+
+    @Test
+    void shouldKeepTransactionsOfAppliedItemsWhenOutcomeIsUnknown() {
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("100")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.USD, new BigDecimal("500")));
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        doThrow(new OutcomeUnknownException("Ledger operation is still being applied"))
+                .when(ledgerEngine).debit(account, Money.ofMinor(50000, Currency.USD), "Mari Maasikas");
+
+        assertThrows(OutcomeUnknownException.class, () -> balanceBatchService.processBatch(items));
+
+        ArgumentCaptor<List<TransactionCommand>> transactions = ArgumentCaptor.captor();
+        verify(transactionService).createNewTransactions(transactions.capture());
+        assertEquals(1, transactions.getValue().size());
+        assertEquals(TransactionType.CREDIT, transactions.getValue().get(0).getType());
+    }
+
+    @Test
+    void shouldAppendItemsWithEventLedgerWhenEnabled() {
+        List<BalanceBatchItemDTO> items = List.of(
+                new BalanceBatchItemDTO(TransactionType.CREDIT, ACCOUNT_NUMBER, Currency.EUR, new BigDecimal("100")),
+                new BalanceBatchItemDTO(TransactionType.CREDIT, "EE000000000000000000", Currency.EUR, new BigDecimal("1")),
+                new BalanceBatchItemDTO(TransactionType.DEBIT, ACCOUNT_NUMBER, Currency.USD, new BigDecimal("500")));
+        when(eventLedger.isEnabled()).thenReturn(true);
+        when(eventLedger.applyAll(anyList()))
+                .thenReturn(new BatchItemStatus[]{BatchItemStatus.SUCCESS, BatchItemStatus.INSUFFICIENT_BALANCE});
+
+        BalanceBatchResultDTO result = balanceBatchService.processBatch(items);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(BatchItemStatus.SUCCESS, result.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.ACCOUNT_NOT_FOUND, result.getResults().get(1).getStatus());
+        assertEquals(BatchItemStatus.INSUFFICIENT_BALANCE, result.getResults().get(2).getStatus());
+        ArgumentCaptor<List<TransactionCommand>> commands = ArgumentCaptor.captor();
+        verify(eventLedger).applyAll(commands.capture());
+        assertEquals(2, commands.getValue().size());
+        // The appended items are the transactions, nothing else is written
+        verifyNoInteractions(transactionService, balanceBatchRepository);
+    }
+
+    private static AccountLockManager createLockManager() {
+        AccountLockConf config = new AccountLockConf();
+        config.setStripes(4);
+        return new AccountLockManager(config, new SimpleMeterRegistry());
+    }
+
+    private static BalanceBatchConf createConfig() {
+        BalanceBatchConf config = new BalanceBatchConf();
+        config.setMaxItems(100);
+        config.setJdbcBatchSize(500);
+        return config;
+    }
+
+    private AccountBalance balance(Currency currency) {
+        return AccountBalance.builder()
+                .account(account)
+                .currency(currency)
+                .build();
+    }
+}
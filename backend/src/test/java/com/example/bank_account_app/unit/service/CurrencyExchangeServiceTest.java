@@ -1,30 +1,45 @@
 package com.example.bank_account_app.unit.service;
 
+import com.example.bank_account_app.config.AccountLockConf;
+import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.example.bank_account_app.dto.ExchangeCurrencyDTO;
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.enums.Currency;
 import com.example.bank_account_app.exceptions.BalanceNotFoundException;
 import com.example.bank_account_app.exceptions.InsufficientBalanceException;
+import com.example.bank_account_app.ledger.EventLedger;
+import com.example.bank_account_app.ledger.LedgerEngine;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.AccountBalance;
 import com.example.bank_account_app.repository.AccountBalanceRepository;
 import com.example.bank_account_app.service.AccountBalanceService;
+import com.example.bank_account_app.service.AccountLockManager;
 import com.example.bank_account_app.service.CurrencyExchangeService;
+import com.example.bank_account_app.service.ExchangeExecutor;
 import com.example.bank_account_app.service.ExternalAPIService;
 import com.example.bank_account_app.util.ExchangeRateUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +54,21 @@ class CurrencyExchangeServiceTest {
     @Mock
     private AccountBalanceService accountBalanceService;
 
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private EventLedger eventLedger;
+
+    @Mock
+    private ExchangeExecutor exchangeExecutor;
+
+    @Spy
+    private AccountLockManager accountLockManager = createLockManager();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private CurrencyExchangeService currencyExchangeService;
 
@@ -49,7 +79,7 @@ class CurrencyExchangeServiceTest {
     @BeforeEach
     void setUp() throws Exception {
         getExternalExchangeRateMethod = CurrencyExchangeService.class
-                .getDeclaredMethod("getExternalExchangeRate", Currency.class, Currency.class);
+                .getDeclaredMethod("getExternalExchangeRate", ExchangeRateMatrix.class, Currency.class, Currency.class);
         getExternalExchangeRateMethod.setAccessible(true);
 
         getFixedExchangeRateMethod = CurrencyExchangeService.class
@@ -57,7 +87,7 @@ class CurrencyExchangeServiceTest {
         getFixedExchangeRateMethod.setAccessible(true);
 
         updateBalancesMethod = CurrencyExchangeService.class
-                .getDeclaredMethod("updateBalances", Account.class, AccountBalance.class, Currency.class, BigDecimal.class, String.class);
+                .getDeclaredMethod("updateBalances", Account.class, AccountBalance.class, Money.class, Money.class, String.class);
         updateBalancesMethod.setAccessible(true);
     }
 
@@ -65,23 +95,87 @@ class CurrencyExchangeServiceTest {
     @Test
     void testGetExternalExchangeRate_Success() throws Exception {
         Map<String, Double> rates = new HashMap<>();
+        rates.put("USD", 1.0);
         rates.put("EUR", 0.85);
-        when(externalAPIService.getCurrencyExchangeRates("USD")).thenReturn(rates);
-        double result = (double) getExternalExchangeRateMethod.invoke(currencyExchangeService, Currency.USD, Currency.EUR);
+        ExchangeRateMatrix matrix = ExchangeRateMatrix.triangulate(rates, Instant.now());
+        double result = (double) getExternalExchangeRateMethod.invoke(currencyExchangeService, matrix, Currency.USD, Currency.EUR);
         assertEquals(0.85, result, 0.0001);
     }
 
     @Test
     void testGetExternalExchangeRate_RateNotFound() {
         Map<String, Double> rates = new HashMap<>();
+        rates.put("USD", 1.0);
         rates.put("EUR", 0.0);
-        when(externalAPIService.getCurrencyExchangeRates("USD")).thenReturn(rates);
+        ExchangeRateMatrix matrix = ExchangeRateMatrix.triangulate(rates, Instant.now());
         InvocationTargetException exception = assertThrows(InvocationTargetException.class, () ->
-                getExternalExchangeRateMethod.invoke(currencyExchangeService, Currency.USD, Currency.EUR));
+                getExternalExchangeRateMethod.invoke(currencyExchangeService, matrix, Currency.USD, Currency.EUR));
         assertTrue(exception.getCause() instanceof BalanceNotFoundException);
     }
 
 
+    @Test
+    void testExchangeCurrency_AppliesExchangeOnExecutorWhenRateArrives() {
+        Account account = new Account();
+        account.setAccountNumber("EE123456789012345678");
+        AccountBalance usdBalance = new AccountBalance();
+        usdBalance.setCurrency(Currency.USD);
+        usdBalance.setBalance(20000);
+        AccountBalance eurBalance = new AccountBalance();
+        eurBalance.setCurrency(Currency.EUR);
+        eurBalance.setBalance(1000);
+        when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.USD)).thenReturn(usdBalance);
+        when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.EUR)).thenReturn(eurBalance);
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(exchangeExecutor).execute(any());
+
+        CompletableFuture<ExchangeRateMatrix> rates = new CompletableFuture<>();
+        when(externalAPIService.getExchangeRateMatrixAsync()).thenReturn(rates);
+
+        CompletableFuture<AccountBalanceDTO> result = currencyExchangeService.exchangeCurrency(exchangeDTO("100"), account, "tester");
+        assertFalse(result.isDone());
+        verify(exchangeExecutor, never()).execute(any());
+
+        rates.complete(ExchangeRateMatrix.triangulate(Map.of("USD", 1.0, "EUR", 0.5), Instant.now()));
+
+        AccountBalanceDTO balances = result.join();
+        assertEquals("EE123456789012345678", balances.getAccountNumber());
+        assertEquals(10000, usdBalance.getBalance());
+        assertEquals(6000, eurBalance.getBalance());
+        verify(exchangeExecutor).execute(any());
+        assertEquals(1, meterRegistry.get("bank.exchange")
+                .tags("rate", "floating", "currency", "USD", "outcome", "success").timer().count());
+        assertEquals(100.0, meterRegistry.get("bank.exchange.amount")
+                .tags("rate", "floating", "currency", "USD").summary().totalAmount());
+    }
+
+    @Test
+    void testExchangeCurrency_FailsWithoutUsingExecutorWhenRateNotFound() {
+        when(externalAPIService.getExchangeRateMatrixAsync()).thenReturn(CompletableFuture.completedFuture(ExchangeRateMatrix.EMPTY));
+
+        CompletableFuture<AccountBalanceDTO> result = currencyExchangeService.exchangeCurrency(exchangeDTO("100"), new Account(), "tester");
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(BalanceNotFoundException.class, exception.getCause());
+        verifyNoInteractions(exchangeExecutor);
+        assertEquals(1, meterRegistry.get("bank.exchange")
+                .tags("rate", "floating", "currency", "USD", "outcome", "not-found").timer().count());
+    }
+
+    @Test
+    void testExchangeCurrency_RecordsInvalidAmount() {
+        assertThrows(IllegalArgumentException.class, () ->
+                currencyExchangeService.exchangeCurrency(exchangeDTO("1.001"), new Account(), "tester"));
+
+        verifyNoInteractions(externalAPIService, exchangeExecutor);
+        assertEquals(1, meterRegistry.get("bank.exchange")
+                .tags("rate", "floating", "currency", "USD", "outcome", "error").timer().count());
+        assertEquals(0, meterRegistry.get("bank.exchange.amount")
+                .tags("rate", "floating", "currency", "USD").summary().count());
+    }
+
     @Test
     void testGetFixedExchangeRate_Success() throws Exception {
         try (MockedStatic<ExchangeRateUtils> mockedStatic = mockStatic(ExchangeRateUtils.class)) {
@@ -107,19 +201,20 @@ class CurrencyExchangeServiceTest {
 
         AccountBalance fromBalance = new AccountBalance();
         fromBalance.setCurrency(Currency.USD);
-        fromBalance.setBalance(new BigDecimal("200"));
+        fromBalance.setBalance(20000);
 
         AccountBalance toBalance = new AccountBalance();
         toBalance.setCurrency(Currency.EUR);
-        toBalance.setBalance(new BigDecimal("50"));
+        toBalance.setBalance(5000);
 
         when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.EUR)).thenReturn(toBalance);
 
-        BigDecimal convertedAmount = new BigDecimal("40");
-        AccountBalance result = (AccountBalance) updateBalancesMethod.invoke(currencyExchangeService, account, fromBalance, Currency.EUR, convertedAmount, "tester");
+        Money amount = Money.ofMinor(5000, Currency.USD);
+        Money convertedAmount = Money.ofMinor(4000, Currency.EUR);
+        AccountBalance result = (AccountBalance) updateBalancesMethod.invoke(currencyExchangeService, account, fromBalance, amount, convertedAmount, "tester");
 
-        assertEquals(new BigDecimal("160"), fromBalance.getBalance());
-        assertEquals(new BigDecimal("90"), toBalance.getBalance());
+        assertEquals(15000, fromBalance.getBalance());
+        assertEquals(9000, toBalance.getBalance());
         assertSame(toBalance, result);
     }
 
@@ -129,20 +224,21 @@ class CurrencyExchangeServiceTest {
 
         AccountBalance fromBalance = new AccountBalance();
         fromBalance.setCurrency(Currency.USD);
-        fromBalance.setBalance(new BigDecimal("200"));
+        fromBalance.setBalance(20000);
 
         when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.EUR)).thenReturn(null);
-        BigDecimal convertedAmount = new BigDecimal("40");
+        Money amount = Money.ofMinor(5000, Currency.USD);
+        Money convertedAmount = Money.ofMinor(4000, Currency.EUR);
 
         AccountBalance newToBalance = new AccountBalance();
         newToBalance.setCurrency(Currency.EUR);
-        newToBalance.setBalance(convertedAmount);
-        when(accountBalanceService.buildAccountBalanceEntity(account, convertedAmount, Currency.EUR, "tester"))
+        newToBalance.setBalance(convertedAmount.minorUnits());
+        when(accountBalanceService.buildAccountBalanceEntity(account, convertedAmount, "tester"))
                 .thenReturn(newToBalance);
 
-        AccountBalance result = (AccountBalance) updateBalancesMethod.invoke(currencyExchangeService, account, fromBalance, Currency.EUR, convertedAmount, "tester");
-        assertEquals(new BigDecimal("160"), fromBalance.getBalance());
-        assertEquals(new BigDecimal("40"), newToBalance.getBalance());
+        AccountBalance result = (AccountBalance) updateBalancesMethod.invoke(currencyExchangeService, account, fromBalance, amount, convertedAmount, "tester");
+        assertEquals(15000, fromBalance.getBalance());
+        assertEquals(4000, newToBalance.getBalance());
         assertSame(newToBalance, result);
     }
 
@@ -151,12 +247,13 @@ class CurrencyExchangeServiceTest {
         Account account = new Account();
 
         AccountBalance balance = new AccountBalance();
-        balance.setBalance(new BigDecimal("50"));
+        balance.setCurrency(Currency.USD);
+        balance.setBalance(5000);
 
         when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.USD))
                 .thenReturn(balance);
         InsufficientBalanceException exception = assertThrows(InsufficientBalanceException.class, () ->
-                currencyExchangeService.validateAndGetBalance(account, Currency.USD, new BigDecimal("100")));
+                currencyExchangeService.validateAndGetBalance(account, Money.ofMinor(10000, Currency.USD)));
         assertInstanceOf(InsufficientBalanceException.class, exception);
         assertEquals("Insufficient balance", exception.getMessage());
     }
@@ -167,8 +264,23 @@ class CurrencyExchangeServiceTest {
         when(accountBalanceRepository.findByAccountIdAndCurrency(account.getId(), Currency.USD))
                 .thenReturn(null);
         BalanceNotFoundException exception = assertThrows(BalanceNotFoundException.class, () ->
-                currencyExchangeService.validateAndGetBalance(account, Currency.USD, new BigDecimal("100")));
+                currencyExchangeService.validateAndGetBalance(account, Money.ofMinor(10000, Currency.USD)));
         assertInstanceOf(BalanceNotFoundException.class, exception);
         assertEquals("Account balance not found", exception.getMessage());
     }
+
+    private static ExchangeCurrencyDTO exchangeDTO(String amount) {
+        ExchangeCurrencyDTO dto = new ExchangeCurrencyDTO();
+        dto.setAccountNumber("EE123456789012345678");
+        dto.setFromCurrency(Currency.USD);
+        dto.setToCurrency(Currency.EUR);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+
+    private static AccountLockManager createLockManager() {
+        AccountLockConf config = new AccountLockConf();
+        config.setStripes(4);
+        return new AccountLockManager(config, new SimpleMeterRegistry());
+    }
 }
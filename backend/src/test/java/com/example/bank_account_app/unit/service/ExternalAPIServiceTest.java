@@ -0,0 +1,203 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.CurrencyExchangeConf;
+import com.example.bank_account_app.config.ExecutionConf;
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.service.ExchangeRatesClientExecutor;
+import com.example.bank_account_app.service.ExternalAPIService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalAPIServiceTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String lastPath;
+    private volatile double usdRate = 1.10;
+    private volatile CountDownLatch releaseResponses = new CountDownLatch(0);
+    private SimpleMeterRegistry meterRegistry;
+    private CurrencyExchangeConf config;
+    private ExecutionConf executionConf;
+    private ExchangeRatesClientExecutor clientExecutor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/latest/", exchange -> {
+            requests.incrementAndGet();
+            lastPath = exchange.getRequestURI().getPath();
+            try {
+                releaseResponses.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"result\":\"success\",\"base_code\":\"EUR\",\"rates\":{\"EUR\":1,\"USD\":" + usdRate + "}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        config = new CurrencyExchangeConf();
+        config.setTimeout(Duration.ofSeconds(5));
+        config.setCurrencyExchangeEndpoint("http://localhost:" + server.getAddress().getPort() + "/latest/");
+        config.setCacheTtl(Duration.ofMinutes(10));
+        config.setCacheRefreshAfter(Duration.ofMinutes(8));
+        config.setCacheMaxSize(10);
+        config.setBaseCurrency(Currency.USD);
+        executionConf = new ExecutionConf();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        if (clientExecutor != null) {
+            clientExecutor.stop();
+        }
+    }
+
+    @Test
+    void shouldServeRepeatedRequestsFromCache() {
+        ExternalAPIService service = newService();
+
+        ExchangeRateMatrix first = service.getExchangeRateMatrixAsync().join();
+        ExchangeRateMatrix second = service.getExchangeRateMatrixAsync().join();
+
+        assertEquals(1.10, first.getRate(Currency.EUR, Currency.USD), 1e-9);
+        assertSame(first, second);
+        assertEquals(1, requests.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "exchange-rates").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("bank.exchange.rates.fetch").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void shouldCoalesceConcurrentMisses() {
+        ExternalAPIService service = newService();
+        releaseResponses = new CountDownLatch(1);
+
+        List<CompletableFuture<ExchangeRateMatrix>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> service.getExchangeRateMatrixAsync().join()));
+        }
+        releaseResponses.countDown();
+
+        results.forEach(result -> assertEquals(1.10, result.join().getRate(Currency.EUR, Currency.USD), 1e-9));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void shouldNotCacheFailedFetch() {
+        ExternalAPIService service = newService();
+        status = 500;
+
+        assertSame(ExchangeRateMatrix.EMPTY, service.getExchangeRateMatrixAsync().join());
+        int failedRequests = requests.get();
+
+        status = 200;
+        assertEquals(1.10, eurToUsd(service), 1e-9);
+        assertEquals(failedRequests + 1, requests.get());
+    }
+
+    @Test
+    void shouldRefreshAheadOfExpiryInBackground() throws InterruptedException {
+        config.setCacheRefreshAfter(Duration.ofMillis(50));
+        ExternalAPIService service = newService();
+        eurToUsd(service);
+        Thread.sleep(100);
+        usdRate = 1.20;
+        releaseResponses = new CountDownLatch(1);
+
+        // The stale value is returned immediately while the refresh runs
+        assertEquals(1.10, eurToUsd(service), 1e-9);
+        releaseResponses.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Math.abs(eurToUsd(service) - 1.20) > 1e-9 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1.20, eurToUsd(service), 1e-9);
+        assertEquals(2, requests.get());
+        assertTrue(service.getOldestRatesAge().toMillis() < 1000);
+    }
+
+    @Test
+    void shouldDeriveAllCrossRatesFromOneBaseFetch() {
+        ExternalAPIService service = newService();
+
+        ExchangeRateMatrix matrix = service.getExchangeRateMatrixAsync().join();
+        service.getExchangeRateMatrixAsync().join();
+
+        assertEquals(1, requests.get());
+        assertEquals("/latest/USD", lastPath);
+        assertEquals(1.10, matrix.getRate(Currency.EUR, Currency.USD), 1e-9);
+        assertEquals(1 / 1.10, matrix.getRate(Currency.USD, Currency.EUR), 1e-9);
+        assertEquals(1.0, matrix.getRate(Currency.EUR, Currency.EUR), 1e-9);
+        assertEquals(0.0, matrix.getRate(Currency.EUR, Currency.KRW));
+        assertNotNull(matrix.getFetchedAt());
+    }
+
+    @Test
+    void shouldNotBlockCallerWhileRatesAreFetched() {
+        ExternalAPIService service = newService();
+        releaseResponses = new CountDownLatch(1);
+
+        CompletableFuture<ExchangeRateMatrix> matrix = service.getExchangeRateMatrixAsync();
+        assertFalse(matrix.isDone());
+
+        releaseResponses.countDown();
+        assertEquals(1.10, matrix.join().getRate(Currency.EUR, Currency.USD), 1e-9);
+        assertTrue(service.getExchangeRateMatrixAsync().isDone());
+    }
+
+    @Test
+    void shouldReturnEmptyMatrixWhenFetchFails() {
+        status = 500;
+        ExternalAPIService service = newService();
+
+        assertSame(ExchangeRateMatrix.EMPTY, service.getExchangeRateMatrixAsync().join());
+    }
+
+    @Test
+    void shouldFetchRatesWithVirtualThreads() {
+        executionConf.setVirtualThreads(true);
+        ExternalAPIService service = newService();
+
+        assertEquals(1.10, service.getExchangeRateMatrixAsync().join().getRate(Currency.EUR, Currency.USD), 1e-9);
+    }
+
+    private ExternalAPIService newService() {
+        clientExecutor = new ExchangeRatesClientExecutor(executionConf);
+        return new ExternalAPIService(config, clientExecutor, WebClient.builder(), meterRegistry);
+    }
+
+    private static double eurToUsd(ExternalAPIService service) {
+        return service.getExchangeRateMatrixAsync().join().getRate(Currency.EUR, Currency.USD);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.FixedRatesConf;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.service.FixedRateService;
+import com.example.bank_account_app.util.ExchangeRateUtils;
+import com.example.bank_account_app.util.ExchangeRateUtils.FixedRates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedRateServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path ratesFile;
+    private SimpleMeterRegistry meterRegistry;
+    private FixedRateService fixedRateService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ratesFile = tempDir.resolve("fixed-rates.properties");
+        Files.writeString(ratesFile, "EUR.USD=1.20\nUSD.EUR=0.80\n");
+        FixedRatesConf config = new FixedRatesConf();
+        config.setLocation(ratesFile.toUri().toString());
+        meterRegistry = new SimpleMeterRegistry();
+        fixedRateService = new FixedRateService(config, new DefaultResourceLoader(), meterRegistry);
+        fixedRateService.load();
+    }
+
+    @AfterEach
+    void restoreDefaultRates() {
+        ExchangeRateUtils.install(ExchangeRateUtils.read(new DefaultResourceLoader().getResource(ExchangeRateUtils.DEFAULT_LOCATION)));
+    }
+
+    @Test
+    void shouldLoadRatesFromConfiguredFile() {
+        assertEquals(1.20, ExchangeRateUtils.getExchangeRate(Currency.EUR, Currency.USD));
+        assertEquals(0.80, ExchangeRateUtils.getExchangeRate(Currency.USD, Currency.EUR));
+    }
+
+    @Test
+    void shouldReloadChangedFileAsNewVersion() throws IOException {
+        long version = fixedRateService.getFixedRates().version();
+        Files.writeString(ratesFile, "EUR.USD=1.30\n");
+
+        FixedRates reloaded = fixedRateService.reload();
+
+        assertEquals(version + 1, reloaded.version());
+        assertEquals(1.30, ExchangeRateUtils.getExchangeRate(Currency.EUR, Currency.USD));
+        assertEquals(reloaded.version(), meterRegistry.get("bank.exchange.fixed-rates.version").gauge().value());
+    }
+
+    @Test
+    void shouldKeepCurrentRatesWhenFileIsInvalid() throws IOException {
+        FixedRates current = fixedRateService.getFixedRates();
+        Files.writeString(ratesFile, "EUR.USD=not-a-rate\n");
+
+        assertThrows(IllegalArgumentException.class, () -> fixedRateService.reload());
+
+        assertSame(current, fixedRateService.getFixedRates());
+        assertEquals(1.20, ExchangeRateUtils.getExchangeRate(Currency.EUR, Currency.USD));
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.bank_account_app.unit.service;
+
+import com.example.bank_account_app.config.IdempotencyConf;
+import com.example.bank_account_app.dto.AccountBalanceDTO;
+import com.example.bank_account_app.dto.CreditBalanceDTO;
+import com.example.bank_account_app.dto.IdempotentResponse;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.exceptions.LedgerBusyException;
+import com.example.bank_account_app.exceptions.OutcomeUnknownException;
+import com.example.bank_account_app.repository.IdempotencyKeyRepository;
+import com.example.bank_account_app.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private static final String KEY = "retry-1";
+
+    @Mock
+    private IdempotencyKeyRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(repository.claim(anyString(), anyLong(), any())).thenReturn(true);
+        idempotencyService = new IdempotencyService(repository, createConfig(), objectMapper, meterRegistry);
+    }
+
+    @Test
+    void shouldReplayStoredResponseWithoutRunningAgain() {
+        ResponseEntity<?> first = idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+
+        assertEquals(1, runs.get());
+        assertEquals("credited", first.getBody());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals("credited", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, meterRegistry.counter("bank.idempotency.replays").count());
+        verify(repository, times(1)).claim(eq(KEY), anyLong(), any());
+        verify(repository).complete(eq(KEY), argThat(response -> response.status() == 200
+                && "credited".equals(response.body()) && MediaType.TEXT_PLAIN_VALUE.equals(response.contentType())));
+    }
+
+    @Test
+    void shouldRunEveryRequestWithoutKey() {
+        idempotencyService.execute(null, "credit", credit("10"), this::credited);
+        idempotencyService.execute(null, "credit", credit("10"), this::credited);
+
+        assertEquals(2, runs.get());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+                idempotencyService.execute(KEY, "credit", credit("11"), this::credited).getStatusCode());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+                idempotencyService.execute(KEY, "debit", credit("10"), this::credited).getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void shouldRejectRetryWhileFirstRequestIsInProgress() {
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "credit", credit("10"), () -> {
+            runs.incrementAndGet();
+            return idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+        });
+
+        assertEquals(HttpStatus.CONFLICT, retry.getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void shouldReplayResponseStoredByAnotherInstance() throws Exception {
+        ArgumentCaptor<Long> fingerprint = ArgumentCaptor.forClass(Long.class);
+        AccountBalanceDTO balances = new AccountBalanceDTO("EE123456789012345678", List.of());
+        when(repository.claim(eq(KEY), fingerprint.capture(), any())).thenReturn(false);
+        when(repository.find(KEY)).thenAnswer(invocation -> Optional.of(new IdempotentResponse(fingerprint.getValue(), 200,
+                MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsString(balances))));
+
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "fixed-exchange", credit("10"), this::credited);
+
+        assertEquals(0, runs.get());
+        assertEquals(MediaType.APPLICATION_JSON, retry.getHeaders().getContentType());
+        assertEquals(balances, objectMapper.readValue((String) retry.getBody(), AccountBalanceDTO.class));
+    }
+
+    @Test
+    void shouldClaimKeyAgainWhenFirstRequestIsStale() {
+        when(repository.claim(eq(KEY), anyLong(), any())).thenReturn(false);
+        when(repository.find(KEY)).thenAnswer(invocation -> Optional.of(IdempotentResponse.pending(1)));
+        when(repository.takeOver(eq(KEY), anyLong(), any(), any())).thenReturn(true);
+
+        assertEquals(HttpStatus.OK, idempotencyService.execute(KEY, "credit", credit("10"), this::credited).getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void shouldForgetClaimWhenDatabaseFails() {
+        when(repository.claim(eq(KEY), anyLong(), any())).thenThrow(new QueryTimeoutException("pool exhausted"))
+                .thenReturn(true);
+
+        assertThrows(QueryTimeoutException.class,
+                () -> idempotencyService.execute(KEY, "credit", credit("10"), this::credited));
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals("credited", retry.getBody());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void shouldReleaseKeyWhenRequestThrowsError() {
+        assertThrows(StackOverflowError.class, () -> idempotencyService.execute(KEY, "credit", credit("10"), () -> {
+            throw new StackOverflowError();
+        }));
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+
+        assertEquals("credited", retry.getBody());
+        verify(repository).delete(KEY);
+    }
+
+    @Test
+    void shouldReleaseKeyWhenRequestFails() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(KEY, "credit", credit("10"), () -> {
+            throw new IllegalStateException("database down");
+        }));
+        ResponseEntity<?> serverError = idempotencyService.execute(KEY, "credit", credit("10"),
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, serverError.getStatusCode());
+        assertEquals("credited", retry.getBody());
+        verify(repository, times(2)).delete(KEY);
+    }
+
+    @Test
+    void shouldReleaseKeyWhenLedgerIsBusy() {
+        assertThrows(LedgerBusyException.class, () -> idempotencyService.execute(KEY, "credit", credit("10"), () -> {
+            throw new LedgerBusyException("Ledger operation timed out");
+        }));
+
+        assertEquals("credited", idempotencyService.execute(KEY, "credit", credit("10"), this::credited).getBody());
+        verify(repository).delete(KEY);
+    }
+
+    @Test
+    void shouldKeepKeyWhenOutcomeIsUnknown() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(KEY, "credit", credit("10"), () -> {
+            throw new IllegalStateException("Transaction was not recorded",
+                    new OutcomeUnknownException("Ledger operation is still being applied"));
+        }));
+        ResponseEntity<?> retry = idempotencyService.execute(KEY, "credit", credit("10"), this::credited);
+
+        assertEquals(0, runs.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(repository, never()).delete(KEY);
+        verify(repository).complete(eq(KEY), argThat(response -> response.status() == 503));
+    }
+
+    @Test
+    void shouldKeepKeyWhenAsyncOutcomeIsUnknown() {
+        CompletableFuture<ResponseEntity<?>> first = idempotencyService.executeAsync(KEY, "floating-exchange",
+                credit("10"), () -> CompletableFuture.failedFuture(new OutcomeUnknownException("Ledger operation interrupted")));
+
+        assertThrows(CompletionException.class, first::join);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, idempotencyService.executeAsync(KEY, "floating-exchange",
+                credit("10"), () -> CompletableFuture.completedFuture(credited())).join().getStatusCode());
+        assertEquals(0, runs.get());
+        verify(repository, never()).delete(KEY);
+    }
+
+    @Test
+    void shouldStoreAsyncResponseOnceCompleted() {
+        CompletableFuture<ResponseEntity<?>> pending = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> first = idempotencyService.executeAsync(KEY, "floating-exchange",
+                credit("10"), () -> pending);
+
+        assertEquals(HttpStatus.CONFLICT, idempotencyService.executeAsync(KEY, "floating-exchange", credit("10"),
+                () -> CompletableFuture.completedFuture(credited())).join().getStatusCode());
+        pending.complete(ResponseEntity.ok("exchanged"));
+
+        assertEquals("exchanged", first.join().getBody());
+        assertEquals("exchanged", idempotencyService.executeAsync(KEY, "floating-exchange", credit("10"),
+                () -> CompletableFuture.completedFuture(credited())).join().getBody());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void shouldRejectInvalidKey() {
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute(" ", "credit", credit("10"), this::credited));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute("k".repeat(256), "credit", credit("10"), this::credited));
+    }
+
+    @Test
+    void shouldDeleteKeysOlderThanTtl() {
+        idempotencyService.deleteExpiredKeys();
+
+        verify(repository).deleteCreatedBefore(argThat(time -> time.isBefore(LocalDateTime.now().minusMinutes(59))));
+    }
+
+    private ResponseEntity<?> credited() {
+        runs.incrementAndGet();
+        return ResponseEntity.ok("credited");
+    }
+
+    private static CreditBalanceDTO credit(String amount) {
+        CreditBalanceDTO credit = new CreditBalanceDTO();
+        credit.setAccountNumber("EE123456789012345678");
+        credit.setCurrency(Currency.EUR);
+        credit.setAmount(new BigDecimal(amount));
+        return credit;
+    }
+
+    private static IdempotencyConf createConfig() {
+        IdempotencyConf config = new IdempotencyConf();
+        config.setMaxSize(100);
+        config.setTtl(Duration.ofHours(1));
+        config.setPendingTimeout(Duration.ofSeconds(30));
+        config.setCleanupInterval(Duration.ofMinutes(10));
+        return config;
+    }
+}
@@ -1,18 +1,32 @@
 package com.example.bank_account_app.unit.service;
 
+import com.example.bank_account_app.dto.Money;
 import com.example.bank_account_app.dto.TransactionCommand;
+import com.example.bank_account_app.dto.TransactionCursor;
+import com.example.bank_account_app.dto.TransactionDTO;
+import com.example.bank_account_app.dto.TransactionFilter;
 import com.example.bank_account_app.enums.Currency;
 import com.example.bank_account_app.enums.TransactionType;
+import com.example.bank_account_app.journal.TransactionJournal;
 import com.example.bank_account_app.model.Account;
 import com.example.bank_account_app.model.Transaction;
+import com.example.bank_account_app.repository.TransactionHistoryRepository;
 import com.example.bank_account_app.repository.TransactionRepository;
 import com.example.bank_account_app.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class TransactionServiceTest {
@@ -20,6 +34,15 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransactionJournal transactionJournal;
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -39,29 +62,68 @@ class TransactionServiceTest {
     void shouldCreateNewDebitTransaction() {
         TransactionCommand cmd = TransactionCommand.builder()
                 .account(new Account())
-                .amount(100)
-                .currency(Currency.EUR)
+                .amount(Money.ofMinor(100, Currency.EUR))
                 .type(TransactionType.DEBIT)
                 .createdBy("user")
                 .build();
 
         transactionService.createNewTransaction(cmd);
 
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionJournal, times(1)).record(cmd);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        assertEquals(1, meterRegistry.get("bank.transaction.save")
+                .tags("type", "debit", "currency", "EUR", "outcome", "success").timer().count());
     }
 
     @Test
     void shouldCreateNewCreditTransaction() {
         TransactionCommand cmd = TransactionCommand.builder()
                 .account(new Account())
-                .amount(100)
-                .currency(Currency.EUR)
+                .amount(Money.ofMinor(100, Currency.EUR))
                 .type(TransactionType.CREDIT)
                 .createdBy("user")
                 .build();
 
         transactionService.createNewTransaction(cmd);
 
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionJournal, times(1)).record(cmd);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void shouldCreateNewTransactionsTogether() {
+        List<TransactionCommand> commands = List.of(
+                TransactionCommand.builder().account(new Account()).type(TransactionType.CREDIT).build(),
+                TransactionCommand.builder().account(new Account()).type(TransactionType.DEBIT).build());
+
+        transactionService.createNewTransactions(commands);
+
+        verify(transactionJournal, times(1)).recordAll(commands);
+        assertEquals(1, meterRegistry.get("bank.transaction.save.batch").tags("outcome", "success").timer().count());
+        assertEquals(2.0, meterRegistry.get("bank.transaction.save.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void shouldRecordFailedTransactionBatch() {
+        List<TransactionCommand> commands = List.of(
+                TransactionCommand.builder().account(new Account()).type(TransactionType.CREDIT).build());
+        doThrow(new IllegalStateException("journal is full")).when(transactionJournal).recordAll(commands);
+
+        assertThrows(IllegalStateException.class, () -> transactionService.createNewTransactions(commands));
+
+        assertEquals(1, meterRegistry.get("bank.transaction.save.batch").tags("outcome", "error").timer().count());
+        assertEquals(0, meterRegistry.get("bank.transaction.save.batch").tags("outcome", "success").timer().count());
+    }
+
+    @Test
+    void shouldGetTransactionHistoryOfAccount() {
+        Account account = Account.builder().id(3).build();
+        TransactionFilter filter = new TransactionFilter(Currency.EUR, null, null, null);
+        TransactionCursor after = new TransactionCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 10L);
+        List<TransactionDTO> page = List.of(new TransactionDTO(9L, TransactionType.CREDIT, BigDecimal.ONE,
+                Currency.EUR, LocalDateTime.of(2024, 12, 31, 0, 0)));
+        when(transactionHistoryRepository.findPage(3L, filter, after, 20)).thenReturn(page);
+
+        assertEquals(page, transactionService.getTransactionHistory(account, filter, after, 20));
     }
 }
@@ -0,0 +1,35 @@
+package com.example.bank_account_app.unit.util;
+
+import com.example.bank_account_app.util.AccountNumberCodec;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNumberCodecTest {
+
+    @Test
+    void shouldEncodeDigitsOfAccountNumber() {
+        assertEquals(123456789012345678L, AccountNumberCodec.encode("EE123456789012345678"));
+        assertEquals(1, AccountNumberCodec.encode("EE000000000000000001"));
+        assertEquals(AccountNumberCodec.MAX_KEY, AccountNumberCodec.encode("EE999999999999999999"));
+    }
+
+    @Test
+    void shouldDecodeWithLeadingZeros() {
+        assertEquals("EE000000000000000001", AccountNumberCodec.decode(1));
+        assertEquals("EE123456789012345678", AccountNumberCodec.decode(123456789012345678L));
+        assertThrows(IllegalArgumentException.class, () -> AccountNumberCodec.decode(-1));
+        assertThrows(IllegalArgumentException.class, () -> AccountNumberCodec.decode(AccountNumberCodec.MAX_KEY + 1));
+    }
+
+    @Test
+    void shouldRejectValuesThatAreNotAccountNumbers() {
+        assertEquals(AccountNumberCodec.INVALID, AccountNumberCodec.encode(null));
+        assertEquals(AccountNumberCodec.INVALID, AccountNumberCodec.encode("EE12345678901234567"));
+        assertEquals(AccountNumberCodec.INVALID, AccountNumberCodec.encode("EE1234567890123456789"));
+        assertEquals(AccountNumberCodec.INVALID, AccountNumberCodec.encode("LV123456789012345678"));
+        assertEquals(AccountNumberCodec.INVALID, AccountNumberCodec.encode("EE12345678901234567X"));
+        assertEquals(AccountNumberCodec.INVALID, AccountNumberCodec.encode("EE-12345678901234567"));
+        assertFalse(AccountNumberCodec.isValid("ee123456789012345678"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bank_account_app.unit.util;
+
+import com.example.bank_account_app.util.AccountNumberCodec;
+import com.example.bank_account_app.util.AccountNumberPermutation;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNumberPermutationTest {
+
+    @Test
+    void shouldMapDifferentValuesToDifferentKeys() {
+        AccountNumberPermutation permutation = new AccountNumberPermutation(42);
+        Set<Long> keys = new HashSet<>();
+        for (long value = 0; value < 100_000; value++) {
+            long key = permutation.permute(value);
+            assertTrue(key >= 0 && key <= AccountNumberCodec.MAX_KEY);
+            assertTrue(keys.add(key), "Key " + key + " was already used");
+        }
+        assertTrue(keys.add(permutation.permute(AccountNumberCodec.MAX_KEY)));
+    }
+
+    @Test
+    void shouldDependOnKey() {
+        AccountNumberPermutation permutation = new AccountNumberPermutation(42);
+
+        assertEquals(permutation.permute(7), new AccountNumberPermutation(42).permute(7));
+        assertNotEquals(permutation.permute(7), new AccountNumberPermutation(43).permute(7));
+        // Consecutive values are not close to each other
+        assertTrue(Math.abs(permutation.permute(8) - permutation.permute(7)) > 1_000_000);
+    }
+
+    @Test
+    void shouldRejectValuesOutOfRange() {
+        AccountNumberPermutation permutation = new AccountNumberPermutation(42);
+
+        assertThrows(IllegalArgumentException.class, () -> permutation.permute(-1));
+        assertThrows(IllegalArgumentException.class, () -> permutation.permute(AccountNumberCodec.MAX_KEY + 1));
+    }
+}
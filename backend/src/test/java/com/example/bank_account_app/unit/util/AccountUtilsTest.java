@@ -7,16 +7,6 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class AccountUtilsTest {
 
-    @Test
-    void shouldGenerateValidAccountNumber() {
-        String accountNumber = AccountUtils.generateAccountNumber();
-
-        assertNotNull(accountNumber, "Generated account number should not be null");
-        assertEquals(20, accountNumber.length(), "Generated account number should be 20 characters long");
-        assertTrue(accountNumber.startsWith("EE"), "Generated account number should start with 'EE'");
-        assertTrue(accountNumber.matches("^EE\\d{18}$"), "Generated account number should follow the correct format");
-    }
-
     @Test
     void shouldValidateCorrectAccountNumber() {
         String validAccountNumber = "EE123456789012345678";
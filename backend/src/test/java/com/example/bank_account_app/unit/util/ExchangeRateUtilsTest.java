@@ -1,14 +1,26 @@
 package com.example.bank_account_app.unit.util;
 
 
+import com.example.bank_account_app.dto.ExchangeRateMatrix;
 import com.example.bank_account_app.enums.Currency;
 import com.example.bank_account_app.util.ExchangeRateUtils;
+import com.example.bank_account_app.util.ExchangeRateUtils.FixedRates;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class ExchangeRateUtilsTest {
 
+    @AfterEach
+    void restoreDefaultRates() {
+        ExchangeRateUtils.install(ExchangeRateUtils.read(new DefaultResourceLoader().getResource(ExchangeRateUtils.DEFAULT_LOCATION)));
+    }
+
     @Test
     void testGetExchangeRateForSameCurrency() {
         Currency from = Currency.EUR;
@@ -39,4 +51,49 @@ class ExchangeRateUtilsTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void testDefaultRatesCoverAllCurrencyPairs() {
+        for (Currency from : Currency.values()) {
+            for (Currency to : Currency.values()) {
+                assertTrue(ExchangeRateUtils.getExchangeRate(from, to) > 0, from + " -> " + to);
+            }
+        }
+        assertEquals(1318.18, ExchangeRateUtils.getExchangeRate(Currency.USD, Currency.KRW));
+        assertEquals(0.066, ExchangeRateUtils.getExchangeRate(Currency.KRW, Currency.RUB));
+    }
+
+    @Test
+    void testInstallReplacesRatesWithNewVersion() {
+        long version = ExchangeRateUtils.getFixedRates().version();
+
+        FixedRates installed = ExchangeRateUtils.install(ExchangeRateUtils.read(rates("EUR.USD=1.25")));
+
+        assertEquals(version + 1, installed.version());
+        assertEquals(1.25, ExchangeRateUtils.getExchangeRate(Currency.EUR, Currency.USD));
+        assertEquals(1.0, ExchangeRateUtils.getExchangeRate(Currency.SEK, Currency.SEK));
+        assertEquals(0, ExchangeRateUtils.getExchangeRate(Currency.USD, Currency.EUR));
+    }
+
+    @Test
+    void testReadRejectsInvalidRates() {
+        assertThrows(IllegalArgumentException.class, () -> ExchangeRateUtils.read(rates("EUR.JPY=160")));
+        assertThrows(IllegalArgumentException.class, () -> ExchangeRateUtils.read(rates("EURUSD=1.1")));
+        assertThrows(IllegalArgumentException.class, () -> ExchangeRateUtils.read(rates("EUR.USD=abc")));
+        assertThrows(IllegalArgumentException.class, () -> ExchangeRateUtils.read(rates("EUR.USD=-1")));
+        assertThrows(IllegalArgumentException.class, () -> ExchangeRateUtils.read(rates("EUR.EUR=2")));
+    }
+
+    @Test
+    void testReadBuildsMatrix() {
+        ExchangeRateMatrix matrix = ExchangeRateUtils.read(rates("EUR.USD=1.10\nUSD.EUR = 0.91\n"));
+
+        assertEquals(1.10, matrix.getRate(Currency.EUR, Currency.USD));
+        assertEquals(0.91, matrix.getRate(Currency.USD, Currency.EUR));
+        assertEquals(2, matrix.toMap().size());
+        assertNotNull(matrix.getFetchedAt());
+    }
+
+    private ByteArrayResource rates(String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.bank_account_app.unit.util;
+
+import com.example.bank_account_app.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void shouldGenerateIncreasingIds() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous, "Ids should be strictly increasing");
+            previous = next;
+        }
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(80_000, ids.size(), "Ids should be unique");
+    }
+
+    @Test
+    void shouldEncodeNodeIdAndCreationTime() {
+        Instant before = Instant.now().minusMillis(1);
+        long id = new SnowflakeIdGenerator(5).nextId();
+
+        long nodeId = (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID;
+        assertEquals(5, nodeId);
+        Instant created = SnowflakeIdGenerator.timestampOf(id);
+        assertFalse(created.isBefore(before));
+        assertTrue(Duration.between(before, created).toSeconds() < 5);
+        assertTrue(SnowflakeIdGenerator.lowestIdAt(created) <= id);
+        assertTrue(SnowflakeIdGenerator.lowestIdAt(created.plusMillis(1)) > id);
+    }
+
+    @Test
+    void shouldRejectInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bank_account_app.unit.validation;
+
+import com.example.bank_account_app.dto.CreditBalanceDTO;
+import com.example.bank_account_app.enums.Currency;
+import com.example.bank_account_app.validation.AccountNumberValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNumberValidatorTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    private final AccountNumberValidator accountNumberValidator = new AccountNumberValidator();
+
+    @BeforeAll
+    static void setUpValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldAcceptNullSoNotBlankReportsIt() {
+        assertTrue(accountNumberValidator.isValid(null, null));
+    }
+
+    @Test
+    void shouldAcceptValidAccountNumber() {
+        assertTrue(accountNumberValidator.isValid("EE123456789012345678", null));
+        assertTrue(accountNumberValidator.isValid("EE000000000000000000", null));
+    }
+
+    @Test
+    void shouldRejectWrongLength() {
+        assertFalse(accountNumberValidator.isValid("", null));
+        assertFalse(accountNumberValidator.isValid("EE", null));
+        assertFalse(accountNumberValidator.isValid("EE12345678901234567", null));
+        assertFalse(accountNumberValidator.isValid("EE1234567890123456789", null));
+    }
+
+    @Test
+    void shouldRejectNonDigits() {
+        assertFalse(accountNumberValidator.isValid("EE12345678901234567X", null));
+        assertFalse(accountNumberValidator.isValid("EE 12345678901234567", null));
+        assertFalse(accountNumberValidator.isValid("EE+12345678901234567", null));
+        assertFalse(accountNumberValidator.isValid("LV123456789012345678", null));
+        assertFalse(accountNumberValidator.isValid("ee123456789012345678", null));
+    }
+
+    @Test
+    void shouldReportInvalidAccountNumberOfAnnotatedField() {
+        Set<ConstraintViolation<CreditBalanceDTO>> violations = validator.validate(
+                new CreditBalanceDTO("EE12345678901234567X", Currency.EUR, BigDecimal.TEN));
+
+        assertEquals(1, violations.size());
+        ConstraintViolation<CreditBalanceDTO> violation = violations.iterator().next();
+        assertEquals("accountNumber", violation.getPropertyPath().toString());
+        assertEquals("Invalid account number format", violation.getMessage());
+    }
+
+    @Test
+    void shouldReportOnlyNotBlankForMissingAccountNumber() {
+        Set<ConstraintViolation<CreditBalanceDTO>> violations = validator.validate(
+                new CreditBalanceDTO(null, Currency.EUR, BigDecimal.TEN));
+
+        assertEquals(1, violations.size());
+        assertEquals("Account number cannot be empty", violations.iterator().next().getMessage());
+    }
+
+    @Test
+    void shouldAcceptValidAccountNumberOfAnnotatedField() {
+        assertTrue(validator.validate(new CreditBalanceDTO("EE123456789012345678", Currency.EUR, BigDecimal.TEN))
+                .isEmpty());
+    }
+}